@@ -11,8 +11,8 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -117,60 +117,56 @@ public class DataInitializer implements CommandLineRunner {
             System.out.println("DataInitializer: Creating comprehensive dummy data...");
             
             // Create hospitals
-            Hospital hospital1 = Hospital.builder()
-                    .name("City General Hospital")
-                    .address("123 Main Street, Colombo 03")
-                    .contactNumber("+94-11-234-5678")
-                    .createdAt(Instant.now())
-                    .build();
-            hospital1 = hospitalRepository.save(hospital1);
-
-            Hospital hospital2 = Hospital.builder()
-                    .name("Central Medical Center")
-                    .address("456 Health Avenue, Kandy")
-                    .contactNumber("+94-81-234-5678")
-                    .createdAt(Instant.now())
-                    .build();
-            hospital2 = hospitalRepository.save(hospital2);
-
-            Hospital hospital3 = Hospital.builder()
-                    .name("LankaMed Specialized Clinic")
-                    .address("789 Medical Complex, Galle")
-                    .contactNumber("+94-91-234-5678")
-                    .createdAt(Instant.now())
-                    .build();
-            hospital3 = hospitalRepository.save(hospital3);
+            List<Hospital> hospitals = hospitalRepository.saveAll(List.of(
+                    Hospital.builder()
+                            .name("City General Hospital")
+                            .address("123 Main Street, Colombo 03")
+                            .contactNumber("+94-11-234-5678")
+                            .createdAt(Instant.now())
+                            .build(),
+                    Hospital.builder()
+                            .name("Central Medical Center")
+                            .address("456 Health Avenue, Kandy")
+                            .contactNumber("+94-81-234-5678")
+                            .createdAt(Instant.now())
+                            .build(),
+                    Hospital.builder()
+                            .name("LankaMed Specialized Clinic")
+                            .address("789 Medical Complex, Galle")
+                            .contactNumber("+94-91-234-5678")
+                            .createdAt(Instant.now())
+                            .build()));
+            Hospital hospital1 = hospitals.get(0);
+            Hospital hospital2 = hospitals.get(1);
+            Hospital hospital3 = hospitals.get(2);
 
             // Create service categories
-            ServiceCategory cardiology = ServiceCategory.builder()
-                    .name("Cardiology")
-                    .description("Heart and cardiovascular system treatment")
-                    .build();
-            cardiology = serviceCategoryRepository.save(cardiology);
-
-            ServiceCategory dermatology = ServiceCategory.builder()
-                    .name("Dermatology")
-                    .description("Skin, hair, and nail treatment")
-                    .build();
-            dermatology = serviceCategoryRepository.save(dermatology);
-
-            ServiceCategory pediatrics = ServiceCategory.builder()
-                    .name("Pediatrics")
-                    .description("Medical care for infants, children, and adolescents")
-                    .build();
-            pediatrics = serviceCategoryRepository.save(pediatrics);
-
-            ServiceCategory neurology = ServiceCategory.builder()
-                    .name("Neurology")
-                    .description("Nervous system disorders treatment")
-                    .build();
-            neurology = serviceCategoryRepository.save(neurology);
-
-            ServiceCategory orthopedics = ServiceCategory.builder()
-                    .name("Orthopedics")
-                    .description("Bone, joint, and muscle treatment")
-                    .build();
-            orthopedics = serviceCategoryRepository.save(orthopedics);
+            List<ServiceCategory> categories = serviceCategoryRepository.saveAll(List.of(
+                    ServiceCategory.builder()
+                            .name("Cardiology")
+                            .description("Heart and cardiovascular system treatment")
+                            .build(),
+                    ServiceCategory.builder()
+                            .name("Dermatology")
+                            .description("Skin, hair, and nail treatment")
+                            .build(),
+                    ServiceCategory.builder()
+                            .name("Pediatrics")
+                            .description("Medical care for infants, children, and adolescents")
+                            .build(),
+                    ServiceCategory.builder()
+                            .name("Neurology")
+                            .description("Nervous system disorders treatment")
+                            .build(),
+                    ServiceCategory.builder()
+                            .name("Orthopedics")
+                            .description("Bone, joint, and muscle treatment")
+                            .build()));
+            ServiceCategory cardiology = categories.get(0);
+            ServiceCategory dermatology = categories.get(1);
+            ServiceCategory pediatrics = categories.get(2);
+            ServiceCategory neurology = categories.get(3);
+            ServiceCategory orthopedics = categories.get(4);
 
             // Create admin user
             User admin = User.builder()
@@ -184,23 +180,23 @@ public class DataInitializer implements CommandLineRunner {
             userRepository.save(admin);
 
             // Create multiple doctors
-            createDoctor("Dr. Sarah", "Johnson", "sarah.johnson@lankamed.com", "Cardiologist", hospital1, cardiology);
-            createDoctor("Dr. Michael", "Chen", "michael.chen@lankamed.com", "Dermatologist", hospital1, dermatology);
-            createDoctor("Dr. Priya", "Fernando", "priya.fernando@lankamed.com", "Pediatrician", hospital2, pediatrics);
-            createDoctor("Dr. David", "Rodrigo", "david.rodrigo@lankamed.com", "Neurologist", hospital2, neurology);
-            createDoctor("Dr. James", "Wilson", "james.wilson@lankamed.com", "Orthopedic Surgeon", hospital3, orthopedics);
-            createDoctor("Dr. Maria", "Silva", "maria.silva@lankamed.com", "Cardiologist", hospital3, cardiology);
-            createDoctor("Dr. Ahmed", "Hassan", "ahmed.hassan@lankamed.com", "Dermatologist", hospital2, dermatology);
-            createDoctor("Dr. Lisa", "Perera", "lisa.perera@lankamed.com", "Pediatrician", hospital1, pediatrics);
-
-            // Create sample patients
-            User patient1 = createPatient("John", "Doe", "john.doe@example.com", "patient123");
-            User patient2 = createPatient("Jane", "Smith", "jane.smith@example.com", "patient123");
-            User patient3 = createPatient("Robert", "Brown", "robert.brown@example.com", "patient123");
-            User patient4 = createPatient("Emily", "Davis", "emily.davis@example.com", "patient123");
-
-            // Create test user for development
-            User testUser = createPatient("Test", "User", "test@example.com", "test123");
+            createDoctors(List.of(
+                    new DoctorSeed("Dr. Sarah", "Johnson", "sarah.johnson@lankamed.com", "Cardiologist", hospital1, cardiology),
+                    new DoctorSeed("Dr. Michael", "Chen", "michael.chen@lankamed.com", "Dermatologist", hospital1, dermatology),
+                    new DoctorSeed("Dr. Priya", "Fernando", "priya.fernando@lankamed.com", "Pediatrician", hospital2, pediatrics),
+                    new DoctorSeed("Dr. David", "Rodrigo", "david.rodrigo@lankamed.com", "Neurologist", hospital2, neurology),
+                    new DoctorSeed("Dr. James", "Wilson", "james.wilson@lankamed.com", "Orthopedic Surgeon", hospital3, orthopedics),
+                    new DoctorSeed("Dr. Maria", "Silva", "maria.silva@lankamed.com", "Cardiologist", hospital3, cardiology),
+                    new DoctorSeed("Dr. Ahmed", "Hassan", "ahmed.hassan@lankamed.com", "Dermatologist", hospital2, dermatology),
+                    new DoctorSeed("Dr. Lisa", "Perera", "lisa.perera@lankamed.com", "Pediatrician", hospital1, pediatrics)));
+
+            // Create sample patients, plus a test user for development
+            createPatients(List.of(
+                    new PatientSeed("John", "Doe", "john.doe@example.com", "patient123"),
+                    new PatientSeed("Jane", "Smith", "jane.smith@example.com", "patient123"),
+                    new PatientSeed("Robert", "Brown", "robert.brown@example.com", "patient123"),
+                    new PatientSeed("Emily", "Davis", "emily.davis@example.com", "patient123"),
+                    new PatientSeed("Test", "User", "test@example.com", "test123")));
 
             // Create sample appointments
             createSampleAppointments();
@@ -227,11 +223,12 @@ public class DataInitializer implements CommandLineRunner {
             }
 
             // Create multiple doctors with different consultation fees
-            createDoctor("Dr. Sarah", "Johnson", "sarah.johnson@lankamed.com", "Cardiologist", hospitals.get(0), categories.get(0)); // 2500
-            createDoctor("Dr. Michael", "Chen", "michael.chen@lankamed.com", "Dermatologist", hospitals.get(0), categories.get(1)); // 1800
-            createDoctor("Dr. Priya", "Fernando", "priya.fernando@lankamed.com", "Pediatrician", hospitals.get(1), categories.get(2)); // 2000
-            createDoctor("Dr. David", "Rodrigo", "david.rodrigo@lankamed.com", "Neurologist", hospitals.get(1), categories.get(3)); // 3000
-            createDoctor("Dr. James", "Wilson", "james.wilson@lankamed.com", "Orthopedic Surgeon", hospitals.get(2), categories.get(4)); // 3500
+            createDoctors(List.of(
+                    new DoctorSeed("Dr. Sarah", "Johnson", "sarah.johnson@lankamed.com", "Cardiologist", hospitals.get(0), categories.get(0)), // 2500
+                    new DoctorSeed("Dr. Michael", "Chen", "michael.chen@lankamed.com", "Dermatologist", hospitals.get(0), categories.get(1)), // 1800
+                    new DoctorSeed("Dr. Priya", "Fernando", "priya.fernando@lankamed.com", "Pediatrician", hospitals.get(1), categories.get(2)), // 2000
+                    new DoctorSeed("Dr. David", "Rodrigo", "david.rodrigo@lankamed.com", "Neurologist", hospitals.get(1), categories.get(3)), // 3000
+                    new DoctorSeed("Dr. James", "Wilson", "james.wilson@lankamed.com", "Orthopedic Surgeon", hospitals.get(2), categories.get(4)))); // 3500
 
             System.out.println("DataInitializer: Created 5 sample doctors with different consultation fees");
         } catch (Exception e) {
@@ -240,44 +237,48 @@ public class DataInitializer implements CommandLineRunner {
         }
     }
 
-    private void createDoctor(String firstName, String lastName, String email, String specialization, Hospital hospital, ServiceCategory category) {
+    // Users and staff details are each saved with one saveAll, so the inserts go out as JDBC batches
+    private void createDoctors(List<DoctorSeed> seeds) {
         try {
-            System.out.println("DataInitializer: Creating doctor: " + firstName + " " + lastName);
-
-            // Check if doctor already exists
-            Optional<User> existingUser = userRepository.findByEmail(email);
-            if (existingUser.isPresent()) {
-                System.out.println("DataInitializer: Doctor " + firstName + " " + lastName + " already exists, skipping...");
-                return;
+            List<DoctorSeed> toCreate = new ArrayList<>();
+            List<User> users = new ArrayList<>();
+            for (DoctorSeed seed : seeds) {
+                // Check if doctor already exists
+                if (userRepository.findByEmail(seed.email()).isPresent()) {
+                    System.out.println("DataInitializer: Doctor " + seed.firstName() + " " + seed.lastName() + " already exists, skipping...");
+                    continue;
+                }
+                System.out.println("DataInitializer: Creating doctor: " + seed.firstName() + " " + seed.lastName());
+                toCreate.add(seed);
+                users.add(User.builder()
+                        .firstName(seed.firstName())
+                        .lastName(seed.lastName())
+                        .email(seed.email())
+                        .passwordHash(passwordEncoder.encode("doctor123"))
+                        .role(Role.DOCTOR)
+                        .createdAt(Instant.now())
+                        .build());
             }
-
-            User doctor = User.builder()
-                    .firstName(firstName)
-                    .lastName(lastName)
-                    .email(email)
-                    .passwordHash(passwordEncoder.encode("doctor123"))
-                    .role(Role.DOCTOR)
-                    .createdAt(Instant.now())
-                    .build();
-            doctor = userRepository.save(doctor);
-            System.out.println("DataInitializer: Saved user with ID: " + doctor.getUserId());
-
-            // Set consultation fee based on specialization
-            Double consultationFee = getConsultationFeeForSpecialization(specialization);
-
-            StaffDetails doctorDetails = StaffDetails.builder()
-                    .staffId(doctor.getUserId())
-                    .specialization(specialization)
-                    .hospital(hospital)
-                    .serviceCategory(category)
-                    .consultationFee(consultationFee)
-                    .user(doctor)
-                    .build();
-            staffDetailsRepository.save(doctorDetails);
-            System.out.println("DataInitializer: Saved staff details for: " + firstName + " " + lastName + " with consultation fee: " + consultationFee);
+            users = userRepository.saveAll(users);
+
+            List<StaffDetails> details = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                DoctorSeed seed = toCreate.get(i);
+                // Set consultation fee based on specialization
+                Double consultationFee = getConsultationFeeForSpecialization(seed.specialization());
+                details.add(StaffDetails.builder()
+                        .specialization(seed.specialization())
+                        .hospital(seed.hospital())
+                        .serviceCategory(seed.category())
+                        .consultationFee(consultationFee)
+                        .user(users.get(i))
+                        .build());
+                System.out.println("DataInitializer: Saving staff details for: " + seed.firstName() + " " + seed.lastName() + " with consultation fee: " + consultationFee);
+            }
+            staffDetailsRepository.saveAll(details);
 
         } catch (Exception e) {
-            System.err.println("DataInitializer: Error creating doctor " + firstName + " " + lastName + ": " + e.getMessage());
+            System.err.println("DataInitializer: Error creating doctors: " + e.getMessage());
             e.printStackTrace();
         }
     }
@@ -300,30 +301,33 @@ public class DataInitializer implements CommandLineRunner {
         }
     }
 
-    private User createPatient(String firstName, String lastName, String email, String password) {
-        User patient = User.builder()
-                .firstName(firstName)
-                .lastName(lastName)
-                .email(email)
-                .passwordHash(passwordEncoder.encode(password))
-                .role(Role.PATIENT)
-                .createdAt(Instant.now())
-                .build();
-        patient = userRepository.save(patient);
-
-        Patient patientDetails = Patient.builder()
-                .patientId(patient.getUserId())
-                .dateOfBirth(java.time.LocalDate.of(1985 + (int)(Math.random() * 20), 
-                    (int)(Math.random() * 12) + 1, (int)(Math.random() * 28) + 1))
-                .gender(Math.random() > 0.5 ? Patient.Gender.MALE : Patient.Gender.FEMALE)
-                .address("Sample Address " + (int)(Math.random() * 1000) + ", Colombo")
-                .contactNumber("+94-77-" + String.format("%03d", (int)(Math.random() * 1000)) + "-" + String.format("%04d", (int)(Math.random() * 10000)))
-                .user(patient)
-                .build();
-        patientRepository.save(patientDetails);
-        
-        System.out.println("DataInitializer: Created patient: " + firstName + " " + lastName);
-        return patient;
+    private void createPatients(List<PatientSeed> seeds) {
+        List<User> users = new ArrayList<>();
+        for (PatientSeed seed : seeds) {
+            users.add(User.builder()
+                    .firstName(seed.firstName())
+                    .lastName(seed.lastName())
+                    .email(seed.email())
+                    .passwordHash(passwordEncoder.encode(seed.password()))
+                    .role(Role.PATIENT)
+                    .createdAt(Instant.now())
+                    .build());
+        }
+        users = userRepository.saveAll(users);
+
+        List<Patient> patients = new ArrayList<>();
+        for (User user : users) {
+            patients.add(Patient.builder()
+                    .dateOfBirth(java.time.LocalDate.of(1985 + (int)(Math.random() * 20),
+                        (int)(Math.random() * 12) + 1, (int)(Math.random() * 28) + 1))
+                    .gender(Math.random() > 0.5 ? Patient.Gender.MALE : Patient.Gender.FEMALE)
+                    .address("Sample Address " + (int)(Math.random() * 1000) + ", Colombo")
+                    .contactNumber("+94-77-" + String.format("%03d", (int)(Math.random() * 1000)) + "-" + String.format("%04d", (int)(Math.random() * 10000)))
+                    .user(user)
+                    .build());
+            System.out.println("DataInitializer: Creating patient: " + user.getFirstName() + " " + user.getLastName());
+        }
+        patientRepository.saveAll(patients);
     }
 
     private void createSampleAppointments() {
@@ -341,40 +345,42 @@ public class DataInitializer implements CommandLineRunner {
 
             // Create sample appointments with different statuses
             LocalDateTime now = LocalDateTime.now();
-            
+            List<Appointment> appointments = new ArrayList<>();
+
             // Past appointments (completed)
-            createAppointment(patients.get(0), doctors.get(0), hospitals.get(0), categories.get(0), 
-                now.minusDays(5).withHour(10).withMinute(0), Appointment.Status.COMPLETED);
-            createAppointment(patients.get(1), doctors.get(1), hospitals.get(1), categories.get(1), 
-                now.minusDays(3).withHour(14).withMinute(30), Appointment.Status.COMPLETED);
+            appointments.add(appointment(patients.get(0), doctors.get(0), hospitals.get(0), categories.get(0), 
+                now.minusDays(5).withHour(10).withMinute(0), Appointment.Status.COMPLETED));
+            appointments.add(appointment(patients.get(1), doctors.get(1), hospitals.get(1), categories.get(1), 
+                now.minusDays(3).withHour(14).withMinute(30), Appointment.Status.COMPLETED));
 
             // Upcoming appointments (pending/approved)
-            createAppointment(patients.get(0), doctors.get(2), hospitals.get(2), categories.get(2), 
-                now.plusDays(2).withHour(9).withMinute(0), Appointment.Status.APPROVED);
-            createAppointment(patients.get(2), doctors.get(3), hospitals.get(0), categories.get(3), 
-                now.plusDays(3).withHour(11).withMinute(30), Appointment.Status.PENDING);
+            appointments.add(appointment(patients.get(0), doctors.get(2), hospitals.get(2), categories.get(2), 
+                now.plusDays(2).withHour(9).withMinute(0), Appointment.Status.APPROVED));
+            appointments.add(appointment(patients.get(2), doctors.get(3), hospitals.get(0), categories.get(3), 
+                now.plusDays(3).withHour(11).withMinute(30), Appointment.Status.PENDING));
 
             // More upcoming
-            createAppointment(patients.get(1), doctors.get(4), hospitals.get(1), categories.get(4), 
-                now.plusDays(1).withHour(15).withMinute(0), Appointment.Status.APPROVED);
-            createAppointment(patients.get(3), doctors.get(5), hospitals.get(2), categories.get(0), 
-                now.plusDays(4).withHour(16).withMinute(30), Appointment.Status.PENDING);
+            appointments.add(appointment(patients.get(1), doctors.get(4), hospitals.get(1), categories.get(4), 
+                now.plusDays(1).withHour(15).withMinute(0), Appointment.Status.APPROVED));
+            appointments.add(appointment(patients.get(3), doctors.get(5), hospitals.get(2), categories.get(0), 
+                now.plusDays(4).withHour(16).withMinute(30), Appointment.Status.PENDING));
 
             // More upcoming
-            createAppointment(patients.get(2), doctors.get(6), hospitals.get(0), categories.get(1), 
-                now.plusDays(5).withHour(10).withMinute(0), Appointment.Status.PENDING);
-            createAppointment(patients.get(3), doctors.get(7), hospitals.get(1), categories.get(2), 
-                now.plusDays(6).withHour(13).withMinute(0), Appointment.Status.APPROVED);
+            appointments.add(appointment(patients.get(2), doctors.get(6), hospitals.get(0), categories.get(1), 
+                now.plusDays(5).withHour(10).withMinute(0), Appointment.Status.PENDING));
+            appointments.add(appointment(patients.get(3), doctors.get(7), hospitals.get(1), categories.get(2), 
+                now.plusDays(6).withHour(13).withMinute(0), Appointment.Status.APPROVED));
+            appointmentRepository.saveAll(appointments);
 
-            System.out.println("DataInitializer: Created 8 sample appointments with various statuses");
+            System.out.println("DataInitializer: Created " + appointments.size() + " sample appointments with various statuses");
         } catch (Exception e) {
             System.err.println("DataInitializer: Error creating sample appointments: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void createAppointment(Patient patient, StaffDetails doctor, Hospital hospital,
-                                 ServiceCategory category, LocalDateTime dateTime, Appointment.Status status) {
+    private Appointment appointment(Patient patient, StaffDetails doctor, Hospital hospital,
+                                    ServiceCategory category, LocalDateTime dateTime, Appointment.Status status) {
         // Calculate payment amount based on doctor's consultation fee
         Double paymentAmount = doctor.getConsultationFee();
         if (paymentAmount == null || paymentAmount <= 0) {
@@ -390,9 +396,16 @@ public class DataInitializer implements CommandLineRunner {
                 .status(status)
                 .paymentAmount(paymentAmount)
                 .build();
-        appointmentRepository.save(appointment);
 
-        System.out.println("DataInitializer: Created appointment - " + patient.getUser().getFirstName() +
+        System.out.println("DataInitializer: Creating appointment - " + patient.getUser().getFirstName() +
             " with " + doctor.getUser().getFirstName() + " on " + dateTime.toLocalDate() + " (" + status + ") - Amount: " + paymentAmount);
+        return appointment;
+    }
+
+    private record DoctorSeed(String firstName, String lastName, String email, String specialization,
+                              Hospital hospital, ServiceCategory category) {
+    }
+
+    private record PatientSeed(String firstName, String lastName, String email, String password) {
     }
 }
@@ -0,0 +1,65 @@
+package com.lankamed.health.backend.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves every table-generated id segment past the highest id already stored, before anything else writes.
+ * Databases created while the entities used IDENTITY columns already hold rows, and a fresh segment would
+ * start handing out ids from 1 again. Runs ahead of {@link DataInitializer} and is a no-op once aligned.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IdGeneratorAligner implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorAligner.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorAligner(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof TableGenerator generator && persister instanceof AbstractEntityPersister entity) {
+                align(generator, entity.getTableName(), entity.getIdentifierColumnNames()[0]);
+            }
+        });
+    }
+
+    void align(TableGenerator generator, String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + idColumn + ") FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // The pooled optimizer hands out the block ending at the stored value, so it must clear maxId by a full block
+        long floor = maxId + generator.getIncrementSize();
+        String segment = generator.getSegmentValue();
+        List<Long> current = jdbcTemplate.queryForList("SELECT " + generator.getValueColumnName() + " FROM "
+                + generator.getTableName() + " WHERE " + generator.getSegmentColumnName() + " = ?", Long.class, segment);
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO " + generator.getTableName() + " (" + generator.getSegmentColumnName() + ", "
+                    + generator.getValueColumnName() + ") VALUES (?, ?)", segment, floor);
+        } else if (current.get(0) < floor) {
+            jdbcTemplate.update("UPDATE " + generator.getTableName() + " SET " + generator.getValueColumnName() + " = ? WHERE "
+                    + generator.getSegmentColumnName() + " = ? AND " + generator.getValueColumnName() + " < ?", floor, segment, floor);
+        } else {
+            return;
+        }
+        logger.info("Id generator '{}' moved to {} past existing ids in {}", segment, floor, table);
+    }
+}
@@ -1,13 +1,19 @@
 package com.lankamed.health.backend.controller;
 
 import com.lankamed.health.backend.dto.AppointmentDto;
+import com.lankamed.health.backend.dto.AppointmentPageDto;
+import com.lankamed.health.backend.dto.PaymentReportDto;
+import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.dto.UpdateAppointmentStatusDto;
 import com.lankamed.health.backend.service.AppointmentService;
+import com.lankamed.health.backend.service.PaymentReportingService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -15,22 +21,55 @@ import java.util.List;
 public class AdminController {
 
     private final AppointmentService appointmentService;
+    private final PaymentReportingService paymentReportingService;
 
-    public AdminController(AppointmentService appointmentService) {
+    public AdminController(AppointmentService appointmentService, PaymentReportingService paymentReportingService) {
         this.appointmentService = appointmentService;
+        this.paymentReportingService = paymentReportingService;
     }
 
-    @GetMapping("/appointments")
-    public ResponseEntity<List<AppointmentDto>> getAllAppointments() {
-        List<AppointmentDto> appointments = appointmentService.getAllAppointments();
-        return ResponseEntity.ok(appointments);
+    @GetMapping({"/appointments", "/appointments/page"})
+    public ResponseEntity<?> getAppointmentsPage(
+            @RequestParam(required = false) Appointment.Status status,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            AppointmentPageDto page = appointmentService.getAppointmentsPage(status, doctorId, hospitalId, from, to, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PutMapping("/appointments/{appointmentId}/status")
-    public ResponseEntity<AppointmentDto> updateAppointmentStatus(
+    public ResponseEntity<?> updateAppointmentStatus(
             @PathVariable Long appointmentId,
             @Valid @RequestBody UpdateAppointmentStatusDto updateDto) {
-        AppointmentDto appointment = appointmentService.updateAppointmentStatus(appointmentId, updateDto);
-        return ResponseEntity.ok(appointment);
+        try {
+            AppointmentDto appointment = appointmentService.updateAppointmentStatus(appointmentId, updateDto);
+            return ResponseEntity.ok(appointment);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/payments/report")
+    public ResponseEntity<PaymentReportDto> getPaymentReport() {
+        return ResponseEntity.ok(paymentReportingService.getReport());
+    }
+
+    @GetMapping("/payments/daily")
+    public ResponseEntity<?> getDailyPaymentTotals(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(paymentReportingService.getDailyTotals(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
@@ -4,12 +4,16 @@ import com.lankamed.health.backend.dto.AppointmentDto;
 import com.lankamed.health.backend.dto.CreateAppointmentDto;
 import com.lankamed.health.backend.dto.UpdateAppointmentStatusDto;
 import com.lankamed.health.backend.service.AppointmentService;
+import com.lankamed.health.backend.service.IdempotencyCache;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/patients/me")
@@ -17,9 +21,11 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final IdempotencyCache idempotencyCache;
 
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, IdempotencyCache idempotencyCache) {
         this.appointmentService = appointmentService;
+        this.idempotencyCache = idempotencyCache;
     }
 
     @GetMapping("/appointments")
@@ -29,8 +35,31 @@ public class AppointmentController {
     }
 
     @PostMapping("/appointments")
-    public ResponseEntity<AppointmentDto> createAppointment(@Valid @RequestBody CreateAppointmentDto createAppointmentDto) {
-        AppointmentDto appointment = appointmentService.createAppointment(createAppointmentDto);
-        return ResponseEntity.ok(appointment);
+    public ResponseEntity<?> createAppointment(@Valid @RequestBody CreateAppointmentDto createAppointmentDto,
+                                               @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
+        try {
+            String key = IdempotencyCache.normalizeKey(idempotencyKey);
+            if (key == null) {
+                return ResponseEntity.ok(appointmentService.createAppointment(createAppointmentDto));
+            }
+            // A retry with the same key gets the appointment the first request booked
+            String scope = "appointment:" + appointmentService.currentPatientEmail();
+            AppointmentDto appointment = idempotencyCache.execute(scope, key, createAppointmentDto,
+                    () -> CompletableFuture.completedFuture(appointmentService.createAppointment(createAppointmentDto, key)),
+                    () -> appointmentService.findByIdempotencyKey(key)).join();
+            return ResponseEntity.ok(appointment);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IllegalStateException) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(cause.getMessage());
+            }
+            if (cause instanceof IllegalArgumentException) {
+                return ResponseEntity.badRequest().body(cause.getMessage());
+            }
+            throw e;
+        } catch (IllegalStateException e) {
+            // Doctor's day is fully booked
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 }
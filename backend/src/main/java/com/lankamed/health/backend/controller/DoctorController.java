@@ -2,6 +2,7 @@ package com.lankamed.health.backend.controller;
 
 import com.lankamed.health.backend.dto.DoctorDto;
 import com.lankamed.health.backend.dto.DoctorProfileDto;
+import com.lankamed.health.backend.service.DoctorDirectoryCache;
 import com.lankamed.health.backend.service.DoctorService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +17,11 @@ import java.util.Map;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final DoctorDirectoryCache directoryCache;
 
-    public DoctorController(DoctorService doctorService) {
+    public DoctorController(DoctorService doctorService, DoctorDirectoryCache directoryCache) {
         this.doctorService = doctorService;
+        this.directoryCache = directoryCache;
     }
 
     @GetMapping
@@ -50,6 +53,11 @@ public class DoctorController {
         return ResponseEntity.ok(debug);
     }
     
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(directoryCache.getStats());
+    }
+    
     @GetMapping("/test")
     public ResponseEntity<Map<String, Object>> testEndpoint() {
         Map<String, Object> response = new HashMap<>();
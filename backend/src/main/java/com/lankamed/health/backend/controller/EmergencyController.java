@@ -0,0 +1,41 @@
+package com.lankamed.health.backend.controller;
+
+import com.lankamed.health.backend.dto.patient.CriticalInfoDto;
+import com.lankamed.health.backend.service.patient.CriticalInfoCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Break-glass access for clinical staff: a patient's allergies, conditions, current prescriptions and emergency
+ * contacts in one response. Every access is logged.
+ */
+@RestController
+@RequestMapping("/api/emergency")
+@CrossOrigin(origins = "http://localhost:3000")
+public class EmergencyController {
+    private static final Logger logger = LoggerFactory.getLogger(EmergencyController.class);
+
+    private final CriticalInfoCache criticalInfoCache;
+
+    public EmergencyController(CriticalInfoCache criticalInfoCache) {
+        this.criticalInfoCache = criticalInfoCache;
+    }
+
+    @GetMapping("/patients/{patientId}/critical-info")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'STAFF', 'ADMIN')")
+    public ResponseEntity<CriticalInfoDto> getCriticalInfo(@PathVariable Long patientId,
+                                                           @AuthenticationPrincipal UserDetails principal) {
+        logger.warn("Break-glass access to patient {} by {}", patientId, principal != null ? principal.getUsername() : "unknown");
+        CriticalInfoDto info = criticalInfoCache.get(patientId);
+        if (info == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(info);
+    }
+}
@@ -1,17 +1,27 @@
 package com.lankamed.health.backend.controller;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.expression.ParseException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.model.PaymentStatus;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.IdempotencyCache;
 import com.lankamed.health.backend.service.PaymentService;
 
 @RestController
@@ -21,19 +31,51 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private RequestIdentity requestIdentity;
+
     @GetMapping("/pending/{patientId}")
-    public List<PaymentDTO> getPendingPayments(@PathVariable Long patientId) {
+    public ResponseEntity<?> getPendingPayments(@PathVariable Long patientId) {
         try {
-            return paymentService.getPendingPayments(patientId);
+            List<PaymentDTO> payments = paymentService.getPendingPayments(patientId);
+            return ResponseEntity.ok(payments);
         } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Patient not found: " + e.getMessage());
+            return serverError("Patient not found: " + e.getMessage());
         } catch (Exception e) {
-            throw new RuntimeException("Error fetching pending payments: " + e.getMessage());
+            return serverError("Error fetching pending payments: " + e.getMessage());
         }
     }
 
+    // Async result: the request thread is released while the gateway works.
+    // A retry with the same Idempotency-Key gets the original payment back instead of paying twice;
+    // while that payment is still Pending, each retry re-reads the stored row rather than a cached answer.
     @PostMapping("/make")
-    public PaymentDTO makePayment(@RequestBody PaymentDTO paymentDTO) throws ParseException {
-        return paymentService.makePayment(paymentDTO);
+    public CompletableFuture<PaymentDTO> makePayment(@RequestBody PaymentDTO paymentDTO,
+                                                     @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) throws ParseException {
+        String key = IdempotencyCache.normalizeKey(idempotencyKey);
+        Long patientId = paymentDTO.getPatientId();
+        Object fingerprint = Arrays.asList(patientId, paymentDTO.getAppointmentId(), paymentDTO.getAmount(), paymentDTO.getPaymentMethod());
+        return idempotencyCache.execute("payment:" + requestIdentity.email(), key, fingerprint,
+                () -> paymentService.makePaymentAsync(paymentDTO, key),
+                () -> paymentService.findByIdempotencyKey(key, patientId),
+                payment -> !PaymentStatus.Pending.name().equals(payment.getStatus()));
+    }
+
+    // makePayment returns a future, so a failure thrown before it starts and one it completes with both land here
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", String.valueOf(e.getMessage())));
+    }
+
+    @ExceptionHandler(ParseException.class)
+    public ResponseEntity<Map<String, Object>> handleParseException(ParseException e) {
+        return serverError(e.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, Object>> serverError(String message) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", String.valueOf(message)));
     }
 }
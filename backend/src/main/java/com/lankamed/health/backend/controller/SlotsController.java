@@ -1,12 +1,14 @@
 package com.lankamed.health.backend.controller;
 
 import com.lankamed.health.backend.dto.SlotAvailabilityDto;
+import com.lankamed.health.backend.dto.SlotRangeDto;
 import com.lankamed.health.backend.service.DoctorSlotService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/slots")
@@ -23,4 +25,27 @@ public class SlotsController {
                                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         return ResponseEntity.ok(doctorSlotService.getAvailability(doctorId, date));
     }
+
+    @GetMapping("/{doctorId}/range")
+    public ResponseEntity<?> availabilityRange(@PathVariable Long doctorId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(doctorSlotService.getAvailabilityRange(doctorId, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/range")
+    public ResponseEntity<?> availabilityRangeForDoctors(@RequestParam List<Long> doctorIds,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            List<SlotRangeDto> grid = doctorSlotService.getAvailabilityRange(doctorIds.stream().distinct().toList(), from, to);
+            return ResponseEntity.ok(grid);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
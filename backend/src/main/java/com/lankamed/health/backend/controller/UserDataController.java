@@ -1,13 +1,18 @@
 package com.lankamed.health.backend.controller;
 
+import com.lankamed.health.backend.dto.AppointmentPageDto;
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.AppointmentRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
 import com.lankamed.health.backend.repository.UserRepository;
+import com.lankamed.health.backend.service.AppointmentService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -18,35 +23,55 @@ public class UserDataController {
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final PatientRepository patientRepository;
+    private final AppointmentService appointmentService;
 
     public UserDataController(AppointmentRepository appointmentRepository,
                              UserRepository userRepository,
-                             PatientRepository patientRepository) {
+                             PatientRepository patientRepository,
+                             AppointmentService appointmentService) {
         this.appointmentRepository = appointmentRepository;
         this.userRepository = userRepository;
         this.patientRepository = patientRepository;
+        this.appointmentService = appointmentService;
     }
     
     @GetMapping("/appointments")
-    public ResponseEntity<Map<String, Object>> getAllAppointments() {
-        List<Appointment> appointments = appointmentRepository.findAllWithDetails();
+    public ResponseEntity<Map<String, Object>> getAllAppointments(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        AppointmentPageDto page;
+        try {
+            Appointment.Status statusFilter = status != null && !status.isBlank() ? Appointment.Status.valueOf(status.toUpperCase()) : null;
+            page = appointmentService.getAppointmentsPage(statusFilter, doctorId, hospitalId, from, to, cursor, size);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", ex.getMessage()));
+        }
         List<Map<String, Object>> list = new ArrayList<>();
-        for (Appointment a : appointments) {
+        for (AppointmentSummaryDto a : page.getAppointments()) {
             Map<String, Object> m = new HashMap<>();
             m.put("appointmentId", a.getAppointmentId());
             m.put("appointmentDateTime", a.getAppointmentDateTime());
             m.put("status", a.getStatus());
-            m.put("patientName", a.getPatient().getUser().getFirstName() + " " + a.getPatient().getUser().getLastName());
-            m.put("hospitalName", a.getHospital().getName());
-            m.put("serviceCategoryName", a.getServiceCategory().getName());
-            m.put("doctorName", a.getDoctor().getUser().getFirstName() + " " + a.getDoctor().getUser().getLastName());
-            m.put("doctorSpecialization", a.getDoctor().getSpecialization());
+            m.put("patientName", a.getPatientName());
+            m.put("hospitalName", a.getHospitalName());
+            m.put("serviceCategoryName", a.getServiceCategoryName());
+            m.put("doctorName", a.getDoctorName());
+            m.put("doctorSpecialization", a.getDoctorSpecialization());
             m.put("doctorFee", 1500.0); // Default fee, can be enhanced based on specialization
             m.put("priority", a.isPriority());
             m.put("paymentAmount", a.getPaymentAmount() != null ? a.getPaymentAmount() : 1500.0);
             list.add(m);
         }
-        return ResponseEntity.ok(Map.of("success", true, "appointments", list));
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("appointments", list);
+        response.put("nextCursor", page.getNextCursor());
+        return ResponseEntity.ok(response);
     }
     
     @PutMapping("/appointments/{appointmentId}/status")
@@ -1,8 +1,11 @@
 package com.lankamed.health.backend.controller.patient;
 
 import com.lankamed.health.backend.dto.patient.HealthMetricDto;
+import com.lankamed.health.backend.dto.patient.LatestVitalsDto;
 import com.lankamed.health.backend.service.patient.HealthMetricService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,8 +30,18 @@ public class HealthMetricController {
                 .orElse(ResponseEntity.noContent().build());
     }
 
+    @GetMapping("/snapshot")
+    public ResponseEntity<LatestVitalsDto> getLatestVitals() {
+        return ResponseEntity.ok(healthMetricService.getLatestVitals());
+    }
+
     @PostMapping
-    public ResponseEntity<HealthMetricDto> addMetric(@RequestBody HealthMetricDto dto) {
-        return ResponseEntity.ok(healthMetricService.addMetric(dto));
+    public ResponseEntity<?> addMetric(@RequestBody HealthMetricDto dto) {
+        try {
+            return ResponseEntity.ok(healthMetricService.addMetric(dto));
+        } catch (DataIntegrityViolationException e) {
+            // The unique (patient, timestamp) constraint: this reading was already recorded
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A reading is already recorded at " + dto.getTimestamp());
+        }
     }
 }
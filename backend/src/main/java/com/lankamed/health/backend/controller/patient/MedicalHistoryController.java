@@ -4,9 +4,11 @@ import com.lankamed.health.backend.dto.patient.AllergyDto;
 import com.lankamed.health.backend.dto.patient.CreateAllergyDto;
 import com.lankamed.health.backend.dto.patient.CreateMedicalConditionDto;
 import com.lankamed.health.backend.dto.patient.MedicalConditionDto;
+import com.lankamed.health.backend.dto.patient.MedicalSummaryDto;
 import com.lankamed.health.backend.dto.patient.PrescriptionDto;
 import com.lankamed.health.backend.service.patient.MedicalHistoryService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +25,17 @@ public class MedicalHistoryController {
         this.medicalHistoryService = medicalHistoryService;
     }
 
+    // Spring MVC compares the ETag with If-None-Match and answers 304 without writing the body;
+    // no-cache makes the browser revalidate every time instead of showing a stale copy
+    @GetMapping("/medical-summary")
+    public ResponseEntity<MedicalSummaryDto> getMedicalSummary() {
+        MedicalSummaryDto summary = medicalHistoryService.getMedicalSummary();
+        return ResponseEntity.ok()
+                .eTag(summary.getVersion())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(summary);
+    }
+
     @GetMapping("/conditions")
     public ResponseEntity<List<MedicalConditionDto>> getMedicalConditions() {
         List<MedicalConditionDto> conditions = medicalHistoryService.getMedicalConditions();
@@ -0,0 +1,48 @@
+package com.lankamed.health.backend.controller.patient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto;
+import com.lankamed.health.backend.service.patient.VitalsIngestionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Bulk uploads from home monitors and wearables: a JSON array, or NDJSON (one reading per line) for devices that
+ * stream. The response reports every reading as accepted, duplicate or rejected, in upload order.
+ */
+@RestController
+@RequestMapping("/api/patients/me/vitals/bulk")
+@CrossOrigin(origins = "http://localhost:3000")
+public class VitalsIngestionController {
+    static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private VitalsIngestionService ingestionService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> ingestJson(HttpServletRequest request) throws IOException {
+        try {
+            BulkVitalsResultDto result = ingestionService.ingestJsonArray(request.getInputStream());
+            return ResponseEntity.ok(result);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body("Malformed JSON");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping(consumes = NDJSON)
+    public ResponseEntity<?> ingestNdjson(HttpServletRequest request) throws IOException {
+        try {
+            BulkVitalsResultDto result = ingestionService.ingestNdjson(request.getInputStream());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -3,9 +3,13 @@ package com.lankamed.health.backend.controller.patient;
 import com.lankamed.health.backend.dto.patient.WeightRecordDto;
 import com.lankamed.health.backend.service.patient.WeightRecordService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,12 +20,25 @@ public class WeightHistoryController {
     private WeightRecordService weightService;
 
     @GetMapping
-    public ResponseEntity<List<WeightRecordDto>> getAllRecords() {
-        return ResponseEntity.ok(weightService.getAllRecordsForCurrentPatient());
+    public ResponseEntity<?> getAllRecords(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer maxPoints) {
+        try {
+            List<WeightRecordDto> records = weightService.getRecordsForCurrentPatient(from, to, maxPoints);
+            return ResponseEntity.ok(records);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping
-    public ResponseEntity<WeightRecordDto> addRecord(@RequestBody WeightRecordDto dto) {
-        return ResponseEntity.ok(weightService.addRecord(dto));
+    public ResponseEntity<?> addRecord(@RequestBody WeightRecordDto dto) {
+        try {
+            return ResponseEntity.ok(weightService.addRecord(dto));
+        } catch (DataIntegrityViolationException e) {
+            // The unique (patient, timestamp) constraint: this reading was already recorded
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A reading is already recorded at " + dto.getTimestamp());
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.lankamed.health.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in an appointment listing ordered by (appointmentDateTime, appointmentId) descending.
+ * Travels to clients as an opaque URL-safe token.
+ */
+public record AppointmentCursor(LocalDateTime appointmentDateTime, Long appointmentId) {
+
+    public static AppointmentCursor after(AppointmentSummaryDto appointment) {
+        return new AppointmentCursor(appointment.getAppointmentDateTime(), appointment.getAppointmentId());
+    }
+
+    public String encode() {
+        String raw = appointmentDateTime + "|" + appointmentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Null or blank tokens mean the first page. */
+    public static AppointmentCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new AppointmentCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.lankamed.health.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AppointmentPageDto {
+    private List<AppointmentSummaryDto> appointments;
+    // Null on the last page
+    private String nextCursor;
+}
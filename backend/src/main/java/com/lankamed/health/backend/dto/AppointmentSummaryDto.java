@@ -0,0 +1,32 @@
+package com.lankamed.health.backend.dto;
+
+import com.lankamed.health.backend.model.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat appointment row for admin listings, filled straight from a JPQL constructor expression.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSummaryDto {
+    private Long appointmentId;
+    private LocalDateTime appointmentDateTime;
+    private Appointment.Status status;
+    private boolean priority;
+    private String patientName;
+    private Long doctorId;
+    private String doctorName;
+    private String doctorSpecialization;
+    private Double doctorConsultationFee;
+    private Double paymentAmount;
+    private Long hospitalId;
+    private String hospitalName;
+    private String serviceCategoryName;
+}
@@ -0,0 +1,16 @@
+package com.lankamed.health.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentAggregateDto {
+    private String key;
+    private long count;
+    private double totalAmount;
+}
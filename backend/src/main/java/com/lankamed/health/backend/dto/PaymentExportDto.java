@@ -0,0 +1,25 @@
+package com.lankamed.health.backend.dto;
+
+import com.lankamed.health.backend.model.PaymentStatus;
+import com.lankamed.health.backend.model.PaymentType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentExportDto {
+    private Long paymentId;
+    private Long patientId;
+    private Long appointmentId;
+    private double amount;
+    private PaymentType paymentType;
+    private PaymentStatus status;
+    private String transactionId;
+    private LocalDateTime paymentTimestamp;
+}
@@ -0,0 +1,24 @@
+package com.lankamed.health.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentReportDto {
+    private long totalPayments;
+    private double totalAmount;
+    private long patients;
+    private List<PaymentAggregateDto> byStatus;
+    private List<PaymentAggregateDto> byPaymentType;
+    private List<PaymentAggregateDto> byHospital;
+    private List<PaymentAggregateDto> byDay;
+    private LocalDateTime generatedAt;
+}
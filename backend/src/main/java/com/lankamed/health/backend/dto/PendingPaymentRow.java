@@ -0,0 +1,32 @@
+package com.lankamed.health.backend.dto;
+
+import com.lankamed.health.backend.model.PaymentStatus;
+import com.lankamed.health.backend.model.PaymentType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of a payment and its appointment details, read in one query for the pending payments view.
+ * Appointment columns are null for payments that are not tied to an appointment.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingPaymentRow {
+    private Long paymentId;
+    private Long patientId;
+    private Long appointmentId;
+    private double amount;
+    private PaymentType paymentType;
+    private PaymentStatus status;
+    private String transactionId;
+    private LocalDateTime appointmentDateTime;
+    private Double appointmentPaymentAmount;
+    private String doctorFirstName;
+    private String doctorLastName;
+    private String serviceName;
+    private String hospitalName;
+}
@@ -0,0 +1,15 @@
+package com.lankamed.health.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SlotRangeDto {
+    private Long doctorId;
+    private String doctorName;
+    private String from; // ISO yyyy-MM-dd, day of booked[0]
+    private String to; // ISO yyyy-MM-dd, inclusive
+    private int capacity;
+    private int[] booked; // one entry per day from..to
+}
@@ -0,0 +1,28 @@
+package com.lankamed.health.backend.dto.patient;
+
+import lombok.*;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkVitalsResultDto {
+    public enum Status { ACCEPTED, DUPLICATE, REJECTED }
+
+    private int received;
+    private int accepted;
+    private int duplicates;
+    private int rejected;
+    private List<ItemResult> items;
+
+    /** Outcome of the reading at {@code index} (0-based, in upload order). */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private Status status;
+        private String message;
+    }
+}
@@ -0,0 +1,22 @@
+package com.lankamed.health.backend.dto.patient;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class CriticalInfoDto {
+    private Long patientId;
+    private String fullName;
+    private LocalDate dateOfBirth;
+    private List<AllergyDto> allergies; // most severe first
+    private List<MedicalConditionDto> conditions;
+    private List<PrescriptionDto> prescriptions; // not yet ended
+    private List<EmergencyContactDto> emergencyContacts;
+    private LocalDateTime asOf;
+}
@@ -0,0 +1,13 @@
+package com.lankamed.health.backend.dto.patient;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatestVitalsDto {
+    private HealthMetricDto metric;
+    private BloodPressureRecordDto bloodPressure;
+    private WeightRecordDto weight;
+}
@@ -0,0 +1,21 @@
+package com.lankamed.health.backend.dto.patient;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MedicalSummaryDto {
+    private List<MedicalConditionDto> conditions;
+    private List<AllergyDto> allergies;
+    private List<PrescriptionDto> prescriptions;
+    private List<EmergencyContactDto> emergencyContacts;
+
+    // Digest of the content above, sent as the ETag header rather than in the body
+    @JsonIgnore
+    private String version;
+}
@@ -0,0 +1,21 @@
+package com.lankamed.health.backend.dto.patient;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+/** One reading in a bulk upload; which value fields are required depends on the type. */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VitalReadingDto {
+    public enum Type { HEALTH_METRIC, BLOOD_PRESSURE, WEIGHT }
+
+    private Type type;
+    private LocalDateTime timestamp;
+    private Integer systolic;
+    private Integer diastolic;
+    private Integer heartRate;
+    private Integer spo2;
+    private Double weightKg;
+}
@@ -13,7 +13,12 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_doctor_datetime", columnList = "doctor_id, appointment_datetime"),
+        @Index(name = "idx_appointments_datetime_id", columnList = "appointment_datetime, appointment_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_appointments_idempotency_key", columnNames = "idempotency_key")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -21,7 +26,8 @@ import java.time.LocalDateTime;
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "appointments")
+    @TableGenerator(name = "appointments", table = IdGenerators.TABLE, pkColumnValue = "appointments", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "appointment_id")
     private Long appointmentId;
 
@@ -60,6 +66,10 @@ public class Appointment {
     @Column(name = "payment_amount")
     private Double paymentAmount;
 
+    // Client-supplied Idempotency-Key of the booking request, if any
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) {
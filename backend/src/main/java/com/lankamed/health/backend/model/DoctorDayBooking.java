@@ -0,0 +1,38 @@
+package com.lankamed.health.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Capacity counter for one doctor on one day. Bookings reserve a slot with a conditional
+ * UPDATE on this row, so concurrent requests for the same doctor-day serialize on its row lock.
+ */
+@Entity
+@Table(name = "doctor_day_bookings", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_doctor_day_bookings_doctor_date", columnNames = {"doctor_id", "slot_date"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorDayBooking {
+
+    // Rows are only created by the seeding INSERT in DoctorDayBookingRepository, so the database assigns the id
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;
+}
@@ -0,0 +1,45 @@
+package com.lankamed.health.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running review totals for one doctor. Kept in step with {@code reviews} when a review is created
+ * and rebuilt from that table periodically, so searches never aggregate over every review.
+ */
+@Entity
+@Table(name = "doctor_rating_summaries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorRatingSummary {
+
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "stars_1", nullable = false)
+    private long stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private long stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private long stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private long stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private long stars5;
+}
@@ -1,5 +1,6 @@
 package com.lankamed.health.backend.model;
 
+import com.lankamed.health.backend.model.listener.ReferenceDataChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -11,6 +12,7 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
+@EntityListeners(ReferenceDataChangeListener.class)
 @Table(name = "hospitals")
 @Data
 @Builder
@@ -19,7 +21,8 @@ import java.time.Instant;
 public class Hospital {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "hospitals")
+    @TableGenerator(name = "hospitals", table = IdGenerators.TABLE, pkColumnValue = "hospitals", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "hospital_id")
     private Long hospitalId;
 
@@ -0,0 +1,15 @@
+package com.lankamed.health.backend.model;
+
+/**
+ * Settings shared by the entities' {@code @TableGenerator}s. Ids come from one row per table in {@link #TABLE},
+ * handed out in blocks of {@link #ALLOCATION_SIZE}, so inserts need no generated-key round trip and Hibernate can
+ * batch them. Anything that inserts rows outside Hibernate must take its ids from the generator as well.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generators";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
@@ -4,22 +4,31 @@ import java.time.LocalDateTime;
 
 import com.lankamed.health.backend.model.patient.Patient;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_patient_status", columnList = "patient_id, status")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payments_idempotency_key", columnNames = "idempotency_key")
+})
 public class Payment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "payments")
+    @TableGenerator(name = "payments", table = IdGenerators.TABLE, pkColumnValue = "payments", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long paymentId;
 
     @ManyToOne
@@ -42,6 +51,10 @@ public class Payment {
 
     private LocalDateTime paymentTimestamp;
 
+    // Client-supplied Idempotency-Key of the request that created this payment, if any
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
     // Constructors
     public Payment() {
     }
@@ -121,4 +134,12 @@ public class Payment {
     public void setPaymentTimestamp(LocalDateTime paymentTimestamp) {
         this.paymentTimestamp = paymentTimestamp;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
 }
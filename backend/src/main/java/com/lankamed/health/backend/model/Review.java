@@ -1,5 +1,6 @@
 package com.lankamed.health.backend.model;
 
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangeListener;
 import com.lankamed.health.backend.model.patient.Patient;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
@@ -14,6 +15,7 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity
+@EntityListeners(DoctorDirectoryChangeListener.class)
 @Table(name = "reviews")
 @Data
 @Builder
@@ -22,7 +24,8 @@ import java.time.Instant;
 public class Review {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "reviews")
+    @TableGenerator(name = "reviews", table = IdGenerators.TABLE, pkColumnValue = "reviews", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "review_id")
     private Long reviewId;
 
@@ -1,5 +1,6 @@
 package com.lankamed.health.backend.model;
 
+import com.lankamed.health.backend.model.listener.ReferenceDataChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,6 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(ReferenceDataChangeListener.class)
 @Table(name = "service_categories")
 @Data
 @Builder
@@ -17,7 +19,8 @@ import lombok.NoArgsConstructor;
 public class ServiceCategory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "service_categories")
+    @TableGenerator(name = "service_categories", table = IdGenerators.TABLE, pkColumnValue = "service_categories", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "category_id")
     private Long categoryId;
 
@@ -1,5 +1,7 @@
 package com.lankamed.health.backend.model;
 
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangeListener;
+import com.lankamed.health.backend.model.listener.ReferenceDataChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -8,6 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners({DoctorDirectoryChangeListener.class, ReferenceDataChangeListener.class})
 @Table(name = "staff_details")
 @Data
 @Builder
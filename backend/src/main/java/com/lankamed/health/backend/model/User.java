@@ -1,5 +1,9 @@
 package com.lankamed.health.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangeListener;
+import com.lankamed.health.backend.model.listener.ReferenceDataChangeListener;
+import com.lankamed.health.backend.model.listener.UserStateChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -7,11 +11,14 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.Instant;
 
 @Entity
+@EntityListeners({DoctorDirectoryChangeListener.class, UserStateChangeListener.class, ReferenceDataChangeListener.class})
 @Table(name = "users")
 @Data
 @Builder
@@ -20,7 +27,8 @@ import java.time.Instant;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users")
+    @TableGenerator(name = "users", table = IdGenerators.TABLE, pkColumnValue = "users", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "user_id")
     private Long userId;
 
@@ -49,13 +57,32 @@ public class User {
     @Column(nullable = false, length = 20)
     private Role role;
 
+    // Bumped to revoke every token issued before; stateless authentication rejects tokens carrying an older value
+    @Builder.Default
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Role as last read from or written to the database; entity listeners run first, so they see a change
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Role persistedRole;
+
     @PrePersist
     public void prePersist() {
         if (createdAt == null) {
             createdAt = Instant.now();
         }
     }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    public void rememberRole() {
+        persistedRole = role;
+    }
 }
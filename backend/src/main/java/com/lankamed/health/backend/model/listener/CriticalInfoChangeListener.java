@@ -0,0 +1,53 @@
+package com.lankamed.health.backend.model.listener;
+
+import com.lankamed.health.backend.model.patient.Allergy;
+import com.lankamed.health.backend.model.patient.EmergencyContact;
+import com.lankamed.health.backend.model.patient.MedicalCondition;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.model.patient.Prescription;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on the rows a break-glass snapshot is built from. Any write to a patient, or to one of their
+ * allergies, conditions, prescriptions or emergency contacts, publishes a {@link PatientRecordChangedEvent}.
+ */
+@Component
+public class CriticalInfoChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CriticalInfoChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Long patientId = patientId(entity);
+        if (patientId != null) {
+            eventPublisher.publishEvent(new PatientRecordChangedEvent(patientId));
+        }
+    }
+
+    // The lazy patient reference already holds the id, so no row is loaded
+    private static Long patientId(Object entity) {
+        Patient patient = null;
+        if (entity instanceof Patient p) {
+            patient = p;
+        } else if (entity instanceof Allergy a) {
+            patient = a.getPatient();
+        } else if (entity instanceof MedicalCondition c) {
+            patient = c.getPatient();
+        } else if (entity instanceof Prescription p) {
+            patient = p.getPatient();
+        } else if (entity instanceof EmergencyContact e) {
+            patient = e.getPatient();
+        }
+        return patient != null ? patient.getPatientId() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.lankamed.health.backend.model.listener;
+
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.StaffDetails;
+import com.lankamed.health.backend.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on the rows the doctor directory is built from. Writes to users that neither are
+ * nor were doctors are ignored; anything else publishes a {@link DoctorDirectoryChangedEvent}.
+ */
+@Component
+public class DoctorDirectoryChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DoctorDirectoryChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        // A user demoted from doctor still has to leave the directory
+        if (entity instanceof User user && user.getRole() != Role.DOCTOR && user.getPersistedRole() != Role.DOCTOR) {
+            return;
+        }
+        eventPublisher.publishEvent(new DoctorDirectoryChangedEvent(entity instanceof StaffDetails || entity instanceof User));
+    }
+}
@@ -0,0 +1,8 @@
+package com.lankamed.health.backend.model.listener;
+
+/**
+ * Published inside the writing transaction when a doctor, a doctor's user or a review changes.
+ * {@code profileChanged} is false for reviews, which do not touch names or specializations.
+ */
+public record DoctorDirectoryChangedEvent(boolean profileChanged) {
+}
@@ -0,0 +1,8 @@
+package com.lankamed.health.backend.model.listener;
+
+/**
+ * Published inside the writing transaction when a patient, or one of their allergies, conditions, prescriptions
+ * or emergency contacts, is written.
+ */
+public record PatientRecordChangedEvent(Long patientId) {
+}
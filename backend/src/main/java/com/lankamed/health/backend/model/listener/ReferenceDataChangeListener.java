@@ -0,0 +1,35 @@
+package com.lankamed.health.backend.model.listener;
+
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on hospitals, service categories, staff records and staff users. Any write publishes a
+ * {@link ReferenceDataChangedEvent}; writes to users that are and were patients are ignored, since no staff
+ * record points at them.
+ */
+@Component
+public class ReferenceDataChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReferenceDataChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof User user && user.getRole() == Role.PATIENT
+                && (user.getPersistedRole() == null || user.getPersistedRole() == Role.PATIENT)) {
+            return;
+        }
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent());
+    }
+}
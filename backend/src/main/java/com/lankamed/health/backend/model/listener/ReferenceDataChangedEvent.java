@@ -0,0 +1,5 @@
+package com.lankamed.health.backend.model.listener;
+
+/** Published inside the writing transaction when a hospital, service category, staff record or staff user changes. */
+public record ReferenceDataChangedEvent() {
+}
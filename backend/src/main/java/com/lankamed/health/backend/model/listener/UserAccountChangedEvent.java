@@ -0,0 +1,5 @@
+package com.lankamed.health.backend.model.listener;
+
+/** Published inside the writing transaction when a user account is updated or deleted. */
+public record UserAccountChangedEvent(String email) {
+}
@@ -0,0 +1,27 @@
+package com.lankamed.health.backend.model.listener;
+
+import com.lankamed.health.backend.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on users that publishes a {@link UserAccountChangedEvent} when a user is updated or deleted,
+ * so role changes and token revocations apply to the next request on this instance.
+ */
+@Component
+public class UserStateChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserStateChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        eventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
+    }
+}
@@ -1,5 +1,7 @@
 package com.lankamed.health.backend.model.patient;
 
+import com.lankamed.health.backend.model.IdGenerators;
+import com.lankamed.health.backend.model.listener.CriticalInfoChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(CriticalInfoChangeListener.class)
 @Table(name = "allergies")
 @Data
 @Builder
@@ -17,7 +20,8 @@ import lombok.NoArgsConstructor;
 public class Allergy {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "allergies")
+    @TableGenerator(name = "allergies", table = IdGenerators.TABLE, pkColumnValue = "allergies", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "allergy_id")
     private Long allergyId;
 
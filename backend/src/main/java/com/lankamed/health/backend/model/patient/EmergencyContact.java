@@ -1,5 +1,7 @@
 package com.lankamed.health.backend.model.patient;
 
+import com.lankamed.health.backend.model.IdGenerators;
+import com.lankamed.health.backend.model.listener.CriticalInfoChangeListener;
 import com.lankamed.health.backend.model.patient.GenderConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
@@ -9,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(CriticalInfoChangeListener.class)
 @Table(name = "emergency_contacts")
 @Data
 @Builder
@@ -17,7 +20,8 @@ import lombok.NoArgsConstructor;
 public class EmergencyContact {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "emergency_contacts")
+    @TableGenerator(name = "emergency_contacts", table = IdGenerators.TABLE, pkColumnValue = "emergency_contacts", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "emergency_contact_id")
     private Long emergencyContactId;
 
@@ -1,5 +1,6 @@
 package com.lankamed.health.backend.model.patient;
 
+import com.lankamed.health.backend.model.IdGenerators;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import lombok.*;
@@ -9,9 +10,11 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_health_metrics_patient_timestamp", columnNames = {"patient_patient_id", "timestamp"}))
 public class HealthMetric {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "health_metric")
+    @TableGenerator(name = "health_metric", table = IdGenerators.TABLE, pkColumnValue = "health_metric", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -1,5 +1,7 @@
 package com.lankamed.health.backend.model.patient;
 
+import com.lankamed.health.backend.model.IdGenerators;
+import com.lankamed.health.backend.model.listener.CriticalInfoChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -11,6 +13,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(CriticalInfoChangeListener.class)
 @Table(name = "medical_conditions")
 @Data
 @Builder
@@ -19,7 +22,8 @@ import java.time.LocalDate;
 public class MedicalCondition {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "medical_conditions")
+    @TableGenerator(name = "medical_conditions", table = IdGenerators.TABLE, pkColumnValue = "medical_conditions", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "condition_id")
     private Long conditionId;
 
@@ -1,6 +1,7 @@
 package com.lankamed.health.backend.model.patient;
 
 import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.listener.CriticalInfoChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -11,6 +12,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(CriticalInfoChangeListener.class)
 @Table(name = "patients")
 @Data
 @Builder
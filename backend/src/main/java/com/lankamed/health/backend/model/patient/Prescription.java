@@ -1,6 +1,8 @@
 package com.lankamed.health.backend.model.patient;
 
+import com.lankamed.health.backend.model.IdGenerators;
 import com.lankamed.health.backend.model.StaffDetails;
+import com.lankamed.health.backend.model.listener.CriticalInfoChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -13,6 +15,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(CriticalInfoChangeListener.class)
 @Table(name = "prescriptions")
 @Data
 @Builder
@@ -21,7 +24,8 @@ import java.time.LocalDate;
 public class Prescription {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "prescriptions")
+    @TableGenerator(name = "prescriptions", table = IdGenerators.TABLE, pkColumnValue = "prescriptions", allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "prescription_id")
     private Long prescriptionId;
 
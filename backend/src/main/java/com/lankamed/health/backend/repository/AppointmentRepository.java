@@ -1,12 +1,15 @@
 package com.lankamed.health.backend.repository;
 
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
 import com.lankamed.health.backend.model.Appointment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +23,6 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Query("SELECT a FROM Appointment a WHERE a.patient.user.email = :email AND a.appointmentDateTime >= :startDate ORDER BY a.appointmentDateTime DESC")
     List<Appointment> findUpcomingAppointmentsByPatientEmail(@Param("email") String email, @Param("startDate") LocalDateTime startDate);
 
-    // Fetch-join all associations to avoid LazyInitializationException when building admin views
     @Query("SELECT a FROM Appointment a " +
             "JOIN FETCH a.patient p " +
             "JOIN FETCH p.user " +
@@ -28,8 +30,8 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             "JOIN FETCH d.user " +
             "JOIN FETCH a.hospital h " +
             "JOIN FETCH a.serviceCategory s " +
-            "ORDER BY a.appointmentDateTime DESC")
-    List<Appointment> findAllWithDetails();
+            "WHERE a.appointmentId = :id")
+    Optional<Appointment> findByIdWithDetails(@Param("id") Long id);
 
     @Query("SELECT a FROM Appointment a " +
             "JOIN FETCH a.patient p " +
@@ -38,8 +40,62 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             "JOIN FETCH d.user " +
             "JOIN FETCH a.hospital h " +
             "JOIN FETCH a.serviceCategory s " +
-            "WHERE a.appointmentId = :id")
-    Optional<Appointment> findByIdWithDetails(@Param("id") Long id);
+            "WHERE a.idempotencyKey = :key")
+    Optional<Appointment> findByIdempotencyKeyWithDetails(@Param("key") String key);
+
+    // Keyset page, newest first: rows strictly after the cursor in (appointmentDateTime, appointmentId) DESC order.
+    // Null filters and a null cursor are ignored; the page size comes from the Pageable.
+    @Query("SELECT new com.lankamed.health.backend.dto.AppointmentSummaryDto(" +
+            "a.appointmentId, a.appointmentDateTime, a.status, a.priority, " +
+            "CONCAT(pu.firstName, ' ', pu.lastName), d.staffId, CONCAT(du.firstName, ' ', du.lastName), " +
+            "d.specialization, d.consultationFee, a.paymentAmount, h.hospitalId, h.name, s.name) " +
+            "FROM Appointment a " +
+            "JOIN a.patient p " +
+            "JOIN p.user pu " +
+            "JOIN a.doctor d " +
+            "JOIN d.user du " +
+            "JOIN a.hospital h " +
+            "JOIN a.serviceCategory s " +
+            "WHERE (:status IS NULL OR a.status = :status) " +
+            "AND (:doctorId IS NULL OR d.staffId = :doctorId) " +
+            "AND (:hospitalId IS NULL OR h.hospitalId = :hospitalId) " +
+            "AND (:start IS NULL OR a.appointmentDateTime >= :start) " +
+            "AND (:end IS NULL OR a.appointmentDateTime < :end) " +
+            "AND (:cursorDateTime IS NULL OR a.appointmentDateTime < :cursorDateTime " +
+            "OR (a.appointmentDateTime = :cursorDateTime AND a.appointmentId < :cursorId)) " +
+            "ORDER BY a.appointmentDateTime DESC, a.appointmentId DESC")
+    List<AppointmentSummaryDto> findSummaryPage(@Param("status") Appointment.Status status,
+                                                @Param("doctorId") Long doctorId,
+                                                @Param("hospitalId") Long hospitalId,
+                                                @Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end,
+                                                @Param("cursorDateTime") LocalDateTime cursorDateTime,
+                                                @Param("cursorId") Long cursorId,
+                                                Pageable pageable);
 
     long countByDoctorStaffIdAndAppointmentDateTimeBetween(Long doctorId, LocalDateTime startInclusive, LocalDateTime endInclusive);
+
+    // Per doctor, per day booking counts for a whole calendar range in one round trip
+    @Query("SELECT a.doctor.staffId, CAST(a.appointmentDateTime AS LocalDate), COUNT(a) FROM Appointment a " +
+            "WHERE a.doctor.staffId IN :doctorIds " +
+            "AND a.appointmentDateTime >= :start AND a.appointmentDateTime < :end " +
+            "AND a.status <> :excludedStatus " +
+            "GROUP BY a.doctor.staffId, CAST(a.appointmentDateTime AS LocalDate)")
+    List<Object[]> countBookingsPerDay(@Param("doctorIds") Collection<Long> doctorIds,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end,
+                                       @Param("excludedStatus") Appointment.Status excludedStatus);
+
+    // Single doctor, single day variant of countBookingsPerDay with the same half-open [start, end) bounds
+    @Query("SELECT COUNT(a) FROM Appointment a " +
+            "WHERE a.doctor.staffId = :doctorId " +
+            "AND a.appointmentDateTime >= :start AND a.appointmentDateTime < :end " +
+            "AND a.status <> :excludedStatus")
+    long countBookings(@Param("doctorId") Long doctorId,
+                       @Param("start") LocalDateTime start,
+                       @Param("end") LocalDateTime end,
+                       @Param("excludedStatus") Appointment.Status excludedStatus);
+
+    // Bounded conflict probe served by idx_appointments_doctor_datetime; stops at the first matching row
+    boolean existsByDoctorStaffIdAndAppointmentDateTimeBetween(Long doctorId, LocalDateTime startInclusive, LocalDateTime endInclusive);
 }
@@ -0,0 +1,42 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.model.DoctorDayBooking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface DoctorDayBookingRepository extends JpaRepository<DoctorDayBooking, Long> {
+
+    // Takes one slot only while the day is below capacity; 0 rows means full or not yet seeded
+    @Modifying
+    @Query("UPDATE DoctorDayBooking b SET b.booked = b.booked + 1 " +
+            "WHERE b.doctorId = :doctorId AND b.slotDate = :slotDate AND b.booked < :capacity")
+    int incrementIfBelow(@Param("doctorId") Long doctorId, @Param("slotDate") LocalDate slotDate, @Param("capacity") int capacity);
+
+    @Modifying
+    @Query("UPDATE DoctorDayBooking b SET b.booked = b.booked - 1 " +
+            "WHERE b.doctorId = :doctorId AND b.slotDate = :slotDate AND b.booked > 0")
+    int decrement(@Param("doctorId") Long doctorId, @Param("slotDate") LocalDate slotDate);
+
+    // Creates the counter row from the existing non-cancelled appointments; a concurrent seed is ignored
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO doctor_day_bookings (doctor_id, slot_date, booked)
+        SELECT :doctorId, :slotDate, COUNT(*)
+        FROM appointments a
+        WHERE a.doctor_id = :doctorId
+            AND a.appointment_datetime >= :start
+            AND a.appointment_datetime < :end
+            AND a.status <> 'cancelled'
+        """, nativeQuery = true)
+    int seedIfAbsent(@Param("doctorId") Long doctorId,
+                     @Param("slotDate") LocalDate slotDate,
+                     @Param("start") LocalDateTime start,
+                     @Param("end") LocalDateTime end);
+}
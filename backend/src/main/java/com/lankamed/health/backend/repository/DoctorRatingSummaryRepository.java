@@ -0,0 +1,56 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.model.DoctorRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DoctorRatingSummaryRepository extends JpaRepository<DoctorRatingSummary, Long> {
+
+    // 0 rows means the doctor has no summary row yet
+    @Modifying
+    @Query("UPDATE DoctorRatingSummary s SET s.reviewCount = s.reviewCount + 1, s.ratingSum = s.ratingSum + :rating, " +
+            "s.stars1 = s.stars1 + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "s.stars2 = s.stars2 + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "s.stars3 = s.stars3 + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "s.stars4 = s.stars4 + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "s.stars5 = s.stars5 + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+            "WHERE s.doctorId = :doctorId")
+    int addRating(@Param("doctorId") Long doctorId, @Param("rating") int rating);
+
+    // Creates the summary row from the doctor's existing reviews; a concurrent seed is ignored
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO doctor_rating_summaries (doctor_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+        SELECT :doctorId, COUNT(*), COALESCE(SUM(r.rating), 0),
+            COALESCE(SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), 0),
+            COALESCE(SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), 0),
+            COALESCE(SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), 0),
+            COALESCE(SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), 0),
+            COALESCE(SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END), 0)
+        FROM reviews r
+        WHERE r.doctor_id = :doctorId
+        """, nativeQuery = true)
+    int seedIfAbsent(@Param("doctorId") Long doctorId);
+
+    @Modifying
+    @Query(value = "DELETE FROM doctor_rating_summaries", nativeQuery = true)
+    int deleteAllSummaries();
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO doctor_rating_summaries (doctor_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+        SELECT r.doctor_id, COUNT(*), SUM(r.rating),
+            SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END),
+            SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END)
+        FROM reviews r
+        GROUP BY r.doctor_id
+        """, nativeQuery = true)
+    int insertAllFromReviews();
+}
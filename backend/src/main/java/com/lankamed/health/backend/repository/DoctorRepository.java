@@ -1,59 +1,31 @@
 package com.lankamed.health.backend.repository;
 
-import com.lankamed.health.backend.dto.DoctorProfileDto;
 import com.lankamed.health.backend.model.StaffDetails;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<StaffDetails, Long> {
     
-    @Query("SELECT s FROM StaffDetails s WHERE s.user.role = 'DOCTOR' " +
-           "AND (:name IS NULL OR LOWER(CONCAT(s.user.firstName, ' ', s.user.lastName)) LIKE LOWER(CONCAT('%', :name, '%'))) " +
-           "AND (:specialization IS NULL OR LOWER(s.specialization) LIKE LOWER(CONCAT('%', :specialization, '%')))")
-    List<StaffDetails> findDoctorsByNameAndSpecialization(@Param("name") String name, @Param("specialization") String specialization);
-    
-    @Query("SELECT s FROM StaffDetails s WHERE s.user.role = 'DOCTOR'")
-    List<StaffDetails> findAllDoctors();
-    
-    @Query(value = """
-        SELECT
-            u.user_id AS doctorId,
-            u.first_name AS firstName,
-            u.last_name AS lastName,
-            CONCAT(u.first_name, ' ', u.last_name) AS fullName,
-            sd.specialization,
-            h.name AS hospitalName,
-            sc.name AS categoryName,
-            COALESCE(AVG(dr.rating), 0) AS averageRating,
-            COUNT(dr.review_id) AS reviewCount,
-            u.email,
-            h.address AS hospitalAddress,
-            h.contact_number AS hospitalContact
-        FROM
-            users u
-        JOIN
-            staff_details sd ON u.user_id = sd.staff_id
-        JOIN
-            hospitals h ON sd.hospital_id = h.hospital_id
-        JOIN
-            service_categories sc ON sd.service_category_id = sc.category_id
-        LEFT JOIN
-            reviews dr ON u.user_id = dr.doctor_id
-        WHERE
-            u.role = 'DOCTOR'
-            AND (:name IS NULL OR LOWER(CONCAT(u.first_name, ' ', u.last_name)) LIKE LOWER(CONCAT('%', :name, '%')))
-            AND (:specialization IS NULL OR LOWER(sd.specialization) LIKE LOWER(CONCAT('%', :specialization, '%')))
-        GROUP BY
-            u.user_id, u.first_name, u.last_name, sd.specialization, h.name, sc.name, u.email, h.address, h.contact_number
-        ORDER BY
-            averageRating DESC
-        """, nativeQuery = true)
-    List<Object[]> findDoctorProfilesWithRatings(@Param("name") String name, @Param("specialization") String specialization);
+    // Name and specialization of every doctor, for the in-memory search index
+    @Query("SELECT s.staffId, u.firstName, u.lastName, s.specialization FROM StaffDetails s JOIN s.user u WHERE u.role = 'DOCTOR'")
+    List<Object[]> findDoctorSearchTerms();
+
+    // Doctor cards with review stats from the rating summaries, for ids resolved by the search index
+    @Query("SELECT s.staffId, u.firstName, u.lastName, s.specialization, h.name, c.name, " +
+           "CASE WHEN rs.reviewCount > 0 THEN rs.ratingSum * 1.0 / rs.reviewCount END, COALESCE(rs.reviewCount, 0) " +
+           "FROM StaffDetails s " +
+           "JOIN s.user u " +
+           "JOIN s.hospital h " +
+           "LEFT JOIN s.serviceCategory c " +
+           "LEFT JOIN DoctorRatingSummary rs ON rs.doctorId = s.staffId " +
+           "WHERE u.role = 'DOCTOR' AND s.staffId IN :doctorIds")
+    List<Object[]> findDoctorCardsByIds(@Param("doctorIds") Collection<Long> doctorIds);
     
     @Query(value = """
         SELECT
@@ -64,8 +36,8 @@ public interface DoctorRepository extends JpaRepository<StaffDetails, Long> {
             sd.specialization,
             h.name AS hospitalName,
             sc.name AS categoryName,
-            COALESCE(AVG(dr.rating), 0) AS averageRating,
-            COUNT(dr.review_id) AS reviewCount,
+            COALESCE(rs.rating_sum / NULLIF(rs.review_count, 0), 0) AS averageRating,
+            COALESCE(rs.review_count, 0) AS reviewCount,
             u.email,
             h.address AS hospitalAddress,
             h.contact_number AS hospitalContact
@@ -78,13 +50,12 @@ public interface DoctorRepository extends JpaRepository<StaffDetails, Long> {
         JOIN
             service_categories sc ON sd.service_category_id = sc.category_id
         LEFT JOIN
-            reviews dr ON u.user_id = dr.doctor_id
+            doctor_rating_summaries rs ON sd.staff_id = rs.doctor_id
         WHERE
             u.role = 'DOCTOR'
-        GROUP BY
-            u.user_id, u.first_name, u.last_name, sd.specialization, h.name, sc.name, u.email, h.address, h.contact_number
+            AND sd.staff_id IN (:doctorIds)
         ORDER BY
             averageRating DESC
         """, nativeQuery = true)
-    List<Object[]> findAllDoctorProfilesWithRatings();
+    List<Object[]> findDoctorProfilesByIds(@Param("doctorIds") Collection<Long> doctorIds);
 }
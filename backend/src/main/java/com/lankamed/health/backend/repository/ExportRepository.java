@@ -0,0 +1,69 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
+import com.lankamed.health.backend.dto.PaymentExportDto;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Read-only cursors over [start, end) for the NDJSON exports; projections, so nothing is held in the persistence context.
+ * Only these queries carry {@code export.fetch-size}. On MySQL the default of Integer.MIN_VALUE makes Connector/J
+ * stream rows one at a time over the ordinary text protocol, which leaves every other query on client-side prepared
+ * statements; the trade-off is that the connection can run nothing else until the stream is closed, so an export holds
+ * its pooled connection for as long as the client takes to download it. Drivers that reject a negative fetch size
+ * (H2 in tests) use a positive batch size instead.
+ */
+@Repository
+public class ExportRepository {
+
+    private final EntityManager entityManager;
+    private final int fetchSize;
+
+    public ExportRepository(EntityManager entityManager,
+                            @Value("${export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
+    }
+
+    public Stream<AppointmentSummaryDto> streamAppointmentSummaries(LocalDateTime start, LocalDateTime end) {
+        return entityManager.createQuery("SELECT new com.lankamed.health.backend.dto.AppointmentSummaryDto(" +
+                        "a.appointmentId, a.appointmentDateTime, a.status, a.priority, " +
+                        "CONCAT(pu.firstName, ' ', pu.lastName), d.staffId, CONCAT(du.firstName, ' ', du.lastName), " +
+                        "d.specialization, d.consultationFee, a.paymentAmount, h.hospitalId, h.name, s.name) " +
+                        "FROM Appointment a " +
+                        "JOIN a.patient p " +
+                        "JOIN p.user pu " +
+                        "JOIN a.doctor d " +
+                        "JOIN d.user du " +
+                        "JOIN a.hospital h " +
+                        "JOIN a.serviceCategory s " +
+                        "WHERE (:start IS NULL OR a.appointmentDateTime >= :start) " +
+                        "AND (:end IS NULL OR a.appointmentDateTime < :end) " +
+                        "ORDER BY a.appointmentDateTime, a.appointmentId", AppointmentSummaryDto.class)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // The eager patient/appointment associations of Payment are never loaded
+    public Stream<PaymentExportDto> streamPayments(LocalDateTime start, LocalDateTime end) {
+        return entityManager.createQuery("SELECT new com.lankamed.health.backend.dto.PaymentExportDto(" +
+                        "p.paymentId, pa.patientId, a.appointmentId, p.amount, p.paymentType, p.status, p.transactionId, p.paymentTimestamp) " +
+                        "FROM Payment p JOIN p.patient pa LEFT JOIN p.appointment a " +
+                        "WHERE (:start IS NULL OR p.paymentTimestamp >= :start) " +
+                        "AND (:end IS NULL OR p.paymentTimestamp < :end) " +
+                        "ORDER BY p.paymentId", PaymentExportDto.class)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -1,10 +1,17 @@
 package com.lankamed.health.backend.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.lankamed.health.backend.dto.PendingPaymentRow;
 import com.lankamed.health.backend.model.Payment;
 import com.lankamed.health.backend.model.PaymentStatus;
 
@@ -14,4 +21,46 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     // Alternative method with different naming
     List<Payment> findByPatientPatientIdAndStatus(Long patientId, PaymentStatus status);
+
+    Optional<Payment> findByIdempotencyKey(String idempotencyKey);
+
+    // Conditional so a late gateway answer cannot overwrite a status that was already settled
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.status = :status WHERE p.paymentId = :paymentId AND p.status = :expected")
+    int updateStatus(@Param("paymentId") Long paymentId, @Param("expected") PaymentStatus expected,
+                     @Param("status") PaymentStatus status);
+
+    // Served from idx_payments_patient_status; appointment details are joined in so no association is loaded lazily
+    @Query("SELECT new com.lankamed.health.backend.dto.PendingPaymentRow(" +
+            "p.paymentId, pa.patientId, a.appointmentId, p.amount, p.paymentType, p.status, p.transactionId, " +
+            "a.appointmentDateTime, a.paymentAmount, du.firstName, du.lastName, sc.name, h.name) " +
+            "FROM Payment p JOIN p.patient pa " +
+            "LEFT JOIN p.appointment a LEFT JOIN a.doctor d LEFT JOIN d.user du " +
+            "LEFT JOIN a.serviceCategory sc LEFT JOIN a.hospital h " +
+            "WHERE pa.patientId = :patientId AND p.status = :status " +
+            "ORDER BY p.paymentId")
+    List<PendingPaymentRow> findPaymentRows(@Param("patientId") Long patientId, @Param("status") PaymentStatus status);
+
+    // Aggregates for reporting; each row is (key, count, sum of amount)
+    @Query("SELECT p.status, COUNT(p), COALESCE(SUM(p.amount), 0) FROM Payment p GROUP BY p.status")
+    List<Object[]> summarizeByStatus();
+
+    @Query("SELECT p.paymentType, COUNT(p), COALESCE(SUM(p.amount), 0) FROM Payment p GROUP BY p.paymentType")
+    List<Object[]> summarizeByPaymentType();
+
+    // Payments without an appointment are grouped under a null hospital
+    @Query("SELECT h.name, COUNT(p), COALESCE(SUM(p.amount), 0) FROM Payment p " +
+            "LEFT JOIN p.appointment a LEFT JOIN a.hospital h " +
+            "GROUP BY h.hospitalId, h.name")
+    List<Object[]> summarizeByHospital();
+
+    @Query("SELECT CAST(p.paymentTimestamp AS LocalDate), COUNT(p), COALESCE(SUM(p.amount), 0) FROM Payment p " +
+            "WHERE p.paymentTimestamp >= :start AND p.paymentTimestamp < :end " +
+            "GROUP BY CAST(p.paymentTimestamp AS LocalDate) " +
+            "ORDER BY CAST(p.paymentTimestamp AS LocalDate)")
+    List<Object[]> summarizeByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT pa.patientId FROM Patient pa WHERE NOT EXISTS (SELECT p.paymentId FROM Payment p WHERE p.patient = pa)")
+    List<Long> findPatientIdsWithoutPayments();
 }
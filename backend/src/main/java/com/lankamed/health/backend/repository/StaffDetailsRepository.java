@@ -1,7 +1,10 @@
 package com.lankamed.health.backend.repository;
 
+import com.lankamed.health.backend.model.Role;
 import com.lankamed.health.backend.model.StaffDetails;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,8 @@ public interface StaffDetailsRepository extends JpaRepository<StaffDetails, Long
     List<StaffDetails> findByHospitalHospitalId(Long hospitalId);
     List<StaffDetails> findByServiceCategoryCategoryId(Long categoryId);
     List<StaffDetails> findBySpecialization(String specialization);
+
+    // Hospital and category are only read for their ids, which the lazy references already hold
+    @Query("SELECT s FROM StaffDetails s JOIN FETCH s.user u WHERE u.role = :role ORDER BY s.staffId")
+    List<StaffDetails> findAllWithUserByRole(@Param("role") Role role);
 }
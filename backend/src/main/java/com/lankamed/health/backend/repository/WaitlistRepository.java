@@ -13,6 +13,7 @@ public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
     List<WaitlistEntry> findByPatientUserEmailOrderByCreatedAtDesc(String email);
     
     List<WaitlistEntry> findByPatientUserEmailAndStatusNotOrderByCreatedAtDesc(String email, WaitlistEntry.Status status);
+    List<WaitlistEntry> findByPatientPatientIdAndStatusNotOrderByCreatedAtDesc(Long patientId, WaitlistEntry.Status status);
 
     List<WaitlistEntry> findByStatusOrderByCreatedAtAsc(WaitlistEntry.Status status);
 
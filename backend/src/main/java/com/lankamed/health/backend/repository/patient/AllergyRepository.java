@@ -1,12 +1,28 @@
 package com.lankamed.health.backend.repository.patient;
 import com.lankamed.health.backend.model.patient.Allergy;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface AllergyRepository extends JpaRepository<Allergy, Long> {
-    List<Allergy> findByPatientPatientId(Long patientId);
+    @Query("SELECT a FROM Allergy a WHERE a.patient.patientId = :patientId ORDER BY a.allergyId")
+    List<Allergy> findByPatientPatientId(@Param("patientId") Long patientId);
     List<Allergy> findByPatientUserEmail(String email);
+
+    // 0 rows: no such allergy for this patient
+    @Modifying
+    @Query("UPDATE Allergy a SET a.allergyName = :allergyName, a.severity = :severity, a.notes = :notes " +
+            "WHERE a.allergyId = :id AND a.patient.patientId = :patientId")
+    int updateByIdAndPatientPatientId(@Param("id") Long id, @Param("patientId") Long patientId,
+                                      @Param("allergyName") String allergyName,
+                                      @Param("severity") Allergy.Severity severity, @Param("notes") String notes);
+
+    @Modifying
+    @Query("DELETE FROM Allergy a WHERE a.allergyId = :id AND a.patient.patientId = :patientId")
+    int deleteByIdAndPatientPatientId(@Param("id") Long id, @Param("patientId") Long patientId);
 }
@@ -1,11 +1,34 @@
 package com.lankamed.health.backend.repository.patient;
 
 import com.lankamed.health.backend.model.patient.BloodPressureRecord;
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BloodPressureRecordRepository extends JpaRepository<BloodPressureRecord, Long> {
     List<BloodPressureRecord> findByPatientUserEmail(String email);
+    List<BloodPressureRecord> findByPatientPatientId(Long patientId);
+    Optional<BloodPressureRecord> findFirstByPatientPatientIdOrderByTimestampDesc(Long patientId);
+
+    @Query("SELECT r.timestamp FROM BloodPressureRecord r WHERE r.patient.patientId = :patientId " +
+            "AND r.timestamp >= :from AND r.timestamp <= :to")
+    List<LocalDateTime> findTimestamps(@Param("patientId") Long patientId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    // Range scan on the uk_bp_records_patient_timestamp index; a null bound leaves that side of the range open
+    @Query("SELECT new com.lankamed.health.backend.dto.patient.BloodPressureRecordDto(r.systolic, r.diastolic, r.timestamp) FROM BloodPressureRecord r " +
+            "WHERE r.patient.patientId = :patientId " +
+            "AND (:from IS NULL OR r.timestamp >= :from) AND (:to IS NULL OR r.timestamp < :to) " +
+            "ORDER BY r.timestamp")
+    List<BloodPressureRecordDto> findTrend(@Param("patientId") Long patientId,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
 }
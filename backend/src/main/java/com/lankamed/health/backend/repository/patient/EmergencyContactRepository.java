@@ -2,6 +2,9 @@ package com.lankamed.health.backend.repository.patient;
 
 import com.lankamed.health.backend.model.patient.EmergencyContact;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,6 +12,18 @@ import java.util.List;
 @Repository
 public interface EmergencyContactRepository extends JpaRepository<EmergencyContact, Long> {
     List<EmergencyContact> findByPatientUserEmail(String email);
-}
+    @Query("SELECT e FROM EmergencyContact e WHERE e.patient.patientId = :patientId ORDER BY e.emergencyContactId")
+    List<EmergencyContact> findByPatientPatientId(@Param("patientId") Long patientId);
 
+    // 0 rows: no such contact for this patient
+    @Modifying
+    @Query("UPDATE EmergencyContact e SET e.fullName = :fullName, e.relationship = :relationship, e.phone = :phone, " +
+            "e.email = :email, e.address = :address WHERE e.emergencyContactId = :id AND e.patient.patientId = :patientId")
+    int updateByIdAndPatientPatientId(@Param("id") Long id, @Param("patientId") Long patientId,
+                                      @Param("fullName") String fullName, @Param("relationship") String relationship,
+                                      @Param("phone") String phone, @Param("email") String email, @Param("address") String address);
 
+    @Modifying
+    @Query("DELETE FROM EmergencyContact e WHERE e.emergencyContactId = :id AND e.patient.patientId = :patientId")
+    int deleteByIdAndPatientPatientId(@Param("id") Long id, @Param("patientId") Long patientId);
+}
@@ -2,11 +2,23 @@ package com.lankamed.health.backend.repository.patient;
 
 import com.lankamed.health.backend.model.patient.HealthMetric;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface HealthMetricRepository extends JpaRepository<HealthMetric, Long> {
     List<HealthMetric> findByPatientUserEmail(String email);
+    List<HealthMetric> findByPatientPatientId(Long patientId);
+    Optional<HealthMetric> findFirstByPatientPatientIdOrderByTimestampDesc(Long patientId);
+
+    @Query("SELECT r.timestamp FROM HealthMetric r WHERE r.patient.patientId = :patientId " +
+            "AND r.timestamp >= :from AND r.timestamp <= :to")
+    List<LocalDateTime> findTimestamps(@Param("patientId") Long patientId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
 }
@@ -2,12 +2,29 @@ package com.lankamed.health.backend.repository.patient;
 
 import com.lankamed.health.backend.model.patient.MedicalCondition;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface MedicalConditionRepository extends JpaRepository<MedicalCondition, Long> {
-    List<MedicalCondition> findByPatientPatientId(Long patientId);
+    @Query("SELECT c FROM MedicalCondition c WHERE c.patient.patientId = :patientId ORDER BY c.conditionId")
+    List<MedicalCondition> findByPatientPatientId(@Param("patientId") Long patientId);
     List<MedicalCondition> findByPatientUserEmail(String email);
+
+    // Ownership is part of the WHERE clause; 0 rows means missing or another patient's
+    @Modifying
+    @Query("UPDATE MedicalCondition c SET c.conditionName = :conditionName, c.diagnosedDate = :diagnosedDate, c.notes = :notes " +
+            "WHERE c.conditionId = :id AND c.patient.patientId = :patientId")
+    int updateByIdAndPatientPatientId(@Param("id") Long id, @Param("patientId") Long patientId,
+                                      @Param("conditionName") String conditionName,
+                                      @Param("diagnosedDate") LocalDate diagnosedDate, @Param("notes") String notes);
+
+    @Modifying
+    @Query("DELETE FROM MedicalCondition c WHERE c.conditionId = :id AND c.patient.patientId = :patientId")
+    int deleteByIdAndPatientPatientId(@Param("id") Long id, @Param("patientId") Long patientId);
 }
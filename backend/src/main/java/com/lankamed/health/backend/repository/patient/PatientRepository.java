@@ -3,6 +3,8 @@ package com.lankamed.health.backend.repository.patient;
 import com.lankamed.health.backend.model.Role;
 import com.lankamed.health.backend.model.patient.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +15,9 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByPatientId(Long patientId);
     Optional<Patient> findByUserEmail(String email);
     List<Patient> findByUserRole(Role role);
+
+    @Query("SELECT p FROM Patient p JOIN FETCH p.user WHERE p.patientId = :patientId")
+    Optional<Patient> findWithUserById(@Param("patientId") Long patientId);
 }
 
 
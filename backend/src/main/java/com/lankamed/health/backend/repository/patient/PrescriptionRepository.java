@@ -2,6 +2,8 @@ package com.lankamed.health.backend.repository.patient;
 
 import com.lankamed.health.backend.model.patient.Prescription;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,6 +11,11 @@ import java.util.List;
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
     List<Prescription> findByPatientPatientId(Long patientId);
+
+    // Prescribing doctor and their name come back in the same statement instead of two lazy loads per row
+    @Query("SELECT p FROM Prescription p JOIN FETCH p.doctor d JOIN FETCH d.user WHERE p.patient.patientId = :patientId ORDER BY p.prescriptionId")
+    List<Prescription> findWithDoctorByPatientId(@Param("patientId") Long patientId);
+
     List<Prescription> findByPatientUserEmail(String email);
     List<Prescription> findByDoctorStaffId(Long doctorId);
 }
@@ -0,0 +1,82 @@
+package com.lankamed.health.backend.repository.patient;
+
+import com.lankamed.health.backend.dto.patient.VitalReadingDto;
+import com.lankamed.health.backend.model.patient.BloodPressureRecord;
+import com.lankamed.health.backend.model.patient.HealthMetric;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.model.patient.WeightRecord;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Batched inserts for bulk vitals uploads. Ids come from the pooled table generators, so Hibernate sends the rows
+ * as JDBC batches of {@code vitals.bulk.batch-size}; on MySQL, rewriteBatchedStatements turns each batch into
+ * multi-row INSERTs. The persistence context is flushed and cleared per batch so a large upload does not pile up
+ * managed entities. Callers supply validated readings of the matching type and run inside a transaction.
+ */
+@Repository
+public class VitalsBulkRepository {
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public VitalsBulkRepository(EntityManager entityManager,
+                                @Value("${vitals.bulk.batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    public void insertHealthMetrics(Long patientId, List<VitalReadingDto> readings) {
+        insert(patientId, readings, (patient, r) -> HealthMetric.builder()
+                .patient(patient)
+                .systolic(r.getSystolic())
+                .diastolic(r.getDiastolic())
+                .heartRate(r.getHeartRate())
+                .spo2(r.getSpo2())
+                .timestamp(r.getTimestamp())
+                .build());
+    }
+
+    public void insertBloodPressure(Long patientId, List<VitalReadingDto> readings) {
+        insert(patientId, readings, (patient, r) -> BloodPressureRecord.builder()
+                .patient(patient)
+                .systolic(r.getSystolic())
+                .diastolic(r.getDiastolic())
+                .timestamp(r.getTimestamp())
+                .build());
+    }
+
+    public void insertWeights(Long patientId, List<VitalReadingDto> readings) {
+        insert(patientId, readings, (patient, r) -> WeightRecord.builder()
+                .patient(patient)
+                .weightKg(r.getWeightKg())
+                .timestamp(r.getTimestamp())
+                .build());
+    }
+
+    private void insert(Long patientId, List<VitalReadingDto> readings, BiFunction<Patient, VitalReadingDto, Object> toEntity) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            Patient patient = entityManager.getReference(Patient.class, patientId);
+            for (int i = 0; i < readings.size(); i++) {
+                entityManager.persist(toEntity.apply(patient, readings.get(i)));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    patient = entityManager.getReference(Patient.class, patientId);
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+}
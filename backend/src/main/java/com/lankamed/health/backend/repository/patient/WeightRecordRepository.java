@@ -1,11 +1,33 @@
 package com.lankamed.health.backend.repository.patient;
 
 import com.lankamed.health.backend.model.patient.WeightRecord;
+import com.lankamed.health.backend.dto.patient.WeightRecordDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface WeightRecordRepository extends JpaRepository<WeightRecord, Long> {
     List<WeightRecord> findByPatientUserEmail(String email);
+    List<WeightRecord> findByPatientPatientId(Long patientId);
+    Optional<WeightRecord> findFirstByPatientPatientIdOrderByTimestampDesc(Long patientId);
+
+    @Query("SELECT r.timestamp FROM WeightRecord r WHERE r.patient.patientId = :patientId " +
+            "AND r.timestamp >= :from AND r.timestamp <= :to")
+    List<LocalDateTime> findTimestamps(@Param("patientId") Long patientId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.lankamed.health.backend.dto.patient.WeightRecordDto(r.weightKg, r.timestamp) FROM WeightRecord r " +
+            "WHERE r.patient.patientId = :patientId " +
+            "AND (:from IS NULL OR r.timestamp >= :from) AND (:to IS NULL OR r.timestamp < :to) " +
+            "ORDER BY r.timestamp")
+    List<WeightRecordDto> findTrend(@Param("patientId") Long patientId,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,37 @@
+package com.lankamed.health.backend.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Principal built from verified token claims, without loading the user row.
+ * It is still a UserDetails, so {@code @AuthenticationPrincipal UserDetails} and {@code getName()} keep working.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long userId;
+    private final Long patientId;
+    private final String role;
+
+    public AuthenticatedUser(String email, Long userId, Long patientId, String role) {
+        super(email, "", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        this.userId = userId;
+        this.patientId = patientId;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /** The patient record of the caller; null for staff and admins. */
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+}
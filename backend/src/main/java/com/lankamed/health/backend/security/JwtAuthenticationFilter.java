@@ -1,12 +1,14 @@
 package com.lankamed.health.backend.security;
 
 import com.lankamed.health.backend.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,11 +24,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final UserStateCache userStateCache;
+    private final boolean stateless;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService,
+                                   UserStateCache userStateCache,
+                                   @Value("${security.jwt.stateless:true}") boolean stateless) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.userStateCache = userStateCache;
+        this.stateless = stateless;
     }
 
     @Override
@@ -36,7 +44,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String username;
 
         System.out.println("JwtAuthenticationFilter: Processing request " + request.getMethod() + " " + request.getRequestURI());
-        System.out.println("JwtAuthenticationFilter: Authorization header: " + authHeader);
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             System.out.println("JwtAuthenticationFilter: No Authorization header or not a Bearer token");
@@ -45,10 +52,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        System.out.println("JwtAuthenticationFilter: JWT token: " + jwt);
         
+        Claims claims;
         try {
-            username = jwtUtil.extractUsername(jwt);
+            // One verification per request: signature and expiry are checked here, so a token that
+            // gets past this point is valid and only the subject still has to match the user
+            claims = jwtUtil.extractAllClaims(jwt);
+            username = claims.getSubject();
             System.out.println("JwtAuthenticationFilter: Extracted username: " + username);
         } catch (Exception e) {
             System.out.println("JwtAuthenticationFilter: Error extracting username: " + e.getMessage());
@@ -56,13 +66,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && stateless && claims.get(JwtUtil.CLAIM_TOKEN_VERSION) != null) {
+            authenticateFromClaims(request, username, claims);
+        } else if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Tokens issued before the version claim existed, or stateless mode switched off
             try {
                 System.out.println("JwtAuthenticationFilter: Loading user details for: " + username);
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 System.out.println("JwtAuthenticationFilter: User details loaded: " + userDetails.getUsername());
                 
-                if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
+                if (username.equals(userDetails.getUsername())) {
                     System.out.println("JwtAuthenticationFilter: Token is valid, setting authentication");
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -83,4 +97,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Builds the principal from the verified claims. The only account lookup is the short-lived user state,
+     * which rejects the token once the user is deleted, changes role or has their tokens revoked.
+     */
+    private void authenticateFromClaims(HttpServletRequest request, String username, Claims claims) {
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        Integer tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class);
+        UserStateCache.UserState state = userStateCache.get(username).orElse(null);
+        if (state == null || role == null || !state.role().name().equals(role) || state.tokenVersion() != tokenVersion) {
+            logger.info("JwtAuthenticationFilter: Rejected stale token for {}", username);
+            return;
+        }
+
+        AuthenticatedUser principal = new AuthenticatedUser(username,
+                claims.get(JwtUtil.CLAIM_USER_ID, Long.class),
+                claims.get(JwtUtil.CLAIM_PATIENT_ID, Long.class),
+                role);
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                principal.getAuthorities()
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
 }
@@ -1,6 +1,8 @@
 package com.lankamed.health.backend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -8,27 +10,52 @@ import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${security.jwt.secret}")
-    private String secret;
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_PATIENT_ID = "pid";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
 
-    @Value("${security.jwt.expiration-ms:86400000}")
-    private long jwtExpirationMs;
+    private final long jwtExpirationMs;
+    private final Key signInKey;
+    private final JwtParser parser;
+
+    // Verified claims keyed by SHA-256 of the token, dropped at the token's own expiry
+    private final int cacheSize;
+    private final Map<String, VerifiedToken> verifiedTokens;
+
+    public JwtUtil(@Value("${security.jwt.secret}") String secret,
+                   @Value("${security.jwt.expiration-ms:86400000}") long jwtExpirationMs,
+                   @Value("${security.jwt.cache-size:10000}") int cacheSize) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+        this.cacheSize = cacheSize;
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > JwtUtil.this.cacheSize;
+            }
+        };
+    }
 
     public String extractUsername(String token) {
         try {
-            String username = extractClaim(token, Claims::getSubject);
-            System.out.println("JwtUtil: Successfully extracted username: " + username);
-            return username;
+            return extractClaim(token, Claims::getSubject);
         } catch (Exception e) {
             System.err.println("JwtUtil: Failed to extract username from token: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Invalid JWT token: " + e.getMessage());
         }
     }
@@ -39,16 +66,32 @@ public class JwtUtil {
     }
 
     public String generateToken(String username, String role) {
+        return generateToken(username, role, null, null, null);
+    }
+
+    /**
+     * Token carrying everything the stateless filter needs to build the principal: role, user id,
+     * patient id (patients only) and the user's current token version. Null claims are left out.
+     */
+    public String generateToken(String username, String role, Long userId, Long patientId, Integer tokenVersion) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
-                .claim("role", role)
+                .claim(CLAIM_ROLE, role)
                 .setIssuedAt(now)
-                .setExpiration(expiry)
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(expiry);
+        if (userId != null) {
+            builder.claim(CLAIM_USER_ID, userId);
+        }
+        if (patientId != null) {
+            builder.claim(CLAIM_PATIENT_ID, patientId);
+        }
+        if (tokenVersion != null) {
+            builder.claim(CLAIM_TOKEN_VERSION, tokenVersion);
+        }
+        return builder.signWith(signInKey, SignatureAlgorithm.HS256).compact();
     }
 
     public boolean isTokenValid(String token, String username) {
@@ -56,6 +99,42 @@ public class JwtUtil {
         return (usernameFromToken.equals(username) && !isTokenExpired(token));
     }
 
+    /**
+     * Verifies the token once and returns its claims. Signature, format and expiry failures surface as the
+     * parser's JwtException; a token seen before is answered from the cache until it expires.
+     */
+    public Claims extractAllClaims(String token) {
+        if (cacheSize <= 0) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        synchronized (verifiedTokens) {
+            VerifiedToken cached = verifiedTokens.get(digest);
+            if (cached != null) {
+                if (now < cached.expiresAtMillis()) {
+                    return cached.claims();
+                }
+                verifiedTokens.remove(digest);
+            }
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(digest, new VerifiedToken(claims, expiration.getTime()));
+            }
+        }
+        return claims;
+    }
+
+    int cachedTokenCount() {
+        synchronized (verifiedTokens) {
+            return verifiedTokens.size();
+        }
+    }
+
     private boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
@@ -64,16 +143,15 @@ public class JwtUtil {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private record VerifiedToken(Claims claims, long expiresAtMillis) {
     }
 }
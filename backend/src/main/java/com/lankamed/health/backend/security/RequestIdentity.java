@@ -0,0 +1,96 @@
+package com.lankamed.health.backend.security;
+
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * The caller's email, user id, patient id and role, resolved once per request.
+ * Tokens with the stateless claims answer without a query; older tokens cost one patient lookup per
+ * request instead of one per service call. The result is kept as a request attribute, so calls made
+ * outside a web request (scheduled jobs, tests) simply resolve again.
+ */
+@Component
+public class RequestIdentity {
+
+    private static final String ATTRIBUTE = RequestIdentity.class.getName();
+
+    public record Identity(String email, Long userId, Long patientId, String role) {
+    }
+
+    private static final Identity ANONYMOUS = new Identity(null, null, null, null);
+
+    private final PatientRepository patientRepository;
+
+    public RequestIdentity(PatientRepository patientRepository) {
+        this.patientRepository = patientRepository;
+    }
+
+    public Identity current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String email = authentication != null ? authentication.getName() : null;
+        if (email == null || "anonymousUser".equals(email)) {
+            return ANONYMOUS;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Identity cached
+                && Objects.equals(cached.email(), email)) {
+            return cached;
+        }
+        Identity identity = resolve(authentication, email);
+        if (attributes != null) {
+            attributes.setAttribute(ATTRIBUTE, identity, RequestAttributes.SCOPE_REQUEST);
+        }
+        return identity;
+    }
+
+    public String email() {
+        return current().email();
+    }
+
+    /** The caller's patient id, or null when the caller has no patient record. */
+    public Long patientId() {
+        return current().patientId();
+    }
+
+    /** The caller's patient id; fails the way the services always have when there is no patient record. */
+    public Long requirePatientId() {
+        Long patientId = patientId();
+        if (patientId == null) {
+            throw new RuntimeException("Patient not found");
+        }
+        return patientId;
+    }
+
+    private Identity resolve(Authentication authentication, String email) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user
+                && (user.getPatientId() != null || !"PATIENT".equals(user.getRole()))) {
+            return new Identity(email, user.getUserId(), user.getPatientId(), user.getRole());
+        }
+        Patient patient = patientRepository.findByUserEmail(email).orElse(null);
+        Long userId = patient != null && patient.getUser() != null ? patient.getUser().getUserId() : null;
+        return new Identity(email, userId, patient != null ? patient.getPatientId() : null, role(authentication.getAuthorities()));
+    }
+
+    private static String role(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities == null) {
+            return null;
+        }
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority != null && authority.startsWith("ROLE_"))
+                .map(authority -> authority.substring("ROLE_".length()))
+                .findFirst()
+                .orElse(null);
+    }
+}
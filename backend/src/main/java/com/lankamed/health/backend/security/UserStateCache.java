@@ -0,0 +1,90 @@
+package com.lankamed.health.backend.security;
+
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.listener.UserAccountChangedEvent;
+import com.lankamed.health.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of the account facts a stateless token is checked against: whether the user still
+ * exists, their role and their token version. A deleted account, a role change or a version bump is
+ * seen by every instance within the time to live, and at once on the instance that made the change.
+ */
+@Component
+public class UserStateCache {
+
+    public record UserState(Long userId, Role role, int tokenVersion) {
+    }
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    public UserStateCache(UserRepository userRepository,
+                          @Value("${security.jwt.user-state.max-entries:10000}") int maxEntries,
+                          @Value("${security.jwt.user-state.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserStateCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** Current state of the account, or empty once it has been deleted. Unknown emails are cached too. */
+    public Optional<UserState> get(String email) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(email);
+            if (entry != null && now - entry.loadedAt() < ttlNanos) {
+                return Optional.ofNullable(entry.state());
+            }
+        }
+        UserState state = userRepository.findByEmail(email)
+                .map(user -> new UserState(user.getUserId(), user.getRole(), user.getTokenVersion()))
+                .orElse(null);
+        synchronized (entries) {
+            entries.put(email, new Entry(state, now));
+        }
+        return Optional.ofNullable(state);
+    }
+
+    @EventListener
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        invalidate(event.email());
+    }
+
+    /** Forgets one account, again after the current transaction commits when there is one. */
+    public void invalidate(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(email);
+                }
+            });
+        }
+        remove(email);
+    }
+
+    private void remove(String email) {
+        synchronized (entries) {
+            entries.remove(email);
+        }
+    }
+
+    private record Entry(UserState state, long loadedAt) {
+    }
+}
@@ -1,6 +1,9 @@
 package com.lankamed.health.backend.service;
 
+import com.lankamed.health.backend.dto.AppointmentCursor;
 import com.lankamed.health.backend.dto.AppointmentDto;
+import com.lankamed.health.backend.dto.AppointmentPageDto;
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
 import com.lankamed.health.backend.dto.CreateAppointmentDto;
 import com.lankamed.health.backend.dto.UpdateAppointmentStatusDto;
 import com.lankamed.health.backend.model.Appointment;
@@ -12,6 +15,10 @@ import com.lankamed.health.backend.repository.AppointmentRepository;
 import com.lankamed.health.backend.repository.HospitalRepository;
 import com.lankamed.health.backend.repository.PaymentRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.ReferenceDataCache.CategoryRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.DoctorRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.HospitalRef;
 import com.lankamed.health.backend.repository.ServiceCategoryRepository;
 import com.lankamed.health.backend.repository.StaffDetailsRepository;
 import com.lankamed.health.backend.repository.UserRepository;
@@ -22,14 +29,17 @@ import com.lankamed.health.backend.model.PaymentType;
 import com.lankamed.health.backend.model.PaymentStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -38,6 +48,8 @@ import java.util.stream.Collectors;
 public class AppointmentService {
 
     private static final Logger logger = LoggerFactory.getLogger(AppointmentService.class);
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
 
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
@@ -46,9 +58,12 @@ public class AppointmentService {
     private final StaffDetailsRepository staffDetailsRepository;
     private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
+    private final DoctorSlotService doctorSlotService;
+    private final ReferenceDataCache referenceDataCache;
 
     // Extracted collaborators to follow SRP/DIP while keeping behavior
     private final CurrentUserEmailProvider currentUserEmailProvider;
+    private final RequestIdentity requestIdentity;
     private final DoctorSelectionPolicy doctorSelectionPolicy;
     private final AppointmentFactory appointmentFactory;
 
@@ -58,7 +73,10 @@ public class AppointmentService {
                             ServiceCategoryRepository serviceCategoryRepository,
                             StaffDetailsRepository staffDetailsRepository,
                             UserRepository userRepository,
-                            PaymentRepository paymentRepository) {
+                            PaymentRepository paymentRepository,
+                            DoctorSlotService doctorSlotService,
+                            ReferenceDataCache referenceDataCache,
+                            RequestIdentity requestIdentity) {
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.hospitalRepository = hospitalRepository;
@@ -66,39 +84,46 @@ public class AppointmentService {
         this.staffDetailsRepository = staffDetailsRepository;
         this.userRepository = userRepository;
         this.paymentRepository = paymentRepository;
+        this.doctorSlotService = doctorSlotService;
+        this.referenceDataCache = referenceDataCache;
+        this.requestIdentity = requestIdentity;
 
         // Default implementations preserve existing behavior
         this.currentUserEmailProvider = new SecurityContextCurrentUserEmailProvider();
-        this.doctorSelectionPolicy = new DefaultDoctorSelectionPolicy(staffDetailsRepository, userRepository);
+        this.doctorSelectionPolicy = new DefaultDoctorSelectionPolicy(referenceDataCache, hospitalRepository, serviceCategoryRepository,
+                staffDetailsRepository, userRepository);
         this.appointmentFactory = new DefaultAppointmentFactory();
     }
 
     public List<AppointmentDto> getPatientAppointments() {
-        String email = currentUserEmailProvider.getCurrentUserEmail();
-        if (email == null || email.isEmpty() || "anonymousUser".equals(email)) {
+        RequestIdentity.Identity identity = requestIdentity.current();
+        if (identity.email() == null || identity.email().isEmpty()) {
             // No auth context: return all so the UI shows newly created records during demos
             return appointmentRepository.findAll()
                     .stream()
                     .map(AppointmentDto::fromAppointment)
                     .collect(Collectors.toList());
         }
-        return appointmentRepository.findByPatientUserEmailOrderByAppointmentDateTimeDesc(email)
+        if (identity.patientId() == null) {
+            return List.of();
+        }
+        return appointmentRepository.findByPatientPatientIdOrderByAppointmentDateTimeDesc(identity.patientId())
                 .stream()
                 .map(AppointmentDto::fromAppointment)
                 .collect(Collectors.toList());
     }
 
     public AppointmentDto createAppointment(CreateAppointmentDto createAppointmentDto) {
-        String email = currentUserEmailProvider.getCurrentUserEmail();
-        
-        // If no authenticated user or anonymous user, return an error since we need a valid user
-        if (email == null || email.isEmpty() || "anonymousUser".equals(email)) {
-            // For development purposes, allow using a default test user if it exists
-            email = "test@example.com";
-        }
-        
+        return createAppointment(createAppointmentDto, null);
+    }
+
+    /**
+     * Books the appointment and records {@code idempotencyKey} on it; the unique constraint on that
+     * column rejects a second booking with the same key.
+     */
+    public AppointmentDto createAppointment(CreateAppointmentDto createAppointmentDto, String idempotencyKey) {
         // Make email final for lambda
-        final String finalEmail = email;
+        final String finalEmail = currentPatientEmail();
         logger.info("AppointmentService: Creating appointment for email: {}", finalEmail);
         
         Patient patient = patientRepository.findByUserEmail(finalEmail)
@@ -132,31 +157,101 @@ public class AppointmentService {
                     return patientRepository.save(newPatient);
                 });
 
-        // Get existing entities or create them
-        Hospital hospital = hospitalRepository.findById(createAppointmentDto.getHospitalId())
-                .orElseGet(() -> hospitalRepository.findAll().stream().findFirst()
-                        .orElseThrow(() -> new RuntimeException("No hospitals configured. Please add a hospital.")));
+        // Reference data comes from the in-memory snapshot, falling back to the first configured row
+        HospitalRef hospital = referenceDataCache.hospitalOrDefault(createAppointmentDto.getHospitalId())
+                .orElseThrow(() -> new RuntimeException("No hospitals configured. Please add a hospital."));
 
-        ServiceCategory serviceCategory = serviceCategoryRepository.findById(createAppointmentDto.getServiceCategoryId())
-                .orElseGet(() -> serviceCategoryRepository.findAll().stream().findFirst()
-                        .orElseThrow(() -> new RuntimeException("No service categories configured. Please add a category.")));
+        CategoryRef serviceCategory = referenceDataCache.categoryOrDefault(createAppointmentDto.getServiceCategoryId())
+                .orElseThrow(() -> new RuntimeException("No service categories configured. Please add a category."));
 
         // Resolve doctor according to existing selection and fallback policy
-        StaffDetails doctor = doctorSelectionPolicy.resolveDoctor(createAppointmentDto, hospital, serviceCategory);
+        DoctorRef doctor = doctorSelectionPolicy.resolveDoctor(createAppointmentDto, hospital, serviceCategory);
 
-        // If any entity is missing, throw error
-        // All entities guaranteed by above guards
-        Appointment appointment = appointmentFactory.create(createAppointmentDto, patient, doctor, hospital, serviceCategory);
+        // Reserve capacity before inserting so concurrent bookings cannot overfill the doctor's day
+        if (!doctorSlotService.reserveSlot(doctor.staffId(), createAppointmentDto.getAppointmentDateTime())) {
+            throw new IllegalStateException("No slots available for doctor " + doctor.staffId()
+                    + " on " + createAppointmentDto.getAppointmentDateTime().toLocalDate());
+        }
+
+        // References carry only the ids the insert needs, so nothing is loaded to attach them
+        Appointment appointment = appointmentFactory.create(createAppointmentDto, patient,
+                staffDetailsRepository.getReferenceById(doctor.staffId()), doctor.consultationFee(),
+                hospitalRepository.getReferenceById(hospital.hospitalId()),
+                serviceCategoryRepository.getReferenceById(serviceCategory.categoryId()));
+        appointment.setIdempotencyKey(idempotencyKey);
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
-        return AppointmentDto.fromAppointment(savedAppointment);
+        return toDto(savedAppointment, doctor, hospital, serviceCategory);
     }
 
-    public List<AppointmentDto> getAllAppointments() {
-        return appointmentRepository.findAll()
-                .stream()
-                .map(AppointmentDto::fromAppointment)
-                .collect(Collectors.toList());
+    // Same fields as AppointmentDto.fromAppointment, with the names taken from the snapshot instead of the references
+    private static AppointmentDto toDto(Appointment appointment, DoctorRef doctor, HospitalRef hospital, CategoryRef serviceCategory) {
+        Double fee = doctor.consultationFee() != null ? doctor.consultationFee()
+                : (appointment.getPaymentAmount() != null ? appointment.getPaymentAmount() : 1500.00);
+        return AppointmentDto.builder()
+                .appointmentId(appointment.getAppointmentId())
+                .appointmentDateTime(appointment.getAppointmentDateTime())
+                .status(appointment.getStatus())
+                .doctorName(doctor.fullName())
+                .doctorSpecialization(doctor.specialization())
+                .doctorId(doctor.staffId())
+                .hospitalName(hospital.name())
+                .serviceCategoryName(serviceCategory.name())
+                .priority(appointment.isPriority())
+                .paymentAmount(fee)
+                .doctorFee(fee)
+                .build();
+    }
+
+    /** The appointment an earlier request with this Idempotency-Key created, if it belongs to the current patient. */
+    @Transactional(readOnly = true)
+    public Optional<AppointmentDto> findByIdempotencyKey(String idempotencyKey) {
+        String email = currentPatientEmail();
+        return appointmentRepository.findByIdempotencyKeyWithDetails(idempotencyKey)
+                .map(appointment -> {
+                    if (!email.equals(appointment.getPatient().getUser().getEmail())) {
+                        throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+                    }
+                    return AppointmentDto.fromAppointment(appointment);
+                });
+    }
+
+    public String currentPatientEmail() {
+        String email = currentUserEmailProvider.getCurrentUserEmail();
+
+        // If no authenticated user or anonymous user, return an error since we need a valid user
+        if (email == null || email.isEmpty() || "anonymousUser".equals(email)) {
+            // For development purposes, allow using a default test user if it exists
+            email = "test@example.com";
+        }
+        return email;
+    }
+
+    /**
+     * One page of appointments, newest first, after the given cursor token.
+     * Filters are optional; {@code from} and {@code to} are inclusive days.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentPageDto getAppointmentsPage(Appointment.Status status, Long doctorId, Long hospitalId,
+                                                  LocalDate from, LocalDate to, String cursor, Integer size) {
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        AppointmentCursor position = AppointmentCursor.decode(cursor);
+        // One extra row tells whether another page follows
+        List<AppointmentSummaryDto> rows = appointmentRepository.findSummaryPage(status, doctorId, hospitalId,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                position != null ? position.appointmentDateTime() : null,
+                position != null ? position.appointmentId() : null,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<AppointmentSummaryDto> page = hasMore ? rows.subList(0, pageSize) : rows;
+        return AppointmentPageDto.builder()
+                .appointments(page)
+                .nextCursor(hasMore ? AppointmentCursor.after(page.get(pageSize - 1)).encode() : null)
+                .build();
     }
 
     public AppointmentDto updateAppointmentStatus(Long appointmentId, UpdateAppointmentStatusDto updateDto) {
@@ -169,6 +264,15 @@ public class AppointmentService {
         appointment.setStatus(updateDto.getStatus());
         Appointment savedAppointment = appointmentRepository.save(appointment);
 
+        // Cancelled appointments free their doctor-day slot; reinstating one takes it back
+        Long doctorId = savedAppointment.getDoctor() != null ? savedAppointment.getDoctor().getStaffId() : null;
+        if (updateDto.getStatus() == Appointment.Status.CANCELLED && previousStatus != Appointment.Status.CANCELLED) {
+            doctorSlotService.releaseSlot(doctorId, savedAppointment.getAppointmentDateTime());
+        } else if (previousStatus == Appointment.Status.CANCELLED && updateDto.getStatus() != Appointment.Status.CANCELLED
+                && !doctorSlotService.reserveSlot(doctorId, savedAppointment.getAppointmentDateTime())) {
+            throw new IllegalStateException("No slots available to reinstate appointment " + appointmentId);
+        }
+
         // If appointment is being confirmed and wasn't confirmed before, create a pending payment
         if (updateDto.getStatus() == Appointment.Status.CONFIRMED &&
             previousStatus != Appointment.Status.CONFIRMED) {
@@ -241,28 +345,35 @@ public class AppointmentService {
     }
 
     interface DoctorSelectionPolicy {
-        StaffDetails resolveDoctor(CreateAppointmentDto createAppointmentDto, Hospital hospital, ServiceCategory serviceCategory);
+        DoctorRef resolveDoctor(CreateAppointmentDto createAppointmentDto, HospitalRef hospital, CategoryRef serviceCategory);
     }
 
     static class DefaultDoctorSelectionPolicy implements DoctorSelectionPolicy {
+        private final ReferenceDataCache referenceDataCache;
+        private final HospitalRepository hospitalRepository;
+        private final ServiceCategoryRepository serviceCategoryRepository;
         private final StaffDetailsRepository staffDetailsRepository;
         private final UserRepository userRepository;
 
-        DefaultDoctorSelectionPolicy(StaffDetailsRepository staffDetailsRepository, UserRepository userRepository) {
+        DefaultDoctorSelectionPolicy(ReferenceDataCache referenceDataCache, HospitalRepository hospitalRepository,
+                                     ServiceCategoryRepository serviceCategoryRepository,
+                                     StaffDetailsRepository staffDetailsRepository, UserRepository userRepository) {
+            this.referenceDataCache = referenceDataCache;
+            this.hospitalRepository = hospitalRepository;
+            this.serviceCategoryRepository = serviceCategoryRepository;
             this.staffDetailsRepository = staffDetailsRepository;
             this.userRepository = userRepository;
         }
 
         @Override
-        public StaffDetails resolveDoctor(CreateAppointmentDto createAppointmentDto, Hospital hospital, ServiceCategory serviceCategory) {
-            return staffDetailsRepository.findById(createAppointmentDto.getDoctorId())
+        public DoctorRef resolveDoctor(CreateAppointmentDto createAppointmentDto, HospitalRef hospital, CategoryRef serviceCategory) {
+            Long doctorId = createAppointmentDto.getDoctorId();
+            // A doctor added since the last rebuild, or staff outside the DOCTOR role, is not in the snapshot;
+            // an explicit choice is still honoured before any fallback
+            return referenceDataCache.doctor(doctorId)
+                    .or(() -> doctorId != null ? staffDetailsRepository.findById(doctorId).map(DoctorRef::of) : Optional.empty())
+                    .or(() -> referenceDataCache.fallbackDoctor(serviceCategory.categoryId(), hospital.hospitalId()))
                     .orElseGet(() -> {
-                        List<StaffDetails> byCat = staffDetailsRepository.findByServiceCategoryCategoryId(serviceCategory.getCategoryId());
-                        if (!byCat.isEmpty()) return byCat.get(0);
-                        List<StaffDetails> byHospital = staffDetailsRepository.findByHospitalHospitalId(hospital.getHospitalId());
-                        if (!byHospital.isEmpty()) return byHospital.get(0);
-                        List<StaffDetails> any = staffDetailsRepository.findAll();
-                        if (!any.isEmpty()) return any.get(0);
                         // As a last resort, create a lightweight placeholder doctor bound to an existing user or a new one
                         User placeholderUser = userRepository.findByEmail("placeholder.doctor@lankamed.com")
                                 .orElseGet(() -> userRepository.save(User.builder()
@@ -274,30 +385,32 @@ public class AppointmentService {
                                         .build()));
                         StaffDetails placeholder = StaffDetails.builder()
                                 .user(placeholderUser)
-                                .hospital(hospital)
-                                .serviceCategory(serviceCategory)
-                                .specialization(serviceCategory.getName())
+                                .hospital(hospitalRepository.getReferenceById(hospital.hospitalId()))
+                                .serviceCategory(serviceCategoryRepository.getReferenceById(serviceCategory.categoryId()))
+                                .specialization(serviceCategory.name())
                                 .build();
-                        return staffDetailsRepository.save(placeholder);
+                        return DoctorRef.of(staffDetailsRepository.save(placeholder));
                     });
         }
     }
 
     interface AppointmentFactory {
-        Appointment create(CreateAppointmentDto dto, Patient patient, StaffDetails doctor, Hospital hospital, ServiceCategory serviceCategory);
+        Appointment create(CreateAppointmentDto dto, Patient patient, StaffDetails doctor, Double consultationFee,
+                           Hospital hospital, ServiceCategory serviceCategory);
     }
 
     static class DefaultAppointmentFactory implements AppointmentFactory {
         @Override
-        public Appointment create(CreateAppointmentDto dto, Patient patient, StaffDetails doctor, Hospital hospital, ServiceCategory serviceCategory) {
+        public Appointment create(CreateAppointmentDto dto, Patient patient, StaffDetails doctor, Double consultationFee,
+                                  Hospital hospital, ServiceCategory serviceCategory) {
             // Calculate payment amount based on doctor's consultation fee
-            Double paymentAmount = doctor.getConsultationFee();
+            Double paymentAmount = consultationFee;
             if (paymentAmount == null || paymentAmount <= 0) {
                 paymentAmount = 1500.00; // Default consultation fee
             }
 
             System.out.println("AppointmentFactory: Creating appointment with payment amount: " + paymentAmount);
-            System.out.println("AppointmentFactory: Doctor consultation fee: " + doctor.getConsultationFee());
+            System.out.println("AppointmentFactory: Doctor consultation fee: " + consultationFee);
             System.out.println("AppointmentFactory: Doctor ID: " + doctor.getStaffId());
 
             return Appointment.builder()
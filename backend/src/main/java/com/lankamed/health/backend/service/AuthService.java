@@ -67,6 +67,12 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(email, password)
         );
         String role = authentication.getAuthorities().stream().findFirst().orElseThrow().getAuthority().replace("ROLE_", "");
-        return jwtUtil.generateToken(email, role);
+        // Ids and token version go into the token so requests can be authenticated without loading the user
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        Long patientId = user.getRole() == Role.PATIENT
+                ? patientRepository.findByUserEmail(email).map(Patient::getPatientId).orElse(null)
+                : null;
+        return jwtUtil.generateToken(email, role, user.getUserId(), patientId, user.getTokenVersion());
     }
 }
@@ -0,0 +1,132 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the doctor directory searches, keyed on the normalized filters.
+ * Bounded by entry count (least recently used goes first) and a time to live. Entries are
+ * dropped once a transaction that wrote doctors, their users or reviews commits.
+ */
+@Component
+public class DoctorDirectoryCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    // Bumped on every invalidation so a load that raced a write is not stored
+    private long generation;
+
+    public DoctorDirectoryCache(@Value("${cache.doctors.max-entries:256}") int maxEntries,
+                                @Value("${cache.doctors.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > DoctorDirectoryCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Trims and lower-cases a filter; blank filters become null, which matches every doctor. */
+    public static String normalize(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return null;
+        }
+        return filter.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(String view, String name, String specialization, Supplier<List<T>> loader) {
+        Key key = new Key(view, name, specialization);
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt() < ttlNanos) {
+                hits.incrementAndGet();
+                return (List<T>) entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+        misses.incrementAndGet();
+        List<T> value = Collections.unmodifiableList(loader.get());
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(value, now));
+            }
+        }
+        return value;
+    }
+
+    @EventListener
+    public void onDoctorDirectoryChanged(DoctorDirectoryChangedEvent event) {
+        invalidateAll();
+    }
+
+    /** Drops every entry, after the current transaction commits when there is one. */
+    public void invalidateAll() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+        // Also clear right away so nothing loaded before the write is cached across the commit
+        clear();
+    }
+
+    public Map<String, Object> getStats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private synchronized void clear() {
+        generation++;
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    private record Key(String view, String name, String specialization) {
+    }
+
+    private record Entry(List<?> value, long loadedAt) {
+    }
+}
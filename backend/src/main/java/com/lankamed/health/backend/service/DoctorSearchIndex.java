@@ -0,0 +1,240 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangedEvent;
+import com.lankamed.health.backend.repository.DoctorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory trigram index over doctor names and specializations.
+ * Matches are ranked: prefix of the field or of one of its words, then substring, then
+ * words within a small edit distance of the query (typos). Rebuilt at startup and again
+ * on the next search after a doctor or staff record changes.
+ */
+@Component
+public class DoctorSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(DoctorSearchIndex.class);
+
+    static final double PREFIX_SCORE = 3.0;
+    static final double SUBSTRING_SCORE = 2.0;
+
+    private final DoctorRepository doctorRepository;
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of(), Map.of());
+
+    public DoctorSearchIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        stale.set(false);
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Set<Integer>> nameGrams = new HashMap<>();
+        Map<String, Set<Integer>> specializationGrams = new HashMap<>();
+        for (Object[] row : doctorRepository.findDoctorSearchTerms()) {
+            String name = normalize(row[1] + " " + row[2]);
+            String specialization = row[3] != null ? normalize((String) row[3]) : "";
+            int position = entries.size();
+            entries.add(new Entry(((Number) row[0]).longValue(), name, words(name), specialization, words(specialization)));
+            for (String gram : trigrams(name)) {
+                nameGrams.computeIfAbsent(gram, g -> new HashSet<>()).add(position);
+            }
+            for (String gram : trigrams(specialization)) {
+                specializationGrams.computeIfAbsent(gram, g -> new HashSet<>()).add(position);
+            }
+        }
+        snapshot = new Snapshot(entries, nameGrams, specializationGrams);
+        logger.debug("DoctorSearchIndex: indexed {} doctors", entries.size());
+    }
+
+    @EventListener
+    public void onDoctorDirectoryChanged(DoctorDirectoryChangedEvent event) {
+        // Reviews do not change names or specializations
+        if (event.profileChanged()) {
+            markStale();
+        }
+    }
+
+    /** Marks the index for rebuild, again after the current transaction commits when there is one. */
+    public void markStale() {
+        stale.set(true);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stale.set(true);
+                }
+            });
+        }
+    }
+
+    /**
+     * Doctor ids matching every given filter, best match first. A null or blank filter matches all doctors.
+     */
+    public List<Long> search(String name, String specialization) {
+        if (stale.get()) {
+            synchronized (this) {
+                if (stale.get()) {
+                    rebuild();
+                }
+            }
+        }
+        Snapshot current = snapshot;
+        String nameQuery = name == null || name.isBlank() ? null : normalize(name);
+        String specializationQuery = specialization == null || specialization.isBlank() ? null : normalize(specialization);
+
+        Set<Integer> candidates = null;
+        if (nameQuery != null) {
+            candidates = candidates(nameQuery, current.nameGrams(), current.entries().size());
+        }
+        if (specializationQuery != null) {
+            Set<Integer> bySpecialization = candidates(specializationQuery, current.specializationGrams(), current.entries().size());
+            if (candidates == null) {
+                candidates = bySpecialization;
+            } else {
+                candidates.retainAll(bySpecialization);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int position : candidates != null ? candidates : allPositions(current.entries().size())) {
+            Entry entry = current.entries().get(position);
+            double score = 0;
+            if (nameQuery != null) {
+                double nameScore = score(nameQuery, entry.name(), entry.nameWords());
+                if (nameScore == 0) continue;
+                score += nameScore;
+            }
+            if (specializationQuery != null) {
+                double specializationScore = score(specializationQuery, entry.specialization(), entry.specializationWords());
+                if (specializationScore == 0) continue;
+                score += specializationScore;
+            }
+            hits.add(new Hit(entry.doctorId(), entry.name(), score));
+        }
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::name));
+        return hits.stream().map(Hit::doctorId).toList();
+    }
+
+    static double score(String query, String field, List<String> fieldWords) {
+        if (field.startsWith(query) || fieldWords.stream().anyMatch(word -> word.startsWith(query))) {
+            return PREFIX_SCORE;
+        }
+        if (field.contains(query)) {
+            return SUBSTRING_SCORE;
+        }
+        // Typo tolerance: every query word has to be close to the start of some field word
+        int edits = 0;
+        int length = 0;
+        for (String token : words(query)) {
+            int best = Integer.MAX_VALUE;
+            for (String word : fieldWords) {
+                best = Math.min(best, prefixDistance(token, word));
+            }
+            if (best > maxEdits(token)) {
+                return 0;
+            }
+            edits += best;
+            length += token.length();
+        }
+        return length == 0 ? 0 : 1.0 - (double) edits / length;
+    }
+
+    static int maxEdits(String token) {
+        if (token.length() < 4) return 0;
+        return token.length() < 7 ? 1 : 2;
+    }
+
+    // Smallest edit distance between the token and the word or a prefix of it close to the token's length
+    static int prefixDistance(String token, String word) {
+        int best = distance(token, word);
+        for (int length = Math.max(1, token.length() - 1); length <= Math.min(word.length(), token.length() + 1); length++) {
+            best = Math.min(best, distance(token, word.substring(0, length)));
+        }
+        return best;
+    }
+
+    // Optimal string alignment distance: insertions, deletions, substitutions and adjacent swaps
+    static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // Entries sharing at least one trigram with the query; short words cannot be narrowed so every entry is kept
+    private static Set<Integer> candidates(String query, Map<String, Set<Integer>> grams, int size) {
+        Set<Integer> result = new HashSet<>();
+        for (String token : words(query)) {
+            if (token.length() < 3) {
+                return allPositions(size);
+            }
+            for (String gram : trigrams(token)) {
+                result.addAll(grams.getOrDefault(gram, Set.of()));
+            }
+        }
+        return result;
+    }
+
+    private static Set<Integer> allPositions(int size) {
+        Set<Integer> positions = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            positions.add(i);
+        }
+        return positions;
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : words(text)) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> words(String text) {
+        return text.isEmpty() ? List.of() : List.of(text.split(" "));
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private record Entry(Long doctorId, String name, List<String> nameWords, String specialization, List<String> specializationWords) {
+    }
+
+    private record Snapshot(List<Entry> entries, Map<String, Set<Integer>> nameGrams, Map<String, Set<Integer>> specializationGrams) {
+    }
+
+    private record Hit(Long doctorId, String name, double score) {
+    }
+}
@@ -3,65 +3,63 @@ package com.lankamed.health.backend.service;
 import com.lankamed.health.backend.dto.DoctorDto;
 import com.lankamed.health.backend.dto.DoctorProfileDto;
 import com.lankamed.health.backend.repository.DoctorRepository;
-import com.lankamed.health.backend.repository.ReviewRepository;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
-    private final ReviewRepository reviewRepository;
+    private final DoctorDirectoryCache directoryCache;
+    private final DoctorSearchIndex searchIndex;
 
-    public DoctorService(DoctorRepository doctorRepository, ReviewRepository reviewRepository) {
+    public DoctorService(DoctorRepository doctorRepository, DoctorDirectoryCache directoryCache, DoctorSearchIndex searchIndex) {
         this.doctorRepository = doctorRepository;
-        this.reviewRepository = reviewRepository;
+        this.directoryCache = directoryCache;
+        this.searchIndex = searchIndex;
     }
 
     public List<DoctorDto> searchDoctors(String name, String specialization) {
+        String normalizedName = DoctorDirectoryCache.normalize(name);
+        String normalizedSpecialization = DoctorDirectoryCache.normalize(specialization);
+        return directoryCache.get("doctors", normalizedName, normalizedSpecialization,
+                () -> loadDoctors(normalizedName, normalizedSpecialization));
+    }
+
+    public List<DoctorProfileDto> searchDoctorProfiles(String name, String specialization) {
+        String normalizedName = DoctorDirectoryCache.normalize(name);
+        String normalizedSpecialization = DoctorDirectoryCache.normalize(specialization);
+        return directoryCache.get("profiles", normalizedName, normalizedSpecialization,
+                () -> loadDoctorProfiles(normalizedName, normalizedSpecialization));
+    }
+
+    private List<DoctorDto> loadDoctors(String name, String specialization) {
         System.out.println("DoctorService: Searching doctors with name=" + name + ", specialization=" + specialization);
-        
-        List<com.lankamed.health.backend.model.StaffDetails> doctors;
-        
-        if (name != null || specialization != null) {
-            doctors = doctorRepository.findDoctorsByNameAndSpecialization(name, specialization);
-        } else {
-            doctors = doctorRepository.findAllDoctors();
-        }
-        
-        System.out.println("DoctorService: Found " + doctors.size() + " doctors");
-
-        return doctors.stream()
-                .map(doctor -> {
-                    System.out.println("DoctorService: Processing doctor " + doctor.getUser().getFirstName() + " " + doctor.getUser().getLastName());
-                    DoctorDto dto = DoctorDto.fromStaffDetails(doctor);
-                    if (dto == null) {
-                        System.out.println("DoctorService: DTO is null for doctor " + doctor.getStaffId());
-                        return null;
-                    }
-                    // Add rating information
-                    Double averageRating = reviewRepository.findAverageRatingByDoctorId(doctor.getStaffId());
-                    Long reviewCount = reviewRepository.countReviewsByDoctorId(doctor.getStaffId());
-                    dto.setAverageRating(averageRating);
-                    dto.setReviewCount(reviewCount);
-                    return dto;
-                })
-                .filter(dto -> dto != null)
+
+        List<Long> doctorIds = searchIndex.search(name, specialization);
+        List<Object[]> results = doctorIds.isEmpty() ? List.of() : inSearchOrder(doctorRepository.findDoctorCardsByIds(doctorIds), doctorIds);
+
+        System.out.println("DoctorService: Found " + results.size() + " doctors");
+
+        return results.stream()
+                .map(this::mapToDoctorDto)
                 .collect(Collectors.toList());
     }
 
-    public List<DoctorProfileDto> searchDoctorProfiles(String name, String specialization) {
+    private List<DoctorProfileDto> loadDoctorProfiles(String name, String specialization) {
         System.out.println("DoctorService: Searching doctor profiles with name=" + name + ", specialization=" + specialization);
         
-        List<Object[]> results;
-        
+        List<Long> doctorIds = searchIndex.search(name, specialization);
+        List<Object[]> results = doctorIds.isEmpty() ? List.of() : doctorRepository.findDoctorProfilesByIds(doctorIds);
+        // Without filters the query's rating order is kept; with filters the best matches come first
         if (name != null || specialization != null) {
-            results = doctorRepository.findDoctorProfilesWithRatings(name, specialization);
-        } else {
-            results = doctorRepository.findAllDoctorProfilesWithRatings();
+            results = inSearchOrder(results, doctorIds);
         }
         
         System.out.println("DoctorService: Found " + results.size() + " doctor profiles");
@@ -71,6 +69,32 @@ public class DoctorService {
                 .collect(Collectors.toList());
     }
 
+    private static List<Object[]> inSearchOrder(List<Object[]> rows, List<Long> doctorIds) {
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < doctorIds.size(); i++) {
+            rank.put(doctorIds.get(i), i);
+        }
+        List<Object[]> ordered = new ArrayList<>(rows);
+        ordered.sort(Comparator.comparing(row -> rank.getOrDefault(((Number) row[0]).longValue(), Integer.MAX_VALUE)));
+        return ordered;
+    }
+
+    private DoctorDto mapToDoctorDto(Object[] row) {
+        String firstName = (String) row[1];
+        String lastName = (String) row[2];
+        return DoctorDto.builder()
+                .doctorId(((Number) row[0]).longValue())
+                .firstName(firstName)
+                .lastName(lastName)
+                .fullName(firstName + " " + lastName)
+                .specialization((String) row[3])
+                .hospitalName((String) row[4])
+                .serviceCategoryName((String) row[5])
+                .averageRating(row[6] != null ? ((Number) row[6]).doubleValue() : null)
+                .reviewCount(((Number) row[7]).longValue())
+                .build();
+    }
+
     private DoctorProfileDto mapToDoctorProfileDto(Object[] row) {
         try {
             return DoctorProfileDto.builder()
@@ -81,7 +105,7 @@ public class DoctorService {
                     .specialization((String) row[4])
                     .hospitalName((String) row[5])
                     .categoryName((String) row[6])
-                    .averageRating(((BigDecimal) row[7]).doubleValue())
+                    .averageRating(((Number) row[7]).doubleValue())
                     .reviewCount(((Number) row[8]).longValue())
                     .email((String) row[9])
                     .hospitalAddress((String) row[10])
@@ -0,0 +1,184 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.model.Appointment;
+import com.lankamed.health.backend.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory count of non-cancelled appointments per doctor per day.
+ * Each (doctorId, date) counter is warmed from the database on first access and then
+ * adjusted in place once the booking transaction commits, so availability reads do not hit SQL.
+ * Counters expire after a time to live so bookings made on other instances are picked up, and past days are pruned.
+ * <p>
+ * Warms and commits are ordered by one sequence. A commit is only applied to a counter whose load finished before
+ * the booking was registered; a commit that may already be part of a load evicts the counter instead, and a load
+ * that overlapped a commit is not installed.
+ */
+@Component
+public class DoctorSlotLedger {
+    private static final Logger logger = LoggerFactory.getLogger(DoctorSlotLedger.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final long ttlNanos;
+    private final ConcurrentMap<SlotKey, Counter> booked = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong lastPruned = new AtomicLong(System.nanoTime());
+
+    public DoctorSlotLedger(AppointmentRepository appointmentRepository,
+                            @Value("${feature.slots.ledger-ttl-seconds:60}") long ttlSeconds) {
+        this.appointmentRepository = appointmentRepository;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    public int getBooked(Long doctorId, LocalDate date) {
+        SlotKey key = new SlotKey(doctorId, date);
+        long now = System.nanoTime();
+        Counter counter = booked.get(key);
+        if (counter != null && counter.freshAt(now, ttlNanos)) {
+            return counter.count();
+        }
+        long loadStarted = sequence.incrementAndGet();
+        long count = appointmentRepository.countBookings(
+                doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay(), Appointment.Status.CANCELLED);
+        install(key, (int) count, loadStarted, sequence.incrementAndGet(), now);
+        prune(now);
+        return (int) count;
+    }
+
+    /**
+     * Booked counts for every (doctor, day) in [from, to] from a single grouped query.
+     * Days that are not yet tracked are warmed with the loaded value.
+     */
+    public Map<Long, int[]> getBookedRange(Collection<Long> doctorIds, LocalDate from, LocalDate to) {
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        Map<Long, int[]> result = new LinkedHashMap<>();
+        for (Long doctorId : doctorIds) {
+            result.put(doctorId, new int[days]);
+        }
+        long now = System.nanoTime();
+        long loadStarted = sequence.incrementAndGet();
+        List<Object[]> rows = appointmentRepository.countBookingsPerDay(
+                doctorIds, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), Appointment.Status.CANCELLED);
+        long loadFinished = sequence.incrementAndGet();
+        for (Object[] row : rows) {
+            int[] perDay = result.get(((Number) row[0]).longValue());
+            if (perDay != null) {
+                perDay[(int) ChronoUnit.DAYS.between(from, (LocalDate) row[1])] = ((Number) row[2]).intValue();
+            }
+        }
+        result.forEach((doctorId, perDay) -> {
+            for (int i = 0; i < days; i++) {
+                install(new SlotKey(doctorId, from.plusDays(i)), perDay[i], loadStarted, loadFinished, now);
+            }
+        });
+        prune(now);
+        return result;
+    }
+
+    public void recordBooking(Long doctorId, LocalDateTime appointmentDateTime) {
+        adjustAfterCommit(doctorId, appointmentDateTime, 1);
+    }
+
+    public void recordRelease(Long doctorId, LocalDateTime appointmentDateTime) {
+        adjustAfterCommit(doctorId, appointmentDateTime, -1);
+    }
+
+    public void evict(Long doctorId, LocalDate date) {
+        booked.compute(new SlotKey(doctorId, date), (key, counter) -> Counter.unloaded(sequence.incrementAndGet()));
+    }
+
+    public void clear() {
+        booked.clear();
+    }
+
+    // Keeps a fresh counter someone else loaded, and drops this load if a commit landed after it started
+    private void install(SlotKey key, int count, long loadStarted, long loadFinished, long now) {
+        booked.compute(key, (k, counter) -> {
+            if (counter != null && (counter.freshAt(now, ttlNanos) || counter.lastCommit() > loadStarted)) {
+                return counter;
+            }
+            return new Counter(count, loadFinished, counter != null ? counter.lastCommit() : 0, now);
+        });
+    }
+
+    private void adjustAfterCommit(Long doctorId, LocalDateTime appointmentDateTime, int delta) {
+        if (doctorId == null || appointmentDateTime == null) {
+            return;
+        }
+        SlotKey key = new SlotKey(doctorId, appointmentDateTime.toLocalDate());
+        long registered = sequence.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adjust(key, delta, registered);
+                }
+            });
+        } else {
+            adjust(key, delta, registered);
+        }
+    }
+
+    private void adjust(SlotKey key, int delta, long registered) {
+        Counter updated = booked.compute(key, (k, counter) -> {
+            long committed = sequence.incrementAndGet();
+            if (counter == null || !counter.loaded() || counter.loadFinished() > registered) {
+                // Never warmed, or the load may already include this booking; the next read loads the committed state
+                return Counter.unloaded(committed);
+            }
+            return counter.adjusted(delta, committed);
+        });
+        if (updated.loaded()) {
+            logger.debug("DoctorSlotLedger: doctor {} on {} now has {} bookings", key.doctorId(), key.date(), updated.count());
+        }
+    }
+
+    private void prune(long now) {
+        long last = lastPruned.get();
+        if (now - last < ttlNanos || !lastPruned.compareAndSet(last, now)) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        booked.entrySet().removeIf(entry -> entry.getKey().date().isBefore(today)
+                || now - entry.getValue().loadedAt() >= ttlNanos);
+    }
+
+    private record SlotKey(Long doctorId, LocalDate date) {
+    }
+
+    /** A count of -1 marks a key whose last commit is remembered but which has no loaded value. */
+    private record Counter(int count, long loadFinished, long lastCommit, long loadedAt) {
+
+        static Counter unloaded(long committed) {
+            return new Counter(-1, 0, committed, System.nanoTime());
+        }
+
+        boolean loaded() {
+            return count >= 0;
+        }
+
+        boolean freshAt(long now, long ttlNanos) {
+            return loaded() && now - loadedAt < ttlNanos;
+        }
+
+        Counter adjusted(int delta, long committed) {
+            return new Counter(Math.max(0, count + delta), loadFinished, committed, loadedAt);
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package com.lankamed.health.backend.service;
 
 import com.lankamed.health.backend.dto.SlotAvailabilityDto;
+import com.lankamed.health.backend.dto.SlotRangeDto;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface DoctorSlotService {
     SlotAvailabilityDto getAvailability(Long doctorId, LocalDate date);
 
+    SlotRangeDto getAvailabilityRange(Long doctorId, LocalDate from, LocalDate to);
+
+    List<SlotRangeDto> getAvailabilityRange(List<Long> doctorIds, LocalDate from, LocalDate to);
+
     boolean canBook(Long doctorId, LocalDate date);
+
+    /**
+     * Atomically takes one slot on the doctor's day, returning false once capacity is reached.
+     * Joins the caller's transaction so the reservation rolls back with a failed booking.
+     */
+    boolean reserveSlot(Long doctorId, LocalDateTime appointmentDateTime);
+
+    void releaseSlot(Long doctorId, LocalDateTime appointmentDateTime);
 }
@@ -1,27 +1,45 @@
 package com.lankamed.health.backend.service;
 
 import com.lankamed.health.backend.dto.SlotAvailabilityDto;
+import com.lankamed.health.backend.dto.SlotRangeDto;
 import com.lankamed.health.backend.model.StaffDetails;
-import com.lankamed.health.backend.repository.AppointmentRepository;
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangedEvent;
+import com.lankamed.health.backend.repository.DoctorDayBookingRepository;
 import com.lankamed.health.backend.repository.StaffDetailsRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Service
 public class DoctorSlotServiceImpl implements DoctorSlotService {
-    private final AppointmentRepository appointmentRepository;
+    static final int MAX_RANGE_DAYS = 92;
+
+    private final DoctorSlotLedger slotLedger;
+    private final DoctorDayBookingRepository dayBookingRepository;
     private final StaffDetailsRepository staffDetailsRepository;
+    private final ConcurrentMap<Long, String> doctorNames = new ConcurrentHashMap<>();
     private final boolean enabled;
     private final int capacity;
 
-    public DoctorSlotServiceImpl(AppointmentRepository appointmentRepository,
+    public DoctorSlotServiceImpl(DoctorSlotLedger slotLedger,
+                                 DoctorDayBookingRepository dayBookingRepository,
                                  StaffDetailsRepository staffDetailsRepository,
                                  @Value("${feature.slots.enabled:false}") boolean enabled,
                                  @Value("${feature.slots.capacity:10}") int capacity) {
-        this.appointmentRepository = appointmentRepository;
+        this.slotLedger = slotLedger;
+        this.dayBookingRepository = dayBookingRepository;
         this.staffDetailsRepository = staffDetailsRepository;
         this.enabled = enabled;
         this.capacity = capacity;
@@ -38,24 +56,105 @@ public class DoctorSlotServiceImpl implements DoctorSlotService {
                     .available(0)
                     .build();
         }
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.atTime(23, 59, 59);
-        long booked = appointmentRepository.countByDoctorStaffIdAndAppointmentDateTimeBetween(doctorId, start, end);
-        StaffDetails doctor = staffDetailsRepository.findById(doctorId).orElse(null);
-        String name = doctor != null && doctor.getUser() != null ? doctor.getUser().getFirstName() + " " + doctor.getUser().getLastName() : null;
-        int available = Math.max(0, capacity - (int) booked);
+        int booked = slotLedger.getBooked(doctorId, date);
+        int available = Math.max(0, capacity - booked);
         return SlotAvailabilityDto.builder()
                 .doctorId(doctorId)
-                .doctorName(name)
+                .doctorName(doctorName(doctorId))
                 .date(date.toString())
                 .capacity(capacity)
-                .booked((int) booked)
+                .booked(booked)
                 .available(available)
                 .build();
     }
 
+    @Override
+    public SlotRangeDto getAvailabilityRange(Long doctorId, LocalDate from, LocalDate to) {
+        return getAvailabilityRange(List.of(doctorId), from, to).get(0);
+    }
+
+    @Override
+    public List<SlotRangeDto> getAvailabilityRange(List<Long> doctorIds, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (doctorIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, int[]> bookedByDoctor = enabled
+                ? slotLedger.getBookedRange(doctorIds, from, to)
+                : Map.of();
+        List<SlotRangeDto> result = new ArrayList<>(doctorIds.size());
+        for (Long doctorId : doctorIds) {
+            result.add(SlotRangeDto.builder()
+                    .doctorId(doctorId)
+                    .doctorName(enabled ? doctorName(doctorId) : null)
+                    .from(from.toString())
+                    .to(to.toString())
+                    .capacity(enabled ? capacity : 0)
+                    .booked(bookedByDoctor.getOrDefault(doctorId, new int[(int) days]))
+                    .build());
+        }
+        return result;
+    }
+
     @Override
     public boolean canBook(Long doctorId, LocalDate date) {
-        return getAvailability(doctorId, date).getAvailable() > 0;
+        return enabled && slotLedger.getBooked(doctorId, date) < capacity;
+    }
+
+    @Override
+    @Transactional
+    public boolean reserveSlot(Long doctorId, LocalDateTime appointmentDateTime) {
+        if (enabled) {
+            LocalDate day = appointmentDateTime.toLocalDate();
+            // Fast path hits an existing counter row; the first booking of a day seeds it and retries once
+            if (dayBookingRepository.incrementIfBelow(doctorId, day, capacity) == 0) {
+                dayBookingRepository.seedIfAbsent(doctorId, day, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                if (dayBookingRepository.incrementIfBelow(doctorId, day, capacity) == 0) {
+                    return false;
+                }
+            }
+        }
+        slotLedger.recordBooking(doctorId, appointmentDateTime);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void releaseSlot(Long doctorId, LocalDateTime appointmentDateTime) {
+        if (enabled && doctorId != null && appointmentDateTime != null) {
+            dayBookingRepository.decrement(doctorId, appointmentDateTime.toLocalDate());
+        }
+        slotLedger.recordRelease(doctorId, appointmentDateTime);
+    }
+
+    /** Forgets memoised doctor names when a doctor's user or staff record changes, again after commit. */
+    @EventListener
+    public void onDoctorDirectoryChanged(DoctorDirectoryChangedEvent event) {
+        if (!event.profileChanged()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doctorNames.clear();
+                }
+            });
+        }
+        doctorNames.clear();
+    }
+
+    private String doctorName(Long doctorId) {
+        // Unknown doctors are not cached so a newly added doctor is picked up on the next call
+        return doctorNames.computeIfAbsent(doctorId, id -> {
+            StaffDetails doctor = staffDetailsRepository.findById(id).orElse(null);
+            return doctor != null && doctor.getUser() != null ? doctor.getUser().getFirstName() + " " + doctor.getUser().getLastName() : null;
+        });
     }
 }
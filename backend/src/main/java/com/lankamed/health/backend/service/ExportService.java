@@ -0,0 +1,72 @@
+package com.lankamed.health.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lankamed.health.backend.repository.ExportRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes appointment and payment history as NDJSON (one JSON object per line) straight from a
+ * database cursor, so memory use stays flat no matter how many rows the range covers.
+ */
+@Service
+public class ExportService {
+    static final int FLUSH_EVERY = 500;
+
+    private final ExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(ExportRepository exportRepository, ObjectMapper objectMapper) {
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Appointments with {@code from <= appointmentDateTime < to}; either bound may be null. Returns the row count. */
+    @Transactional(readOnly = true)
+    public long exportAppointments(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        validateRange(from, to);
+        try (Stream<?> rows = exportRepository.streamAppointmentSummaries(from, to)) {
+            return writeNdjson(rows, out);
+        }
+    }
+
+    /** Payments with {@code from <= paymentTimestamp < to}; either bound may be null. Returns the row count. */
+    @Transactional(readOnly = true)
+    public long exportPayments(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        validateRange(from, to);
+        try (Stream<?> rows = exportRepository.streamPayments(from, to)) {
+            return writeNdjson(rows, out);
+        }
+    }
+
+    public static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+
+    private long writeNdjson(Stream<?> rows, OutputStream out) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // The servlet container owns the response stream
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        Iterator<?> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            generator.writeObject(iterator.next());
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return count;
+    }
+}
@@ -0,0 +1,163 @@
+package com.lankamed.health.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Replays the response of a request that carried an Idempotency-Key instead of running it again.
+ * Responses are kept in a bounded in-memory map; the key is also stored on the created row under a
+ * unique constraint, so replays after eviction or a restart, and races between instances, resolve to
+ * the original record. Duplicates that arrive while the first request is still running share its result.
+ */
+@Component
+public class IdempotencyCache {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyCache.class);
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    public IdempotencyCache(@Value("${idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** Trims the header value; blank means the request is not idempotent. */
+    public static String normalizeKey(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        String trimmed = key.trim();
+        if (trimmed.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+        return trimmed;
+    }
+
+    /**
+     * Runs {@code action} once per (scope, key). A repeat with the same key gets the first result; a repeat with
+     * a different {@code fingerprint} is rejected. {@code stored} looks the key up in the database and is
+     * consulted before running the action and again if the insert loses a unique-key race.
+     */
+    public <T> CompletableFuture<T> execute(String scope, String key, Object fingerprint,
+                                            Supplier<CompletableFuture<T>> action, Supplier<Optional<T>> stored) {
+        return execute(scope, key, fingerprint, action, stored, value -> true);
+    }
+
+    /**
+     * As {@link #execute(String, String, Object, Supplier, Supplier)}, but a result that is not yet {@code settled}
+     * (a payment still waiting on its gateway) is not remembered, so later repeats re-read {@code stored}.
+     */
+    public <T> CompletableFuture<T> execute(String scope, String key, Object fingerprint,
+                                            Supplier<CompletableFuture<T>> action, Supplier<Optional<T>> stored,
+                                            Predicate<? super T> settled) {
+        if (key == null) {
+            return action.get();
+        }
+        String cacheKey = scope + "|" + key;
+        CompletableFuture<Object> result;
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry existing = entries.get(cacheKey);
+            if (existing != null && now - existing.createdAt() < ttlNanos) {
+                if (!Objects.equals(existing.fingerprint(), fingerprint)) {
+                    return CompletableFuture.failedFuture(
+                            new IllegalArgumentException(HEADER + " was already used for a different request"));
+                }
+                logger.debug("IdempotencyCache: replaying {}", cacheKey);
+                return cast(existing.result());
+            }
+            result = new CompletableFuture<>();
+            entries.put(cacheKey, new Entry(fingerprint, result, now));
+        }
+
+        try {
+            Optional<T> original = stored.get();
+            if (original.isPresent()) {
+                settle(cacheKey, result, original.get(), settled);
+                return cast(result);
+            }
+            action.get().whenComplete((value, error) -> {
+                if (error == null) {
+                    settle(cacheKey, result, value, settled);
+                } else {
+                    settleFailure(cacheKey, result, error, stored);
+                }
+            });
+        } catch (RuntimeException e) {
+            settleFailure(cacheKey, result, e, stored);
+        }
+        return cast(result);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private <T> void settle(String cacheKey, CompletableFuture<Object> result, T value, Predicate<? super T> settled) {
+        if (!settled.test(value)) {
+            forget(cacheKey, result);
+        }
+        result.complete(value);
+    }
+
+    private void forget(String cacheKey, CompletableFuture<Object> result) {
+        synchronized (entries) {
+            Entry current = entries.get(cacheKey);
+            if (current != null && current.result() == result) {
+                entries.remove(cacheKey);
+            }
+        }
+    }
+
+    private <T> void settleFailure(String cacheKey, CompletableFuture<Object> result, Throwable error,
+                                   Supplier<Optional<T>> stored) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof DataIntegrityViolationException) {
+            // Another instance inserted the same key first; answer with its record
+            try {
+                Optional<T> winner = stored.get();
+                if (winner.isPresent()) {
+                    result.complete(winner.get());
+                    return;
+                }
+            } catch (RuntimeException lookupFailure) {
+                cause.addSuppressed(lookupFailure);
+            }
+        }
+        // Failed requests are not remembered, so the client can retry with the same key
+        forget(cacheKey, result);
+        result.completeExceptionally(cause);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> cast(CompletableFuture<Object> future) {
+        return (CompletableFuture<T>) (CompletableFuture<?>) future;
+    }
+
+    private record Entry(Object fingerprint, CompletableFuture<Object> result, long createdAt) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.dto.PaymentAggregateDto;
+import com.lankamed.health.backend.dto.PaymentReportDto;
+import com.lankamed.health.backend.repository.PaymentRepository;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payment counts and sums computed with GROUP BY queries, so no payment row is loaded to be counted.
+ * The full report is kept for a few seconds; diagnostics that poll it share one set of queries.
+ */
+@Service
+public class PaymentReportingService {
+    static final int MAX_RANGE_DAYS = 366;
+
+    private final PaymentRepository paymentRepository;
+    private final PatientRepository patientRepository;
+    private final long ttlNanos;
+    private final int reportDays;
+    private volatile Snapshot snapshot;
+
+    public PaymentReportingService(PaymentRepository paymentRepository,
+                                   PatientRepository patientRepository,
+                                   @Value("${reports.payments.cache-seconds:5}") long cacheSeconds,
+                                   @Value("${reports.payments.days:30}") int reportDays) {
+        this.paymentRepository = paymentRepository;
+        this.patientRepository = patientRepository;
+        this.ttlNanos = cacheSeconds * 1_000_000_000L;
+        this.reportDays = reportDays;
+    }
+
+    /** Totals by status, payment type and hospital, plus daily totals for the trailing report window. */
+    @Transactional(readOnly = true)
+    public PaymentReportDto getReport() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current != null && now - current.loadedAt() < ttlNanos) {
+            return current.report();
+        }
+        PaymentReportDto report = loadReport();
+        snapshot = new Snapshot(report, now);
+        return report;
+    }
+
+    /** Bypasses and replaces the cached report. */
+    @Transactional(readOnly = true)
+    public PaymentReportDto refresh() {
+        invalidate();
+        return getReport();
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentAggregateDto> getDailyTotals(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        return toAggregates(paymentRepository.summarizeByDay(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+    }
+
+    private PaymentReportDto loadReport() {
+        List<PaymentAggregateDto> byStatus = toAggregates(paymentRepository.summarizeByStatus());
+        LocalDate today = LocalDate.now();
+        return PaymentReportDto.builder()
+                .totalPayments(byStatus.stream().mapToLong(PaymentAggregateDto::getCount).sum())
+                .totalAmount(byStatus.stream().mapToDouble(PaymentAggregateDto::getTotalAmount).sum())
+                .patients(patientRepository.count())
+                .byStatus(byStatus)
+                .byPaymentType(toAggregates(paymentRepository.summarizeByPaymentType()))
+                .byHospital(toAggregates(paymentRepository.summarizeByHospital()))
+                .byDay(getDailyTotals(today.minusDays(reportDays - 1L), today))
+                .generatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static List<PaymentAggregateDto> toAggregates(List<Object[]> rows) {
+        List<PaymentAggregateDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(PaymentAggregateDto.builder()
+                    .key(row[0] != null ? row[0].toString() : null)
+                    .count(((Number) row[1]).longValue())
+                    .totalAmount(((Number) row[2]).doubleValue())
+                    .build());
+        }
+        return result;
+    }
+
+    private record Snapshot(PaymentReportDto report, long loadedAt) {
+    }
+}
@@ -1,10 +1,18 @@
 package com.lankamed.health.backend.service;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import com.lankamed.health.backend.dto.PaymentDTO;
 
 public interface PaymentService {
     PaymentDTO makePayment(PaymentDTO paymentDTO);
+    // Completes once the gateway answers, fails or times out; the payment is stored as Pending before that
+    CompletableFuture<PaymentDTO> makePaymentAsync(PaymentDTO paymentDTO);
+    // Same, recording the client's Idempotency-Key on the payment row
+    CompletableFuture<PaymentDTO> makePaymentAsync(PaymentDTO paymentDTO, String idempotencyKey);
+    // The payment an earlier request with this key created; rejects a key that belongs to another patient
+    Optional<PaymentDTO> findByIdempotencyKey(String idempotencyKey, Long patientId);
     List<PaymentDTO> getPendingPayments(Long patientId);
 }
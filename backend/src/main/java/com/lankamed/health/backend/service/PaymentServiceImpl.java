@@ -4,15 +4,24 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.lankamed.health.backend.dto.PaymentAggregateDto;
 import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.dto.PaymentReportDto;
+import com.lankamed.health.backend.dto.PendingPaymentRow;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.model.Payment;
 import com.lankamed.health.backend.model.PaymentStatus;
@@ -21,24 +30,33 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.AppointmentRepository;
 import com.lankamed.health.backend.repository.PaymentRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.strategy.PaymentCircuitBreaker;
+import com.lankamed.health.backend.strategy.PaymentGatewayDispatcher;
 import com.lankamed.health.backend.strategy.PaymentStrategy;
 
 @Service
 public class PaymentServiceImpl implements PaymentService {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentServiceImpl.class);
 
     private final PaymentRepository paymentRepository;
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
+    private final PaymentReportingService reportingService;
+    private final PaymentGatewayDispatcher gatewayDispatcher;
     private final Map<String, PaymentStrategy> paymentStrategies;
 
     @Autowired
     public PaymentServiceImpl(PaymentRepository paymentRepository, 
                             PatientRepository patientRepository,
                             AppointmentRepository appointmentRepository,
+                            PaymentReportingService reportingService,
+                            PaymentGatewayDispatcher gatewayDispatcher,
                             List<PaymentStrategy> strategies) {
         this.paymentRepository = paymentRepository;
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
+        this.reportingService = reportingService;
+        this.gatewayDispatcher = gatewayDispatcher;
         this.paymentStrategies = strategies.stream()
                 .collect(Collectors.toMap(
                         s -> s.getClass().getSimpleName().replace("Payment", ""),
@@ -47,6 +65,23 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     public PaymentDTO makePayment(PaymentDTO dto) {
+        try {
+            return makePaymentAsync(dto).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<PaymentDTO> makePaymentAsync(PaymentDTO dto) {
+        return makePaymentAsync(dto, null);
+    }
+
+    @Override
+    public CompletableFuture<PaymentDTO> makePaymentAsync(PaymentDTO dto, String idempotencyKey) {
         // Validate payment method
         PaymentStrategy strategy = paymentStrategies.get(dto.getPaymentMethod());
         if (strategy == null) {
@@ -64,27 +99,69 @@ public class PaymentServiceImpl implements PaymentService {
                     .orElseThrow(() -> new IllegalArgumentException("Appointment not found with ID: " + dto.getAppointmentId()));
         }
 
-        // Process payment using strategy pattern
-        PaymentStatus status = strategy.processPayment(dto);
-
-        // Create new payment entity
+        // Record the payment as Pending before the gateway is called, so it is never lost to a slow or failed gateway
         Payment payment = new Payment();
         payment.setPatient(patient);
         payment.setAppointment(appointment);
         payment.setAmount(dto.getAmount());
         payment.setPaymentType(PaymentType.valueOf(dto.getPaymentMethod()));
-        payment.setStatus(status);
+        payment.setStatus(PaymentStatus.Pending);
         payment.setTransactionId(UUID.randomUUID().toString());
         payment.setPaymentTimestamp(LocalDateTime.now());
+        payment.setIdempotencyKey(idempotencyKey);
 
-        // Save payment to database
+        // Save payment to database; a reused Idempotency-Key fails here on the unique constraint
         payment = paymentRepository.save(payment);
+        Long paymentId = payment.getPaymentId();
 
         // Update DTO with generated values
         dto.setTransactionId(payment.getTransactionId());
-        dto.setStatus(status.name());
+        dto.setStatus(PaymentStatus.Pending.name());
+
+        // Process payment using strategy pattern, on the payment type's own bulkhead
+        return gatewayDispatcher.dispatch(dto.getPaymentMethod(), strategy, dto, late -> recordOutcome(paymentId, late))
+                .handle((status, error) -> {
+                    if (error == null) {
+                        recordOutcome(paymentId, status);
+                        dto.setStatus(status.name());
+                    } else if (unwrap(error) instanceof TimeoutException) {
+                        // Outcome unknown; the payment stays Pending until a late answer is recorded
+                        logger.warn("PaymentServiceImpl: Gateway timed out, payment {} left Pending", dto.getTransactionId());
+                    } else {
+                        logger.warn("PaymentServiceImpl: Payment {} failed: {}", dto.getTransactionId(), unwrap(error).getMessage());
+                        recordOutcome(paymentId, PaymentStatus.Failed);
+                        dto.setStatus(PaymentStatus.Failed.name());
+                    }
+                    return dto;
+                });
+    }
 
-        return dto;
+    @Override
+    public Optional<PaymentDTO> findByIdempotencyKey(String idempotencyKey, Long patientId) {
+        return paymentRepository.findByIdempotencyKey(idempotencyKey)
+                .map(payment -> {
+                    Long ownerId = payment.getPatient() != null ? payment.getPatient().getPatientId() : null;
+                    if (!Objects.equals(ownerId, patientId)) {
+                        throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+                    }
+                    return new PaymentDTO(
+                            ownerId,
+                            payment.getAppointment() != null ? payment.getAppointment().getAppointmentId() : null,
+                            payment.getAmount(),
+                            payment.getPaymentType().name(),
+                            payment.getTransactionId(),
+                            payment.getStatus().name());
+                });
+    }
+
+    private void recordOutcome(Long paymentId, PaymentStatus status) {
+        if (paymentId != null && status != PaymentStatus.Pending) {
+            paymentRepository.updateStatus(paymentId, PaymentStatus.Pending, status);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     @Override
@@ -92,161 +169,12 @@ public class PaymentServiceImpl implements PaymentService {
         try {
             System.out.println("PaymentServiceImpl: Getting pending payments for patient ID: " + patientId);
 
-            // First verify the patient exists - use alternative method if primary fails
-            Optional<Patient> patientOpt = Optional.empty();
-
-            try {
-                patientOpt = patientRepository.findById(patientId);
-            } catch (Exception e) {
-                System.out.println("PaymentServiceImpl: Primary patient lookup failed: " + e.getMessage());
-            }
-
-            // If primary method fails, try alternative
-            if (patientOpt.isEmpty()) {
-                try {
-                    System.out.println("PaymentServiceImpl: Trying alternative patient lookup...");
-                    patientOpt = patientRepository.findByPatientId(patientId);
-                } catch (Exception e) {
-                    System.out.println("PaymentServiceImpl: Alternative patient lookup also failed: " + e.getMessage());
-                }
-            }
-
-            if (patientOpt.isEmpty()) {
-                System.out.println("PaymentServiceImpl: Patient not found with ID: " + patientId);
-                // Instead of throwing an error, return empty list for non-existent patient
-                return new ArrayList<>();
-            }
-
-            System.out.println("PaymentServiceImpl: Patient found, querying payments...");
-
-            // Try multiple methods to find payments
-            List<Payment> payments = new ArrayList<>();
-
-            try {
-                // Try the first method name
-                payments = paymentRepository.findByPatient_PatientIdAndStatus(patientId, PaymentStatus.Pending);
-                System.out.println("PaymentServiceImpl: First method found " + payments.size() + " payments");
-            } catch (Exception e) {
-                System.out.println("PaymentServiceImpl: First method failed: " + e.getMessage());
-            }
-
-            // If no results, try alternative method
-            if (payments.isEmpty()) {
-                try {
-                    System.out.println("PaymentServiceImpl: Trying alternative method...");
-                    payments = paymentRepository.findByPatientPatientIdAndStatus(patientId, PaymentStatus.Pending);
-                    System.out.println("PaymentServiceImpl: Alternative method found " + payments.size() + " payments");
-                } catch (Exception e) {
-                    System.out.println("PaymentServiceImpl: Alternative method also failed: " + e.getMessage());
-                }
-            }
-
-            // If still no results, try a more general query
-            if (payments.isEmpty()) {
-                try {
-                    System.out.println("PaymentServiceImpl: Trying general query...");
-                    List<Payment> allPayments = paymentRepository.findAll();
-                    payments = allPayments.stream()
-                        .filter(p -> patientId.equals(p.getPatient().getPatientId()) &&
-                                     PaymentStatus.Pending.equals(p.getStatus()))
-                        .collect(Collectors.toList());
-                    System.out.println("PaymentServiceImpl: General query found " + payments.size() + " payments");
-                } catch (Exception e) {
-                    System.out.println("PaymentServiceImpl: General query also failed: " + e.getMessage());
-                }
-            }
-
-            System.out.println("PaymentServiceImpl: Found " + payments.size() + " pending payments");
-
-            // If no payments exist, return empty list instead of error
-            if (payments.isEmpty()) {
-                System.out.println("PaymentServiceImpl: No pending payments found, returning empty list");
-                return new ArrayList<>();
-            }
-
-            return payments.stream()
-                    .map(p -> {
-                        try {
-                            System.out.println("PaymentServiceImpl: Processing payment ID: " + p.getPaymentId());
-
-                            PaymentDTO dto = new PaymentDTO(
-                                    p.getPatient().getPatientId(),
-                                    p.getAppointment() != null ? p.getAppointment().getAppointmentId() : null,
-                                    p.getAmount(),
-                                    p.getPaymentType() != null ? p.getPaymentType().name() : "Cash",
-                                    p.getTransactionId(),
-                                    p.getStatus() != null ? p.getStatus().name() : "Pending"
-                            );
+            // One indexed query; an unknown patient or a patient with no dues simply yields no rows
+            List<PendingPaymentRow> rows = paymentRepository.findPaymentRows(patientId, PaymentStatus.Pending);
+            System.out.println("PaymentServiceImpl: Found " + rows.size() + " pending payments");
 
-                            // Add appointment details if appointment exists
-                            if (p.getAppointment() != null) {
-                                try {
-                                    Appointment appointment = p.getAppointment();
-                                    System.out.println("PaymentServiceImpl: Processing appointment ID: " + appointment.getAppointmentId());
-                                    System.out.println("PaymentServiceImpl: Appointment payment amount: " + appointment.getPaymentAmount());
-
-                                    // Set appointment date and time
-                                    if (appointment.getAppointmentDateTime() != null) {
-                                        dto.setAppointmentDateTime(
-                                            appointment.getAppointmentDateTime().toString()
-                                        );
-                                    }
-
-                                    // Set doctor name
-                                    if (appointment.getDoctor() != null &&
-                                        appointment.getDoctor().getUser() != null) {
-                                        String doctorName = appointment.getDoctor().getUser().getFirstName() + " " +
-                                                           appointment.getDoctor().getUser().getLastName();
-                                        dto.setDoctorName(doctorName);
-                                    }
-
-                                    // Set service name
-                                    if (appointment.getServiceCategory() != null) {
-                                        dto.setServiceName(appointment.getServiceCategory().getName());
-                                    }
-
-                                    // Set hospital name
-                                    if (appointment.getHospital() != null) {
-                                        dto.setHospitalName(appointment.getHospital().getName());
-                                    }
-
-                                    // Set appointment description
-                                    if (appointment.getServiceCategory() != null &&
-                                        appointment.getDoctor() != null &&
-                                        appointment.getDoctor().getUser() != null) {
-                                        String description = appointment.getServiceCategory().getName() + " with Dr. " +
-                                                           appointment.getDoctor().getUser().getFirstName() + " " +
-                                                           appointment.getDoctor().getUser().getLastName();
-                                        dto.setAppointmentDescription(description);
-                                    }
-
-                                    // Ensure the payment amount from appointment is properly set in DTO
-                                    if (appointment.getPaymentAmount() != null) {
-                                        dto.setAmount(appointment.getPaymentAmount());
-                                        System.out.println("PaymentServiceImpl: Updated DTO amount from appointment: " + appointment.getPaymentAmount());
-                                    }
-                                } catch (Exception e) {
-                                    // Log the error but don't fail the entire operation
-                                    System.err.println("Error processing appointment details for payment " + p.getPaymentId() + ": " + e.getMessage());
-                                    // Continue without appointment details
-                                }
-                            }
-
-                            System.out.println("PaymentServiceImpl: Successfully processed payment DTO");
-                            return dto;
-                        } catch (Exception e) {
-                            System.err.println("Error processing individual payment " + p.getPaymentId() + ": " + e.getMessage());
-                            // Return a basic DTO even if there are issues
-                            return new PaymentDTO(
-                                p.getPatient().getPatientId(),
-                                p.getAppointment() != null ? p.getAppointment().getAppointmentId() : null,
-                                p.getAmount(),
-                                p.getPaymentType() != null ? p.getPaymentType().name() : "Cash",
-                                p.getTransactionId(),
-                                p.getStatus() != null ? p.getStatus().name() : "Pending"
-                            );
-                        }
-                    })
+            return rows.stream()
+                    .map(this::toPendingPaymentDto)
                     .collect(Collectors.toList());
         } catch (Exception e) {
             System.err.println("PaymentServiceImpl: Error in getPendingPayments: " + e.getMessage());
@@ -257,6 +185,41 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    private PaymentDTO toPendingPaymentDto(PendingPaymentRow row) {
+        PaymentDTO dto = new PaymentDTO(
+                row.getPatientId(),
+                row.getAppointmentId(),
+                row.getAmount(),
+                row.getPaymentType() != null ? row.getPaymentType().name() : "Cash",
+                row.getTransactionId(),
+                row.getStatus() != null ? row.getStatus().name() : "Pending"
+        );
+
+        // Add appointment details if appointment exists
+        if (row.getAppointmentId() != null) {
+            if (row.getAppointmentDateTime() != null) {
+                dto.setAppointmentDateTime(row.getAppointmentDateTime().toString());
+            }
+
+            String doctorName = row.getDoctorFirstName() != null
+                    ? row.getDoctorFirstName() + " " + row.getDoctorLastName()
+                    : null;
+            dto.setDoctorName(doctorName);
+            dto.setServiceName(row.getServiceName());
+            dto.setHospitalName(row.getHospitalName());
+
+            if (row.getServiceName() != null && doctorName != null) {
+                dto.setAppointmentDescription(row.getServiceName() + " with Dr. " + doctorName);
+            }
+
+            // The appointment's fee takes precedence over the amount recorded on the payment
+            if (row.getAppointmentPaymentAmount() != null) {
+                dto.setAmount(row.getAppointmentPaymentAmount());
+            }
+        }
+        return dto;
+    }
+
     // Helper method to create sample payment data for testing
     public void createSamplePaymentData(Long patientId) {
         try {
@@ -284,17 +247,7 @@ public class PaymentServiceImpl implements PaymentService {
                 return;
             }
 
-            Patient patient = patientOpt.get();
-
-            // Create a sample payment
-            Payment samplePayment = new Payment();
-            samplePayment.setPatient(patient);
-            samplePayment.setAmount(1500.00);
-            samplePayment.setPaymentType(PaymentType.Card);
-            samplePayment.setStatus(PaymentStatus.Pending);
-            samplePayment.setTransactionId("SAMPLE-" + UUID.randomUUID().toString().substring(0, 8));
-            samplePayment.setPaymentTimestamp(LocalDateTime.now());
-
+            Payment samplePayment = samplePayment(patientOpt.get());
             paymentRepository.save(samplePayment);
             System.out.println("PaymentServiceImpl: Created sample payment with ID: " + samplePayment.getPaymentId());
 
@@ -304,6 +257,17 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    private static Payment samplePayment(Patient patient) {
+        Payment samplePayment = new Payment();
+        samplePayment.setPatient(patient);
+        samplePayment.setAmount(1500.00);
+        samplePayment.setPaymentType(PaymentType.Card);
+        samplePayment.setStatus(PaymentStatus.Pending);
+        samplePayment.setTransactionId("SAMPLE-" + UUID.randomUUID().toString().substring(0, 8));
+        samplePayment.setPaymentTimestamp(LocalDateTime.now());
+        return samplePayment;
+    }
+
     // Helper method to get all payments for debugging
     public List<PaymentDTO> getAllPaymentsForDebugging() {
         try {
@@ -351,15 +315,13 @@ public class PaymentServiceImpl implements PaymentService {
                 return;
             }
 
-            // Create sample payments for each patient
+            // Create sample payments for each patient in one saveAll, so the inserts go out as JDBC batches
+            List<Payment> samplePayments = new ArrayList<>(patients.size());
             for (Patient patient : patients) {
-                try {
-                    createSamplePaymentData(patient.getPatientId());
-                    System.out.println("PaymentServiceImpl: Created sample payment for patient: " + patient.getPatientId());
-                } catch (Exception e) {
-                    System.err.println("PaymentServiceImpl: Failed to create sample payment for patient " + patient.getPatientId() + ": " + e.getMessage());
-                }
+                samplePayments.add(samplePayment(patient));
             }
+            paymentRepository.saveAll(samplePayments);
+            System.out.println("PaymentServiceImpl: Created " + samplePayments.size() + " sample payments");
 
         } catch (Exception e) {
             System.err.println("PaymentServiceImpl: Error initializing sample data: " + e.getMessage());
@@ -372,15 +334,12 @@ public class PaymentServiceImpl implements PaymentService {
         try {
             System.out.println("PaymentServiceImpl: Checking database health...");
 
-            // Check if we can access the payment repository
-            List<Payment> allPayments = paymentRepository.findAll();
-            System.out.println("PaymentServiceImpl: Database contains " + allPayments.size() + " payments");
-
-            // Check if we can access patients
-            List<Patient> allPatients = patientRepository.findAll();
-            System.out.println("PaymentServiceImpl: Database contains " + allPatients.size() + " patients");
+            // Aggregate queries exercise both the payments and patients tables
+            PaymentReportDto report = reportingService.getReport();
+            System.out.println("PaymentServiceImpl: Database contains " + report.getTotalPayments() + " payments");
+            System.out.println("PaymentServiceImpl: Database contains " + report.getPatients() + " patients");
 
-            return String.format("Database Health: OK (Payments: %d, Patients: %d)", allPayments.size(), allPatients.size());
+            return String.format("Database Health: OK (Payments: %d, Patients: %d)", report.getTotalPayments(), report.getPatients());
 
         } catch (Exception e) {
             System.err.println("PaymentServiceImpl: Database health check failed: " + e.getMessage());
@@ -442,9 +401,8 @@ public class PaymentServiceImpl implements PaymentService {
 
             // Check database connectivity
             try {
-                List<Payment> payments = paymentRepository.findAll();
-                List<Patient> patients = patientRepository.findAll();
-                status.append(String.format("Database: OK (Payments: %d, Patients: %d)\n", payments.size(), patients.size()));
+                PaymentReportDto report = reportingService.getReport();
+                status.append(String.format("Database: OK (Payments: %d, Patients: %d)\n", report.getTotalPayments(), report.getPatients()));
             } catch (Exception e) {
                 status.append("Database: ERROR - " + e.getMessage() + "\n");
             }
@@ -457,6 +415,10 @@ public class PaymentServiceImpl implements PaymentService {
                 status.append("Payment Strategies: ERROR - " + e.getMessage() + "\n");
             }
 
+            // Check gateway circuits
+            Map<String, PaymentCircuitBreaker.State> circuits = gatewayDispatcher.getCircuitStates();
+            circuits.forEach((type, state) -> status.append("  Gateway " + type + ": " + state + "\n"));
+
             // Check current time
             status.append("Current Time: " + LocalDateTime.now() + "\n");
 
@@ -474,6 +436,7 @@ public class PaymentServiceImpl implements PaymentService {
 
             // Delete all payments
             paymentRepository.deleteAll();
+            reportingService.invalidate();
             System.out.println("PaymentServiceImpl: Deleted all payments");
 
             // Create fresh sample data
@@ -491,24 +454,15 @@ public class PaymentServiceImpl implements PaymentService {
         try {
             System.out.println("PaymentServiceImpl: Getting payment statistics...");
 
-            List<Payment> allPayments = paymentRepository.findAll();
-            List<Patient> allPatients = patientRepository.findAll();
-
-            long pendingPayments = allPayments.stream()
-                .filter(p -> PaymentStatus.Pending.equals(p.getStatus()))
-                .count();
-
-            long paidPayments = allPayments.stream()
-                .filter(p -> PaymentStatus.Paid.equals(p.getStatus()))
-                .count();
-
-            long failedPayments = allPayments.stream()
-                .filter(p -> PaymentStatus.Failed.equals(p.getStatus()))
-                .count();
+            PaymentReportDto report = reportingService.getReport();
 
             return String.format(
                 "Payment Stats: Total=%d (Pending=%d, Paid=%d, Failed=%d), Patients=%d",
-                allPayments.size(), pendingPayments, paidPayments, failedPayments, allPatients.size()
+                report.getTotalPayments(),
+                countWithStatus(report, PaymentStatus.Pending),
+                countWithStatus(report, PaymentStatus.Paid),
+                countWithStatus(report, PaymentStatus.Failed),
+                report.getPatients()
             );
 
         } catch (Exception e) {
@@ -518,26 +472,31 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
+    private static long countWithStatus(PaymentReportDto report, PaymentStatus status) {
+        return report.getByStatus().stream()
+                .filter(a -> status.name().equals(a.getKey()))
+                .mapToLong(PaymentAggregateDto::getCount)
+                .sum();
+    }
+
     // Helper method to force refresh and ensure data consistency
     public void refreshAndValidateData() {
         try {
             System.out.println("PaymentServiceImpl: Refreshing and validating data...");
 
             // Clear any cached data and reload
-            List<Payment> payments = paymentRepository.findAll();
-            List<Patient> patients = patientRepository.findAll();
+            PaymentReportDto report = reportingService.refresh();
 
-            System.out.println("PaymentServiceImpl: Validated - Payments: " + payments.size() + ", Patients: " + patients.size());
+            System.out.println("PaymentServiceImpl: Validated - Payments: " + report.getTotalPayments() + ", Patients: " + report.getPatients());
 
             // Ensure each patient has at least one payment for testing
-            for (Patient patient : patients) {
-                boolean hasPayment = payments.stream()
-                    .anyMatch(p -> patient.getPatientId().equals(p.getPatient().getPatientId()));
-
-                if (!hasPayment) {
-                    System.out.println("PaymentServiceImpl: Creating missing payment for patient: " + patient.getPatientId());
-                    createSamplePaymentData(patient.getPatientId());
-                }
+            List<Long> patientsWithoutPayments = paymentRepository.findPatientIdsWithoutPayments();
+            for (Long patientId : patientsWithoutPayments) {
+                System.out.println("PaymentServiceImpl: Creating missing payment for patient: " + patientId);
+                createSamplePaymentData(patientId);
+            }
+            if (!patientsWithoutPayments.isEmpty()) {
+                reportingService.invalidate();
             }
 
         } catch (Exception e) {
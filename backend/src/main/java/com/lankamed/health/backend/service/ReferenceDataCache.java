@@ -0,0 +1,261 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.model.Hospital;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.ServiceCategory;
+import com.lankamed.health.backend.model.StaffDetails;
+import com.lankamed.health.backend.model.listener.ReferenceDataChangedEvent;
+import com.lankamed.health.backend.repository.HospitalRepository;
+import com.lankamed.health.backend.repository.ServiceCategoryRepository;
+import com.lankamed.health.backend.repository.StaffDetailsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hospitals, service categories and doctors that booking resolves on every request, held as one immutable
+ * snapshot of id/name records that is swapped whole. Lookups never query and never block: after a committed
+ * {@link ReferenceDataChangedEvent} the snapshot is rebuilt on a background thread, and readers keep the previous
+ * one until the new one is published. Callers attach the records to new rows with {@code getReferenceById}.
+ */
+@Component
+public class ReferenceDataCache {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    public record HospitalRef(Long hospitalId, String name) {
+    }
+
+    public record CategoryRef(Long categoryId, String name) {
+    }
+
+    public record DoctorRef(Long staffId, String firstName, String lastName, String specialization,
+                            Double consultationFee, Long hospitalId, Long categoryId) {
+
+        static DoctorRef of(StaffDetails staff) {
+            return new DoctorRef(staff.getStaffId(),
+                    staff.getUser() != null ? staff.getUser().getFirstName() : null,
+                    staff.getUser() != null ? staff.getUser().getLastName() : null,
+                    staff.getSpecialization(), staff.getConsultationFee(),
+                    staff.getHospital() != null ? staff.getHospital().getHospitalId() : null,
+                    staff.getServiceCategory() != null ? staff.getServiceCategory().getCategoryId() : null);
+        }
+
+        public String fullName() {
+            return firstName + " " + lastName;
+        }
+    }
+
+    private final HospitalRepository hospitalRepository;
+    private final ServiceCategoryRepository serviceCategoryRepository;
+    private final StaffDetailsRepository staffDetailsRepository;
+    private final TransactionTemplate readOnly;
+    private final Executor rebuilder;
+    // Committed changes requested and the last one a finished rebuild covers
+    private final AtomicLong requested = new AtomicLong();
+    private volatile long built;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    @Autowired
+    public ReferenceDataCache(HospitalRepository hospitalRepository,
+                              ServiceCategoryRepository serviceCategoryRepository,
+                              StaffDetailsRepository staffDetailsRepository,
+                              PlatformTransactionManager transactionManager) {
+        this(hospitalRepository, serviceCategoryRepository, staffDetailsRepository, transactionManager,
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "reference-data-rebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    ReferenceDataCache(HospitalRepository hospitalRepository,
+                       ServiceCategoryRepository serviceCategoryRepository,
+                       StaffDetailsRepository staffDetailsRepository,
+                       PlatformTransactionManager transactionManager,
+                       Executor rebuilder) {
+        this.hospitalRepository = hospitalRepository;
+        this.serviceCategoryRepository = serviceCategoryRepository;
+        this.staffDetailsRepository = staffDetailsRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.rebuilder = rebuilder;
+    }
+
+    /** The hospital with this id, or the first configured hospital when the id is null or unknown. */
+    public Optional<HospitalRef> hospitalOrDefault(Long hospitalId) {
+        Snapshot current = current();
+        return Optional.ofNullable(lookup(current.hospitals(), hospitalId))
+                .or(() -> current.hospitalList().stream().findFirst());
+    }
+
+    /** The category with this id, or the first configured category when the id is null or unknown. */
+    public Optional<CategoryRef> categoryOrDefault(Long categoryId) {
+        Snapshot current = current();
+        return Optional.ofNullable(lookup(current.categories(), categoryId))
+                .or(() -> current.categoryList().stream().findFirst());
+    }
+
+    public Optional<DoctorRef> doctor(Long staffId) {
+        return Optional.ofNullable(lookup(current().doctors(), staffId));
+    }
+
+    public Optional<DoctorRef> firstDoctor() {
+        return current().doctorList().stream().findFirst();
+    }
+
+    /** First doctor in the category, else at the hospital, else anywhere. */
+    public Optional<DoctorRef> fallbackDoctor(Long categoryId, Long hospitalId) {
+        Snapshot current = current();
+        List<DoctorRef> byCategory = lookup(current.doctorsByCategory(), categoryId);
+        if (byCategory != null) {
+            return Optional.of(byCategory.get(0));
+        }
+        List<DoctorRef> byHospital = lookup(current.doctorsByHospital(), hospitalId);
+        if (byHospital != null) {
+            return Optional.of(byHospital.get(0));
+        }
+        return current.doctorList().stream().findFirst();
+    }
+
+    @EventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestRebuild();
+                }
+            });
+        } else {
+            requestRebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        requestRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuilder instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void requestRebuild() {
+        requested.incrementAndGet();
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuildPending);
+        }
+    }
+
+    // Changes that land while a rebuild runs are folded into one more pass
+    private void rebuildPending() {
+        try {
+            long target;
+            do {
+                target = requested.get();
+                snapshot.set(readOnly.execute(status -> load()));
+                built = target;
+            } while (requested.get() != target);
+        } catch (RuntimeException e) {
+            logger.warn("ReferenceDataCache: rebuild failed, serving the previous snapshot: {}", e.getMessage());
+            return;
+        } finally {
+            scheduled.set(false);
+        }
+        if (requested.get() != built) {
+            schedule();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            // Only before the first rebuild lands: load on the caller's own connection rather than waiting for another,
+            // and never replace a snapshot the rebuilder published meanwhile
+            Snapshot loaded = load();
+            return snapshot.compareAndSet(null, loaded) ? loaded : snapshot.get();
+        } else if (built != requested.get()) {
+            // Retries a failed rebuild without making the reader wait for it
+            schedule();
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        Snapshot loaded = Snapshot.of(
+                hospitalRepository.findAll(Sort.by("hospitalId")),
+                serviceCategoryRepository.findAll(Sort.by("categoryId")),
+                staffDetailsRepository.findAllWithUserByRole(Role.DOCTOR));
+        logger.debug("ReferenceDataCache: {} hospitals, {} categories, {} doctors",
+                loaded.hospitals().size(), loaded.categories().size(), loaded.doctors().size());
+        return loaded;
+    }
+
+    // Map.copyOf rejects null keys, and callers pass ids straight from request bodies
+    private static <T> T lookup(Map<Long, T> map, Long id) {
+        return id == null ? null : map.get(id);
+    }
+
+    private record Snapshot(List<HospitalRef> hospitalList, Map<Long, HospitalRef> hospitals,
+                            List<CategoryRef> categoryList, Map<Long, CategoryRef> categories,
+                            List<DoctorRef> doctorList, Map<Long, DoctorRef> doctors,
+                            Map<Long, List<DoctorRef>> doctorsByCategory, Map<Long, List<DoctorRef>> doctorsByHospital) {
+
+        static Snapshot of(List<Hospital> hospitals, List<ServiceCategory> categories, List<StaffDetails> doctors) {
+            List<HospitalRef> hospitalList = hospitals.stream().map(h -> new HospitalRef(h.getHospitalId(), h.getName())).toList();
+            List<CategoryRef> categoryList = categories.stream().map(c -> new CategoryRef(c.getCategoryId(), c.getName())).toList();
+            List<DoctorRef> doctorList = doctors.stream().map(DoctorRef::of).toList();
+            Map<Long, HospitalRef> hospitalsById = new LinkedHashMap<>();
+            hospitalList.forEach(h -> hospitalsById.put(h.hospitalId(), h));
+            Map<Long, CategoryRef> categoriesById = new LinkedHashMap<>();
+            categoryList.forEach(c -> categoriesById.put(c.categoryId(), c));
+            Map<Long, DoctorRef> doctorsById = new LinkedHashMap<>();
+            Map<Long, List<DoctorRef>> byCategory = new LinkedHashMap<>();
+            Map<Long, List<DoctorRef>> byHospital = new LinkedHashMap<>();
+            for (DoctorRef doctor : doctorList) {
+                doctorsById.put(doctor.staffId(), doctor);
+                if (doctor.categoryId() != null) {
+                    byCategory.computeIfAbsent(doctor.categoryId(), id -> new ArrayList<>()).add(doctor);
+                }
+                if (doctor.hospitalId() != null) {
+                    byHospital.computeIfAbsent(doctor.hospitalId(), id -> new ArrayList<>()).add(doctor);
+                }
+            }
+            byCategory.replaceAll((id, list) -> List.copyOf(list));
+            byHospital.replaceAll((id, list) -> List.copyOf(list));
+            return new Snapshot(hospitalList, Map.copyOf(hospitalsById),
+                    categoryList, Map.copyOf(categoriesById),
+                    doctorList, Map.copyOf(doctorsById),
+                    Map.copyOf(byCategory), Map.copyOf(byHospital));
+        }
+    }
+}
@@ -3,43 +3,59 @@ package com.lankamed.health.backend.service;
 import com.lankamed.health.backend.dto.CreateReviewDto;
 import com.lankamed.health.backend.dto.ReviewDto;
 import com.lankamed.health.backend.model.Appointment;
+import com.lankamed.health.backend.model.DoctorRatingSummary;
 import com.lankamed.health.backend.model.User;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.Review;
 import com.lankamed.health.backend.model.StaffDetails;
 import com.lankamed.health.backend.repository.AppointmentRepository;
+import com.lankamed.health.backend.repository.DoctorRatingSummaryRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
 import com.lankamed.health.backend.repository.ReviewRepository;
 import com.lankamed.health.backend.repository.StaffDetailsRepository;
 import com.lankamed.health.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ReviewService {
+    private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
 
     private final ReviewRepository reviewRepository;
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     private final StaffDetailsRepository staffDetailsRepository;
     private final UserRepository userRepository;
+    private final DoctorRatingSummaryRepository ratingSummaryRepository;
+    private final DoctorDirectoryCache directoryCache;
 
     public ReviewService(ReviewRepository reviewRepository, 
                         AppointmentRepository appointmentRepository,
                         PatientRepository patientRepository,
                         StaffDetailsRepository staffDetailsRepository,
-                        UserRepository userRepository) {
+                        UserRepository userRepository,
+                        DoctorRatingSummaryRepository ratingSummaryRepository,
+                        DoctorDirectoryCache directoryCache) {
         this.reviewRepository = reviewRepository;
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.staffDetailsRepository = staffDetailsRepository;
         this.userRepository = userRepository;
+        this.ratingSummaryRepository = ratingSummaryRepository;
+        this.directoryCache = directoryCache;
     }
 
     public ReviewDto createReview(CreateReviewDto createReviewDto) {
@@ -91,6 +107,8 @@ public class ReviewService {
                 .comment(createReviewDto.getComment())
                 .build();
 
+        // Summary first: the first review of a doctor seeds the row from the reviews saved so far
+        addToRatingSummary(appointment.getDoctor().getStaffId(), createReviewDto.getRating());
         Review savedReview = reviewRepository.save(review);
         return ReviewDto.fromReview(savedReview);
     }
@@ -102,17 +120,45 @@ public class ReviewService {
                 .collect(Collectors.toList());
     }
 
-    public java.util.Map<String, Object> getDoctorReviewStats(Long doctorId) {
-        Double avg = reviewRepository.findAverageRatingByDoctorId(doctorId);
-        Long count = reviewRepository.countReviewsByDoctorId(doctorId);
-        double average = avg == null ? 0.0 : Math.round(avg * 10.0) / 10.0;
-        return java.util.Map.of(
+    public Map<String, Object> getDoctorReviewStats(Long doctorId) {
+        DoctorRatingSummary summary = ratingSummaryRepository.findById(doctorId)
+                .orElseGet(() -> DoctorRatingSummary.builder().doctorId(doctorId).build());
+        long count = summary.getReviewCount();
+        double average = count == 0 ? 0.0 : Math.round(summary.getRatingSum() * 10.0 / count) / 10.0;
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        distribution.put(1, summary.getStars1());
+        distribution.put(2, summary.getStars2());
+        distribution.put(3, summary.getStars3());
+        distribution.put(4, summary.getStars4());
+        distribution.put(5, summary.getStars5());
+        return Map.of(
                 "doctorId", doctorId,
                 "averageRating", average,
-                "reviewCount", count == null ? 0 : count
+                "reviewCount", count,
+                "ratingDistribution", distribution
         );
     }
 
+    /**
+     * Recomputes every doctor's rating summary from {@code reviews}, repairing any drift.
+     * Runs once at startup and then nightly.
+     */
+    @Scheduled(cron = "${reviews.rating-summary.rebuild-cron:0 30 3 * * *}")
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildRatingSummaries() {
+        ratingSummaryRepository.deleteAllSummaries();
+        int doctors = ratingSummaryRepository.insertAllFromReviews();
+        directoryCache.invalidateAll();
+        logger.info("ReviewService: rebuilt rating summaries for {} doctors", doctors);
+    }
+
+    private void addToRatingSummary(Long doctorId, int rating) {
+        if (ratingSummaryRepository.addRating(doctorId, rating) == 0) {
+            ratingSummaryRepository.seedIfAbsent(doctorId);
+            ratingSummaryRepository.addRating(doctorId, rating);
+        }
+    }
+
     private String getCurrentUserEmail() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) return null;
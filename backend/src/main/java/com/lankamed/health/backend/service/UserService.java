@@ -44,6 +44,8 @@ public class UserService {
     public void resetPasswordByUserId(Long userId, String newPassword) {
         User user = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
         user.setPasswordHash(passwordEncoder.encode(newPassword));
+        // An admin reset also signs the user out of every session
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
     }
 
@@ -5,6 +5,10 @@ import com.lankamed.health.backend.dto.WaitlistEntryDto;
 import com.lankamed.health.backend.model.*;
 import com.lankamed.health.backend.repository.*;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.ReferenceDataCache.CategoryRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.DoctorRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.HospitalRef;
 import com.lankamed.health.backend.model.patient.Patient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +34,10 @@ public class WaitlistServiceImpl implements WaitlistService {
     private final StaffDetailsRepository staffDetailsRepository;
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
+    private final DoctorSlotService doctorSlotService;
+    private final ReferenceDataCache referenceDataCache;
     private final CurrentUserEmailProvider currentUserEmailProvider;
+    private final RequestIdentity requestIdentity;
     private final boolean waitlistEnabled;
 
     public WaitlistServiceImpl(
@@ -41,6 +48,9 @@ public class WaitlistServiceImpl implements WaitlistService {
             StaffDetailsRepository staffDetailsRepository,
             AppointmentRepository appointmentRepository,
             UserRepository userRepository,
+            DoctorSlotService doctorSlotService,
+            ReferenceDataCache referenceDataCache,
+            RequestIdentity requestIdentity,
             @Value("${feature.waitlist.enabled:false}") boolean waitlistEnabled) {
         this.waitlistRepository = waitlistRepository;
         this.patientRepository = patientRepository;
@@ -49,7 +59,10 @@ public class WaitlistServiceImpl implements WaitlistService {
         this.staffDetailsRepository = staffDetailsRepository;
         this.appointmentRepository = appointmentRepository;
         this.userRepository = userRepository;
+        this.doctorSlotService = doctorSlotService;
+        this.referenceDataCache = referenceDataCache;
         this.currentUserEmailProvider = new SecurityContextCurrentUserEmailProvider();
+        this.requestIdentity = requestIdentity;
         this.waitlistEnabled = waitlistEnabled;
     }
 
@@ -83,36 +96,42 @@ public class WaitlistServiceImpl implements WaitlistService {
                     return patientRepository.save(newPatient);
                 });
 
-        Hospital hospital = dto.getHospitalId() != null
-                ? hospitalRepository.findById(dto.getHospitalId()).orElseGet(() -> hospitalRepository.findAll().stream().findFirst()
-                    .orElseThrow(() -> new RuntimeException("No hospitals configured. Please add a hospital.")))
-                : hospitalRepository.findAll().stream().findFirst().orElseThrow(() -> new RuntimeException("No hospitals configured. Please add a hospital."));
+        HospitalRef hospital = referenceDataCache.hospitalOrDefault(dto.getHospitalId())
+                .orElseThrow(() -> new RuntimeException("No hospitals configured. Please add a hospital."));
 
-        ServiceCategory serviceCategory = dto.getServiceCategoryId() != null
-                ? serviceCategoryRepository.findById(dto.getServiceCategoryId()).orElseGet(() -> serviceCategoryRepository.findAll().stream().findFirst()
-                    .orElseThrow(() -> new RuntimeException("No service categories configured. Please add a category.")))
-                : serviceCategoryRepository.findAll().stream().findFirst().orElseThrow(() -> new RuntimeException("No service categories configured. Please add a category."));
+        CategoryRef serviceCategory = referenceDataCache.categoryOrDefault(dto.getServiceCategoryId())
+                .orElseThrow(() -> new RuntimeException("No service categories configured. Please add a category."));
 
-        StaffDetails doctor = null;
-        if (dto.getDoctorId() != null) {
-            doctor = staffDetailsRepository.findById(dto.getDoctorId()).orElse(null);
-        }
-        if (doctor == null) {
-            doctor = staffDetailsRepository.findAll().stream().findFirst()
-                    .orElseThrow(() -> new RuntimeException("No doctors configured. Please add a doctor."));
-        }
+        // Not yet in the snapshot (or not in the DOCTOR role): load the requested doctor rather than pick another
+        DoctorRef doctor = referenceDataCache.doctor(dto.getDoctorId())
+                .or(() -> dto.getDoctorId() != null ? staffDetailsRepository.findById(dto.getDoctorId()).map(DoctorRef::of) : Optional.empty())
+                .or(referenceDataCache::firstDoctor)
+                .orElseThrow(() -> new RuntimeException("No doctors configured. Please add a doctor."));
 
         WaitlistEntry entry = WaitlistEntry.builder()
                 .patient(patient)
-                .doctor(doctor)
-                .hospital(hospital)
-                .serviceCategory(serviceCategory)
+                .doctor(staffDetailsRepository.getReferenceById(doctor.staffId()))
+                .hospital(hospitalRepository.getReferenceById(hospital.hospitalId()))
+                .serviceCategory(serviceCategoryRepository.getReferenceById(serviceCategory.categoryId()))
                 .desiredDateTime(dto.getDesiredDateTime())
                 .priority(dto.isPriority())
                 .build();
 
         WaitlistEntry saved = waitlistRepository.save(entry);
-        return WaitlistEntryDto.fromWaitlistEntry(saved);
+        // Names come from the snapshot; reading them through the references would load each row
+        return WaitlistEntryDto.builder()
+                .id(saved.getId())
+                .desiredDateTime(saved.getDesiredDateTime())
+                .status(saved.getStatus())
+                .doctorName(doctor.fullName())
+                .doctorSpecialization(doctor.specialization())
+                .doctorId(doctor.staffId())
+                .hospitalName(hospital.name())
+                .serviceCategoryName(serviceCategory.name())
+                .priority(saved.isPriority())
+                .patientName(patient.getUser().getFirstName() + " " + patient.getUser().getLastName())
+                .patientEmail(patient.getUser().getEmail())
+                .build();
     }
 
     @Override
@@ -121,12 +140,18 @@ public class WaitlistServiceImpl implements WaitlistService {
             return List.of();
         }
 
-        String email = currentUserEmailProvider.getCurrentUserEmail();
-        if (email == null || email.isEmpty() || "anonymousUser".equals(email)) {
-            email = "john.doe@example.com"; // Fallback to demo email to match waitlist creation
+        RequestIdentity.Identity identity = requestIdentity.current();
+        List<WaitlistEntry> entries;
+        if (identity.email() == null || identity.email().isEmpty()) {
+            // Fallback to demo email to match waitlist creation
+            entries = waitlistRepository.findByPatientUserEmailAndStatusNotOrderByCreatedAtDesc("john.doe@example.com", WaitlistEntry.Status.PROMOTED);
+        } else {
+            entries = identity.patientId() == null
+                    ? List.of()
+                    : waitlistRepository.findByPatientPatientIdAndStatusNotOrderByCreatedAtDesc(identity.patientId(), WaitlistEntry.Status.PROMOTED);
         }
 
-        return waitlistRepository.findByPatientUserEmailAndStatusNotOrderByCreatedAtDesc(email, WaitlistEntry.Status.PROMOTED)
+        return entries
                 .stream()
                 .map(WaitlistEntryDto::fromWaitlistEntry)
                 .collect(Collectors.toList());
@@ -161,12 +186,10 @@ public class WaitlistServiceImpl implements WaitlistService {
 
         LocalDateTime start = entry.getDesiredDateTime().minusMinutes(15);
         LocalDateTime end = entry.getDesiredDateTime().plusMinutes(15);
-        List<Appointment> conflicts = appointmentRepository.findByDoctorStaffIdOrderByAppointmentDateTimeDesc(entry.getDoctor().getStaffId())
-                .stream()
-                .filter(a -> !a.getAppointmentDateTime().isBefore(start) && !a.getAppointmentDateTime().isAfter(end))
-                .collect(Collectors.toList());
+        boolean conflict = appointmentRepository.existsByDoctorStaffIdAndAppointmentDateTimeBetween(
+                entry.getDoctor().getStaffId(), start, end);
 
-        if (!conflicts.isEmpty()) {
+        if (conflict || !doctorSlotService.reserveSlot(entry.getDoctor().getStaffId(), entry.getDesiredDateTime())) {
             throw new IllegalStateException("No slot available at requested time for doctor: " + entry.getDoctor().getStaffId());
         }
 
@@ -5,14 +5,13 @@ import com.lankamed.health.backend.model.patient.BloodPressureRecord;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class BloodPressureRecordService {
@@ -20,28 +19,42 @@ public class BloodPressureRecordService {
     private BloodPressureRecordRepository bpRepository;
     @Autowired
     private PatientRepository patientRepository;
+    @Autowired
+    private RequestIdentity requestIdentity;
+    @Autowired
+    private LatestVitalsCache latestVitals;
 
     public List<BloodPressureRecordDto> getAllRecordsForCurrentPatient() {
-        String email = getCurrentUserEmail();
-        return bpRepository.findByPatientUserEmail(email)
-            .stream()
-            .sorted(Comparator.comparing(BloodPressureRecord::getTimestamp))
-            .map(this::toDto)
-            .collect(Collectors.toList());
+        return getRecordsForCurrentPatient(null, null, null);
+    }
+
+    /**
+     * Readings in [from, to), oldest first, thinned to at most maxPoints while keeping each bucket's highest and
+     * lowest systolic and diastolic values. Any argument may be null: an open range, or every reading.
+     */
+    public List<BloodPressureRecordDto> getRecordsForCurrentPatient(LocalDateTime from, LocalDateTime to, Integer maxPoints) {
+        TrendDownsampler.checkRequest(from, to, maxPoints, 2);
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return List.of();
+        }
+        return TrendDownsampler.downsample(bpRepository.findTrend(patientId, from, to), maxPoints,
+            BloodPressureRecordDto::getSystolic, BloodPressureRecordDto::getDiastolic);
     }
 
     @Transactional
     public BloodPressureRecordDto addRecord(BloodPressureRecordDto dto) {
-        String email = getCurrentUserEmail();
-        Patient patient = patientRepository.findByUserEmail(email)
-            .orElseThrow(() -> new RuntimeException("Patient not found"));
+        Long patientId = requestIdentity.requirePatientId();
+        Patient patient = patientRepository.getReferenceById(patientId);
         BloodPressureRecord record = BloodPressureRecord.builder()
             .patient(patient)
             .systolic(dto.getSystolic())
             .diastolic(dto.getDiastolic())
             .timestamp(dto.getTimestamp())
             .build();
-        return toDto(bpRepository.save(record));
+        BloodPressureRecordDto saved = toDto(bpRepository.saveAndFlush(record));
+        latestVitals.recordBloodPressure(patientId, saved);
+        return saved;
     }
 
     private BloodPressureRecordDto toDto(BloodPressureRecord record) {
@@ -51,8 +64,4 @@ public class BloodPressureRecordService {
             .timestamp(record.getTimestamp())
             .build();
     }
-
-    private String getCurrentUserEmail() {
-        return SecurityContextHolder.getContext().getAuthentication().getName();
-    }
 }
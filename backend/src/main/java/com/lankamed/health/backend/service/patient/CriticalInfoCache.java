@@ -0,0 +1,212 @@
+package com.lankamed.health.backend.service.patient;
+
+import com.lankamed.health.backend.dto.patient.AllergyDto;
+import com.lankamed.health.backend.dto.patient.CriticalInfoDto;
+import com.lankamed.health.backend.dto.patient.EmergencyContactDto;
+import com.lankamed.health.backend.dto.patient.MedicalConditionDto;
+import com.lankamed.health.backend.dto.patient.PrescriptionDto;
+import com.lankamed.health.backend.model.listener.PatientRecordChangedEvent;
+import com.lankamed.health.backend.repository.patient.AllergyRepository;
+import com.lankamed.health.backend.repository.patient.EmergencyContactRepository;
+import com.lankamed.health.backend.repository.patient.MedicalConditionRepository;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.repository.patient.PrescriptionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precomputed break-glass snapshot per patient: allergies (most severe first), conditions, current prescriptions
+ * and emergency contacts. A miss falls back to the database (five statements in one read-only transaction);
+ * a hit is a map lookup. A {@link PatientRecordChangedEvent} is published for every write to the underlying rows, and a
+ * cached snapshot is dropped when that write commits and rebuilt in the background.
+ */
+@Component
+public class CriticalInfoCache {
+    private static final Logger logger = LoggerFactory.getLogger(CriticalInfoCache.class);
+
+    private static final Comparator<AllergyDto> MOST_SEVERE_FIRST =
+            Comparator.comparing(AllergyDto::getSeverity, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final PatientRepository patientRepository;
+    private final MedicalConditionRepository medicalConditionRepository;
+    private final AllergyRepository allergyRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final EmergencyContactRepository emergencyContactRepository;
+    private final TransactionTemplate readOnly;
+    private final Executor refresher;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    // Bumped by every committed change; a load that overlapped one is returned but not cached
+    private final AtomicLong changes = new AtomicLong();
+
+    @Autowired
+    public CriticalInfoCache(PatientRepository patientRepository,
+                             MedicalConditionRepository medicalConditionRepository,
+                             AllergyRepository allergyRepository,
+                             PrescriptionRepository prescriptionRepository,
+                             EmergencyContactRepository emergencyContactRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${emergency.critical-info.max-entries:10000}") int maxEntries,
+                             @Value("${emergency.critical-info.ttl-seconds:60}") long ttlSeconds) {
+        // One rebuild at a time; when the queue is full the snapshot simply stays evicted until it is read
+        this(patientRepository, medicalConditionRepository, allergyRepository, prescriptionRepository, emergencyContactRepository,
+                transactionManager, new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1000), runnable -> {
+                    Thread thread = new Thread(runnable, "critical-info-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy()), maxEntries, ttlSeconds);
+    }
+
+    CriticalInfoCache(PatientRepository patientRepository,
+                      MedicalConditionRepository medicalConditionRepository,
+                      AllergyRepository allergyRepository,
+                      PrescriptionRepository prescriptionRepository,
+                      EmergencyContactRepository emergencyContactRepository,
+                      PlatformTransactionManager transactionManager,
+                      Executor refresher,
+                      int maxEntries,
+                      long ttlSeconds) {
+        this.patientRepository = patientRepository;
+        this.medicalConditionRepository = medicalConditionRepository;
+        this.allergyRepository = allergyRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.emergencyContactRepository = emergencyContactRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.refresher = refresher;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > CriticalInfoCache.this.maxEntries;
+            }
+        };
+    }
+
+    /** The patient's snapshot, or null when there is no such patient. */
+    public CriticalInfoDto get(Long patientId) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(patientId);
+            if (entry != null && now - entry.loadedAt() < ttlNanos) {
+                return current(entry.info());
+            }
+        }
+
+        long seen = changes.get();
+        CriticalInfoDto info = load(patientId);
+        if (info == null) {
+            return null;
+        }
+        synchronized (entries) {
+            if (changes.get() == seen) {
+                entries.put(patientId, new Entry(info, now));
+            }
+        }
+        return current(info);
+    }
+
+    @EventListener
+    public void onPatientRecordChanged(PatientRecordChangedEvent event) {
+        changed(event.patientId());
+    }
+
+    /** A row feeding the patient's snapshot changed; applied once the current transaction commits, or straight away outside one. */
+    public void changed(Long patientId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(patientId);
+                }
+            });
+        } else {
+            refresh(patientId);
+        }
+    }
+
+    private void refresh(Long patientId) {
+        changes.incrementAndGet();
+        boolean wasCached;
+        synchronized (entries) {
+            wasCached = entries.remove(patientId) != null;
+        }
+        // Only snapshots someone has been reading are rebuilt; the writer does not wait for it
+        if (wasCached) {
+            refresher.execute(() -> {
+                try {
+                    get(patientId);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not rebuild critical info for patient {}: {}", patientId, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private CriticalInfoDto load(Long patientId) {
+        LocalDate today = LocalDate.now();
+        return readOnly.execute(status -> patientRepository.findWithUserById(patientId)
+                .map(patient -> CriticalInfoDto.builder()
+                        .patientId(patientId)
+                        .fullName(patient.getUser().getFirstName() + " " + patient.getUser().getLastName())
+                        .dateOfBirth(patient.getDateOfBirth())
+                        .allergies(allergyRepository.findByPatientPatientId(patientId).stream()
+                                .map(AllergyDto::fromAllergy).sorted(MOST_SEVERE_FIRST).toList())
+                        .conditions(medicalConditionRepository.findByPatientPatientId(patientId).stream()
+                                .map(MedicalConditionDto::fromMedicalCondition).toList())
+                        .prescriptions(prescriptionRepository.findWithDoctorByPatientId(patientId).stream()
+                                .map(PrescriptionDto::fromPrescription).filter(p -> !ended(p, today)).toList())
+                        .emergencyContacts(emergencyContactRepository.findByPatientPatientId(patientId).stream()
+                                .map(EmergencyContactDto::fromEmergencyContact).toList())
+                        .asOf(LocalDateTime.now())
+                        .build())
+                .orElse(null));
+    }
+
+    // A prescription can run out while its snapshot is cached, so "current" is re-checked on every read
+    private static CriticalInfoDto current(CriticalInfoDto info) {
+        LocalDate today = LocalDate.now();
+        if (info.getPrescriptions().stream().noneMatch(p -> ended(p, today))) {
+            return info;
+        }
+        List<PrescriptionDto> current = info.getPrescriptions().stream().filter(p -> !ended(p, today)).toList();
+        return info.toBuilder().prescriptions(current).build();
+    }
+
+    private static boolean ended(PrescriptionDto prescription, LocalDate today) {
+        return prescription.getEndDate() != null && prescription.getEndDate().isBefore(today);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher instanceof ThreadPoolExecutor executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Entry(CriticalInfoDto info, long loadedAt) {
+    }
+}
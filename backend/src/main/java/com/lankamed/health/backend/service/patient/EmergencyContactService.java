@@ -6,8 +6,7 @@ import com.lankamed.health.backend.model.patient.EmergencyContact;
 import com.lankamed.health.backend.repository.patient.EmergencyContactRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
 import com.lankamed.health.backend.model.patient.Patient;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,16 +18,25 @@ public class EmergencyContactService {
 
     private final EmergencyContactRepository emergencyContactRepository;
     private final PatientRepository patientRepository;
+    private final RequestIdentity requestIdentity;
+    private final CriticalInfoCache criticalInfoCache;
 
     public EmergencyContactService(EmergencyContactRepository emergencyContactRepository,
-                                   PatientRepository patientRepository) {
+                                   PatientRepository patientRepository,
+                                   RequestIdentity requestIdentity,
+                                   CriticalInfoCache criticalInfoCache) {
         this.emergencyContactRepository = emergencyContactRepository;
         this.patientRepository = patientRepository;
+        this.requestIdentity = requestIdentity;
+        this.criticalInfoCache = criticalInfoCache;
     }
 
     public List<EmergencyContactDto> getEmergencyContacts() {
-        String email = getCurrentUserEmail();
-        return emergencyContactRepository.findByPatientUserEmail(email)
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return List.of();
+        }
+        return emergencyContactRepository.findByPatientPatientId(patientId)
                 .stream()
                 .map(EmergencyContactDto::fromEmergencyContact)
                 .collect(Collectors.toList());
@@ -36,9 +44,7 @@ public class EmergencyContactService {
 
     @Transactional
     public EmergencyContactDto createEmergencyContact(CreateEmergencyContactDto dto) {
-        String email = getCurrentUserEmail();
-        Patient patient = patientRepository.findByUserEmail(email)
-                .orElseThrow(() -> new RuntimeException("Patient not found"));
+        Patient patient = patientRepository.getReferenceById(requestIdentity.requirePatientId());
 
         EmergencyContact ec = EmergencyContact.builder()
                 .patient(patient)
@@ -55,40 +61,38 @@ public class EmergencyContactService {
 
     @Transactional
     public EmergencyContactDto updateEmergencyContact(Long emergencyContactId, CreateEmergencyContactDto dto) {
-        EmergencyContact ec = emergencyContactRepository.findById(emergencyContactId)
-                .orElseThrow(() -> new RuntimeException("Emergency contact not found"));
-
-        String email = getCurrentUserEmail();
-        if (!ec.getPatient().getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized access to emergency contact");
+        Long patientId = requestIdentity.patientId();
+        int updated = emergencyContactRepository.updateByIdAndPatientPatientId(emergencyContactId, patientId,
+                dto.getFullName(), dto.getRelationship(), dto.getPhone(), dto.getEmail(), dto.getAddress());
+        if (updated == 0) {
+            throw notChanged(emergencyContactId);
         }
+        criticalInfoCache.changed(patientId);
 
-        ec.setFullName(dto.getFullName());
-        ec.setRelationship(dto.getRelationship());
-        ec.setPhone(dto.getPhone());
-        ec.setEmail(dto.getEmail());
-        ec.setAddress(dto.getAddress());
-
-        EmergencyContact saved = emergencyContactRepository.save(ec);
-        return EmergencyContactDto.fromEmergencyContact(saved);
+        return EmergencyContactDto.builder()
+                .emergencyContactId(emergencyContactId)
+                .fullName(dto.getFullName())
+                .relationship(dto.getRelationship())
+                .phone(dto.getPhone())
+                .email(dto.getEmail())
+                .address(dto.getAddress())
+                .build();
     }
 
     @Transactional
     public void deleteEmergencyContact(Long emergencyContactId) {
-        EmergencyContact ec = emergencyContactRepository.findById(emergencyContactId)
-                .orElseThrow(() -> new RuntimeException("Emergency contact not found"));
-
-        String email = getCurrentUserEmail();
-        if (!ec.getPatient().getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized access to emergency contact");
+        Long patientId = requestIdentity.patientId();
+        if (emergencyContactRepository.deleteByIdAndPatientPatientId(emergencyContactId, patientId) == 0) {
+            throw notChanged(emergencyContactId);
         }
-
-        emergencyContactRepository.delete(ec);
+        criticalInfoCache.changed(patientId);
     }
 
-    private String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
+    // The single statement matched nothing: either there is no such contact or it belongs to another patient
+    private RuntimeException notChanged(Long emergencyContactId) {
+        return emergencyContactRepository.existsById(emergencyContactId)
+                ? new RuntimeException("Unauthorized access to emergency contact")
+                : new RuntimeException("Emergency contact not found");
     }
 }
 
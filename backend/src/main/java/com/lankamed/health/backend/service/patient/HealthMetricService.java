@@ -1,16 +1,16 @@
 package com.lankamed.health.backend.service.patient;
 
 import com.lankamed.health.backend.dto.patient.HealthMetricDto;
+import com.lankamed.health.backend.dto.patient.LatestVitalsDto;
 import com.lankamed.health.backend.model.patient.HealthMetric;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -21,28 +21,44 @@ public class HealthMetricService {
     private HealthMetricRepository healthMetricRepository;
     @Autowired
     private PatientRepository patientRepository;
+    @Autowired
+    private RequestIdentity requestIdentity;
+    @Autowired
+    private LatestVitalsCache latestVitals;
 
     public List<HealthMetricDto> getMetricsForCurrentPatient() {
-        String email = getCurrentUserEmail();
-        return healthMetricRepository.findByPatientUserEmail(email)
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return List.of();
+        }
+        return healthMetricRepository.findByPatientPatientId(patientId)
             .stream()
             .map(this::toDto)
             .collect(Collectors.toList());
     }
 
     public Optional<HealthMetricDto> getLatestMetric() {
-        String email = getCurrentUserEmail();
-        return healthMetricRepository.findByPatientUserEmail(email)
-            .stream()
-            .max(Comparator.comparing(HealthMetric::getTimestamp))
-            .map(this::toDto);
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(latestVitals.get(patientId).getMetric());
+    }
+
+    /** Latest health metric, blood pressure and weight reading in one call; each is null until one is logged. */
+    public LatestVitalsDto getLatestVitals() {
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return new LatestVitalsDto();
+        }
+        return latestVitals.get(patientId);
     }
 
     @Transactional
     public HealthMetricDto addMetric(HealthMetricDto dto) {
-        String email = getCurrentUserEmail();
-        Patient patient = patientRepository.findByUserEmail(email)
-            .orElseThrow(() -> new RuntimeException("Patient not found"));
+        // A reference is enough to set the foreign key; the patient row itself is not read
+        Long patientId = requestIdentity.requirePatientId();
+        Patient patient = patientRepository.getReferenceById(patientId);
         HealthMetric metric = HealthMetric.builder()
             .patient(patient)
             .systolic(dto.getSystolic())
@@ -51,7 +67,9 @@ public class HealthMetricService {
             .spo2(dto.getSpo2())
             .timestamp(dto.getTimestamp())
             .build();
-        return toDto(healthMetricRepository.save(metric));
+        HealthMetricDto saved = toDto(healthMetricRepository.saveAndFlush(metric));
+        latestVitals.recordMetric(patientId, saved);
+        return saved;
     }
 
     private HealthMetricDto toDto(HealthMetric m) {
@@ -63,8 +81,4 @@ public class HealthMetricService {
             .timestamp(m.getTimestamp())
             .build();
     }
-
-    private String getCurrentUserEmail() {
-        return SecurityContextHolder.getContext().getAuthentication().getName();
-    }
 }
@@ -0,0 +1,138 @@
+package com.lankamed.health.backend.service.patient;
+
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
+import com.lankamed.health.backend.dto.patient.HealthMetricDto;
+import com.lankamed.health.backend.dto.patient.LatestVitalsDto;
+import com.lankamed.health.backend.dto.patient.WeightRecordDto;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
+import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Each patient's most recent health metric, blood pressure and weight reading for the dashboard tile.
+ * A miss costs three top-1 queries on the (patient, timestamp) indexes; after that, new readings are folded into
+ * the cached snapshot when their transaction commits, so the tile never has to scan a patient's history.
+ * The time to live only bounds how long another instance's writes can go unseen.
+ */
+@Component
+public class LatestVitalsCache {
+
+    private final HealthMetricRepository healthMetricRepository;
+    private final BloodPressureRecordRepository bpRepository;
+    private final WeightRecordRepository weightRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    // Bumped when a write is recorded and again when it commits; a load that overlapped either is returned but not cached
+    private final AtomicLong writes = new AtomicLong();
+
+    public LatestVitalsCache(HealthMetricRepository healthMetricRepository,
+                             BloodPressureRecordRepository bpRepository,
+                             WeightRecordRepository weightRepository,
+                             @Value("${vitals.latest.max-entries:10000}") int maxEntries,
+                             @Value("${vitals.latest.ttl-seconds:300}") long ttlSeconds) {
+        this.healthMetricRepository = healthMetricRepository;
+        this.bpRepository = bpRepository;
+        this.weightRepository = weightRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > LatestVitalsCache.this.maxEntries;
+            }
+        };
+    }
+
+    public LatestVitalsDto get(Long patientId) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(patientId);
+            if (entry != null && now - entry.loadedAt() < ttlNanos) {
+                return entry.vitals();
+            }
+        }
+
+        long seen = writes.get();
+        LatestVitalsDto vitals = new LatestVitalsDto(
+                healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(patientId)
+                        .map(m -> new HealthMetricDto(m.getSystolic(), m.getDiastolic(), m.getHeartRate(), m.getSpo2(), m.getTimestamp()))
+                        .orElse(null),
+                bpRepository.findFirstByPatientPatientIdOrderByTimestampDesc(patientId)
+                        .map(r -> new BloodPressureRecordDto(r.getSystolic(), r.getDiastolic(), r.getTimestamp()))
+                        .orElse(null),
+                weightRepository.findFirstByPatientPatientIdOrderByTimestampDesc(patientId)
+                        .map(r -> new WeightRecordDto(r.getWeightKg(), r.getTimestamp()))
+                        .orElse(null));
+        synchronized (entries) {
+            if (writes.get() == seen) {
+                entries.put(patientId, new Entry(vitals, now));
+            }
+        }
+        return vitals;
+    }
+
+    public void recordMetric(Long patientId, HealthMetricDto metric) {
+        record(patientId, vitals -> vitals.getMetric() == null || newer(metric.getTimestamp(), vitals.getMetric().getTimestamp())
+                ? new LatestVitalsDto(metric, vitals.getBloodPressure(), vitals.getWeight())
+                : vitals);
+    }
+
+    public void recordBloodPressure(Long patientId, BloodPressureRecordDto reading) {
+        record(patientId, vitals -> vitals.getBloodPressure() == null || newer(reading.getTimestamp(), vitals.getBloodPressure().getTimestamp())
+                ? new LatestVitalsDto(vitals.getMetric(), reading, vitals.getWeight())
+                : vitals);
+    }
+
+    public void recordWeight(Long patientId, WeightRecordDto reading) {
+        record(patientId, vitals -> vitals.getWeight() == null || newer(reading.getTimestamp(), vitals.getWeight().getTimestamp())
+                ? new LatestVitalsDto(vitals.getMetric(), vitals.getBloodPressure(), reading)
+                : vitals);
+    }
+
+    /** Applies the change once the current transaction commits, or straight away outside one. */
+    private void record(Long patientId, UnaryOperator<LatestVitalsDto> change) {
+        writes.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // A load that began after the first bump may have read pre-commit rows, and this change skips
+                    // a patient it has not cached yet; bumping again keeps that load from caching its stale snapshot
+                    writes.incrementAndGet();
+                    apply(patientId, change);
+                }
+            });
+        } else {
+            apply(patientId, change);
+        }
+    }
+
+    private void apply(Long patientId, UnaryOperator<LatestVitalsDto> change) {
+        synchronized (entries) {
+            // Only a cached snapshot is updated; a patient not in the cache is loaded on the next read
+            Entry entry = entries.get(patientId);
+            if (entry != null) {
+                entries.put(patientId, new Entry(change.apply(entry.vitals()), entry.loadedAt()));
+            }
+        }
+    }
+
+    // A back-filled reading older than the current one leaves the snapshot alone
+    private static boolean newer(LocalDateTime candidate, LocalDateTime current) {
+        return current == null || (candidate != null && !candidate.isBefore(current));
+    }
+
+    private record Entry(LatestVitalsDto vitals, long loadedAt) {
+    }
+}
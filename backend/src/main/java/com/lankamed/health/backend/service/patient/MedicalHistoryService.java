@@ -4,8 +4,11 @@ import com.lankamed.health.backend.dto.patient.PrescriptionDto;
 import com.lankamed.health.backend.dto.patient.AllergyDto;
 import com.lankamed.health.backend.dto.patient.CreateAllergyDto;
 import com.lankamed.health.backend.dto.patient.CreateMedicalConditionDto;
+import com.lankamed.health.backend.dto.patient.EmergencyContactDto;
 import com.lankamed.health.backend.dto.patient.MedicalConditionDto;
+import com.lankamed.health.backend.dto.patient.MedicalSummaryDto;
 import com.lankamed.health.backend.repository.patient.AllergyRepository;
+import com.lankamed.health.backend.repository.patient.EmergencyContactRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
 import com.lankamed.health.backend.repository.patient.MedicalConditionRepository;
 import com.lankamed.health.backend.repository.patient.PrescriptionRepository;
@@ -13,12 +16,15 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.patient.Allergy;
 import com.lankamed.health.backend.model.patient.MedicalCondition;
 import com.lankamed.health.backend.model.patient.Prescription;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -30,20 +36,55 @@ public class MedicalHistoryService {
     private final MedicalConditionRepository medicalConditionRepository;
     private final AllergyRepository allergyRepository;
     private final PrescriptionRepository prescriptionRepository;
+    private final EmergencyContactRepository emergencyContactRepository;
+    private final RequestIdentity requestIdentity;
+    private final CriticalInfoCache criticalInfoCache;
 
     public MedicalHistoryService(PatientRepository patientRepository,
                                  MedicalConditionRepository medicalConditionRepository,
                                  AllergyRepository allergyRepository,
-                                 PrescriptionRepository prescriptionRepository) {
+                                 PrescriptionRepository prescriptionRepository,
+                                 EmergencyContactRepository emergencyContactRepository,
+                                 RequestIdentity requestIdentity,
+                                 CriticalInfoCache criticalInfoCache) {
         this.patientRepository = patientRepository;
         this.medicalConditionRepository = medicalConditionRepository;
         this.allergyRepository = allergyRepository;
         this.prescriptionRepository = prescriptionRepository;
+        this.emergencyContactRepository = emergencyContactRepository;
+        this.requestIdentity = requestIdentity;
+        this.criticalInfoCache = criticalInfoCache;
+    }
+
+    /**
+     * Conditions, allergies, prescriptions and emergency contacts for the portal in one read-only transaction,
+     * with the patient resolved once and prescriptions fetched together with their doctor.
+     * The version is a digest of exactly what is returned, so it serves as the ETag; every list is read from
+     * the same snapshot and ordered by id, so an unchanged history always hashes to the same value.
+     */
+    @Transactional(readOnly = true)
+    public MedicalSummaryDto getMedicalSummary() {
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return summary(List.of(), List.of(), List.of(), List.of());
+        }
+        return summary(
+                medicalConditionRepository.findByPatientPatientId(patientId).stream()
+                        .map(MedicalConditionDto::fromMedicalCondition).toList(),
+                allergyRepository.findByPatientPatientId(patientId).stream()
+                        .map(AllergyDto::fromAllergy).toList(),
+                prescriptionRepository.findWithDoctorByPatientId(patientId).stream()
+                        .map(PrescriptionDto::fromPrescription).toList(),
+                emergencyContactRepository.findByPatientPatientId(patientId).stream()
+                        .map(EmergencyContactDto::fromEmergencyContact).toList());
     }
 
     public List<MedicalConditionDto> getMedicalConditions() {
-        String email = getCurrentUserEmail();
-        return medicalConditionRepository.findByPatientUserEmail(email)
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return new ArrayList<>();
+        }
+        return medicalConditionRepository.findByPatientPatientId(patientId)
                 .stream()
                 .map(MedicalConditionDto::fromMedicalCondition)
                 .collect(Collectors.toList());
@@ -51,9 +92,7 @@ public class MedicalHistoryService {
 
     @Transactional
     public MedicalConditionDto createMedicalCondition(CreateMedicalConditionDto createDto) {
-        String email = getCurrentUserEmail();
-        Patient patient = patientRepository.findByUserEmail(email)
-                .orElseThrow(() -> new RuntimeException("Patient not found"));
+        Patient patient = patientRepository.getReferenceById(requestIdentity.requirePatientId());
 
         MedicalCondition condition = MedicalCondition.builder()
                 .patient(patient)
@@ -68,38 +107,37 @@ public class MedicalHistoryService {
 
     @Transactional
     public MedicalConditionDto updateMedicalCondition(Long conditionId, CreateMedicalConditionDto updateDto) {
-        MedicalCondition condition = medicalConditionRepository.findById(conditionId)
-                .orElseThrow(() -> new RuntimeException("Medical condition not found"));
-
-        String email = getCurrentUserEmail();
-        if (!condition.getPatient().getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized access to medical condition");
+        Long patientId = requestIdentity.patientId();
+        int updated = medicalConditionRepository.updateByIdAndPatientPatientId(conditionId, patientId,
+                updateDto.getConditionName(), updateDto.getDiagnosedDate(), updateDto.getNotes());
+        if (updated == 0) {
+            throw notChanged(medicalConditionRepository.existsById(conditionId), "Medical condition");
         }
+        criticalInfoCache.changed(patientId);
 
-        condition.setConditionName(updateDto.getConditionName());
-        condition.setDiagnosedDate(updateDto.getDiagnosedDate());
-        condition.setNotes(updateDto.getNotes());
-
-        MedicalCondition saved = medicalConditionRepository.save(condition);
-        return MedicalConditionDto.fromMedicalCondition(saved);
+        return MedicalConditionDto.builder()
+                .conditionId(conditionId)
+                .conditionName(updateDto.getConditionName())
+                .diagnosedDate(updateDto.getDiagnosedDate())
+                .notes(updateDto.getNotes())
+                .build();
     }
 
     @Transactional
     public void deleteMedicalCondition(Long conditionId) {
-        MedicalCondition condition = medicalConditionRepository.findById(conditionId)
-                .orElseThrow(() -> new RuntimeException("Medical condition not found"));
-
-        String email = getCurrentUserEmail();
-        if (!condition.getPatient().getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized access to medical condition");
+        Long patientId = requestIdentity.patientId();
+        if (medicalConditionRepository.deleteByIdAndPatientPatientId(conditionId, patientId) == 0) {
+            throw notChanged(medicalConditionRepository.existsById(conditionId), "Medical condition");
         }
-
-        medicalConditionRepository.delete(condition);
+        criticalInfoCache.changed(patientId);
     }
 
     public List<AllergyDto> getAllergies() {
-        String email = getCurrentUserEmail();
-        return allergyRepository.findByPatientUserEmail(email)
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return new ArrayList<>();
+        }
+        return allergyRepository.findByPatientPatientId(patientId)
                 .stream()
                 .map(AllergyDto::fromAllergy)
                 .collect(Collectors.toList());
@@ -107,9 +145,7 @@ public class MedicalHistoryService {
 
     @Transactional
     public AllergyDto createAllergy(CreateAllergyDto createDto) {
-        String email = getCurrentUserEmail();
-        Patient patient = patientRepository.findByUserEmail(email)
-                .orElseThrow(() -> new RuntimeException("Patient not found"));
+        Patient patient = patientRepository.getReferenceById(requestIdentity.requirePatientId());
 
         Allergy allergy = Allergy.builder()
                 .patient(patient)
@@ -124,44 +160,38 @@ public class MedicalHistoryService {
 
     @Transactional
     public AllergyDto updateAllergy(Long allergyId, CreateAllergyDto updateDto) {
-        Allergy allergy = allergyRepository.findById(allergyId)
-                .orElseThrow(() -> new RuntimeException("Allergy not found"));
-
-        String email = getCurrentUserEmail();
-        if (!allergy.getPatient().getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized access to allergy");
+        Long patientId = requestIdentity.patientId();
+        int updated = allergyRepository.updateByIdAndPatientPatientId(allergyId, patientId,
+                updateDto.getAllergyName(), updateDto.getSeverity(), updateDto.getNotes());
+        if (updated == 0) {
+            throw notChanged(allergyRepository.existsById(allergyId), "Allergy");
         }
+        criticalInfoCache.changed(patientId);
 
-        allergy.setAllergyName(updateDto.getAllergyName());
-        allergy.setSeverity(updateDto.getSeverity());
-        allergy.setNotes(updateDto.getNotes());
-
-        Allergy saved = allergyRepository.save(allergy);
-        return AllergyDto.fromAllergy(saved);
+        return AllergyDto.builder()
+                .allergyId(allergyId)
+                .allergyName(updateDto.getAllergyName())
+                .severity(updateDto.getSeverity())
+                .notes(updateDto.getNotes())
+                .build();
     }
 
     @Transactional
     public void deleteAllergy(Long allergyId) {
-        Allergy allergy = allergyRepository.findById(allergyId)
-                .orElseThrow(() -> new RuntimeException("Allergy not found"));
-
-        String email = getCurrentUserEmail();
-        if (!allergy.getPatient().getUser().getEmail().equals(email)) {
-            throw new RuntimeException("Unauthorized access to allergy");
+        Long patientId = requestIdentity.patientId();
+        if (allergyRepository.deleteByIdAndPatientPatientId(allergyId, patientId) == 0) {
+            throw notChanged(allergyRepository.existsById(allergyId), "Allergy");
         }
-
-        allergyRepository.delete(allergy);
+        criticalInfoCache.changed(patientId);
     }
 
     public List<PrescriptionDto> getPrescriptions() {
-        String email = getCurrentUserEmail();
-        
-        Patient patient = patientRepository.findByUserEmail(email).orElse(null);
-        if (patient == null) {
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
             return new ArrayList<>();
         }
-        
-        List<Prescription> prescriptionEntities = prescriptionRepository.findByPatientPatientId(patient.getPatientId());
+
+        List<Prescription> prescriptionEntities = prescriptionRepository.findByPatientPatientId(patientId);
         
         return prescriptionEntities.stream()
                 .map(prescription -> {
@@ -177,8 +207,39 @@ public class MedicalHistoryService {
 
 
     public String getCurrentUserEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
+        return requestIdentity.email();
+    }
+
+    private static MedicalSummaryDto summary(List<MedicalConditionDto> conditions, List<AllergyDto> allergies,
+                                             List<PrescriptionDto> prescriptions, List<EmergencyContactDto> contacts) {
+        return MedicalSummaryDto.builder()
+                .conditions(conditions)
+                .allergies(allergies)
+                .prescriptions(prescriptions)
+                .emergencyContacts(contacts)
+                .version(version(conditions, allergies, prescriptions, contacts))
+                .build();
+    }
+
+    // The DTOs' Lombok toString covers every field, so any change to the response changes the digest
+    private static String version(List<?>... parts) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (List<?> part : parts) {
+                sha.update(part.toString().getBytes(StandardCharsets.UTF_8));
+                sha.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(sha.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Only reached when the ownership-checked statement matched nothing; the existence check tells the two cases apart
+    private static RuntimeException notChanged(boolean exists, String what) {
+        return exists
+                ? new RuntimeException("Unauthorized access to " + what.toLowerCase())
+                : new RuntimeException(what + " not found");
     }
 }
 
@@ -0,0 +1,68 @@
+package com.lankamed.health.backend.service.patient;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Min/max bucket downsampling for time-ordered vitals.
+ * The points are split into equal-count buckets and each bucket keeps its lowest and highest reading of every series,
+ * so a spike survives however far the chart is zoomed out. Output stays in time order and never exceeds maxPoints.
+ */
+final class TrendDownsampler {
+
+    private TrendDownsampler() {
+    }
+
+    /** The fewest points a caller may ask for: one low and one high reading per series. */
+    static int minimumPoints(int seriesCount) {
+        return 2 * seriesCount;
+    }
+
+    /** Rejects a request before it reaches the database. */
+    static void checkRequest(LocalDateTime from, LocalDateTime to, Integer maxPoints, int seriesCount) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (maxPoints != null && maxPoints < minimumPoints(seriesCount)) {
+            throw new IllegalArgumentException("maxPoints must be at least " + minimumPoints(seriesCount));
+        }
+    }
+
+    @SafeVarargs
+    static <T> List<T> downsample(List<T> points, Integer maxPoints, ToDoubleFunction<T>... series) {
+        if (maxPoints == null || points.size() <= maxPoints) {
+            return points;
+        }
+        checkRequest(null, null, maxPoints, series.length);
+        int buckets = maxPoints / minimumPoints(series.length);
+        List<T> result = new ArrayList<>(maxPoints);
+        for (int b = 0; b < buckets; b++) {
+            int start = (int) ((long) b * points.size() / buckets);
+            int end = (int) ((long) (b + 1) * points.size() / buckets);
+            // Indexes rather than points, so two series picking the same reading keep it once and in order
+            TreeSet<Integer> keep = new TreeSet<>();
+            for (ToDoubleFunction<T> value : series) {
+                int min = start;
+                int max = start;
+                for (int i = start + 1; i < end; i++) {
+                    double v = value.applyAsDouble(points.get(i));
+                    if (v < value.applyAsDouble(points.get(min))) {
+                        min = i;
+                    }
+                    if (v > value.applyAsDouble(points.get(max))) {
+                        max = i;
+                    }
+                }
+                keep.add(min);
+                keep.add(max);
+            }
+            for (int i : keep) {
+                result.add(points.get(i));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,289 @@
+package com.lankamed.health.backend.service.patient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto.ItemResult;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto.Status;
+import com.lankamed.health.backend.dto.patient.HealthMetricDto;
+import com.lankamed.health.backend.dto.patient.VitalReadingDto;
+import com.lankamed.health.backend.dto.patient.VitalReadingDto.Type;
+import com.lankamed.health.backend.dto.patient.WeightRecordDto;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
+import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
+import com.lankamed.health.backend.repository.patient.VitalsBulkRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk upload of readings from home monitors and wearables, as a JSON array or NDJSON.
+ * Each reading is validated on its own and de-duplicated by (patient, timestamp, type) against both the upload and
+ * what is already stored; the accepted ones are written in JDBC batches in a single transaction, and a unique
+ * constraint on (patient, timestamp) catches readings another upload stored in the meantime. The body is parsed
+ * before the transaction starts, so a slow client never holds a database connection.
+ */
+@Service
+public class VitalsIngestionService {
+
+    // Device clocks drift; anything further ahead than this is treated as a bad timestamp
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(5);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final RequestIdentity requestIdentity;
+    private final VitalsBulkRepository bulkRepository;
+    private final HealthMetricRepository healthMetricRepository;
+    private final BloodPressureRecordRepository bpRepository;
+    private final WeightRecordRepository weightRepository;
+    private final LatestVitalsCache latestVitals;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxItems;
+
+    public VitalsIngestionService(RequestIdentity requestIdentity,
+                                  VitalsBulkRepository bulkRepository,
+                                  HealthMetricRepository healthMetricRepository,
+                                  BloodPressureRecordRepository bpRepository,
+                                  WeightRecordRepository weightRepository,
+                                  LatestVitalsCache latestVitals,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${vitals.bulk.max-items:10000}") int maxItems) {
+        this.requestIdentity = requestIdentity;
+        this.bulkRepository = bulkRepository;
+        this.healthMetricRepository = healthMetricRepository;
+        this.bpRepository = bpRepository;
+        this.weightRepository = weightRepository;
+        this.latestVitals = latestVitals;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxItems = maxItems;
+    }
+
+    /** A JSON array of readings. A malformed document is refused as a whole; a malformed element only rejects itself. */
+    public BulkVitalsResultDto ingestJsonArray(InputStream body) throws IOException {
+        JsonNode root = objectMapper.readTree(body);
+        if (root == null || !root.isArray()) {
+            throw new IllegalArgumentException("Expected a JSON array of readings");
+        }
+        checkSize(root.size());
+        List<Upload> uploads = new ArrayList<>(root.size());
+        for (JsonNode node : root) {
+            uploads.add(convert(node));
+        }
+        return store(uploads);
+    }
+
+    /** One reading per line; blank lines are skipped and a line that is not valid JSON only rejects itself. */
+    public BulkVitalsResultDto ingestNdjson(InputStream body) throws IOException {
+        List<Upload> uploads = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            checkSize(uploads.size() + 1);
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (IOException e) {
+                uploads.add(new Upload(null, "Not valid JSON"));
+                continue;
+            }
+            uploads.add(convert(node));
+        }
+        return store(uploads);
+    }
+
+    public BulkVitalsResultDto ingest(List<VitalReadingDto> readings) {
+        checkSize(readings.size());
+        return store(readings.stream().map(reading -> new Upload(reading, null)).toList());
+    }
+
+    private BulkVitalsResultDto store(List<Upload> uploads) {
+        Long patientId = requestIdentity.requirePatientId();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> write(patientId, uploads));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent upload stored some of the same readings after they were checked here and the unique
+                // (patient, timestamp) constraint rolled this batch back; the next pass reports those as duplicates
+                if (attempt >= MAX_ATTEMPTS) throw e;
+            }
+        }
+    }
+
+    private BulkVitalsResultDto write(Long patientId, List<Upload> uploads) {
+        ItemResult[] results = new ItemResult[uploads.size()];
+        Map<Type, List<Integer>> candidates = new EnumMap<>(Type.class);
+        Map<String, Integer> firstSeen = new HashMap<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            Upload upload = uploads.get(i);
+            String error = upload.error() != null ? upload.error() : validate(upload.reading());
+            if (error != null) {
+                results[i] = new ItemResult(i, Status.REJECTED, error);
+                continue;
+            }
+            VitalReadingDto reading = upload.reading();
+            // DATETIME(6) keeps microseconds; truncating first keeps duplicate checks exact
+            reading.setTimestamp(reading.getTimestamp().truncatedTo(ChronoUnit.MICROS));
+            Integer earlier = firstSeen.putIfAbsent(reading.getType() + "|" + reading.getTimestamp(), i);
+            if (earlier != null) {
+                results[i] = new ItemResult(i, Status.DUPLICATE, "Same type and timestamp as reading " + earlier);
+                continue;
+            }
+            candidates.computeIfAbsent(reading.getType(), type -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<Type, List<Integer>> entry : candidates.entrySet()) {
+            Type type = entry.getKey();
+            List<VitalReadingDto> readings = entry.getValue().stream().map(i -> uploads.get(i).reading()).toList();
+            Set<LocalDateTime> stored = storedTimestamps(type, patientId, readings);
+            List<VitalReadingDto> accepted = new ArrayList<>(readings.size());
+            for (int i : entry.getValue()) {
+                VitalReadingDto reading = uploads.get(i).reading();
+                if (stored.contains(reading.getTimestamp())) {
+                    results[i] = new ItemResult(i, Status.DUPLICATE, "Already recorded");
+                } else {
+                    results[i] = new ItemResult(i, Status.ACCEPTED, null);
+                    accepted.add(reading);
+                }
+            }
+            insert(type, patientId, accepted);
+        }
+
+        List<ItemResult> items = List.of(results);
+        return BulkVitalsResultDto.builder()
+                .received(items.size())
+                .accepted(count(items, Status.ACCEPTED))
+                .duplicates(count(items, Status.DUPLICATE))
+                .rejected(count(items, Status.REJECTED))
+                .items(items)
+                .build();
+    }
+
+    // One range query per type over the (patient, timestamp) index, instead of one lookup per reading
+    private Set<LocalDateTime> storedTimestamps(Type type, Long patientId, List<VitalReadingDto> readings) {
+        LocalDateTime from = readings.stream().map(VitalReadingDto::getTimestamp).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = readings.stream().map(VitalReadingDto::getTimestamp).max(Comparator.naturalOrder()).orElseThrow();
+        List<LocalDateTime> timestamps = switch (type) {
+            case HEALTH_METRIC -> healthMetricRepository.findTimestamps(patientId, from, to);
+            case BLOOD_PRESSURE -> bpRepository.findTimestamps(patientId, from, to);
+            case WEIGHT -> weightRepository.findTimestamps(patientId, from, to);
+        };
+        return new HashSet<>(timestamps);
+    }
+
+    private void insert(Type type, Long patientId, List<VitalReadingDto> accepted) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        VitalReadingDto newest = accepted.stream().max(Comparator.comparing(VitalReadingDto::getTimestamp)).orElseThrow();
+        switch (type) {
+            case HEALTH_METRIC -> {
+                bulkRepository.insertHealthMetrics(patientId, accepted);
+                latestVitals.recordMetric(patientId, new HealthMetricDto(newest.getSystolic(), newest.getDiastolic(),
+                        newest.getHeartRate(), newest.getSpo2(), newest.getTimestamp()));
+            }
+            case BLOOD_PRESSURE -> {
+                bulkRepository.insertBloodPressure(patientId, accepted);
+                latestVitals.recordBloodPressure(patientId,
+                        new BloodPressureRecordDto(newest.getSystolic(), newest.getDiastolic(), newest.getTimestamp()));
+            }
+            case WEIGHT -> {
+                bulkRepository.insertWeights(patientId, accepted);
+                latestVitals.recordWeight(patientId, new WeightRecordDto(newest.getWeightKg(), newest.getTimestamp()));
+            }
+        }
+    }
+
+    /** Null when the reading can be stored, otherwise why not. */
+    static String validate(VitalReadingDto r) {
+        if (r.getType() == null) {
+            return "type is required";
+        }
+        if (r.getTimestamp() == null) {
+            return "timestamp is required";
+        }
+        if (r.getTimestamp().isAfter(LocalDateTime.now().plus(CLOCK_SKEW))) {
+            return "timestamp is in the future";
+        }
+        return switch (r.getType()) {
+            case HEALTH_METRIC -> firstError(
+                    bloodPressure(r),
+                    range("heartRate", r.getHeartRate(), 20, 300),
+                    range("spo2", r.getSpo2(), 50, 100));
+            case BLOOD_PRESSURE -> bloodPressure(r);
+            case WEIGHT -> r.getWeightKg() == null ? "weightKg is required"
+                    : r.getWeightKg() > 0 && r.getWeightKg() <= 700 ? null : "weightKg must be between 0 and 700";
+        };
+    }
+
+    private static String bloodPressure(VitalReadingDto r) {
+        String error = firstError(range("systolic", r.getSystolic(), 40, 300), range("diastolic", r.getDiastolic(), 20, 200));
+        if (error == null && r.getDiastolic() >= r.getSystolic()) {
+            return "diastolic must be below systolic";
+        }
+        return error;
+    }
+
+    private static String range(String field, Integer value, int min, int max) {
+        if (value == null) {
+            return field + " is required";
+        }
+        return value >= min && value <= max ? null : field + " must be between " + min + " and " + max;
+    }
+
+    private static String firstError(String... errors) {
+        for (String error : errors) {
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private Upload convert(JsonNode node) {
+        try {
+            return new Upload(objectMapper.treeToValue(node, VitalReadingDto.class), null);
+        } catch (IOException | IllegalArgumentException e) {
+            return new Upload(null, "Unreadable reading");
+        }
+    }
+
+    private void checkSize(int size) {
+        if (size > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " readings per upload");
+        }
+    }
+
+    private static int count(List<ItemResult> items, Status status) {
+        return (int) items.stream().filter(item -> item.getStatus() == status).count();
+    }
+
+    private record Upload(VitalReadingDto reading, String error) {
+    }
+}
@@ -5,14 +5,13 @@ import com.lankamed.health.backend.model.patient.WeightRecord;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class WeightRecordService {
@@ -20,27 +19,38 @@ public class WeightRecordService {
     private WeightRecordRepository weightRepository;
     @Autowired
     private PatientRepository patientRepository;
+    @Autowired
+    private RequestIdentity requestIdentity;
+    @Autowired
+    private LatestVitalsCache latestVitals;
 
     public List<WeightRecordDto> getAllRecordsForCurrentPatient() {
-        String email = getCurrentUserEmail();
-        return weightRepository.findByPatientUserEmail(email)
-            .stream()
-            .sorted(Comparator.comparing(WeightRecord::getTimestamp))
-            .map(this::toDto)
-            .collect(Collectors.toList());
+        return getRecordsForCurrentPatient(null, null, null);
+    }
+
+    /** Readings in [from, to), oldest first, thinned to at most maxPoints keeping each bucket's lightest and heaviest. */
+    public List<WeightRecordDto> getRecordsForCurrentPatient(LocalDateTime from, LocalDateTime to, Integer maxPoints) {
+        TrendDownsampler.checkRequest(from, to, maxPoints, 1);
+        Long patientId = requestIdentity.patientId();
+        if (patientId == null) {
+            return List.of();
+        }
+        return TrendDownsampler.downsample(weightRepository.findTrend(patientId, from, to), maxPoints,
+            WeightRecordDto::getWeightKg);
     }
 
     @Transactional
     public WeightRecordDto addRecord(WeightRecordDto dto) {
-        String email = getCurrentUserEmail();
-        Patient patient = patientRepository.findByUserEmail(email)
-            .orElseThrow(() -> new RuntimeException("Patient not found"));
+        Long patientId = requestIdentity.requirePatientId();
+        Patient patient = patientRepository.getReferenceById(patientId);
         WeightRecord record = WeightRecord.builder()
             .patient(patient)
             .weightKg(dto.getWeightKg())
             .timestamp(dto.getTimestamp())
             .build();
-        return toDto(weightRepository.save(record));
+        WeightRecordDto saved = toDto(weightRepository.saveAndFlush(record));
+        latestVitals.recordWeight(patientId, saved);
+        return saved;
     }
 
     private WeightRecordDto toDto(WeightRecord record) {
@@ -49,8 +59,4 @@ public class WeightRecordService {
             .timestamp(record.getTimestamp())
             .build();
     }
-
-    private String getCurrentUserEmail() {
-        return SecurityContextHolder.getContext().getAuthentication().getName();
-    }
 }
@@ -0,0 +1,129 @@
+package com.lankamed.health.backend.strategy;
+
+import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.model.PaymentStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs payment strategies off the request thread, one bulkhead per payment type.
+ * Each type gets its own bounded pool and queue, a timeout and a circuit breaker, so a slow card
+ * gateway cannot consume the threads that insurance or cash payments need.
+ * Settings are read as {@code payments.gateway.<type>.<setting>}, falling back to {@code payments.gateway.<setting>}.
+ */
+@Component
+public class PaymentGatewayDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentGatewayDispatcher.class);
+
+    private final Environment environment;
+    private final ConcurrentMap<String, Gateway> gateways = new ConcurrentHashMap<>();
+
+    public PaymentGatewayDispatcher(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Submits the payment to the bulkhead for {@code paymentType}.
+     * The returned future fails with IllegalStateException when the circuit is open or the bulkhead is full,
+     * and with TimeoutException when the gateway does not answer in time. A result that arrives after the
+     * timeout is handed to {@code lateResult} so the caller can still record it.
+     */
+    public CompletableFuture<PaymentStatus> dispatch(String paymentType, PaymentStrategy strategy, PaymentDTO dto,
+                                                     Consumer<PaymentStatus> lateResult) {
+        Gateway gateway = gateways.computeIfAbsent(paymentType, this::createGateway);
+        if (!gateway.breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Payment gateway for " + paymentType + " is unavailable"));
+        }
+
+        CompletableFuture<PaymentStatus> call;
+        try {
+            call = strategy.processPaymentAsync(dto, gateway.executor);
+        } catch (RejectedExecutionException e) {
+            // A full bulkhead says nothing about the gateway's health
+            gateway.breaker.release();
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Payment gateway for " + paymentType + " is busy"));
+        }
+
+        // Only the first outcome (answer or timeout) counts towards the breaker
+        AtomicBoolean settled = new AtomicBoolean();
+        CompletableFuture<PaymentStatus> result = call.copy().orTimeout(gateway.timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((status, error) -> {
+            if (settled.compareAndSet(false, true)) {
+                if (error == null) {
+                    gateway.breaker.recordSuccess();
+                } else {
+                    gateway.breaker.recordFailure();
+                    logger.warn("PaymentGatewayDispatcher: {} payment failed: {}", paymentType, error.toString());
+                }
+            }
+        });
+        call.whenComplete((status, error) -> {
+            if (status != null && result.isCompletedExceptionally() && lateResult != null) {
+                logger.info("PaymentGatewayDispatcher: late {} result {} after timeout", paymentType, status);
+                lateResult.accept(status);
+            }
+        });
+        return result;
+    }
+
+    public Map<String, PaymentCircuitBreaker.State> getCircuitStates() {
+        Map<String, PaymentCircuitBreaker.State> states = new TreeMap<>();
+        gateways.forEach((type, gateway) -> states.put(type, gateway.breaker.getState()));
+        return states;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gateways.values().forEach(gateway -> gateway.executor.shutdownNow());
+    }
+
+    private Gateway createGateway(String paymentType) {
+        int threads = setting(paymentType, "threads", Integer.class, 4);
+        int queueCapacity = setting(paymentType, "queue-capacity", Integer.class, 16);
+        long timeoutMillis = setting(paymentType, "timeout-ms", Long.class, 5000L);
+        int failureThreshold = setting(paymentType, "failure-threshold", Integer.class, 5);
+        long openMillis = setting(paymentType, "open-ms", Long.class, 30_000L);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-" + paymentType.toLowerCase(Locale.ROOT) + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("PaymentGatewayDispatcher: {} bulkhead with {} threads, queue {}, timeout {} ms",
+                paymentType, threads, queueCapacity, timeoutMillis);
+        return new Gateway(executor, new PaymentCircuitBreaker(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openMillis)), timeoutMillis);
+    }
+
+    private <T> T setting(String paymentType, String name, Class<T> type, T defaultValue) {
+        String typeKey = "payments.gateway." + paymentType.toLowerCase(Locale.ROOT) + "." + name;
+        T value = environment.getProperty(typeKey, type);
+        return value != null ? value : environment.getProperty("payments.gateway." + name, type, defaultValue);
+    }
+
+    private record Gateway(ThreadPoolExecutor executor, PaymentCircuitBreaker breaker, long timeoutMillis) {
+    }
+}
@@ -1,8 +1,19 @@
 package com.lankamed.health.backend.strategy;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import com.lankamed.health.backend.dto.PaymentDTO;
 import com.lankamed.health.backend.model.PaymentStatus;
 
 public interface PaymentStrategy {
     PaymentStatus processPayment(PaymentDTO paymentDTO);
+
+    /**
+     * Runs the payment off the caller's thread. The default wraps the blocking call on {@code executor};
+     * gateways with a non-blocking client can override this and complete the future themselves.
+     */
+    default CompletableFuture<PaymentStatus> processPaymentAsync(PaymentDTO paymentDTO, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> processPayment(paymentDTO), executor);
+    }
 }
@@ -0,0 +1,71 @@
+package com.lankamed.health.backend.config;
+
+import com.lankamed.health.backend.model.IdGenerators;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class IdGeneratorAlignerTest {
+
+    private static final long LEGACY_ID = 100_000L;
+
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TestEntityManager em;
+
+    private IdGeneratorAligner aligner;
+
+    @BeforeEach
+    void setUp() {
+        aligner = new IdGeneratorAligner(entityManagerFactory, jdbcTemplate);
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email("pat@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        Patient patient = em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        em.flush();
+        // A row written while weight_record.id was still an IDENTITY column
+        jdbcTemplate.update("INSERT INTO weight_record (id, patient_patient_id, weight_kg, timestamp) VALUES (?, ?, 70.0, CURRENT_TIMESTAMP)",
+                LEGACY_ID, patient.getPatientId());
+        jdbcTemplate.update("DELETE FROM " + IdGenerators.TABLE + " WHERE sequence_name = 'weight_record'");
+    }
+
+    @Test
+    @DisplayName("Missing segment - created a full block past the highest stored id")
+    void missingSegment_created() {
+        aligner.run();
+
+        assertEquals(LEGACY_ID + IdGenerators.ALLOCATION_SIZE, segment());
+    }
+
+    @Test
+    @DisplayName("Segment behind the data - raised; a segment already ahead is left alone")
+    void segmentBehind_raisedAndAheadKept() {
+        jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (sequence_name, next_val) VALUES ('weight_record', 51)");
+
+        aligner.run();
+        assertEquals(LEGACY_ID + IdGenerators.ALLOCATION_SIZE, segment());
+
+        jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET next_val = 200000 WHERE sequence_name = 'weight_record'");
+        aligner.run();
+        assertEquals(200_000L, segment());
+    }
+
+    private long segment() {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM " + IdGenerators.TABLE + " WHERE sequence_name = 'weight_record'", Long.class);
+    }
+}
@@ -1,9 +1,14 @@
 package com.lankamed.health.backend.controller;
 
 import com.lankamed.health.backend.dto.AppointmentDto;
+import com.lankamed.health.backend.dto.AppointmentPageDto;
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
+import com.lankamed.health.backend.dto.PaymentAggregateDto;
+import com.lankamed.health.backend.dto.PaymentReportDto;
 import com.lankamed.health.backend.dto.UpdateAppointmentStatusDto;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.service.AppointmentService;
+import com.lankamed.health.backend.service.PaymentReportingService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -39,16 +44,43 @@ class AdminControllerTest {
 	@MockBean
 	private AppointmentService appointmentService;
 
+	@MockBean
+	private PaymentReportingService paymentReportingService;
+
 	@Test
-	@DisplayName("GET /api/admin/appointments - returns list for admin view")
+	@DisplayName("GET /api/admin/appointments - returns the first keyset page for admin view")
 	void getAllAppointments_success() throws Exception {
-		AppointmentDto a1 = AppointmentDto.builder().appointmentId(11L).status(Appointment.Status.PENDING).build();
-		Mockito.when(appointmentService.getAllAppointments()).thenReturn(List.of(a1));
+		AppointmentSummaryDto a1 = AppointmentSummaryDto.builder().appointmentId(11L).status(Appointment.Status.PENDING).build();
+		Mockito.when(appointmentService.getAppointmentsPage(null, null, null, null, null, null, null))
+				.thenReturn(AppointmentPageDto.builder().appointments(List.of(a1)).build());
 
 		mockMvc.perform(get("/api/admin/appointments"))
 				.andExpect(status().isOk())
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
-				.andExpect(jsonPath("$[0].appointmentId", is(11)));
+				.andExpect(jsonPath("$.appointments[0].appointmentId", is(11)));
+	}
+
+	@Test
+	@DisplayName("GET /api/admin/appointments/page - returns one keyset page with the next cursor")
+	void getAppointmentsPage_success() throws Exception {
+		AppointmentSummaryDto row = AppointmentSummaryDto.builder().appointmentId(12L).status(Appointment.Status.PENDING).build();
+		Mockito.when(appointmentService.getAppointmentsPage(eq(Appointment.Status.PENDING), eq(5L), any(), any(), any(), any(), eq(1)))
+				.thenReturn(AppointmentPageDto.builder().appointments(List.of(row)).nextCursor("abc").build());
+
+		mockMvc.perform(get("/api/admin/appointments/page").param("status", "PENDING").param("doctorId", "5").param("size", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.appointments[0].appointmentId", is(12)))
+				.andExpect(jsonPath("$.nextCursor", is("abc")));
+	}
+
+	@Test
+	@DisplayName("GET /api/admin/appointments/page - invalid cursor returns 400")
+	void getAppointmentsPage_invalidCursor() throws Exception {
+		Mockito.when(appointmentService.getAppointmentsPage(any(), any(), any(), any(), any(), eq("bad"), any()))
+				.thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+		mockMvc.perform(get("/api/admin/appointments/page").param("cursor", "bad"))
+				.andExpect(status().isBadRequest());
 	}
 
 	@Test
@@ -65,6 +97,29 @@ class AdminControllerTest {
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.status", is("APPROVED")));
 	}
-}
 
+	@Test
+	@DisplayName("GET /api/admin/payments/report - returns aggregated payment totals")
+	void getPaymentReport_success() throws Exception {
+		PaymentReportDto report = PaymentReportDto.builder().totalPayments(3).patients(2)
+				.byStatus(List.of(PaymentAggregateDto.builder().key("Pending").count(3).totalAmount(4500.0).build()))
+				.build();
+		Mockito.when(paymentReportingService.getReport()).thenReturn(report);
+
+		mockMvc.perform(get("/api/admin/payments/report"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalPayments", is(3)))
+				.andExpect(jsonPath("$.byStatus[0].key", is("Pending")))
+				.andExpect(jsonPath("$.byStatus[0].totalAmount", is(4500.0)));
+	}
+
+	@Test
+	@DisplayName("GET /api/admin/payments/daily - invalid range returns 400")
+	void getDailyPaymentTotals_invalidRange() throws Exception {
+		Mockito.when(paymentReportingService.getDailyTotals(any(), any()))
+				.thenThrow(new IllegalArgumentException("'from' must not be after 'to'"));
 
+		mockMvc.perform(get("/api/admin/payments/daily").param("from", "2030-02-01").param("to", "2030-01-01"))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -5,6 +5,7 @@ import com.lankamed.health.backend.dto.AppointmentDto;
 import com.lankamed.health.backend.dto.CreateAppointmentDto;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.service.AppointmentService;
+import com.lankamed.health.backend.service.IdempotencyCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,15 +14,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +36,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
                 com.lankamed.health.backend.security.JwtAuthenticationFilter.class
         }))
 @AutoConfigureMockMvc(addFilters = false)
+@Import(IdempotencyCache.class)
 class AppointmentControllerTest {
 
 	@Autowired
@@ -72,6 +77,64 @@ class AppointmentControllerTest {
 				.andExpect(jsonPath("$.priority", is(true)));
 	}
 
+	@Test
+	@DisplayName("POST /api/patients/me/appointments - returns 409 when the doctor's day is fully booked")
+	void createAppointment_capacityReached_conflict() throws Exception {
+		CreateAppointmentDto dto = new CreateAppointmentDto();
+		dto.setDoctorId(3L);
+		dto.setHospitalId(1L);
+		dto.setServiceCategoryId(2L);
+		dto.setAppointmentDateTime(LocalDateTime.now().plusDays(1));
+
+		Mockito.when(appointmentService.createAppointment(any(CreateAppointmentDto.class)))
+				.thenThrow(new IllegalStateException("No slots available for doctor 3"));
+
+		mockMvc.perform(post("/api/patients/me/appointments")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(dto)))
+				.andExpect(status().isConflict())
+				.andExpect(content().string(containsString("No slots available")));
+	}
+
+	@Test
+	@DisplayName("POST /api/patients/me/appointments - a retry with the same Idempotency-Key books only once")
+	void createAppointment_idempotencyKey_booksOnce() throws Exception {
+		CreateAppointmentDto dto = new CreateAppointmentDto();
+		dto.setDoctorId(3L);
+		dto.setHospitalId(1L);
+		dto.setServiceCategoryId(2L);
+		dto.setAppointmentDateTime(LocalDateTime.of(2030, 1, 15, 10, 0));
+
+		AppointmentDto response = AppointmentDto.builder()
+				.appointmentId(101L)
+				.status(Appointment.Status.PENDING)
+				.build();
+
+		Mockito.when(appointmentService.currentPatientEmail()).thenReturn("patient@example.com");
+		Mockito.when(appointmentService.findByIdempotencyKey("book-1")).thenReturn(Optional.empty());
+		Mockito.when(appointmentService.createAppointment(any(CreateAppointmentDto.class), eq("book-1")))
+				.thenReturn(response);
+
+		for (int attempt = 0; attempt < 2; attempt++) {
+			mockMvc.perform(post("/api/patients/me/appointments")
+					.header("Idempotency-Key", "book-1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(dto)))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.appointmentId", is(101)));
+		}
+
+		// Same key, different booking
+		dto.setDoctorId(4L);
+		mockMvc.perform(post("/api/patients/me/appointments")
+				.header("Idempotency-Key", "book-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(dto)))
+				.andExpect(status().isBadRequest());
+
+		Mockito.verify(appointmentService, Mockito.times(1)).createAppointment(any(CreateAppointmentDto.class), eq("book-1"));
+	}
+
 	@Test
 	@DisplayName("POST /api/patients/me/appointments - returns 400 when required fields are missing")
 	void createAppointment_validationError_missingFields() throws Exception {
@@ -0,0 +1,59 @@
+package com.lankamed.health.backend.controller;
+
+import com.lankamed.health.backend.dto.patient.AllergyDto;
+import com.lankamed.health.backend.dto.patient.CriticalInfoDto;
+import com.lankamed.health.backend.model.patient.Allergy;
+import com.lankamed.health.backend.service.patient.CriticalInfoCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = EmergencyController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+                com.lankamed.health.backend.config.SecurityConfig.class,
+                com.lankamed.health.backend.security.JwtAuthenticationFilter.class
+        }))
+@AutoConfigureMockMvc(addFilters = false)
+class EmergencyControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CriticalInfoCache criticalInfoCache;
+
+    @Test
+    @DisplayName("GET /api/emergency/patients/{id}/critical-info - returns the snapshot, never stored by caches")
+    void getCriticalInfo_returnsSnapshot() throws Exception {
+        Mockito.when(criticalInfoCache.get(7L)).thenReturn(CriticalInfoDto.builder()
+                .patientId(7L).fullName("Pat Ient")
+                .allergies(List.of(AllergyDto.builder().allergyName("Penicillin").severity(Allergy.Severity.SEVERE).build()))
+                .conditions(List.of()).prescriptions(List.of()).emergencyContacts(List.of())
+                .build());
+
+        mockMvc.perform(get("/api/emergency/patients/7/critical-info"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.fullName").value("Pat Ient"))
+                .andExpect(jsonPath("$.allergies[0].severity").value("SEVERE"));
+    }
+
+    @Test
+    @DisplayName("GET /api/emergency/patients/{id}/critical-info - unknown patient returns 404")
+    void getCriticalInfo_unknownPatient() throws Exception {
+        mockMvc.perform(get("/api/emergency/patients/99/critical-info"))
+                .andExpect(status().isNotFound());
+    }
+}
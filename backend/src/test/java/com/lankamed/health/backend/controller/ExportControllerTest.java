@@ -0,0 +1,98 @@
+package com.lankamed.health.backend.controller;
+
+import com.lankamed.health.backend.service.ExportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Runs through the application's security chain, so the @PreAuthorize role checks are enforced
+@WebMvcTest(ExportController.class)
+@Import(com.lankamed.health.backend.config.SecurityConfig.class)
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @MockBean
+    private com.lankamed.health.backend.security.JwtUtil jwtUtil;
+
+    @MockBean
+    private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
+
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/exports/payments - streams NDJSON for the requested range")
+    void exportPayments_streamsNdjson() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 2, 1, 0, 0);
+        Mockito.when(exportService.exportPayments(eq(from), eq(to), any())).thenAnswer(inv -> {
+            OutputStream out = inv.getArgument(2);
+            out.write("{\"paymentId\":1}\n{\"paymentId\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/exports/payments")
+                        .param("from", "2030-01-01T00:00:00").param("to", "2030-02-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("application/x-ndjson")))
+                .andExpect(header().string("Content-Disposition", containsString("payments.ndjson")))
+                .andExpect(content().string("{\"paymentId\":1}\n{\"paymentId\":2}\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/exports/appointments - inverted range returns 400 before streaming")
+    void exportAppointments_invalidRange() throws Exception {
+        mockMvc.perform(get("/api/exports/appointments")
+                        .param("from", "2030-02-01T00:00:00").param("to", "2030-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @WithMockUser(roles = "PATIENT")
+    @DisplayName("GET /api/exports/payments - non-admin caller is refused")
+    void exportPayments_nonAdminForbidden() throws Exception {
+        mockMvc.perform(get("/api/exports/payments"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/exports/appointments"))
+                .andExpect(status().isForbidden());
+        Mockito.verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @DisplayName("GET /api/exports/appointments - anonymous caller is refused")
+    void exportAppointments_anonymousRefused() throws Exception {
+        mockMvc.perform(get("/api/exports/appointments"))
+                .andExpect(status().is4xxClientError());
+        Mockito.verifyNoInteractions(exportService);
+    }
+}
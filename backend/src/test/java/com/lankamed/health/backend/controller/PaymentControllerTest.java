@@ -2,6 +2,8 @@ package com.lankamed.health.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.IdempotencyCache;
 import com.lankamed.health.backend.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,16 +14,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +39,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
                 com.lankamed.health.backend.security.JwtAuthenticationFilter.class
         }))
 @AutoConfigureMockMvc(addFilters = false)
+@Import(IdempotencyCache.class)
 class PaymentControllerTest {
 
     @Autowired
@@ -43,6 +51,9 @@ class PaymentControllerTest {
     @MockBean
     private PaymentService paymentService;
 
+    @MockBean
+    private RequestIdentity requestIdentity;
+
     private PaymentDTO validPaymentDTO;
     private PaymentDTO responsePaymentDTO;
     private List<PaymentDTO> pendingPayments;
@@ -184,12 +195,15 @@ class PaymentControllerTest {
     @DisplayName("POST /payments/make - processes payment successfully")
     void makePayment_success() throws Exception {
         // Given
-        when(paymentService.makePayment(any(PaymentDTO.class))).thenReturn(responsePaymentDTO);
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull())).thenReturn(CompletableFuture.completedFuture(responsePaymentDTO));
 
         // When & Then
-        mockMvc.perform(post("/payments/make")
+        MvcResult result = mockMvc.perform(post("/payments/make")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(validPaymentDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.patientId", is(1)))
@@ -199,7 +213,30 @@ class PaymentControllerTest {
                 .andExpect(jsonPath("$.transactionId", is("TXN-123456789")))
                 .andExpect(jsonPath("$.status", is("Paid")));
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
+    }
+
+    @Test
+    @DisplayName("POST /payments/make - a retry with the same Idempotency-Key replays the first payment")
+    void makePayment_idempotencyKey_replaysFirstResult() throws Exception {
+        // Given
+        when(paymentService.findByIdempotencyKey("pay-key-1", 1L)).thenReturn(Optional.empty());
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), eq("pay-key-1"))).thenReturn(CompletableFuture.completedFuture(responsePaymentDTO));
+
+        // When & Then
+        for (int attempt = 0; attempt < 2; attempt++) {
+            MvcResult result = mockMvc.perform(post("/payments/make")
+                    .header("Idempotency-Key", "pay-key-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(validPaymentDTO)))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.transactionId", is("TXN-123456789")));
+        }
+
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), eq("pay-key-1"));
     }
 
     @Test
@@ -221,12 +258,15 @@ class PaymentControllerTest {
         responseDTO.setTransactionId("TXN-INS-789");
         responseDTO.setStatus("Paid");
 
-        when(paymentService.makePayment(any(PaymentDTO.class))).thenReturn(responseDTO);
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull())).thenReturn(CompletableFuture.completedFuture(responseDTO));
 
         // When & Then
-        mockMvc.perform(post("/payments/make")
+        MvcResult result = mockMvc.perform(post("/payments/make")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(insurancePaymentDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.paymentMethod", is("Insurance")))
@@ -234,7 +274,7 @@ class PaymentControllerTest {
                 .andExpect(jsonPath("$.transactionId", is("TXN-INS-789")))
                 .andExpect(jsonPath("$.status", is("Paid")));
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -255,12 +295,15 @@ class PaymentControllerTest {
         responseDTO.setTransactionId("TXN-CASH-456");
         responseDTO.setStatus("Paid");
 
-        when(paymentService.makePayment(any(PaymentDTO.class))).thenReturn(responseDTO);
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull())).thenReturn(CompletableFuture.completedFuture(responseDTO));
 
         // When & Then
-        mockMvc.perform(post("/payments/make")
+        MvcResult result = mockMvc.perform(post("/payments/make")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(cashPaymentDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.paymentMethod", is("Cash")))
@@ -268,7 +311,7 @@ class PaymentControllerTest {
                 .andExpect(jsonPath("$.transactionId", is("TXN-CASH-456")))
                 .andExpect(jsonPath("$.status", is("Paid")));
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -281,7 +324,7 @@ class PaymentControllerTest {
         invalidPaymentDTO.setAmount(1500.00);
         invalidPaymentDTO.setPaymentMethod("InvalidMethod");
 
-        when(paymentService.makePayment(any(PaymentDTO.class)))
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull()))
                 .thenThrow(new IllegalArgumentException("Invalid payment method: InvalidMethod"));
 
         // When & Then
@@ -290,7 +333,7 @@ class PaymentControllerTest {
                 .content(objectMapper.writeValueAsString(invalidPaymentDTO)))
                 .andExpect(status().isBadRequest());
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -303,7 +346,7 @@ class PaymentControllerTest {
         paymentWithInvalidPatient.setAmount(1500.00);
         paymentWithInvalidPatient.setPaymentMethod("Card");
 
-        when(paymentService.makePayment(any(PaymentDTO.class)))
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull()))
                 .thenThrow(new IllegalArgumentException("Patient not found with ID: 999"));
 
         // When & Then
@@ -312,7 +355,7 @@ class PaymentControllerTest {
                 .content(objectMapper.writeValueAsString(paymentWithInvalidPatient)))
                 .andExpect(status().isBadRequest());
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -325,7 +368,7 @@ class PaymentControllerTest {
         paymentWithInvalidAppointment.setAmount(1500.00);
         paymentWithInvalidAppointment.setPaymentMethod("Card");
 
-        when(paymentService.makePayment(any(PaymentDTO.class)))
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull()))
                 .thenThrow(new IllegalArgumentException("Appointment not found with ID: 999"));
 
         // When & Then
@@ -334,14 +377,14 @@ class PaymentControllerTest {
                 .content(objectMapper.writeValueAsString(paymentWithInvalidAppointment)))
                 .andExpect(status().isBadRequest());
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
     @DisplayName("POST /payments/make - handles parse exception")
     void makePayment_parseException() throws Exception {
         // Given
-        when(paymentService.makePayment(any(PaymentDTO.class)))
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull()))
                 .thenThrow(new org.springframework.expression.ParseException(0, "Parse error"));
 
         // When & Then
@@ -350,7 +393,7 @@ class PaymentControllerTest {
                 .content(objectMapper.writeValueAsString(validPaymentDTO)))
                 .andExpect(status().isInternalServerError());
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -365,7 +408,7 @@ class PaymentControllerTest {
                 .content(malformedJson))
                 .andExpect(status().isBadRequest());
 
-        verify(paymentService, never()).makePayment(any(PaymentDTO.class));
+        verify(paymentService, never()).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -382,7 +425,7 @@ class PaymentControllerTest {
                 .content(objectMapper.writeValueAsString(incompletePaymentDTO)))
                 .andExpect(status().isOk()); // Controller doesn't validate, service will handle
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -436,18 +479,21 @@ class PaymentControllerTest {
         responseDTO.setTransactionId("TXN-ZERO-123");
         responseDTO.setStatus("Paid");
 
-        when(paymentService.makePayment(any(PaymentDTO.class))).thenReturn(responseDTO);
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull())).thenReturn(CompletableFuture.completedFuture(responseDTO));
 
         // When & Then
-        mockMvc.perform(post("/payments/make")
+        MvcResult result = mockMvc.perform(post("/payments/make")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(zeroAmountPayment)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.amount", is(0.0)))
                 .andExpect(jsonPath("$.status", is("Paid")));
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 
     @Test
@@ -468,17 +514,20 @@ class PaymentControllerTest {
         responseDTO.setTransactionId("TXN-LARGE-456");
         responseDTO.setStatus("Paid");
 
-        when(paymentService.makePayment(any(PaymentDTO.class))).thenReturn(responseDTO);
+        when(paymentService.makePaymentAsync(any(PaymentDTO.class), isNull())).thenReturn(CompletableFuture.completedFuture(responseDTO));
 
         // When & Then
-        mockMvc.perform(post("/payments/make")
+        MvcResult result = mockMvc.perform(post("/payments/make")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(largeAmountPayment)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.amount", is(999999.99)))
                 .andExpect(jsonPath("$.status", is("Paid")));
 
-        verify(paymentService, times(1)).makePayment(any(PaymentDTO.class));
+        verify(paymentService, times(1)).makePaymentAsync(any(PaymentDTO.class), isNull());
     }
 }
@@ -1,6 +1,8 @@
 package com.lankamed.health.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lankamed.health.backend.dto.AppointmentPageDto;
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.model.Hospital;
 import com.lankamed.health.backend.model.ServiceCategory;
@@ -10,6 +12,7 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.AppointmentRepository;
 import com.lankamed.health.backend.repository.UserRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.service.AppointmentService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -55,6 +58,9 @@ class UserDataControllerTest {
 	@MockBean
 	private PatientRepository patientRepository;
 
+	@MockBean
+	private AppointmentService appointmentService;
+
 	private Appointment buildAppointment(Long id) {
 		User user = User.builder().firstName("A").lastName("B").build();
 		Patient patient = Patient.builder().user(user).build();
@@ -76,12 +82,50 @@ class UserDataControllerTest {
 	@Test
 	@DisplayName("GET /api/user-data/appointments - returns flattened list for UI table")
 	void getAllAppointments_success() throws Exception {
-		Mockito.when(appointmentRepository.findAllWithDetails()).thenReturn(List.of(buildAppointment(1L)));
+		AppointmentSummaryDto row = AppointmentSummaryDto.builder().appointmentId(1L).patientName("A B").doctorName("D E")
+				.status(Appointment.Status.PENDING).build();
+		Mockito.when(appointmentService.getAppointmentsPage(null, null, null, null, null, null, null))
+				.thenReturn(AppointmentPageDto.builder().appointments(List.of(row)).nextCursor("next").build());
 		mockMvc.perform(get("/api/user-data/appointments"))
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.success", is(true)))
 				.andExpect(jsonPath("$.appointments", hasSize(1)))
-				.andExpect(jsonPath("$.appointments[0].appointmentId", is(1)));
+				.andExpect(jsonPath("$.appointments[0].appointmentId", is(1)))
+				.andExpect(jsonPath("$.appointments[0].patientName", is("A B")))
+				.andExpect(jsonPath("$.nextCursor", is("next")));
+	}
+
+	@Test
+	@DisplayName("GET /api/user-data/appointments - filters and cursor are passed through to the keyset page")
+	void getAllAppointments_filtersPassedThrough() throws Exception {
+		Mockito.when(appointmentService.getAppointmentsPage(Appointment.Status.APPROVED, 3L, 4L,
+						java.time.LocalDate.of(2030, 1, 1), java.time.LocalDate.of(2030, 1, 31), "abc", 20))
+				.thenReturn(AppointmentPageDto.builder().appointments(List.of()).build());
+		mockMvc.perform(get("/api/user-data/appointments")
+						.param("status", "approved").param("doctorId", "3").param("hospitalId", "4")
+						.param("from", "2030-01-01").param("to", "2030-01-31").param("cursor", "abc").param("size", "20"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.success", is(true)))
+				.andExpect(jsonPath("$.appointments", hasSize(0)))
+				.andExpect(jsonPath("$.nextCursor").value(nullValue()));
+	}
+
+	@Test
+	@DisplayName("GET /api/user-data/appointments - unknown status returns 400 (negative)")
+	void getAllAppointments_invalidStatus() throws Exception {
+		mockMvc.perform(get("/api/user-data/appointments").param("status", "bogus"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success", is(false)));
+	}
+
+	@Test
+	@DisplayName("GET /api/user-data/appointments - invalid cursor returns 400 (negative)")
+	void getAllAppointments_invalidCursor() throws Exception {
+		Mockito.when(appointmentService.getAppointmentsPage(null, null, null, null, null, "bad", null))
+				.thenThrow(new IllegalArgumentException("Invalid cursor"));
+		mockMvc.perform(get("/api/user-data/appointments").param("cursor", "bad"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error", is("Invalid cursor")));
 	}
 
 	@Test
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -40,6 +41,9 @@ class BloodPressureTrendControllerTest {
     @MockBean
     private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -68,7 +72,7 @@ class BloodPressureTrendControllerTest {
                             .build()
             );
 
-            when(bpService.getAllRecordsForCurrentPatient()).thenReturn(records);
+            when(bpService.getRecordsForCurrentPatient(null, null, null)).thenReturn(records);
 
             mockMvc.perform(get("/api/patients/me/blood-pressure-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -86,7 +90,7 @@ class BloodPressureTrendControllerTest {
         @Test
         @WithMockUser(username = "patient@example.com")
         void getAllRecords_EmptyList() throws Exception {
-            when(bpService.getAllRecordsForCurrentPatient()).thenReturn(Arrays.asList());
+            when(bpService.getRecordsForCurrentPatient(null, null, null)).thenReturn(Arrays.asList());
 
             mockMvc.perform(get("/api/patients/me/blood-pressure-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -107,7 +111,7 @@ class BloodPressureTrendControllerTest {
                             .build()
             );
 
-            when(bpService.getAllRecordsForCurrentPatient()).thenReturn(records);
+            when(bpService.getRecordsForCurrentPatient(null, null, null)).thenReturn(records);
 
             mockMvc.perform(get("/api/patients/me/blood-pressure-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -117,11 +121,53 @@ class BloodPressureTrendControllerTest {
                     .andExpect(jsonPath("$[0].systolic").value(118))
                     .andExpect(jsonPath("$[0].diastolic").value(78));
         }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getAllRecords_RangeAndMaxPointsPassedThrough() throws Exception {
+            LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+            LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+            when(bpService.getRecordsForCurrentPatient(from, to, 200)).thenReturn(Arrays.asList());
+
+            mockMvc.perform(get("/api/patients/me/blood-pressure-records")
+                            .param("from", "2024-01-01T00:00:00")
+                            .param("to", "2024-02-01T00:00:00")
+                            .param("maxPoints", "200"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getAllRecords_InvalidRequest_BadRequest() throws Exception {
+            when(bpService.getRecordsForCurrentPatient(any(), any(), any()))
+                    .thenThrow(new IllegalArgumentException("maxPoints must be at least 4"));
+
+            mockMvc.perform(get("/api/patients/me/blood-pressure-records").param("maxPoints", "3"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("maxPoints must be at least 4"));
+        }
     }
 
     @Nested
     @DisplayName("POST /api/patients/me/blood-pressure-records")
     class AddRecord {
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void addRecord_SameTimestampAgain_ReturnsConflict() throws Exception {
+            LocalDateTime t = LocalDateTime.of(2024, 6, 1, 7, 30);
+            BloodPressureRecordDto inputDto = BloodPressureRecordDto.builder().systolic(120).diastolic(80).timestamp(t).build();
+
+            when(bpService.addRecord(any(BloodPressureRecordDto.class)))
+                    .thenThrow(new DataIntegrityViolationException("uk_patient_timestamp"));
+
+            mockMvc.perform(post("/api/patients/me/blood-pressure-records")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(inputDto)))
+                    .andExpect(status().isConflict())
+                    .andExpect(content().string("A reading is already recorded at 2024-06-01T07:30"));
+        }
+
         @Test
         @WithMockUser(username = "patient@example.com")
         void addRecord_Success() throws Exception {
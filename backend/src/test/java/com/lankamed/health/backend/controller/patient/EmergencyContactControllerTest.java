@@ -41,6 +41,9 @@ class EmergencyContactControllerTest {
     @MockBean
     private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -1,7 +1,9 @@
 package com.lankamed.health.backend.controller.patient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
 import com.lankamed.health.backend.dto.patient.HealthMetricDto;
+import com.lankamed.health.backend.dto.patient.LatestVitalsDto;
 import com.lankamed.health.backend.service.patient.HealthMetricService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -10,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -41,6 +44,9 @@ class HealthMetricControllerTest {
     @MockBean
     private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -135,9 +141,48 @@ class HealthMetricControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/patients/me/health-metrics/snapshot")
+    class GetLatestVitals {
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getLatestVitals_Success() throws Exception {
+            LocalDateTime now = LocalDateTime.now();
+            LatestVitalsDto vitals = LatestVitalsDto.builder()
+                    .metric(HealthMetricDto.builder().systolic(125).diastolic(85).heartRate(75).spo2(96).timestamp(now).build())
+                    .bloodPressure(BloodPressureRecordDto.builder().systolic(128).diastolic(84).timestamp(now).build())
+                    .build();
+
+            when(healthMetricService.getLatestVitals()).thenReturn(vitals);
+
+            mockMvc.perform(get("/api/patients/me/health-metrics/snapshot")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.metric.heartRate").value(75))
+                    .andExpect(jsonPath("$.bloodPressure.systolic").value(128))
+                    .andExpect(jsonPath("$.weight").doesNotExist());
+        }
+    }
+
     @Nested
     @DisplayName("POST /api/patients/me/health-metrics")
     class AddMetric {
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void addMetric_SameTimestampAgain_ReturnsConflict() throws Exception {
+            LocalDateTime t = LocalDateTime.of(2024, 6, 1, 7, 30);
+            HealthMetricDto inputDto = HealthMetricDto.builder().systolic(120).diastolic(80).heartRate(70).spo2(98).timestamp(t).build();
+
+            when(healthMetricService.addMetric(any(HealthMetricDto.class)))
+                    .thenThrow(new DataIntegrityViolationException("uk_patient_timestamp"));
+
+            mockMvc.perform(post("/api/patients/me/health-metrics")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(inputDto)))
+                    .andExpect(status().isConflict())
+                    .andExpect(content().string("A reading is already recorded at 2024-06-01T07:30"));
+        }
+
         @Test
         @WithMockUser(username = "patient@example.com")
         void addMetric_Success() throws Exception {
@@ -42,6 +42,9 @@ class MedicalHistoryControllerTest {
     @MockBean
     private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -416,4 +419,53 @@ class MedicalHistoryControllerTest {
                     .andExpect(jsonPath("$.length()").value(0));
         }
     }
+
+    @Nested
+    @DisplayName("GET /api/patients/me/medical-summary")
+    class GetMedicalSummary {
+        private final MedicalSummaryDto summary = MedicalSummaryDto.builder()
+                .conditions(List.of(MedicalConditionDto.builder().conditionId(1L).conditionName("Diabetes").build()))
+                .allergies(List.of(AllergyDto.builder().allergyId(2L).allergyName("Penicillin").severity(Allergy.Severity.SEVERE).build()))
+                .prescriptions(List.of())
+                .emergencyContacts(List.of(EmergencyContactDto.builder().emergencyContactId(3L).fullName("Jane Doe").build()))
+                .version("5d41402abc4b2a76")
+                .build();
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getMedicalSummary_Success_WithETag() throws Exception {
+            when(medicalHistoryService.getMedicalSummary()).thenReturn(summary);
+
+            mockMvc.perform(get("/api/patients/me/medical-summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"5d41402abc4b2a76\""))
+                    .andExpect(header().string("Cache-Control", "no-cache, private"))
+                    .andExpect(jsonPath("$.conditions[0].conditionName").value("Diabetes"))
+                    .andExpect(jsonPath("$.allergies[0].severity").value("SEVERE"))
+                    .andExpect(jsonPath("$.prescriptions.length()").value(0))
+                    .andExpect(jsonPath("$.emergencyContacts[0].fullName").value("Jane Doe"))
+                    .andExpect(jsonPath("$.version").doesNotExist());
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getMedicalSummary_Unchanged_NotModifiedWithoutBody() throws Exception {
+            when(medicalHistoryService.getMedicalSummary()).thenReturn(summary);
+
+            mockMvc.perform(get("/api/patients/me/medical-summary").header("If-None-Match", "\"5d41402abc4b2a76\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", "\"5d41402abc4b2a76\""))
+                    .andExpect(content().string(""));
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getMedicalSummary_Changed_FullBody() throws Exception {
+            when(medicalHistoryService.getMedicalSummary()).thenReturn(summary);
+
+            mockMvc.perform(get("/api/patients/me/medical-summary").header("If-None-Match", "\"0000000000000000\""))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.conditions.length()").value(1));
+        }
+    }
 }
@@ -45,6 +45,9 @@ class PatientControllerTest {
         @MockBean
         private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
 
+        @MockBean
+        private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -0,0 +1,106 @@
+package com.lankamed.health.backend.controller.patient;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto.ItemResult;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto.Status;
+import com.lankamed.health.backend.service.patient.VitalsIngestionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(VitalsIngestionController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class VitalsIngestionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private VitalsIngestionService ingestionService;
+
+    // Mock security-related beans that are picked up by the application context
+    @MockBean
+    private com.lankamed.health.backend.security.JwtUtil jwtUtil;
+
+    @MockBean
+    private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
+
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
+    private static final BulkVitalsResultDto RESULT = BulkVitalsResultDto.builder()
+            .received(2).accepted(1).duplicates(0).rejected(1)
+            .items(List.of(new ItemResult(0, Status.ACCEPTED, null), new ItemResult(1, Status.REJECTED, "weightKg is required")))
+            .build();
+
+    @Nested
+    @DisplayName("POST /api/patients/me/vitals/bulk")
+    class Ingest {
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void jsonArray_Success() throws Exception {
+            when(ingestionService.ingestJsonArray(any(InputStream.class))).thenReturn(RESULT);
+
+            mockMvc.perform(post("/api/patients/me/vitals/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[]"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.accepted").value(1))
+                    .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                    .andExpect(jsonPath("$.items[1].message").value("weightKg is required"));
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void ndjson_Success() throws Exception {
+            when(ingestionService.ingestNdjson(any(InputStream.class))).thenReturn(RESULT);
+
+            mockMvc.perform(post("/api/patients/me/vitals/bulk")
+                            .contentType(VitalsIngestionController.NDJSON)
+                            .content("{}\n{}\n"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.received").value(2));
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void malformedJson_BadRequest() throws Exception {
+            when(ingestionService.ingestJsonArray(any(InputStream.class))).thenThrow(new JsonParseException(null, "Unexpected character"));
+
+            mockMvc.perform(post("/api/patients/me/vitals/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[{"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("Malformed JSON"));
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void tooManyReadings_BadRequest() throws Exception {
+            when(ingestionService.ingestNdjson(any(InputStream.class)))
+                    .thenThrow(new IllegalArgumentException("At most 10000 readings per upload"));
+
+            mockMvc.perform(post("/api/patients/me/vitals/bulk")
+                            .contentType(VitalsIngestionController.NDJSON)
+                            .content("{}\n"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("At most 10000 readings per upload"));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -40,6 +41,9 @@ class WeightHistoryControllerTest {
     @MockBean
     private com.lankamed.health.backend.service.CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private com.lankamed.health.backend.security.UserStateCache userStateCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -65,7 +69,7 @@ class WeightHistoryControllerTest {
                             .build()
             );
 
-            when(weightService.getAllRecordsForCurrentPatient()).thenReturn(records);
+            when(weightService.getRecordsForCurrentPatient(null, null, null)).thenReturn(records);
 
             mockMvc.perform(get("/api/patients/me/weight-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -80,7 +84,7 @@ class WeightHistoryControllerTest {
         @Test
         @WithMockUser(username = "patient@example.com")
         void getAllRecords_EmptyList() throws Exception {
-            when(weightService.getAllRecordsForCurrentPatient()).thenReturn(Arrays.asList());
+            when(weightService.getRecordsForCurrentPatient(null, null, null)).thenReturn(Arrays.asList());
 
             mockMvc.perform(get("/api/patients/me/weight-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -100,7 +104,7 @@ class WeightHistoryControllerTest {
                             .build()
             );
 
-            when(weightService.getAllRecordsForCurrentPatient()).thenReturn(records);
+            when(weightService.getRecordsForCurrentPatient(null, null, null)).thenReturn(records);
 
             mockMvc.perform(get("/api/patients/me/weight-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -129,7 +133,7 @@ class WeightHistoryControllerTest {
                             .build()
             );
 
-            when(weightService.getAllRecordsForCurrentPatient()).thenReturn(records);
+            when(weightService.getRecordsForCurrentPatient(null, null, null)).thenReturn(records);
 
             mockMvc.perform(get("/api/patients/me/weight-records")
                             .contentType(MediaType.APPLICATION_JSON))
@@ -140,11 +144,53 @@ class WeightHistoryControllerTest {
                     .andExpect(jsonPath("$[1].weightKg").value(69.5))
                     .andExpect(jsonPath("$[2].weightKg").value(69.8));
         }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getAllRecords_RangeAndMaxPointsPassedThrough() throws Exception {
+            LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+            LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+            when(weightService.getRecordsForCurrentPatient(from, to, 200)).thenReturn(Arrays.asList());
+
+            mockMvc.perform(get("/api/patients/me/weight-records")
+                            .param("from", "2024-01-01T00:00:00")
+                            .param("to", "2024-02-01T00:00:00")
+                            .param("maxPoints", "200"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        }
+
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void getAllRecords_InvalidRequest_BadRequest() throws Exception {
+            when(weightService.getRecordsForCurrentPatient(any(), any(), any()))
+                    .thenThrow(new IllegalArgumentException("from must be before to"));
+
+            mockMvc.perform(get("/api/patients/me/weight-records").param("from", "2024-02-01T00:00:00").param("to", "2024-01-01T00:00:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("from must be before to"));
+        }
     }
 
     @Nested
     @DisplayName("POST /api/patients/me/weight-records")
     class AddRecord {
+        @Test
+        @WithMockUser(username = "patient@example.com")
+        void addRecord_SameTimestampAgain_ReturnsConflict() throws Exception {
+            LocalDateTime t = LocalDateTime.of(2024, 6, 1, 7, 30);
+            WeightRecordDto inputDto = WeightRecordDto.builder().weightKg(70.5).timestamp(t).build();
+
+            when(weightService.addRecord(any(WeightRecordDto.class)))
+                    .thenThrow(new DataIntegrityViolationException("uk_patient_timestamp"));
+
+            mockMvc.perform(post("/api/patients/me/weight-records")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(inputDto)))
+                    .andExpect(status().isConflict())
+                    .andExpect(content().string("A reading is already recorded at 2024-06-01T07:30"));
+        }
+
         @Test
         @WithMockUser(username = "patient@example.com")
         void addRecord_Success() throws Exception {
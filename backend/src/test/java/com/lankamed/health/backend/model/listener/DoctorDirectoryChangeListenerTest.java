@@ -0,0 +1,46 @@
+package com.lankamed.health.backend.model.listener;
+
+import com.lankamed.health.backend.model.Review;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.StaffDetails;
+import com.lankamed.health.backend.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.mockito.Mockito.*;
+
+class DoctorDirectoryChangeListenerTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final DoctorDirectoryChangeListener listener = new DoctorDirectoryChangeListener(eventPublisher);
+
+    @Test
+    void patientUser_ignored() {
+        User patient = User.builder().role(Role.PATIENT).build();
+        patient.rememberRole();
+
+        listener.onChange(patient);
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void doctorDemotedToPatient_publishesProfileChange() {
+        User user = User.builder().role(Role.DOCTOR).build();
+        user.rememberRole();
+        user.setRole(Role.PATIENT);
+
+        listener.onChange(user);
+
+        verify(eventPublisher).publishEvent(new DoctorDirectoryChangedEvent(true));
+    }
+
+    @Test
+    void staffAndReviewWrites_publishWithProfileFlag() {
+        listener.onChange(StaffDetails.builder().build());
+        listener.onChange(Review.builder().build());
+
+        verify(eventPublisher).publishEvent(new DoctorDirectoryChangedEvent(true));
+        verify(eventPublisher).publishEvent(new DoctorDirectoryChangedEvent(false));
+    }
+}
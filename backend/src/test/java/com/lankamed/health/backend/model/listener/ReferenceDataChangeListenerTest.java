@@ -0,0 +1,48 @@
+package com.lankamed.health.backend.model.listener;
+
+import com.lankamed.health.backend.model.Hospital;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.mockito.Mockito.*;
+
+class ReferenceDataChangeListenerTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ReferenceDataChangeListener listener = new ReferenceDataChangeListener(eventPublisher);
+
+    @Test
+    void newAndExistingPatients_ignored() {
+        listener.onChange(User.builder().role(Role.PATIENT).build());
+        User patient = User.builder().role(Role.PATIENT).build();
+        patient.rememberRole();
+        listener.onChange(patient);
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void patientPromotedToDoctor_publishes() {
+        User user = User.builder().role(Role.PATIENT).build();
+        user.rememberRole();
+        user.setRole(Role.DOCTOR);
+
+        listener.onChange(user);
+
+        verify(eventPublisher).publishEvent(new ReferenceDataChangedEvent());
+    }
+
+    @Test
+    void doctorDemotedToPatient_publishes() {
+        User user = User.builder().role(Role.DOCTOR).build();
+        user.rememberRole();
+        user.setRole(Role.PATIENT);
+
+        listener.onChange(user);
+        listener.onChange(Hospital.builder().build());
+
+        verify(eventPublisher, times(2)).publishEvent(new ReferenceDataChangedEvent());
+    }
+}
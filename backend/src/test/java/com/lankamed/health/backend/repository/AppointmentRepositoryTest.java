@@ -0,0 +1,127 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.AppointmentPageDto;
+import com.lankamed.health.backend.dto.AppointmentSummaryDto;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.AppointmentService;
+import com.lankamed.health.backend.service.DoctorSlotService;
+import com.lankamed.health.backend.service.ReferenceDataCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class AppointmentRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 3, 1, 9, 0);
+
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private TestEntityManager em;
+
+    private AppointmentService appointmentService;
+    private Patient patient;
+    private StaffDetails doctorA;
+    private StaffDetails doctorB;
+    private Hospital hospital;
+    private ServiceCategory category;
+
+    @BeforeEach
+    void setUp() {
+        appointmentService = new AppointmentService(appointmentRepository, mock(PatientRepository.class),
+                mock(HospitalRepository.class), mock(ServiceCategoryRepository.class),
+                mock(StaffDetailsRepository.class), mock(UserRepository.class), mock(PaymentRepository.class),
+                mock(DoctorSlotService.class), mock(ReferenceDataCache.class), mock(RequestIdentity.class));
+        hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        category = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        User patientUser = em.persist(User.builder().firstName("Pat").lastName("Ient").email("patient@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        patient = em.persist(Patient.builder().user(patientUser).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        doctorA = doctor("Jane", "Smith");
+        doctorB = doctor("Tom", "Brown");
+
+        // Three appointments share each timestamp so pages must break ties on the id
+        for (int day = 0; day < 4; day++) {
+            for (int i = 0; i < 3; i++) {
+                appointment(i % 2 == 0 ? doctorA : doctorB, BASE.plusDays(day),
+                        day == 3 ? Appointment.Status.CANCELLED : Appointment.Status.PENDING);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("getAppointmentsPage - walking the cursor visits every row once, newest first")
+    void page_walkAllRows() {
+        List<AppointmentSummaryDto> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AppointmentPageDto page = appointmentService.getAppointmentsPage(null, null, null, null, null, cursor, 5);
+            seen.addAll(page.getAppointments());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(12, seen.size());
+        assertEquals(12, seen.stream().map(AppointmentSummaryDto::getAppointmentId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            AppointmentSummaryDto previous = seen.get(i - 1);
+            AppointmentSummaryDto current = seen.get(i);
+            assertTrue(previous.getAppointmentDateTime().isAfter(current.getAppointmentDateTime())
+                    || previous.getAppointmentId() > current.getAppointmentId());
+        }
+        assertEquals("Pat Ient", seen.get(0).getPatientName());
+        assertEquals("City General", seen.get(0).getHospitalName());
+    }
+
+    @Test
+    @DisplayName("getAppointmentsPage - status, doctor and date filters combine")
+    void page_filters() {
+        AppointmentPageDto page = appointmentService.getAppointmentsPage(Appointment.Status.PENDING, doctorA.getStaffId(),
+                hospital.getHospitalId(), BASE.toLocalDate().plusDays(1), BASE.toLocalDate().plusDays(3), null, 50);
+
+        assertEquals(4, page.getAppointments().size());
+        assertNull(page.getNextCursor());
+        assertTrue(page.getAppointments().stream().allMatch(a -> "Jane Smith".equals(a.getDoctorName())));
+    }
+
+    @Test
+    @DisplayName("getAppointmentsPage - invalid cursor or size rejected")
+    void page_invalidInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsPage(null, null, null, null, null, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentsPage(null, null, null, null, null, null, AppointmentService.MAX_PAGE_SIZE + 1));
+    }
+
+    private StaffDetails doctor(String first, String last) {
+        User user = em.persist(User.builder().firstName(first).lastName(last).email(first.toLowerCase() + "@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        return em.persist(StaffDetails.builder().user(user).hospital(hospital).serviceCategory(category)
+                .specialization("Cardiologist").build());
+    }
+
+    private void appointment(StaffDetails doctor, LocalDateTime at, Appointment.Status status) {
+        em.persist(Appointment.builder().patient(patient).doctor(doctor).hospital(hospital).serviceCategory(category)
+                .appointmentDateTime(at).status(status).build());
+    }
+}
@@ -0,0 +1,112 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.model.Payment;
+import com.lankamed.health.backend.model.PaymentStatus;
+import com.lankamed.health.backend.model.PaymentType;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.model.patient.WeightRecord;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BatchInsertTest {
+
+    private static final int ROWS = 5000;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private WeightRecordRepository weightRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email("pat@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        patient = em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        em.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("saveAll of payments goes out in JDBC batches")
+    void payments_inserted_inBatches() {
+        long prepared = insert(this::savePayment);
+
+        assertBatched(prepared);
+        assertEquals(ROWS, paymentRepository.count());
+    }
+
+    @Test
+    @DisplayName("saveAll of weight records goes out in JDBC batches")
+    void weights_inserted_inBatches() {
+        long prepared = insert(i -> weightRepository.saveAll(List.of(WeightRecord.builder()
+                .patient(patient).weightKg(70 + i % 10).timestamp(BASE.plusMinutes(i)).build())));
+
+        assertBatched(prepared);
+        assertEquals(ROWS, weightRepository.findByPatientPatientId(patient.getPatientId()).size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark - batched payment insert throughput")
+    void payments_insertThroughput() {
+        long start = System.nanoTime();
+        long prepared = insert(this::savePayment);
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("Insert %d payments rows: %d inserts/s, %d statements prepared%n",
+                ROWS, ROWS * 1_000_000_000L / nanos, prepared);
+    }
+
+    private Object savePayment(int i) {
+        return paymentRepository.saveAll(List.of(new Payment(patient, null, 10.0 + i % 7,
+                PaymentType.Card, PaymentStatus.Pending, "BATCH-" + i, BASE.plusMinutes(i))));
+    }
+
+    // Persists ROWS entities and flushes once, the way seeding and imports write; returns the statements prepared
+    private long insert(IntFunction<?> persist) {
+        List<Integer> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(i);
+        }
+        statistics.clear();
+        rows.forEach(persist::apply);
+        em.flush();
+        long prepared = statistics.getPrepareStatementCount();
+        em.clear();
+        return prepared;
+    }
+
+    private static void assertBatched(long prepared) {
+        // One statement per JDBC batch plus the occasional id block fetch, instead of one INSERT per row
+        assertTrue(prepared < ROWS / 10, "prepared=" + prepared);
+    }
+}
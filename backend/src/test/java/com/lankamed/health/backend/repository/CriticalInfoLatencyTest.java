@@ -0,0 +1,128 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.patient.CriticalInfoDto;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.*;
+import com.lankamed.health.backend.repository.patient.*;
+import com.lankamed.health.backend.service.patient.CriticalInfoCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Echoing every statement to the console would dominate the fallback timings
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@Tag("benchmark")
+class CriticalInfoLatencyTest {
+
+    private static final int PATIENTS = 200;
+    private static final int HITS = 20_000;
+    private static final long P99_BUDGET_NANOS = 10_000_000L;
+
+    @Autowired private PatientRepository patientRepository;
+    @Autowired private MedicalConditionRepository medicalConditionRepository;
+    @Autowired private AllergyRepository allergyRepository;
+    @Autowired private PrescriptionRepository prescriptionRepository;
+    @Autowired private EmergencyContactRepository emergencyContactRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private TestEntityManager em;
+
+    private final List<Long> patientIds = new ArrayList<>();
+    private CriticalInfoCache cache;
+
+    @BeforeEach
+    void setUp() {
+        Hospital hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        ServiceCategory category = em.persist(ServiceCategory.builder().name("Emergency").build());
+        User doctorUser = em.persist(User.builder().firstName("Jane").lastName("Smith").email("jane@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        StaffDetails doctor = em.persist(StaffDetails.builder().user(doctorUser).hospital(hospital).serviceCategory(category)
+                .specialization("Emergency Medicine").build());
+        for (int p = 0; p < PATIENTS; p++) {
+            User user = em.persist(User.builder().firstName("Pat" + p).lastName("Ient").email("pat" + p + "@example.com")
+                    .passwordHash("hash").role(Role.PATIENT).build());
+            Patient patient = em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1970, 1, 1).plusDays(p))
+                    .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+            for (int i = 0; i < 3; i++) {
+                em.persist(MedicalCondition.builder().patient(patient).conditionName("Condition " + i).build());
+                em.persist(Allergy.builder().patient(patient).allergyName("Allergy " + i)
+                        .severity(Allergy.Severity.values()[i]).build());
+                em.persist(Prescription.builder().patient(patient).doctor(doctor).medicationName("Medication " + i)
+                        .startDate(LocalDate.now().minusDays(30)).endDate(i == 0 ? LocalDate.now().minusDays(1) : null).build());
+                em.persist(EmergencyContact.builder().patient(patient).fullName("Contact " + i).relationship("Sibling").phone("000").build());
+            }
+            patientIds.add(patient.getPatientId());
+        }
+        em.flush();
+        em.clear();
+
+        cache = new CriticalInfoCache(patientRepository, medicalConditionRepository, allergyRepository,
+                prescriptionRepository, emergencyContactRepository, transactionManager, PATIENTS, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    @DisplayName("Critical info - p99 of cache hits under 10 ms, database fallback measured alongside")
+    void criticalInfo_p99UnderBudget() {
+        // Warm the code paths with a throwaway cache so the measured fallback loads are not JIT-bound
+        CriticalInfoCache warmup = new CriticalInfoCache(patientRepository, medicalConditionRepository, allergyRepository,
+                prescriptionRepository, emergencyContactRepository, transactionManager, PATIENTS, 60);
+        for (Long patientId : patientIds) {
+            warmup.get(patientId);
+            em.clear();
+        }
+        warmup.shutdown();
+
+        long[] fallback = new long[PATIENTS];
+        for (int i = 0; i < PATIENTS; i++) {
+            long start = System.nanoTime();
+            CriticalInfoDto info = cache.get(patientIds.get(i));
+            fallback[i] = System.nanoTime() - start;
+            assertEquals(3, info.getAllergies().size());
+            assertEquals(Allergy.Severity.SEVERE, info.getAllergies().get(0).getSeverity());
+            assertEquals(2, info.getPrescriptions().size());
+            // Each request gets a fresh persistence context in production; here every load shares the test's
+            em.clear();
+        }
+
+        Random random = new Random(42);
+        long[] hits = new long[HITS];
+        for (int i = 0; i < HITS; i++) {
+            Long patientId = patientIds.get(random.nextInt(PATIENTS));
+            long start = System.nanoTime();
+            CriticalInfoDto info = cache.get(patientId);
+            hits[i] = System.nanoTime() - start;
+            assertEquals(patientId, info.getPatientId());
+        }
+
+        long hitP99 = percentile(hits, 0.99);
+        System.out.printf("Critical info: cache hit p50 %d us p99 %d us, database fallback p50 %d us p99 %d us%n",
+                percentile(hits, 0.5) / 1000, hitP99 / 1000, percentile(fallback, 0.5) / 1000, percentile(fallback, 0.99) / 1000);
+        assertTrue(hitP99 < P99_BUDGET_NANOS, "cache hit p99 " + hitP99 + " ns");
+    }
+
+    private static long percentile(long[] samples, double p) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * p) - 1];
+    }
+}
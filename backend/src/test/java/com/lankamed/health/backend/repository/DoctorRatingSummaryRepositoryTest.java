@@ -0,0 +1,105 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class DoctorRatingSummaryRepositoryTest {
+
+    @Autowired private DoctorRatingSummaryRepository ratingSummaryRepository;
+    @Autowired private TestEntityManager em;
+
+    private Patient patient;
+    private StaffDetails doctor;
+    private Hospital hospital;
+    private ServiceCategory category;
+
+    @BeforeEach
+    void setUp() {
+        hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        category = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        User patientUser = em.persist(User.builder().firstName("Pat").lastName("Ient").email("patient@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        patient = em.persist(Patient.builder().user(patientUser).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        User doctorUser = em.persist(User.builder().firstName("Jane").lastName("Smith").email("jane@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        doctor = em.persist(StaffDetails.builder().user(doctorUser).hospital(hospital).serviceCategory(category)
+                .specialization("Cardiologist").build());
+    }
+
+    @Test
+    @DisplayName("addRating - no summary row yet, updates nothing until seeded from existing reviews")
+    void addRating_seedsFromExistingReviewsThenIncrements() {
+        review(5);
+        review(3);
+        em.flush();
+
+        assertEquals(0, ratingSummaryRepository.addRating(doctor.getStaffId(), 4));
+        ratingSummaryRepository.seedIfAbsent(doctor.getStaffId());
+        assertEquals(1, ratingSummaryRepository.addRating(doctor.getStaffId(), 4));
+        em.clear();
+
+        DoctorRatingSummary summary = ratingSummaryRepository.findById(doctor.getStaffId()).orElseThrow();
+        assertEquals(3, summary.getReviewCount());
+        assertEquals(12, summary.getRatingSum());
+        assertEquals(1, summary.getStars3());
+        assertEquals(1, summary.getStars4());
+        assertEquals(1, summary.getStars5());
+        assertEquals(0, summary.getStars1());
+    }
+
+    @Test
+    @DisplayName("seedIfAbsent - existing row is left untouched")
+    void seedIfAbsent_existingRow_ignored() {
+        ratingSummaryRepository.seedIfAbsent(doctor.getStaffId());
+        ratingSummaryRepository.addRating(doctor.getStaffId(), 2);
+        review(5);
+        em.flush();
+
+        ratingSummaryRepository.seedIfAbsent(doctor.getStaffId());
+        em.clear();
+
+        DoctorRatingSummary summary = ratingSummaryRepository.findById(doctor.getStaffId()).orElseThrow();
+        assertEquals(1, summary.getReviewCount());
+        assertEquals(2, summary.getRatingSum());
+    }
+
+    @Test
+    @DisplayName("rebuild - drifted summaries are recomputed from reviews")
+    void rebuild_repairsDrift() {
+        em.persist(DoctorRatingSummary.builder().doctorId(doctor.getStaffId()).reviewCount(99).ratingSum(99).build());
+        review(1);
+        review(5);
+        em.flush();
+
+        ratingSummaryRepository.deleteAllSummaries();
+        assertEquals(1, ratingSummaryRepository.insertAllFromReviews());
+        em.clear();
+
+        DoctorRatingSummary summary = ratingSummaryRepository.findById(doctor.getStaffId()).orElseThrow();
+        assertEquals(2, summary.getReviewCount());
+        assertEquals(6, summary.getRatingSum());
+        assertEquals(1, summary.getStars1());
+        assertEquals(1, summary.getStars5());
+    }
+
+    private void review(int rating) {
+        Appointment appointment = em.persist(Appointment.builder().patient(patient).doctor(doctor).hospital(hospital)
+                .serviceCategory(category).appointmentDateTime(LocalDateTime.now().minusDays(1)).status(Appointment.Status.COMPLETED).build());
+        em.persist(Review.builder().appointment(appointment).patient(patient).doctor(doctor).rating(rating).build());
+    }
+}
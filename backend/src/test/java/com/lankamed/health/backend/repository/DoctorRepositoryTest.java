@@ -0,0 +1,142 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.DoctorDto;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.service.DoctorDirectoryCache;
+import com.lankamed.health.backend.service.DoctorSearchIndex;
+import com.lankamed.health.backend.service.DoctorService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({DoctorDirectoryCache.class, DoctorSearchIndex.class})
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class DoctorRepositoryTest {
+
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private DoctorRatingSummaryRepository ratingSummaryRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private DoctorDirectoryCache directoryCache;
+    @Autowired private DoctorSearchIndex searchIndex;
+
+    private Statistics statistics;
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        Hospital hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        ServiceCategory cardiology = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        ServiceCategory neurology = em.persist(ServiceCategory.builder().name("Neurology").build());
+        User patientUser = em.persist(user("Pat", "Ient", "patient@example.com", Role.PATIENT));
+        Patient patient = em.persist(Patient.builder().user(patientUser).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+
+        StaffDetails smith = doctor("Jane", "Smith", "Cardiologist", hospital, cardiology);
+        StaffDetails brown = doctor("Tom", "Brown", "Neurologist", hospital, neurology);
+        doctor("Ann", "Lee", "Cardiologist", hospital, cardiology);
+
+        review(patient, smith, hospital, cardiology, 5);
+        review(patient, smith, hospital, cardiology, 4);
+        review(patient, brown, hospital, neurology, 3);
+        patientId = patient.getPatientId();
+
+        em.flush();
+        ratingSummaryRepository.insertAllFromReviews();
+        em.clear();
+        searchIndex.rebuild();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        directoryCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("searchDoctors - all doctors with review stats loaded in a single statement")
+    void searchDoctors_allDoctors_singleStatement() {
+        List<DoctorDto> doctors = new DoctorService(doctorRepository, directoryCache, searchIndex).searchDoctors(null, null);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, doctors.size());
+        Map<String, DoctorDto> byName = doctors.stream().collect(Collectors.toMap(DoctorDto::getFullName, Function.identity()));
+        assertEquals(4.5, byName.get("Jane Smith").getAverageRating(), 0.001);
+        assertEquals(2L, byName.get("Jane Smith").getReviewCount());
+        assertEquals("City General", byName.get("Jane Smith").getHospitalName());
+        assertEquals("Cardiology", byName.get("Jane Smith").getServiceCategoryName());
+        assertNull(byName.get("Ann Lee").getAverageRating());
+        assertEquals(0L, byName.get("Ann Lee").getReviewCount());
+    }
+
+    @Test
+    @DisplayName("searchDoctors - filters resolved by the search index, rows hydrated in a single statement")
+    void searchDoctors_filtered_singleStatement() {
+        List<DoctorDto> doctors = new DoctorService(doctorRepository, directoryCache, searchIndex).searchDoctors("smi", "cardio");
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, doctors.size());
+        assertEquals("Jane Smith", doctors.get(0).getFullName());
+    }
+
+    @Test
+    @DisplayName("searchDoctors - misspelled name still finds the doctor")
+    void searchDoctors_typo_matched() {
+        List<DoctorDto> doctors = new DoctorService(doctorRepository, directoryCache, searchIndex).searchDoctors("Smiht", null);
+
+        assertEquals(1, doctors.size());
+        assertEquals("Jane Smith", doctors.get(0).getFullName());
+    }
+
+    @Test
+    @DisplayName("searchDoctors - repeated search is cached until a review is written")
+    void searchDoctors_cachedUntilReviewWritten() {
+        DoctorService service = new DoctorService(doctorRepository, directoryCache, searchIndex);
+        service.searchDoctors(" Smith ", null);
+        service.searchDoctors("smith", "");
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        StaffDetails smith = em.find(StaffDetails.class, service.searchDoctors("smith", null).get(0).getDoctorId());
+        review(em.find(Patient.class, patientId), smith, smith.getHospital(), smith.getServiceCategory(), 1);
+        em.flush();
+        statistics.clear();
+
+        service.searchDoctors("smith", null);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private StaffDetails doctor(String first, String last, String specialization, Hospital hospital, ServiceCategory category) {
+        User user = em.persist(user(first, last, first.toLowerCase() + "@lankamed.com", Role.DOCTOR));
+        return em.persist(StaffDetails.builder().user(user).hospital(hospital).serviceCategory(category)
+                .specialization(specialization).build());
+    }
+
+    private void review(Patient patient, StaffDetails doctor, Hospital hospital, ServiceCategory category, int rating) {
+        Appointment appointment = em.persist(Appointment.builder().patient(patient).doctor(doctor).hospital(hospital)
+                .serviceCategory(category).appointmentDateTime(LocalDateTime.now().minusDays(1))
+                .status(Appointment.Status.COMPLETED).build());
+        em.persist(Review.builder().appointment(appointment).patient(patient).doctor(doctor).rating(rating).build());
+    }
+
+    private static User user(String first, String last, String email, Role role) {
+        return User.builder().firstName(first).lastName(last).email(email).passwordHash("hash").role(role).build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.patient.MedicalSummaryDto;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.*;
+import com.lankamed.health.backend.repository.patient.*;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.patient.CriticalInfoCache;
+import com.lankamed.health.backend.service.patient.MedicalHistoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MedicalSummaryRepositoryTest {
+
+    @Autowired private PatientRepository patientRepository;
+    @Autowired private MedicalConditionRepository medicalConditionRepository;
+    @Autowired private AllergyRepository allergyRepository;
+    @Autowired private PrescriptionRepository prescriptionRepository;
+    @Autowired private EmergencyContactRepository emergencyContactRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private MedicalHistoryService service;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Hospital hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        ServiceCategory category = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        User doctorUser = em.persist(User.builder().firstName("Jane").lastName("Smith").email("jane@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        StaffDetails doctor = em.persist(StaffDetails.builder().user(doctorUser).hospital(hospital).serviceCategory(category)
+                .specialization("Cardiologist").build());
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email("pat@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        Patient patient = em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        for (int i = 0; i < 3; i++) {
+            em.persist(MedicalCondition.builder().patient(patient).conditionName("Condition " + i).build());
+            em.persist(Allergy.builder().patient(patient).allergyName("Allergy " + i).severity(Allergy.Severity.MILD).build());
+            em.persist(Prescription.builder().patient(patient).doctor(doctor).medicationName("Medication " + i)
+                    .startDate(LocalDate.of(2024, 1, 1)).build());
+            em.persist(EmergencyContact.builder().patient(patient).fullName("Contact " + i).relationship("Sibling").phone("000").build());
+        }
+        em.flush();
+        em.clear();
+
+        RequestIdentity requestIdentity = mock(RequestIdentity.class);
+        when(requestIdentity.patientId()).thenReturn(patient.getPatientId());
+        service = new MedicalHistoryService(patientRepository, medicalConditionRepository, allergyRepository,
+                prescriptionRepository, emergencyContactRepository, requestIdentity, mock(CriticalInfoCache.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Medical summary - one statement per list, prescribing doctors fetched with the prescriptions")
+    void summary_fourStatements() {
+        MedicalSummaryDto summary = service.getMedicalSummary();
+
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(3, summary.getConditions().size());
+        assertEquals(3, summary.getAllergies().size());
+        assertEquals(3, summary.getEmergencyContacts().size());
+        assertEquals(3, summary.getPrescriptions().size());
+        assertTrue(summary.getPrescriptions().stream().allMatch(p -> "Jane Smith".equals(p.getDoctorName())));
+        assertEquals("Cardiologist", summary.getPrescriptions().get(0).getDoctorSpecialization());
+
+        em.clear();
+        assertEquals(summary.getVersion(), service.getMedicalSummary().getVersion());
+    }
+
+    @Test
+    @DisplayName("Medical summary - every list comes back in id order so the version is stable")
+    void summary_listsOrderedById() {
+        MedicalSummaryDto summary = service.getMedicalSummary();
+
+        assertOrderedById(summary.getConditions(), c -> c.getConditionId());
+        assertOrderedById(summary.getAllergies(), a -> a.getAllergyId());
+        assertOrderedById(summary.getPrescriptions(), p -> p.getPrescriptionId());
+        assertOrderedById(summary.getEmergencyContacts(), e -> e.getEmergencyContactId());
+    }
+
+    private static <T> void assertOrderedById(List<T> items, Function<T, Long> id) {
+        List<Long> ids = items.stream().map(id).toList();
+        assertEquals(ids.stream().sorted(Comparator.naturalOrder()).toList(), ids);
+    }
+}
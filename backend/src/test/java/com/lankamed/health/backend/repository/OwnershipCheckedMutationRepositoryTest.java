@@ -0,0 +1,130 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.patient.CreateAllergyDto;
+import com.lankamed.health.backend.dto.patient.CreateEmergencyContactDto;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.*;
+import com.lankamed.health.backend.repository.patient.*;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.patient.CriticalInfoCache;
+import com.lankamed.health.backend.service.patient.EmergencyContactService;
+import com.lankamed.health.backend.service.patient.MedicalHistoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OwnershipCheckedMutationRepositoryTest {
+
+    @Autowired private PatientRepository patientRepository;
+    @Autowired private MedicalConditionRepository medicalConditionRepository;
+    @Autowired private AllergyRepository allergyRepository;
+    @Autowired private PrescriptionRepository prescriptionRepository;
+    @Autowired private EmergencyContactRepository emergencyContactRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private MedicalHistoryService medicalHistoryService;
+    private EmergencyContactService emergencyContactService;
+    private Statistics statistics;
+    private Allergy ownAllergy;
+    private Allergy otherAllergy;
+    private MedicalCondition ownCondition;
+    private EmergencyContact ownContact;
+
+    @BeforeEach
+    void setUp() {
+        Patient patient = patient("pat@example.com");
+        Patient other = patient("other@example.com");
+        ownAllergy = em.persist(Allergy.builder().patient(patient).allergyName("Penicillin").severity(Allergy.Severity.MILD).build());
+        otherAllergy = em.persist(Allergy.builder().patient(other).allergyName("Latex").severity(Allergy.Severity.MILD).build());
+        ownCondition = em.persist(MedicalCondition.builder().patient(patient).conditionName("Asthma").build());
+        ownContact = em.persist(EmergencyContact.builder().patient(patient).fullName("Alice").relationship("Sister").phone("000").build());
+        em.flush();
+        em.clear();
+
+        RequestIdentity requestIdentity = mock(RequestIdentity.class);
+        when(requestIdentity.patientId()).thenReturn(patient.getPatientId());
+        CriticalInfoCache criticalInfoCache = mock(CriticalInfoCache.class);
+        medicalHistoryService = new MedicalHistoryService(patientRepository, medicalConditionRepository, allergyRepository,
+                prescriptionRepository, emergencyContactRepository, requestIdentity, criticalInfoCache);
+        emergencyContactService = new EmergencyContactService(emergencyContactRepository, patientRepository,
+                requestIdentity, criticalInfoCache);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Own allergy - updated with a single statement")
+    void updateOwnAllergy_oneStatement() {
+        CreateAllergyDto dto = new CreateAllergyDto();
+        dto.setAllergyName("Penicillin");
+        dto.setSeverity(Allergy.Severity.SEVERE);
+
+        medicalHistoryService.updateAllergy(ownAllergy.getAllergyId(), dto);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(Allergy.Severity.SEVERE, allergyRepository.findById(ownAllergy.getAllergyId()).orElseThrow().getSeverity());
+    }
+
+    @Test
+    @DisplayName("Another patient's allergy - left untouched and reported as unauthorized")
+    void updateOtherAllergy_rejected() {
+        CreateAllergyDto dto = new CreateAllergyDto();
+        dto.setAllergyName("Changed");
+        dto.setSeverity(Allergy.Severity.SEVERE);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> medicalHistoryService.updateAllergy(otherAllergy.getAllergyId(), dto));
+
+        assertEquals("Unauthorized access to allergy", exception.getMessage());
+        assertEquals("Latex", allergyRepository.findById(otherAllergy.getAllergyId()).orElseThrow().getAllergyName());
+    }
+
+    @Test
+    @DisplayName("Own condition and contact - each deleted with a single statement")
+    void deleteOwn_oneStatementEach() {
+        medicalHistoryService.deleteMedicalCondition(ownCondition.getConditionId());
+        emergencyContactService.deleteEmergencyContact(ownContact.getEmergencyContactId());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertFalse(medicalConditionRepository.existsById(ownCondition.getConditionId()));
+        assertFalse(emergencyContactRepository.existsById(ownContact.getEmergencyContactId()));
+    }
+
+    @Test
+    @DisplayName("Missing contact - reported as not found")
+    void updateMissingContact_notFound() {
+        CreateEmergencyContactDto dto = new CreateEmergencyContactDto();
+        dto.setFullName("Bob");
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> emergencyContactService.updateEmergencyContact(Long.MAX_VALUE, dto));
+
+        assertEquals("Emergency contact not found", exception.getMessage());
+    }
+
+    private Patient patient(String email) {
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email(email)
+                .passwordHash("hash").role(Role.PATIENT).build());
+        return em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+    }
+}
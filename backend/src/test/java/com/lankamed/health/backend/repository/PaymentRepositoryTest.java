@@ -0,0 +1,171 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.service.PaymentReportingService;
+import com.lankamed.health.backend.service.PaymentServiceImpl;
+import com.lankamed.health.backend.strategy.PaymentGatewayDispatcher;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PaymentRepositoryTest {
+
+    private static final int RUNS = 25;
+
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private PaymentServiceImpl paymentService;
+    private Statistics statistics;
+    private Patient patient;
+    private Patient otherPatient;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = new PaymentServiceImpl(paymentRepository, mock(PatientRepository.class),
+                mock(AppointmentRepository.class), mock(PaymentReportingService.class), mock(PaymentGatewayDispatcher.class), List.of());
+        Hospital hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        ServiceCategory category = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        patient = patient("pat@example.com");
+        otherPatient = patient("other@example.com");
+        User doctorUser = em.persist(User.builder().firstName("Jane").lastName("Smith").email("jane@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        StaffDetails doctor = em.persist(StaffDetails.builder().user(doctorUser).hospital(hospital).serviceCategory(category)
+                .specialization("Cardiologist").build());
+        Appointment appointment = em.persist(Appointment.builder().patient(patient).doctor(doctor).hospital(hospital)
+                .serviceCategory(category).appointmentDateTime(LocalDateTime.of(2030, 3, 1, 9, 0)).paymentAmount(2500.0).build());
+
+        em.persist(new Payment(patient, appointment, 100.0, PaymentType.Card, PaymentStatus.Pending, "TXN-1", LocalDateTime.now()));
+        em.persist(new Payment(patient, null, 300.0, PaymentType.Cash, PaymentStatus.Pending, "TXN-2", LocalDateTime.now()));
+        em.persist(new Payment(patient, appointment, 100.0, PaymentType.Card, PaymentStatus.Paid, "TXN-3", LocalDateTime.now()));
+        em.flush();
+        em.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("getPendingPayments - appointment details loaded in a single statement")
+    void pendingPayments_singleStatement() {
+        List<PaymentDTO> result = paymentService.getPendingPayments(patient.getPatientId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, result.size());
+        PaymentDTO withAppointment = result.get(0);
+        assertEquals(2500.0, withAppointment.getAmount());
+        assertEquals("Jane Smith", withAppointment.getDoctorName());
+        assertEquals("City General", withAppointment.getHospitalName());
+        assertEquals("Cardiology with Dr. Jane Smith", withAppointment.getAppointmentDescription());
+        PaymentDTO withoutAppointment = result.get(1);
+        assertNull(withoutAppointment.getAppointmentId());
+        assertEquals(300.0, withoutAppointment.getAmount());
+        assertEquals("Cash", withoutAppointment.getPaymentMethod());
+    }
+
+    @Test
+    @DisplayName("getPendingPayments - unknown patient answered by the same single statement")
+    void pendingPayments_unknownPatient() {
+        assertTrue(paymentService.getPendingPayments(999_999L).isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("getPendingPayments - lookup uses the (patient_id, status) index and one statement as the table grows")
+    void pendingPayments_indexedAsTableGrows() {
+        String plan = (String) em.getEntityManager().createNativeQuery(
+                "EXPLAIN SELECT payment_id FROM payments WHERE patient_id = 1 AND status = 'Pending'").getSingleResult();
+        assertTrue(plan.toLowerCase().contains("idx_payments_patient_status"), plan);
+
+        addPayments(otherPatient, 1_000);
+        statistics.clear();
+
+        assertEquals(2, paymentService.getPendingPayments(patient.getPatientId()).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark - pending-payment lookup time stays flat as the table grows")
+    void pendingPayments_flatAsTableGrows() {
+        long small = medianNanos();
+        addPayments(otherPatient, 50_000);
+        long large = medianNanos();
+
+        // A full scan of 50k rows is orders of magnitude slower than an index seek; the slack absorbs timer noise
+        System.out.printf("Pending payments lookup: %d ns with 3 rows, %d ns with 50k more%n", small, large);
+        assertTrue(large < small * 5 + 5_000_000L, "small=" + small + "ns large=" + large + "ns");
+    }
+
+    @Test
+    @DisplayName("Idempotency-Key - a stored key replays the original payment and cannot be inserted twice")
+    void idempotencyKey_uniqueAndReplayable() {
+        Payment first = new Payment(patient, null, 750.0, PaymentType.Cash, PaymentStatus.Paid, "TXN-KEY", LocalDateTime.now());
+        first.setIdempotencyKey("retry-1");
+        paymentRepository.saveAndFlush(first);
+
+        PaymentDTO replay = paymentService.findByIdempotencyKey("retry-1", patient.getPatientId()).orElseThrow();
+        assertEquals("TXN-KEY", replay.getTransactionId());
+        assertEquals("Paid", replay.getStatus());
+        assertThrows(IllegalArgumentException.class,
+                () -> paymentService.findByIdempotencyKey("retry-1", otherPatient.getPatientId()));
+
+        Payment duplicate = new Payment(patient, null, 750.0, PaymentType.Cash, PaymentStatus.Pending, "TXN-DUP", LocalDateTime.now());
+        duplicate.setIdempotencyKey("retry-1");
+        assertThrows(DataIntegrityViolationException.class, () -> paymentRepository.saveAndFlush(duplicate));
+    }
+
+    private long medianNanos() {
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            paymentService.getPendingPayments(patient.getPatientId());
+            samples[i] = System.nanoTime() - start;
+            em.clear();
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+
+    private void addPayments(Patient owner, int count) {
+        // Bulk-load through H2's range table function so seeding does not dominate the test; ids sit far above the generator's
+        em.getEntityManager().createNativeQuery(
+                "INSERT INTO payments (payment_id, patient_id, amount, payment_type, status, transaction_id, payment_timestamp) " +
+                "SELECT 1000000 + \"X\", ?1, 10.0, 'Card', CASE WHEN MOD(\"X\", 4) = 0 THEN 'Pending' ELSE 'Paid' END, CONCAT('BULK-', \"X\"), CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(1, ?2)")
+                .setParameter(1, owner.getPatientId())
+                .setParameter(2, count)
+                .executeUpdate();
+    }
+
+    private Patient patient(String email) {
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email(email)
+                .passwordHash("hash").role(Role.PATIENT).build());
+        return em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+    }
+}
@@ -0,0 +1,136 @@
+package com.lankamed.health.backend.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto;
+import com.lankamed.health.backend.dto.patient.VitalReadingDto;
+import com.lankamed.health.backend.dto.patient.VitalReadingDto.Type;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.model.patient.WeightRecord;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
+import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
+import com.lankamed.health.backend.repository.patient.VitalsBulkRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.patient.LatestVitalsCache;
+import com.lankamed.health.backend.service.patient.VitalsIngestionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class VitalsBulkRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private HealthMetricRepository healthMetricRepository;
+    @Autowired private BloodPressureRecordRepository bpRepository;
+    @Autowired private WeightRecordRepository weightRepository;
+    @Autowired private TestEntityManager em;
+
+    private final RequestIdentity requestIdentity = mock(RequestIdentity.class);
+    private VitalsIngestionService service;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email("pat@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        patient = em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        em.flush();
+        when(requestIdentity.requirePatientId()).thenReturn(patient.getPatientId());
+        service = new VitalsIngestionService(requestIdentity, new VitalsBulkRepository(em.getEntityManager(), 500),
+                healthMetricRepository, bpRepository, weightRepository, mock(LatestVitalsCache.class),
+                new ObjectMapper().findAndRegisterModules(), transactionManager, 10_000);
+    }
+
+    @Test
+    @DisplayName("Bulk upload - rows land in every table and a replay is reported as duplicates")
+    void upload_thenReplay() {
+        List<VitalReadingDto> readings = List.of(
+                VitalReadingDto.builder().type(Type.HEALTH_METRIC).timestamp(BASE).systolic(120).diastolic(80).heartRate(60).spo2(98).build(),
+                VitalReadingDto.builder().type(Type.BLOOD_PRESSURE).timestamp(BASE).systolic(124).diastolic(82).build(),
+                VitalReadingDto.builder().type(Type.WEIGHT).timestamp(BASE).weightKg(70.4).build(),
+                VitalReadingDto.builder().type(Type.WEIGHT).timestamp(BASE.plusDays(1)).weightKg(70.1).build());
+
+        BulkVitalsResultDto first = service.ingest(readings);
+        assertEquals(4, first.getAccepted());
+        assertEquals(1, healthMetricRepository.findByPatientPatientId(patient.getPatientId()).size());
+        assertEquals(124, bpRepository.findTrend(patient.getPatientId(), null, null).get(0).getSystolic());
+        assertEquals(List.of(70.4, 70.1), weightRepository.findTrend(patient.getPatientId(), null, null).stream()
+                .map(r -> r.getWeightKg()).toList());
+
+        BulkVitalsResultDto replay = service.ingest(readings);
+        assertEquals(0, replay.getAccepted());
+        assertEquals(4, replay.getDuplicates());
+        assertEquals(2, weightRepository.findByPatientPatientId(patient.getPatientId()).size());
+    }
+
+    @Test
+    @DisplayName("Unique constraint - a second reading of the same type at the same timestamp is refused")
+    void sameTimestamp_violatesUniqueConstraint() {
+        weightRepository.saveAndFlush(WeightRecord.builder().patient(patient).weightKg(70.0).timestamp(BASE).build());
+
+        assertThrows(DataIntegrityViolationException.class, () -> weightRepository.saveAndFlush(
+                WeightRecord.builder().patient(patient).weightKg(71.0).timestamp(BASE).build()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark - one save per reading vs one batched bulk upload")
+    void benchmark_bulkVsPerReading() {
+        int n = 2000;
+        perReading(200, BASE.minusYears(2));
+        service.ingest(weights(200, BASE.minusYears(1)));
+
+        long start = System.nanoTime();
+        perReading(n, BASE);
+        long perReadingNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        BulkVitalsResultDto result = service.ingest(weights(n, BASE.plusYears(1)));
+        long bulkNanos = System.nanoTime() - start;
+
+        assertEquals(n, result.getAccepted());
+        System.out.printf("Vitals ingestion of %d readings: per reading %d readings/s, bulk %d readings/s%n",
+                n, n * 1_000_000_000L / perReadingNanos, n * 1_000_000_000L / bulkNanos);
+        assertTrue(bulkNanos < perReadingNanos, "perReading=" + perReadingNanos / 1_000_000 + "ms bulk=" + bulkNanos / 1_000_000 + "ms");
+    }
+
+    // What addRecord does once per request: save the entity and flush its INSERT
+    private void perReading(int n, LocalDateTime from) {
+        for (int i = 0; i < n; i++) {
+            weightRepository.save(WeightRecord.builder().patient(patient).weightKg(70 + i % 10).timestamp(from.plusMinutes(i)).build());
+            em.flush();
+        }
+        em.clear();
+    }
+
+    private static List<VitalReadingDto> weights(int n, LocalDateTime from) {
+        List<VitalReadingDto> readings = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            readings.add(VitalReadingDto.builder().type(Type.WEIGHT).timestamp(from.plusMinutes(i)).weightKg(70.0 + i % 10).build());
+        }
+        return readings;
+    }
+}
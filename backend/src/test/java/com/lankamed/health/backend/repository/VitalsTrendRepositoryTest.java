@@ -0,0 +1,81 @@
+package com.lankamed.health.backend.repository;
+
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
+import com.lankamed.health.backend.dto.patient.WeightRecordDto;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.BloodPressureRecord;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.model.patient.WeightRecord;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class VitalsTrendRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    @Autowired private BloodPressureRecordRepository bpRepository;
+    @Autowired private WeightRecordRepository weightRepository;
+    @Autowired private TestEntityManager em;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = patient("pat@example.com");
+        Patient other = patient("other@example.com");
+        // Persisted out of order so the ORDER BY is what sorts them
+        for (int day : new int[]{3, 0, 4, 1, 2}) {
+            em.persist(BloodPressureRecord.builder().patient(patient).systolic(110 + day).diastolic(70 + day)
+                    .timestamp(BASE.plusDays(day)).build());
+            em.persist(WeightRecord.builder().patient(patient).weightKg(70 + day).timestamp(BASE.plusDays(day)).build());
+        }
+        em.persist(BloodPressureRecord.builder().patient(other).systolic(150).diastolic(95).timestamp(BASE.plusDays(1)).build());
+        em.persist(WeightRecord.builder().patient(other).weightKg(90).timestamp(BASE.plusDays(1)).build());
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @DisplayName("findTrend - open range returns the patient's readings oldest first")
+    void openRange_orderedAndScopedToPatient() {
+        List<BloodPressureRecordDto> bp = bpRepository.findTrend(patient.getPatientId(), null, null);
+        assertEquals(List.of(110, 111, 112, 113, 114), bp.stream().map(BloodPressureRecordDto::getSystolic).toList());
+        assertEquals(74, bp.get(4).getDiastolic());
+
+        List<WeightRecordDto> weight = weightRepository.findTrend(patient.getPatientId(), null, null);
+        assertEquals(List.of(70.0, 71.0, 72.0, 73.0, 74.0), weight.stream().map(WeightRecordDto::getWeightKg).toList());
+    }
+
+    @Test
+    @DisplayName("findTrend - from is inclusive, to is exclusive")
+    void boundedRange_halfOpen() {
+        List<BloodPressureRecordDto> bp = bpRepository.findTrend(patient.getPatientId(), BASE.plusDays(1), BASE.plusDays(3));
+        assertEquals(List.of(BASE.plusDays(1), BASE.plusDays(2)), bp.stream().map(BloodPressureRecordDto::getTimestamp).toList());
+
+        List<WeightRecordDto> weight = weightRepository.findTrend(patient.getPatientId(), BASE.plusDays(3), null);
+        assertEquals(List.of(73.0, 74.0), weight.stream().map(WeightRecordDto::getWeightKg).toList());
+    }
+
+    private Patient patient(String email) {
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email(email)
+                .passwordHash("hash").role(Role.PATIENT).build());
+        return em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+    }
+}
@@ -0,0 +1,117 @@
+package com.lankamed.health.backend.security;
+
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.repository.UserRepository;
+import com.lankamed.health.backend.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "ZmFrZVN1cGVyU2VjdXJlS2V5MTIzNDU2Njc4OTAxMjM0NTY=";
+    private static final String EMAIL = "pat@example.com";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+    private final UserStateCache userStateCache = new UserStateCache(userRepository, 100, 60);
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, userStateCache, true);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Stateless token - principal built from claims, account state loaded once")
+    void statelessToken_principalFromClaims() throws Exception {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(Role.PATIENT, 0)));
+        String token = jwtUtil.generateToken(EMAIL, "PATIENT", 7L, 11L, 0);
+
+        for (int i = 0; i < 3; i++) {
+            Authentication authentication = authenticate(token);
+            assertNotNull(authentication);
+            AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+            assertEquals(EMAIL, authentication.getName());
+            assertEquals(7L, principal.getUserId());
+            assertEquals(11L, principal.getPatientId());
+            assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_PATIENT")));
+        }
+
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("Stateless token - revoked version, changed role or deleted account is rejected")
+    void statelessToken_staleStateRejected() throws Exception {
+        String token = jwtUtil.generateToken(EMAIL, "PATIENT", 7L, 11L, 0);
+
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(Role.PATIENT, 1)));
+        assertNull(authenticate(token));
+
+        userStateCache.invalidate(EMAIL);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(Role.DOCTOR, 0)));
+        assertNull(authenticate(token));
+
+        userStateCache.invalidate(EMAIL);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    @DisplayName("Token without a version claim - falls back to loading the user")
+    void legacyToken_loadsUserDetails() throws Exception {
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(new org.springframework.security.core.userdetails.User(
+                EMAIL, "hash", List.of(new SimpleGrantedAuthority("ROLE_PATIENT"))));
+
+        Authentication authentication = authenticate(jwtUtil.generateToken(EMAIL, "PATIENT"));
+
+        assertNotNull(authentication);
+        assertEquals(EMAIL, authentication.getName());
+        verify(userDetailsService).loadUserByUsername(EMAIL);
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Stateless mode off - versioned tokens also load the user")
+    void statelessModeOff_loadsUserDetails() throws Exception {
+        JwtAuthenticationFilter statefulFilter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, userStateCache, false);
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(new org.springframework.security.core.userdetails.User(
+                EMAIL, "hash", List.of(new SimpleGrantedAuthority("ROLE_PATIENT"))));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients/me");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(EMAIL, "PATIENT", 7L, 11L, 0));
+
+        statefulFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(EMAIL, SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(userDetailsService).loadUserByUsername(EMAIL);
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static User user(Role role, int tokenVersion) {
+        return User.builder().userId(7L).email(EMAIL).role(role).passwordHash("hash").tokenVersion(tokenVersion).build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.lankamed.health.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "ZmFrZVN1cGVyU2VjdXJlS2V5MTIzNDU2Njc4OTAxMjM0NTY=";
+    private static final int ITERATIONS = 2_000;
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+
+    @Test
+    @DisplayName("extractAllClaims - verified once, then served from the cache")
+    void extractAllClaims_cachesVerifiedToken() {
+        String token = jwtUtil.generateToken("pat@example.com", "PATIENT");
+
+        Claims first = jwtUtil.extractAllClaims(token);
+        Claims second = jwtUtil.extractAllClaims(token);
+
+        assertEquals("pat@example.com", first.getSubject());
+        assertEquals("PATIENT", first.get("role"));
+        assertSame(first, second);
+        assertEquals(1, jwtUtil.cachedTokenCount());
+        assertTrue(jwtUtil.isTokenValid(token, "pat@example.com"));
+        assertFalse(jwtUtil.isTokenValid(token, "other@example.com"));
+    }
+
+    @Test
+    @DisplayName("extractAllClaims - tampered and expired tokens are rejected and never cached")
+    void extractAllClaims_rejectsInvalidTokens() {
+        String token = jwtUtil.generateToken("pat@example.com", "PATIENT");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String expired = new JwtUtil(SECRET, -1_000, 100).generateToken("pat@example.com", "PATIENT");
+
+        assertThrows(JwtException.class, () -> jwtUtil.extractAllClaims(tampered));
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.extractAllClaims(expired));
+        assertThrows(RuntimeException.class, () -> jwtUtil.extractUsername("not-a-jwt"));
+        assertEquals(0, jwtUtil.cachedTokenCount());
+    }
+
+    @Test
+    @DisplayName("extractAllClaims - cache is bounded")
+    void extractAllClaims_boundedCache() {
+        JwtUtil small = new JwtUtil(SECRET, 60_000, 3);
+        for (int i = 0; i < 10; i++) {
+            small.extractAllClaims(small.generateToken("user" + i + "@example.com", "PATIENT"));
+        }
+        assertEquals(3, small.cachedTokenCount());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark - per-request validation: three rebuilt-parser parses vs one cached lookup")
+    void benchmark_perRequestValidation() {
+        String token = jwtUtil.generateToken("pat@example.com", "PATIENT");
+        JwtUtil uncached = new JwtUtil(SECRET, 60_000, 0);
+
+        long legacy = medianNanos(() -> legacyValidate(token));
+        long singleParse = medianNanos(() -> uncached.extractAllClaims(token).getSubject());
+        long cached = medianNanos(() -> jwtUtil.extractAllClaims(token).getSubject());
+        System.out.printf("JwtUtil per request: legacy %d ns, single parse %d ns, cached %d ns%n", legacy, singleParse, cached);
+
+        // The old path parsed three times and re-derived the key each time; generous bounds absorb timer noise
+        assertTrue(singleParse < legacy, "legacy=" + legacy + "ns singleParse=" + singleParse + "ns");
+        assertTrue(cached * 5 < legacy, "legacy=" + legacy + "ns cached=" + cached + "ns");
+    }
+
+    // What the filter used to do: extractUsername, then isTokenValid (extractUsername + extractExpiration)
+    private static String legacyValidate(String token) {
+        String username = legacyParse(token).getSubject();
+        boolean valid = legacyParse(token).getSubject().equals(username)
+                && !legacyParse(token).getExpiration().before(new Date());
+        return valid ? username : null;
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static long medianNanos(Runnable call) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        long[] samples = new long[25];
+        for (int run = 0; run < samples.length; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS / 10; i++) {
+                call.run();
+            }
+            samples[run] = (System.nanoTime() - start) / (ITERATIONS / 10);
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+}
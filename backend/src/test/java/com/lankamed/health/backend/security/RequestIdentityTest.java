@@ -0,0 +1,82 @@
+package com.lankamed.health.backend.security;
+
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class RequestIdentityTest {
+
+    private static final String EMAIL = "pat@example.com";
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final RequestIdentity requestIdentity = new RequestIdentity(patientRepository);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Claims principal - identity comes from the token without a query")
+    void claimsPrincipal_noQuery() {
+        AuthenticatedUser principal = new AuthenticatedUser(EMAIL, 7L, 11L, "PATIENT");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        RequestIdentity.Identity identity = requestIdentity.current();
+
+        assertEquals(new RequestIdentity.Identity(EMAIL, 7L, 11L, "PATIENT"), identity);
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    @DisplayName("Legacy principal - patient looked up once per request")
+    void legacyPrincipal_resolvedOncePerRequest() {
+        User user = User.builder().userId(7L).email(EMAIL).build();
+        when(patientRepository.findByUserEmail(EMAIL)).thenReturn(Optional.of(Patient.builder().patientId(11L).user(user).build()));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                EMAIL, null, List.of(new SimpleGrantedAuthority("ROLE_PATIENT"))));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(11L, requestIdentity.requirePatientId());
+        }
+        assertEquals("PATIENT", requestIdentity.current().role());
+        assertEquals(7L, requestIdentity.current().userId());
+
+        verify(patientRepository, times(1)).findByUserEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("No patient record or anonymous caller - patientId is null and requirePatientId fails")
+    void noPatient() {
+        when(patientRepository.findByUserEmail(EMAIL)).thenReturn(Optional.empty());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                EMAIL, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        assertNull(requestIdentity.patientId());
+        RuntimeException ex = assertThrows(RuntimeException.class, requestIdentity::requirePatientId);
+        assertEquals("Patient not found", ex.getMessage());
+
+        SecurityContextHolder.clearContext();
+        assertNull(requestIdentity.email());
+        verify(patientRepository, never()).findByUserEmail(argThat(email -> !EMAIL.equals(email)));
+    }
+}
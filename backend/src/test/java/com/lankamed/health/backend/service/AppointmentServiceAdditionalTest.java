@@ -14,6 +14,10 @@ import com.lankamed.health.backend.repository.ServiceCategoryRepository;
 import com.lankamed.health.backend.repository.StaffDetailsRepository;
 import com.lankamed.health.backend.repository.UserRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.ReferenceDataCache.CategoryRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.DoctorRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.HospitalRef;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,6 +28,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -41,6 +46,8 @@ class AppointmentServiceAdditionalTest {
 	@Mock private ServiceCategoryRepository serviceCategoryRepository;
 	@Mock private StaffDetailsRepository staffDetailsRepository;
 	@Mock private UserRepository userRepository;
+	@Mock private DoctorSlotService doctorSlotService;
+	@Mock private ReferenceDataCache referenceDataCache;
 	@Mock private Authentication authentication;
 	@Mock private SecurityContext securityContext;
 
@@ -50,7 +57,11 @@ class AppointmentServiceAdditionalTest {
 	@BeforeEach
 	void init() {
 		when(securityContext.getAuthentication()).thenReturn(authentication);
+		lenient().when(doctorSlotService.reserveSlot(any(), any())).thenReturn(true);
+		lenient().when(staffDetailsRepository.getReferenceById(any()))
+				.thenAnswer(inv -> StaffDetails.builder().staffId(inv.getArgument(0)).build());
 		SecurityContextHolder.setContext(securityContext);
+		ReflectionTestUtils.setField(appointmentService, "requestIdentity", new RequestIdentity(patientRepository));
 	}
 
 	@Test
@@ -62,12 +73,12 @@ class AppointmentServiceAdditionalTest {
 		when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(u));
 		when(patientRepository.save(any(Patient.class))).thenAnswer(inv -> inv.getArgument(0));
 
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		StaffDetails doctor = StaffDetails.builder().staffId(3L).user(User.builder().firstName("A").lastName("B").build()).build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.of(doctor));
+		HospitalRef hospital = new HospitalRef(1L, "H");
+		CategoryRef sc = new CategoryRef(2L, "C");
+		DoctorRef doctor = new DoctorRef(3L, "A", "B", null, null, null, null);
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(hospital));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(sc));
+		when(referenceDataCache.doctor(3L)).thenReturn(Optional.of(doctor));
 		when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> {
 			Appointment a = inv.getArgument(0);
 			a.setAppointmentId(10L);
@@ -91,12 +102,12 @@ class AppointmentServiceAdditionalTest {
 		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
 		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
 
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		StaffDetails doctor = StaffDetails.builder().staffId(3L).user(User.builder().firstName("A").lastName("B").build()).build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.of(doctor));
+		HospitalRef hospital = new HospitalRef(1L, "H");
+		CategoryRef sc = new CategoryRef(2L, "C");
+		DoctorRef doctor = new DoctorRef(3L, "A", "B", null, null, null, null);
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(hospital));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(sc));
+		when(referenceDataCache.doctor(3L)).thenReturn(Optional.of(doctor));
 		when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
 
 		CreateAppointmentDto dto = new CreateAppointmentDto();
@@ -111,18 +122,18 @@ class AppointmentServiceAdditionalTest {
 	}
 
 	@Test
-	@DisplayName("createAppointment - doctor fallback: resolves by service category list when direct lookup missing")
+	@DisplayName("createAppointment - doctor fallback: uses the snapshot's category/hospital fallback when direct lookup missing")
 	void createAppointment_doctorFallback_byCategory() {
 		when(authentication.getName()).thenReturn("john@doe");
 		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
 		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		StaffDetails fallbackDoctor = StaffDetails.builder().staffId(9L).user(User.builder().firstName("F").lastName("D").build()).build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.empty());
-		when(staffDetailsRepository.findByServiceCategoryCategoryId(2L)).thenReturn(List.of(fallbackDoctor));
+		HospitalRef hospital = new HospitalRef(1L, "H");
+		CategoryRef sc = new CategoryRef(2L, "C");
+		DoctorRef fallbackDoctor = new DoctorRef(9L, "F", "D", null, null, null, null);
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(hospital));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(sc));
+		when(referenceDataCache.doctor(3L)).thenReturn(Optional.empty());
+		when(referenceDataCache.fallbackDoctor(2L, 1L)).thenReturn(Optional.of(fallbackDoctor));
 		when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
 
 		CreateAppointmentDto dto = new CreateAppointmentDto();
@@ -136,19 +147,16 @@ class AppointmentServiceAdditionalTest {
 	}
 
 	@Test
-	@DisplayName("createAppointment - doctor fallback: resolves by hospital when category list empty")
-	void createAppointment_doctorFallback_byHospital() {
+	@DisplayName("createAppointment - requested doctor missing from the snapshot is loaded before any fallback")
+	void createAppointment_doctorNotInSnapshot_loadsRequestedDoctor() {
 		when(authentication.getName()).thenReturn("john@doe");
 		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
 		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		StaffDetails fallbackDoctor = StaffDetails.builder().staffId(8L).user(User.builder().firstName("H").lastName("D").build()).build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.empty());
-		when(staffDetailsRepository.findByServiceCategoryCategoryId(2L)).thenReturn(List.of());
-		when(staffDetailsRepository.findByHospitalHospitalId(1L)).thenReturn(List.of(fallbackDoctor));
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(new HospitalRef(1L, "H")));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(new CategoryRef(2L, "C")));
+		when(referenceDataCache.doctor(3L)).thenReturn(Optional.empty());
+		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.of(StaffDetails.builder().staffId(3L)
+				.user(User.builder().firstName("New").lastName("Doctor").build()).build()));
 		when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
 
 		CreateAppointmentDto dto = new CreateAppointmentDto();
@@ -158,34 +166,8 @@ class AppointmentServiceAdditionalTest {
 		dto.setAppointmentDateTime(LocalDateTime.now().plusDays(1));
 
 		var result = appointmentService.createAppointment(dto);
-		assertEquals(8L, result.getDoctorId());
-	}
-
-	@Test
-	@DisplayName("createAppointment - doctor fallback: resolves any doctor when hospital list empty")
-	void createAppointment_doctorFallback_any() {
-		when(authentication.getName()).thenReturn("john@doe");
-		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
-		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		StaffDetails anyDoctor = StaffDetails.builder().staffId(7L).user(User.builder().firstName("A").lastName("N").build()).build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.empty());
-		when(staffDetailsRepository.findByServiceCategoryCategoryId(2L)).thenReturn(List.of());
-		when(staffDetailsRepository.findByHospitalHospitalId(1L)).thenReturn(List.of());
-		when(staffDetailsRepository.findAll()).thenReturn(List.of(anyDoctor));
-		when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> inv.getArgument(0));
-
-		CreateAppointmentDto dto = new CreateAppointmentDto();
-		dto.setHospitalId(1L);
-		dto.setServiceCategoryId(2L);
-		dto.setDoctorId(3L);
-		dto.setAppointmentDateTime(LocalDateTime.now().plusDays(1));
-
-		var result = appointmentService.createAppointment(dto);
-		assertEquals(7L, result.getDoctorId());
+		assertEquals(3L, result.getDoctorId());
+		verify(referenceDataCache, never()).fallbackDoctor(any(), any());
 	}
 
 	@Test
@@ -194,14 +176,12 @@ class AppointmentServiceAdditionalTest {
 		when(authentication.getName()).thenReturn("john@doe");
 		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
 		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.empty());
-		when(staffDetailsRepository.findByServiceCategoryCategoryId(2L)).thenReturn(List.of());
-		when(staffDetailsRepository.findByHospitalHospitalId(1L)).thenReturn(List.of());
-		when(staffDetailsRepository.findAll()).thenReturn(List.of());
+		HospitalRef hospital = new HospitalRef(1L, "H");
+		CategoryRef sc = new CategoryRef(2L, "C");
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(hospital));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(sc));
+		when(referenceDataCache.doctor(3L)).thenReturn(Optional.empty());
+		when(referenceDataCache.fallbackDoctor(2L, 1L)).thenReturn(Optional.empty());
 		when(userRepository.findByEmail("placeholder.doctor@lankamed.com")).thenReturn(Optional.empty());
 		when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 		when(staffDetailsRepository.save(any(StaffDetails.class))).thenAnswer(inv -> {
@@ -227,8 +207,7 @@ class AppointmentServiceAdditionalTest {
 		when(authentication.getName()).thenReturn("john@doe");
 		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
 		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.empty());
-		when(hospitalRepository.findAll()).thenReturn(List.of());
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.empty());
 
 		CreateAppointmentDto dto = new CreateAppointmentDto();
 		dto.setHospitalId(1L);
@@ -246,10 +225,9 @@ class AppointmentServiceAdditionalTest {
 		when(authentication.getName()).thenReturn("john@doe");
 		Patient p = Patient.builder().user(User.builder().email("john@doe").build()).build();
 		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(p));
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.empty());
-		when(serviceCategoryRepository.findAll()).thenReturn(List.of());
+		HospitalRef hospital = new HospitalRef(1L, "H");
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(hospital));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.empty());
 
 		CreateAppointmentDto dto = new CreateAppointmentDto();
 		dto.setHospitalId(1L);
@@ -267,12 +245,12 @@ class AppointmentServiceAdditionalTest {
 		when(authentication.getName()).thenReturn("user@example.com");
 		Patient p = Patient.builder().user(User.builder().email("user@example.com").build()).build();
 		when(patientRepository.findByUserEmail("user@example.com")).thenReturn(Optional.of(p));
-		Hospital hospital = Hospital.builder().hospitalId(1L).name("H").build();
-		ServiceCategory sc = ServiceCategory.builder().categoryId(2L).name("C").build();
-		StaffDetails doctor = StaffDetails.builder().staffId(3L).user(User.builder().firstName("A").lastName("B").build()).build();
-		when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-		when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(sc));
-		when(staffDetailsRepository.findById(3L)).thenReturn(Optional.of(doctor));
+		HospitalRef hospital = new HospitalRef(1L, "H");
+		CategoryRef sc = new CategoryRef(2L, "C");
+		DoctorRef doctor = new DoctorRef(3L, "A", "B", null, null, null, null);
+		when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(hospital));
+		when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(sc));
+		when(referenceDataCache.doctor(3L)).thenReturn(Optional.of(doctor));
 		when(appointmentRepository.save(any(Appointment.class))).thenThrow(new RuntimeException("DB down"));
 
 		CreateAppointmentDto dto = new CreateAppointmentDto();
@@ -286,10 +264,11 @@ class AppointmentServiceAdditionalTest {
 	}
 
 	@Test
-	@DisplayName("getPatientAppointments - with auth uses repository by email; without uses findAll")
+	@DisplayName("getPatientAppointments - with auth uses repository by patient id; without uses findAll")
 	void getPatientAppointments_authVsAnonymous() {
 		when(authentication.getName()).thenReturn("john@doe");
-		when(appointmentRepository.findByPatientUserEmailOrderByAppointmentDateTimeDesc("john@doe"))
+		when(patientRepository.findByUserEmail("john@doe")).thenReturn(Optional.of(Patient.builder().patientId(5L).build()));
+		when(appointmentRepository.findByPatientPatientIdOrderByAppointmentDateTimeDesc(5L))
 				.thenReturn(List.of());
 		var withAuth = appointmentService.getPatientAppointments();
 		assertNotNull(withAuth);
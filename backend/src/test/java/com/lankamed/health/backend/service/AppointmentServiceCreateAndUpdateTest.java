@@ -15,6 +15,9 @@ import com.lankamed.health.backend.repository.ServiceCategoryRepository;
 import com.lankamed.health.backend.repository.StaffDetailsRepository;
 import com.lankamed.health.backend.repository.UserRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.service.ReferenceDataCache.CategoryRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.DoctorRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.HospitalRef;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -40,6 +43,8 @@ class AppointmentServiceCreateAndUpdateTest {
     @Mock private ServiceCategoryRepository serviceCategoryRepository;
     @Mock private StaffDetailsRepository staffDetailsRepository;
     @Mock private UserRepository userRepository;
+    @Mock private DoctorSlotService doctorSlotService;
+    @Mock private ReferenceDataCache referenceDataCache;
     @Mock private Authentication authentication;
     @Mock private SecurityContext securityContext;
 
@@ -54,6 +59,9 @@ class AppointmentServiceCreateAndUpdateTest {
     @BeforeEach
     void setUp() {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(doctorSlotService.reserveSlot(any(), any())).thenReturn(true);
+        lenient().when(staffDetailsRepository.getReferenceById(any()))
+                .thenAnswer(inv -> StaffDetails.builder().staffId(inv.getArgument(0)).build());
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("john.doe@example.com");
 
@@ -78,9 +86,9 @@ class AppointmentServiceCreateAndUpdateTest {
         dto.setPriority(true);
 
         when(patientRepository.findByUserEmail("john.doe@example.com")).thenReturn(Optional.of(patient));
-        when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-        when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(category));
-        when(staffDetailsRepository.findById(3L)).thenReturn(Optional.of(doctor));
+        when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(new HospitalRef(1L, "City General")));
+        when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(new CategoryRef(2L, "Cardiology")));
+        when(referenceDataCache.doctor(3L)).thenReturn(Optional.of(new DoctorRef(3L, "Dr. Jane", "Smith", "Cardiology", null, 1L, 2L)));
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> {
             Appointment a = inv.getArgument(0);
             a.setAppointmentId(123L);
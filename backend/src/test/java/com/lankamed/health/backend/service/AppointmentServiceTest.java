@@ -3,6 +3,8 @@ package com.lankamed.health.backend.service;
 import com.lankamed.health.backend.dto.AppointmentDto;
 import com.lankamed.health.backend.model.*;
 import com.lankamed.health.backend.repository.AppointmentRepository;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.model.ServiceCategory;
@@ -16,11 +18,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +35,9 @@ class AppointmentServiceTest {
     @Mock
     private AppointmentRepository appointmentRepository;
 
+    @Mock
+    private PatientRepository patientRepository;
+
     @Mock
     private Authentication authentication;
 
@@ -99,7 +106,9 @@ class AppointmentServiceTest {
         // Mock SecurityContext so AppointmentService.getCurrentUserEmail works
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
+        ReflectionTestUtils.setField(appointmentService, "requestIdentity", new RequestIdentity(patientRepository));
         lenient().when(authentication.getName()).thenReturn("john.doe@example.com");
+        lenient().when(patientRepository.findByUserEmail("john.doe@example.com")).thenReturn(Optional.of(testPatient));
     }
 
     @AfterEach
@@ -111,7 +120,7 @@ class AppointmentServiceTest {
     @Test
     void getPatientAppointments_Success() {
         // Given
-        when(appointmentRepository.findByPatientUserEmailOrderByAppointmentDateTimeDesc("john.doe@example.com"))
+        when(appointmentRepository.findByPatientPatientIdOrderByAppointmentDateTimeDesc(1L))
                 .thenReturn(Arrays.asList(testAppointment));
 
         // When
@@ -141,13 +150,13 @@ class AppointmentServiceTest {
         assertEquals("City General Hospital", dto.getHospitalName());
         assertEquals("Cardiology", dto.getServiceCategoryName());
 
-        verify(appointmentRepository).findByPatientUserEmailOrderByAppointmentDateTimeDesc("john.doe@example.com");
+        verify(appointmentRepository).findByPatientPatientIdOrderByAppointmentDateTimeDesc(1L);
     }
 
     @Test
     void getPatientAppointments_EmptyList() {
         // Given
-        when(appointmentRepository.findByPatientUserEmailOrderByAppointmentDateTimeDesc("john.doe@example.com"))
+        when(appointmentRepository.findByPatientPatientIdOrderByAppointmentDateTimeDesc(1L))
                 .thenReturn(Collections.emptyList());
 
         // When
@@ -171,7 +180,7 @@ class AppointmentServiceTest {
                 .status(Appointment.Status.PENDING)
                 .build();
 
-        when(appointmentRepository.findByPatientUserEmailOrderByAppointmentDateTimeDesc("john.doe@example.com"))
+        when(appointmentRepository.findByPatientPatientIdOrderByAppointmentDateTimeDesc(1L))
                 .thenReturn(Arrays.asList(broken));
 
         // Then
@@ -127,7 +127,10 @@ class AuthServiceTest {
                 .thenReturn(authentication);
         when(authentication.getAuthorities())
                 .thenReturn((java.util.Collection) List.of(new SimpleGrantedAuthority("ROLE_PATIENT")));
-        when(jwtUtil.generateToken(email, "PATIENT")).thenReturn(expectedToken);
+        when(userRepository.findByEmail(email)).thenReturn(java.util.Optional.of(user(7L, email, Role.PATIENT)));
+        Patient patient = Patient.builder().patientId(11L).build();
+        when(patientRepository.findByUserEmail(email)).thenReturn(java.util.Optional.of(patient));
+        when(jwtUtil.generateToken(email, "PATIENT", 7L, 11L, 0)).thenReturn(expectedToken);
 
         // When
         String result = authService.login(email, password);
@@ -135,7 +138,7 @@ class AuthServiceTest {
         // Then
         assertEquals(expectedToken, result);
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtil).generateToken(email, "PATIENT");
+        verify(jwtUtil).generateToken(email, "PATIENT", 7L, 11L, 0);
     }
 
     @Test
@@ -149,14 +152,16 @@ class AuthServiceTest {
                 .thenReturn(authentication);
         when(authentication.getAuthorities())
                 .thenReturn((java.util.Collection) List.of(new SimpleGrantedAuthority("ROLE_DOCTOR")));
-        when(jwtUtil.generateToken(email, "DOCTOR")).thenReturn(expectedToken);
+        when(userRepository.findByEmail(email)).thenReturn(java.util.Optional.of(user(8L, email, Role.DOCTOR)));
+        when(jwtUtil.generateToken(email, "DOCTOR", 8L, null, 0)).thenReturn(expectedToken);
 
         // When
         String result = authService.login(email, password);
 
         // Then
         assertEquals(expectedToken, result);
-        verify(jwtUtil).generateToken(email, "DOCTOR");
+        verify(jwtUtil).generateToken(email, "DOCTOR", 8L, null, 0);
+        verify(patientRepository, never()).findByUserEmail(email);
     }
 
     @Test
@@ -170,13 +175,19 @@ class AuthServiceTest {
                 .thenReturn(authentication);
         when(authentication.getAuthorities())
                 .thenReturn((java.util.Collection) List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
-        when(jwtUtil.generateToken(email, "ADMIN")).thenReturn(expectedToken);
+        when(userRepository.findByEmail(email)).thenReturn(java.util.Optional.of(user(9L, email, Role.ADMIN)));
+        when(jwtUtil.generateToken(email, "ADMIN", 9L, null, 0)).thenReturn(expectedToken);
 
         // When
         String result = authService.login(email, password);
 
         // Then
         assertEquals(expectedToken, result);
-        verify(jwtUtil).generateToken(email, "ADMIN");
+        verify(jwtUtil).generateToken(email, "ADMIN", 9L, null, 0);
+        verify(patientRepository, never()).findByUserEmail(email);
+    }
+
+    private static User user(Long userId, String email, Role role) {
+        return User.builder().userId(userId).email(email).role(role).passwordHash("hash").build();
     }
 }
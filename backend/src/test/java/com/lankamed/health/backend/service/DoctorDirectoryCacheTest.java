@@ -0,0 +1,87 @@
+package com.lankamed.health.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoctorDirectoryCacheTest {
+
+    @Test
+    void get_sameKey_loadsOnceThenHits() {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(10, 300);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("doctors", "smith", null, () -> List.of(loads.incrementAndGet()));
+        List<Integer> second = cache.get("doctors", "smith", null, () -> List.of(loads.incrementAndGet()));
+
+        assertEquals(List.of(1), second);
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void get_viewsAreCachedSeparately() {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(10, 300);
+        cache.get("doctors", null, null, () -> List.of("doctor"));
+        assertEquals(List.of("profile"), cache.get("profiles", null, null, () -> List.of("profile")));
+    }
+
+    @Test
+    void normalize_blankAndCaseVariantsShareKey() {
+        assertNull(DoctorDirectoryCache.normalize("   "));
+        assertNull(DoctorDirectoryCache.normalize(null));
+        assertEquals("jane smith", DoctorDirectoryCache.normalize("  Jane SMITH "));
+    }
+
+    @Test
+    void get_overCapacity_evictsLeastRecentlyUsed() {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(2, 300);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("doctors", "a", null, () -> List.of(loads.incrementAndGet()));
+        cache.get("doctors", "b", null, () -> List.of(loads.incrementAndGet()));
+        cache.get("doctors", "a", null, () -> List.of(loads.incrementAndGet()));
+        cache.get("doctors", "c", null, () -> List.of(loads.incrementAndGet()));
+
+        cache.get("doctors", "a", null, () -> List.of(loads.incrementAndGet()));
+        assertEquals(3, loads.get());
+        cache.get("doctors", "b", null, () -> List.of(loads.incrementAndGet()));
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getStats().get("size"));
+        assertTrue((Long) cache.getStats().get("evictions") >= 1);
+    }
+
+    @Test
+    void get_expiredEntry_reloaded() {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(10, 0);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("doctors", null, null, () -> List.of(loads.incrementAndGet()));
+        cache.get("doctors", null, null, () -> List.of(loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void invalidateAll_dropsEntries() {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(10, 300);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("doctors", null, null, () -> List.of(loads.incrementAndGet()));
+        cache.invalidateAll();
+        cache.get("doctors", null, null, () -> List.of(loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void get_invalidatedWhileLoading_resultNotCached() {
+        DoctorDirectoryCache cache = new DoctorDirectoryCache(10, 300);
+        cache.get("doctors", null, null, () -> {
+            cache.invalidateAll();
+            return List.of("stale");
+        });
+        assertEquals(List.of("fresh"), cache.get("doctors", null, null, () -> List.of("fresh")));
+    }
+}
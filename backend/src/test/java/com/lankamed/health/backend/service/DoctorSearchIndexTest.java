@@ -0,0 +1,80 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DoctorSearchIndexTest {
+
+    private DoctorRepository doctorRepository;
+    private DoctorSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findDoctorSearchTerms()).thenReturn(List.of(
+                new Object[]{1L, "Jane", "Smith", "Cardiologist"},
+                new Object[]{2L, "Tom", "Blacksmith", "Neurologist"},
+                new Object[]{3L, "Ann", "Lee", "Cardiologist"},
+                new Object[]{4L, "Sam", "Perera", null}
+        ));
+        index = new DoctorSearchIndex(doctorRepository);
+    }
+
+    @Test
+    void search_noFilters_returnsAllDoctors() {
+        assertEquals(4, index.search(null, " ").size());
+    }
+
+    @Test
+    void search_prefixRankedAboveSubstring() {
+        assertEquals(List.of(1L, 2L), index.search("smi", null));
+    }
+
+    @Test
+    void search_fullNameCaseAndSpacing_normalized() {
+        assertEquals(List.of(1L), index.search("  JANE   smith ", null));
+    }
+
+    @Test
+    void search_typos_tolerated() {
+        assertEquals(List.of(1L), index.search("Smtih", null));
+        assertEquals(List.of(3L, 1L), index.search(null, "cardiolgist"));
+    }
+
+    @Test
+    void search_shortQueriesAreNotFuzzy() {
+        assertTrue(index.search("xyz", null).isEmpty());
+    }
+
+    @Test
+    void search_bothFiltersMustMatch() {
+        assertEquals(List.of(3L), index.search("lee", "cardio"));
+        assertTrue(index.search("lee", "neuro").isEmpty());
+    }
+
+    @Test
+    void search_builtOnceUntilMarkedStale() {
+        index.search("jane", null);
+        index.search("tom", null);
+        verify(doctorRepository, times(1)).findDoctorSearchTerms();
+
+        when(doctorRepository.findDoctorSearchTerms()).thenReturn(List.<Object[]>of(new Object[]{5L, "Nimal", "Silva", "Dermatologist"}));
+        index.markStale();
+
+        assertEquals(List.of(5L), index.search("nimal", null));
+        assertTrue(index.search("jane", null).isEmpty());
+        verify(doctorRepository, times(2)).findDoctorSearchTerms();
+    }
+
+    @Test
+    void distance_countsAdjacentSwapAsOneEdit() {
+        assertEquals(1, DoctorSearchIndex.distance("smtih", "smith"));
+        assertEquals(3, DoctorSearchIndex.distance("kitten", "sitting"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.model.DoctorDayBooking;
+import com.lankamed.health.backend.repository.DoctorDayBookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent reservations against the H2 test datasource, each in its own committed transaction,
+ * so the conditional UPDATE on the doctor-day row and the seeding INSERT are what keep a day within capacity.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("h2")
+@Import({DoctorSlotServiceImpl.class, DoctorSlotLedger.class})
+@TestPropertySource(properties = {"feature.slots.enabled=true", "feature.slots.capacity=10"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorSlotReservationStressTest {
+
+    private static final int CAPACITY = 10;
+    private static final int DOCTORS = 5;
+    private static final int DAYS = 4;
+    private static final int REQUESTS = 400;
+    // Stays below the connection pool size so every worker holds a connection of its own
+    private static final int THREADS = 8;
+
+    @Autowired private DoctorSlotService doctorSlotService;
+    @Autowired private DoctorDayBookingRepository dayBookingRepository;
+
+    @AfterEach
+    void tearDown() {
+        dayBookingRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void parallelReservations_neverExceedCapacity() throws Exception {
+        LocalDate firstDay = LocalDate.of(2030, 1, 1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            long doctorId = 1 + (i % DOCTORS);
+            LocalDate day = firstDay.plusDays((i / DOCTORS) % DAYS);
+            results.add(pool.submit(() -> {
+                start.await();
+                return doctorSlotService.reserveSlot(doctorId, day.atTime(10, 0));
+            }));
+        }
+
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) accepted++;
+        }
+        pool.shutdown();
+
+        assertEquals(DOCTORS * DAYS * CAPACITY, accepted);
+        List<DoctorDayBooking> rows = dayBookingRepository.findAll();
+        assertEquals(DOCTORS * DAYS, rows.size());
+        rows.forEach(row -> assertEquals(CAPACITY, row.getBooked(),
+                "doctor " + row.getDoctorId() + " on " + row.getSlotDate()));
+    }
+}
@@ -1,13 +1,20 @@
 package com.lankamed.health.backend.service;
 
 import com.lankamed.health.backend.dto.SlotAvailabilityDto;
+import com.lankamed.health.backend.dto.SlotRangeDto;
+import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.model.StaffDetails;
 import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.listener.DoctorDirectoryChangedEvent;
 import com.lankamed.health.backend.repository.AppointmentRepository;
+import com.lankamed.health.backend.repository.DoctorDayBookingRepository;
 import com.lankamed.health.backend.repository.StaffDetailsRepository;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -18,7 +25,7 @@ class DoctorSlotServiceTest {
     void availability_flagOff_returnsZeros() {
         AppointmentRepository apptRepo = mock(AppointmentRepository.class);
         StaffDetailsRepository staffRepo = mock(StaffDetailsRepository.class);
-        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(apptRepo, staffRepo, false, 10);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(new DoctorSlotLedger(apptRepo, 60), mock(DoctorDayBookingRepository.class), staffRepo, false, 10);
         SlotAvailabilityDto dto = service.getAvailability(1L, LocalDate.now());
         assertEquals(0, dto.getCapacity());
         assertEquals(0, dto.getAvailable());
@@ -29,15 +36,190 @@ class DoctorSlotServiceTest {
     void availability_flagOn_countsBookings() {
         AppointmentRepository apptRepo = mock(AppointmentRepository.class);
         StaffDetailsRepository staffRepo = mock(StaffDetailsRepository.class);
-        when(apptRepo.countByDoctorStaffIdAndAppointmentDateTimeBetween(anyLong(), any(), any())).thenReturn(7L);
+        when(apptRepo.countBookings(anyLong(), any(), any(), eq(Appointment.Status.CANCELLED))).thenReturn(7L);
         when(staffRepo.findById(1L)).thenReturn(java.util.Optional.of(
                 StaffDetails.builder().staffId(1L).user(User.builder().firstName("Dr").lastName("Who").build()).build()
         ));
-        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(apptRepo, staffRepo, true, 10);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(new DoctorSlotLedger(apptRepo, 60), mock(DoctorDayBookingRepository.class), staffRepo, true, 10);
         SlotAvailabilityDto dto = service.getAvailability(1L, LocalDate.now());
         assertEquals(10, dto.getCapacity());
         assertEquals(7, dto.getBooked());
         assertEquals(3, dto.getAvailable());
+        assertEquals("Dr Who", dto.getDoctorName());
         assertTrue(service.canBook(1L, LocalDate.now()));
     }
+
+    @Test
+    void availability_repeatedReads_servedFromLedger() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        StaffDetailsRepository staffRepo = mock(StaffDetailsRepository.class);
+        when(apptRepo.countBookings(anyLong(), any(), any(), any())).thenReturn(2L);
+        when(staffRepo.findById(1L)).thenReturn(java.util.Optional.of(
+                StaffDetails.builder().staffId(1L).user(User.builder().firstName("Dr").lastName("Who").build()).build()
+        ));
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(new DoctorSlotLedger(apptRepo, 60), mock(DoctorDayBookingRepository.class), staffRepo, true, 10);
+        LocalDate day = LocalDate.now();
+
+        service.getAvailability(1L, day);
+        service.getAvailability(1L, day);
+        service.canBook(1L, day);
+
+        verify(apptRepo, times(1)).countBookings(anyLong(), any(), any(), any());
+        verify(staffRepo, times(1)).findById(1L);
+    }
+
+    @Test
+    void ledger_bookingsAndReleases_adjustWarmCounter() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        when(apptRepo.countBookings(anyLong(), any(), any(), any())).thenReturn(9L);
+        DoctorSlotLedger ledger = new DoctorSlotLedger(apptRepo, 60);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(ledger, mock(DoctorDayBookingRepository.class), mock(StaffDetailsRepository.class), true, 10);
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        assertTrue(service.canBook(1L, day));
+        ledger.recordBooking(1L, day.atTime(10, 0));
+        assertEquals(10, ledger.getBooked(1L, day));
+        assertFalse(service.canBook(1L, day));
+
+        ledger.recordRelease(1L, day.atTime(10, 0));
+        assertTrue(service.canBook(1L, day));
+    }
+
+    @Test
+    void ledger_bookingForColdDay_loadsFromDatabaseOnRead() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        when(apptRepo.countBookings(anyLong(), any(), any(), any())).thenReturn(4L);
+        DoctorSlotLedger ledger = new DoctorSlotLedger(apptRepo, 60);
+        LocalDate day = LocalDate.now().plusDays(2);
+
+        ledger.recordBooking(1L, day.atTime(9, 0));
+        verifyNoInteractions(apptRepo);
+        assertEquals(4, ledger.getBooked(1L, day));
+    }
+
+    @Test
+    void ledger_warmAfterBookingRegistered_commitEvictsInsteadOfDoubleCounting() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        // The booking has committed by the time the counter is warmed, so the count already includes it
+        when(apptRepo.countBookings(anyLong(), any(), any(), any())).thenReturn(5L);
+        DoctorSlotLedger ledger = new DoctorSlotLedger(apptRepo, 60);
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.recordBooking(1L, day.atTime(9, 0));
+            assertEquals(5, ledger.getBooked(1L, day));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(5, ledger.getBooked(1L, day));
+        verify(apptRepo, times(2)).countBookings(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void ledger_expiredCounter_reloaded() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        when(apptRepo.countBookings(anyLong(), any(), any(), any())).thenReturn(1L, 3L);
+        DoctorSlotLedger ledger = new DoctorSlotLedger(apptRepo, 0);
+        LocalDate day = LocalDate.now().plusDays(1);
+
+        assertEquals(1, ledger.getBooked(1L, day));
+        assertEquals(3, ledger.getBooked(1L, day));
+    }
+
+    @Test
+    void doctorProfileChange_forgetsMemoisedName() {
+        StaffDetailsRepository staffRepo = mock(StaffDetailsRepository.class);
+        when(staffRepo.findById(1L)).thenReturn(
+                java.util.Optional.of(StaffDetails.builder().staffId(1L).user(User.builder().firstName("Dr").lastName("Who").build()).build()),
+                java.util.Optional.of(StaffDetails.builder().staffId(1L).user(User.builder().firstName("Dr").lastName("Watson").build()).build()));
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(
+                new DoctorSlotLedger(mock(AppointmentRepository.class), 60), mock(DoctorDayBookingRepository.class), staffRepo, true, 10);
+        LocalDate day = LocalDate.now();
+
+        assertEquals("Dr Who", service.getAvailability(1L, day).getDoctorName());
+        service.onDoctorDirectoryChanged(new DoctorDirectoryChangedEvent(false));
+        assertEquals("Dr Who", service.getAvailability(1L, day).getDoctorName());
+        service.onDoctorDirectoryChanged(new DoctorDirectoryChangedEvent(true));
+        assertEquals("Dr Watson", service.getAvailability(1L, day).getDoctorName());
+    }
+
+    @Test
+    void availabilityRange_multipleDoctors_singleGroupedQueryWarmsLedger() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        StaffDetailsRepository staffRepo = mock(StaffDetailsRepository.class);
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        when(apptRepo.countBookingsPerDay(any(), any(), any(), eq(Appointment.Status.CANCELLED))).thenReturn(List.of(
+                new Object[]{1L, from, 3L},
+                new Object[]{2L, from.plusDays(2), 10L}
+        ));
+        DoctorSlotLedger ledger = new DoctorSlotLedger(apptRepo, 60);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(ledger, mock(DoctorDayBookingRepository.class), staffRepo, true, 10);
+
+        List<SlotRangeDto> grid = service.getAvailabilityRange(List.of(1L, 2L), from, from.plusDays(2));
+
+        assertEquals(2, grid.size());
+        assertArrayEquals(new int[]{3, 0, 0}, grid.get(0).getBooked());
+        assertArrayEquals(new int[]{0, 0, 10}, grid.get(1).getBooked());
+        assertEquals(10, grid.get(1).getCapacity());
+        assertFalse(service.canBook(2L, from.plusDays(2)));
+        assertTrue(service.canBook(1L, from.plusDays(1)));
+        verify(apptRepo, times(1)).countBookingsPerDay(any(), any(), any(), any());
+        verify(apptRepo, never()).countBookings(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void ledger_singleDay_countsSameHalfOpenDayAsRange() {
+        AppointmentRepository apptRepo = mock(AppointmentRepository.class);
+        DoctorSlotLedger ledger = new DoctorSlotLedger(apptRepo, 60);
+        LocalDate day = LocalDate.of(2030, 1, 1);
+
+        ledger.getBooked(1L, day);
+
+        verify(apptRepo).countBookings(1L, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), Appointment.Status.CANCELLED);
+    }
+
+    @Test
+    void availabilityRange_invalidRange_throws() {
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(
+                new DoctorSlotLedger(mock(AppointmentRepository.class), 60), mock(DoctorDayBookingRepository.class), mock(StaffDetailsRepository.class), true, 10);
+        LocalDate day = LocalDate.of(2030, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> service.getAvailabilityRange(1L, day, day.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> service.getAvailabilityRange(1L, day, day.plusDays(365)));
+    }
+
+    @Test
+    void reserveSlot_firstBookingOfDay_seedsCounterThenIncrements() {
+        DoctorDayBookingRepository dayRepo = mock(DoctorDayBookingRepository.class);
+        LocalDate day = LocalDate.of(2030, 1, 1);
+        when(dayRepo.incrementIfBelow(1L, day, 10)).thenReturn(0, 1);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(
+                new DoctorSlotLedger(mock(AppointmentRepository.class), 60), dayRepo, mock(StaffDetailsRepository.class), true, 10);
+
+        assertTrue(service.reserveSlot(1L, day.atTime(9, 30)));
+        verify(dayRepo).seedIfAbsent(1L, day, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        verify(dayRepo, times(2)).incrementIfBelow(1L, day, 10);
+    }
+
+    @Test
+    void reserveSlot_dayAtCapacity_rejected() {
+        DoctorDayBookingRepository dayRepo = mock(DoctorDayBookingRepository.class);
+        when(dayRepo.incrementIfBelow(anyLong(), any(), anyInt())).thenReturn(0);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(
+                new DoctorSlotLedger(mock(AppointmentRepository.class), 60), dayRepo, mock(StaffDetailsRepository.class), true, 10);
+
+        assertFalse(service.reserveSlot(1L, LocalDate.of(2030, 1, 1).atTime(9, 30)));
+    }
+
+    @Test
+    void reserveSlot_flagOff_alwaysAllowedWithoutSql() {
+        DoctorDayBookingRepository dayRepo = mock(DoctorDayBookingRepository.class);
+        DoctorSlotServiceImpl service = new DoctorSlotServiceImpl(
+                new DoctorSlotLedger(mock(AppointmentRepository.class), 60), dayRepo, mock(StaffDetailsRepository.class), false, 10);
+
+        assertTrue(service.reserveSlot(1L, LocalDate.of(2030, 1, 1).atTime(9, 30)));
+        verifyNoInteractions(dayRepo);
+    }
 }
@@ -0,0 +1,92 @@
+package com.lankamed.health.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.ExportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class ExportServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 5, 1, 10, 0);
+
+    @Autowired private TestEntityManager em;
+
+    private ExportService exportService;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(new ExportRepository(em.getEntityManager(), 500), objectMapper);
+        Hospital hospital = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        ServiceCategory category = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        User patientUser = em.persist(User.builder().firstName("Pat").lastName("Ient").email("patient@example.com")
+                .passwordHash("hash").role(Role.PATIENT).build());
+        Patient patient = em.persist(Patient.builder().user(patientUser).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+        User doctorUser = em.persist(User.builder().firstName("Jane").lastName("Smith").email("jane@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        StaffDetails doctor = em.persist(StaffDetails.builder().user(doctorUser).hospital(hospital).serviceCategory(category)
+                .specialization("Cardiologist").build());
+        for (int day = 0; day < 5; day++) {
+            Appointment appointment = em.persist(Appointment.builder().patient(patient).doctor(doctor).hospital(hospital)
+                    .serviceCategory(category).appointmentDateTime(BASE.plusDays(day)).status(Appointment.Status.PENDING).build());
+            em.persist(new Payment(patient, appointment, 1500.0, PaymentType.Cash, PaymentStatus.Paid,
+                    "TXN-" + day, BASE.plusDays(day)));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void exportAppointments_rangeFilter_writesOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportAppointments(BASE.plusDays(1), BASE.plusDays(4), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, count);
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(BASE.plusDays(1).toString().substring(0, 16), first.get("appointmentDateTime").asText().substring(0, 16));
+        assertEquals("Jane Smith", first.get("doctorName").asText());
+        assertEquals("Pat Ient", first.get("patientName").asText());
+    }
+
+    @Test
+    void exportPayments_openRange_exportsEverything() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportPayments(null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, count);
+        JsonNode last = objectMapper.readTree(lines[4]);
+        assertEquals("TXN-4", last.get("transactionId").asText());
+        assertEquals("Paid", last.get("status").asText());
+        assertTrue(last.get("appointmentId").isNumber());
+    }
+
+    @Test
+    void export_invalidRange_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> exportService.exportPayments(BASE, BASE, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.lankamed.health.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private final IdempotencyCache cache = new IdempotencyCache(100, 3600);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void execute_sameKey_replaysFirstResult() {
+        String first = cache.execute("payment:1", "k1", "fp", () -> run("A"), Optional::empty).join();
+        String second = cache.execute("payment:1", "k1", "fp", () -> run("B"), Optional::empty).join();
+
+        assertEquals("A", first);
+        assertEquals("A", second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_noKey_alwaysRuns() {
+        cache.execute("payment:1", null, "fp", () -> run("A"), Optional::empty).join();
+        cache.execute("payment:1", null, "fp", () -> run("A"), Optional::empty).join();
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_keysAreScoped() {
+        cache.execute("payment:1", "k1", "fp", () -> run("A"), Optional::empty).join();
+        String other = cache.execute("payment:2", "k1", "fp", () -> run("B"), Optional::empty).join();
+
+        assertEquals("B", other);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_differentPayloadWithSameKey_rejected() {
+        cache.execute("payment:1", "k1", "fp-1", () -> run("A"), Optional::empty).join();
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> cache.execute("payment:1", "k1", "fp-2", () -> run("B"), Optional::empty).join());
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_concurrentDuplicates_runOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(8);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(pool.submit(() -> {
+                    started.countDown();
+                    return cache.execute("payment:1", "k1", "fp", () -> {
+                        runs.incrementAndGet();
+                        return slow;
+                    }, Optional::empty).join();
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // Let the duplicates queue up behind the first call while it is still in flight
+            Thread.sleep(100);
+            slow.complete("A");
+
+            for (Future<String> call : calls) {
+                assertEquals("A", call.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_failure_isNotRemembered() {
+        assertThrows(CompletionException.class, () -> cache.execute("payment:1", "k1", "fp",
+                () -> CompletableFuture.<String>failedFuture(new IllegalStateException("gateway busy")), Optional::empty).join());
+
+        assertEquals("A", cache.execute("payment:1", "k1", "fp", () -> run("A"), Optional::empty).join());
+    }
+
+    @Test
+    void execute_storedRecord_answersWithoutRunning() {
+        String result = cache.execute("payment:1", "k1", "fp", () -> run("B"), () -> Optional.of("stored")).join();
+
+        assertEquals("stored", result);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void execute_unsettledResult_replayRereadsStoredRecord() {
+        String first = cache.execute("payment:1", "k1", "fp", () -> run("Pending"), Optional::empty,
+                value -> !"Pending".equals(value)).join();
+        String replay = cache.execute("payment:1", "k1", "fp", () -> run("B"), () -> Optional.of("Paid"),
+                value -> !"Pending".equals(value)).join();
+        String cached = cache.execute("payment:1", "k1", "fp", () -> run("C"), () -> Optional.of("Refunded"),
+                value -> !"Pending".equals(value)).join();
+
+        assertEquals("Pending", first);
+        assertEquals("Paid", replay);
+        assertEquals("Paid", cached);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_lostUniqueKeyRace_returnsWinner() {
+        AtomicInteger lookups = new AtomicInteger();
+
+        String result = cache.execute("payment:1", "k1", "fp", () -> {
+            throw new DataIntegrityViolationException("uk_payments_idempotency_key");
+        }, () -> lookups.incrementAndGet() == 1 ? Optional.empty() : Optional.of("winner")).join();
+
+        assertEquals("winner", result);
+    }
+
+    @Test
+    void execute_boundedNumberOfEntries() {
+        IdempotencyCache small = new IdempotencyCache(2, 3600);
+        small.execute("payment:1", "k1", "fp", () -> run("A"), Optional::empty).join();
+        small.execute("payment:1", "k2", "fp", () -> run("B"), Optional::empty).join();
+        small.execute("payment:1", "k3", "fp", () -> run("C"), Optional::empty).join();
+
+        // k1 was evicted, so without a stored record it runs again
+        small.execute("payment:1", "k1", "fp", () -> run("A"), Optional::empty).join();
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void normalizeKey_blankIsNullAndLongIsRejected() {
+        assertNull(IdempotencyCache.normalizeKey("  "));
+        assertEquals("abc", IdempotencyCache.normalizeKey(" abc "));
+        assertThrows(IllegalArgumentException.class, () -> IdempotencyCache.normalizeKey("x".repeat(101)));
+    }
+
+    private CompletableFuture<String> run(String value) {
+        runs.incrementAndGet();
+        return CompletableFuture.completedFuture(value);
+    }
+}
@@ -0,0 +1,161 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.dto.PaymentAggregateDto;
+import com.lankamed.health.backend.dto.PaymentReportDto;
+import com.lankamed.health.backend.model.*;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.PaymentRepository;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PaymentReportingServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 5, 1, 10, 0);
+
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private PatientRepository patientRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        Hospital general = em.persist(Hospital.builder().name("City General").address("1 Main St").build());
+        Hospital north = em.persist(Hospital.builder().name("North Clinic").address("2 Hill Rd").build());
+        ServiceCategory category = em.persist(ServiceCategory.builder().name("Cardiology").build());
+        patient = patient("pat@example.com");
+        patient("unpaid@example.com");
+        User doctorUser = em.persist(User.builder().firstName("Jane").lastName("Smith").email("jane@lankamed.com")
+                .passwordHash("hash").role(Role.DOCTOR).build());
+        StaffDetails doctor = em.persist(StaffDetails.builder().user(doctorUser).hospital(general).serviceCategory(category)
+                .specialization("Cardiologist").build());
+        Appointment atGeneral = appointment(doctor, general, category);
+        Appointment atNorth = appointment(doctor, north, category);
+
+        em.persist(new Payment(patient, atGeneral, 1000.0, PaymentType.Card, PaymentStatus.Paid, "TXN-1", BASE));
+        em.persist(new Payment(patient, atGeneral, 500.0, PaymentType.Cash, PaymentStatus.Pending, "TXN-2", BASE));
+        em.persist(new Payment(patient, atNorth, 250.0, PaymentType.Card, PaymentStatus.Failed, "TXN-3", BASE.plusDays(1)));
+        em.persist(new Payment(patient, null, 100.0, PaymentType.Insurance, PaymentStatus.Pending, "TXN-4", BASE.plusDays(3)));
+        em.flush();
+        em.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void report_groupsInSqlWithoutLoadingPayments() {
+        PaymentReportDto report = service(5).getReport();
+
+        assertEquals(4, report.getTotalPayments());
+        assertEquals(1850.0, report.getTotalAmount());
+        assertEquals(2, report.getPatients());
+        Map<String, PaymentAggregateDto> byStatus = byKey(report.getByStatus());
+        assertEquals(2, byStatus.get("Pending").getCount());
+        assertEquals(600.0, byStatus.get("Pending").getTotalAmount());
+        assertEquals(1, byStatus.get("Failed").getCount());
+        PaymentAggregateDto card = byKey(report.getByPaymentType()).get("Card");
+        assertEquals(2, card.getCount());
+        assertEquals(1250.0, card.getTotalAmount());
+        Map<String, PaymentAggregateDto> byHospital = byKey(report.getByHospital());
+        assertEquals(1500.0, byHospital.get("City General").getTotalAmount());
+        assertEquals(1, byHospital.get("North Clinic").getCount());
+        assertEquals(1, byHospital.get(null).getCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void report_cachedWithinTtl() {
+        PaymentReportingService reporting = service(60);
+        reporting.getReport();
+        long statements = statistics.getPrepareStatementCount();
+
+        reporting.getReport();
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        reporting.refresh();
+        assertEquals(statements * 2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void report_zeroTtlAlwaysQueries() {
+        PaymentReportingService reporting = service(0);
+        reporting.getReport();
+        long statements = statistics.getPrepareStatementCount();
+
+        reporting.getReport();
+        assertEquals(statements * 2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void dailyTotals_onlyDaysWithPayments() {
+        List<PaymentAggregateDto> days = service(5).getDailyTotals(BASE.toLocalDate(), BASE.toLocalDate().plusDays(2));
+
+        assertEquals(2, days.size());
+        assertEquals("2030-05-01", days.get(0).getKey());
+        assertEquals(2, days.get(0).getCount());
+        assertEquals(1500.0, days.get(0).getTotalAmount());
+        assertEquals("2030-05-02", days.get(1).getKey());
+    }
+
+    @Test
+    void dailyTotals_invalidRange_throws() {
+        PaymentReportingService reporting = service(5);
+        LocalDate day = BASE.toLocalDate();
+        assertThrows(IllegalArgumentException.class, () -> reporting.getDailyTotals(day, day.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> reporting.getDailyTotals(day, day.plusDays(400)));
+    }
+
+    @Test
+    void patientsWithoutPayments_foundWithoutLoadingPayments() {
+        List<Long> ids = paymentRepository.findPatientIdsWithoutPayments();
+
+        assertEquals(1, ids.size());
+        assertNotEquals(patient.getPatientId(), ids.get(0));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private PaymentReportingService service(long cacheSeconds) {
+        return new PaymentReportingService(paymentRepository, patientRepository, cacheSeconds, 30);
+    }
+
+    private static Map<String, PaymentAggregateDto> byKey(List<PaymentAggregateDto> aggregates) {
+        // HashMap rather than Collectors.toMap, which rejects the null hospital key
+        Map<String, PaymentAggregateDto> result = new HashMap<>();
+        aggregates.forEach(a -> result.put(a.getKey(), a));
+        return result;
+    }
+
+    private Appointment appointment(StaffDetails doctor, Hospital hospital, ServiceCategory category) {
+        return em.persist(Appointment.builder().patient(patient).doctor(doctor).hospital(hospital)
+                .serviceCategory(category).appointmentDateTime(BASE).status(Appointment.Status.PENDING).build());
+    }
+
+    private Patient patient(String email) {
+        User user = em.persist(User.builder().firstName("Pat").lastName("Ient").email(email)
+                .passwordHash("hash").role(Role.PATIENT).build());
+        return em.persist(Patient.builder().user(user).dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Patient.Gender.OTHER).contactNumber("000").address("Home").build());
+    }
+}
@@ -0,0 +1,109 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.model.Payment;
+import com.lankamed.health.backend.model.PaymentStatus;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.repository.AppointmentRepository;
+import com.lankamed.health.backend.repository.PaymentRepository;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.strategy.LatencyGatewayPayment;
+import com.lankamed.health.backend.strategy.PaymentGatewayDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PaymentServiceAsyncTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final CardPayment cardGateway = new CardPayment();
+    private PaymentGatewayDispatcher dispatcher;
+    private PaymentServiceImpl paymentService;
+
+    // Strategies are keyed by class name, so this stand-in serves the "Card" payment method
+    static class CardPayment extends LatencyGatewayPayment {
+        CardPayment() {
+            super(0);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new PaymentGatewayDispatcher(new MockEnvironment()
+                .withProperty("payments.gateway.timeout-ms", "200")
+                .withProperty("payments.gateway.failure-threshold", "2"));
+        paymentService = new PaymentServiceImpl(paymentRepository, patientRepository, mock(AppointmentRepository.class),
+                mock(PaymentReportingService.class), dispatcher, List.of(cardGateway));
+        Patient patient = new Patient();
+        patient.setPatientId(1L);
+        when(patientRepository.findByPatientId(1L)).thenReturn(Optional.of(patient));
+        when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            payment.setPaymentId(42L);
+            return payment;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void makePaymentAsync_persistsPendingThenRecordsGatewayResult() {
+        PaymentDTO result = paymentService.makePaymentAsync(cardPayment()).join();
+
+        ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+        verify(paymentRepository).save(saved.capture());
+        assertEquals(PaymentStatus.Pending, saved.getValue().getStatus());
+        verify(paymentRepository).updateStatus(42L, PaymentStatus.Pending, PaymentStatus.Paid);
+        assertEquals("Paid", result.getStatus());
+        assertNotNull(result.getTransactionId());
+    }
+
+    @Test
+    void makePaymentAsync_slowGateway_returnsPendingAndRecordsLateResult() {
+        cardGateway.setLatencyMillis(500);
+
+        CompletableFuture<PaymentDTO> call = paymentService.makePaymentAsync(cardPayment());
+        assertEquals("Pending", call.join().getStatus());
+
+        verify(paymentRepository, timeout(2000)).updateStatus(42L, PaymentStatus.Pending, PaymentStatus.Paid);
+    }
+
+    @Test
+    void makePaymentAsync_gatewayDown_marksFailedAndThenFailsFast() {
+        cardGateway.setFailing(true);
+
+        assertEquals("Failed", paymentService.makePayment(cardPayment()).getStatus());
+        assertEquals("Failed", paymentService.makePayment(cardPayment()).getStatus());
+        assertEquals("Failed", paymentService.makePayment(cardPayment()).getStatus());
+
+        assertEquals(2, cardGateway.getCalls());
+        verify(paymentRepository, times(3)).updateStatus(42L, PaymentStatus.Pending, PaymentStatus.Failed);
+    }
+
+    @Test
+    void makePaymentAsync_invalidMethod_throwsBeforeSaving() {
+        PaymentDTO dto = cardPayment();
+        dto.setPaymentMethod("Bitcoin");
+
+        assertThrows(IllegalArgumentException.class, () -> paymentService.makePaymentAsync(dto));
+        verify(paymentRepository, never()).save(any());
+    }
+
+    private static PaymentDTO cardPayment() {
+        return new PaymentDTO(1L, null, 1500.0, "Card", null, null);
+    }
+}
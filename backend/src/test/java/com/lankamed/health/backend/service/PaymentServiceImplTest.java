@@ -1,6 +1,7 @@
 package com.lankamed.health.backend.service;
 
 import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.dto.PendingPaymentRow;
 import com.lankamed.health.backend.model.Appointment;
 import com.lankamed.health.backend.model.Payment;
 import com.lankamed.health.backend.model.PaymentStatus;
@@ -11,17 +12,21 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.AppointmentRepository;
 import com.lankamed.health.backend.repository.PaymentRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.strategy.CardPayment;
+import com.lankamed.health.backend.strategy.CashPayment;
+import com.lankamed.health.backend.strategy.InsurancePayment;
+import com.lankamed.health.backend.strategy.PaymentGatewayDispatcher;
 import com.lankamed.health.backend.strategy.PaymentStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,15 +45,20 @@ class PaymentServiceImplTest {
     private AppointmentRepository appointmentRepository;
 
     @Mock
-    private PaymentStrategy cardPaymentStrategy;
+    private CardPayment cardPaymentStrategy;
 
     @Mock
-    private PaymentStrategy insurancePaymentStrategy;
+    private InsurancePayment insurancePaymentStrategy;
 
     @Mock
-    private PaymentStrategy cashPaymentStrategy;
+    private CashPayment cashPaymentStrategy;
+
+    @Mock
+    private PaymentReportingService reportingService;
+
+    @Mock
+    private PaymentGatewayDispatcher gatewayDispatcher;
 
-    @InjectMocks
     private PaymentServiceImpl paymentService;
 
     private PaymentDTO validPaymentDTO;
@@ -58,6 +68,16 @@ class PaymentServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        paymentService = new PaymentServiceImpl(paymentRepository, patientRepository, appointmentRepository,
+                reportingService, gatewayDispatcher, List.of(cardPaymentStrategy, insurancePaymentStrategy, cashPaymentStrategy));
+
+        // The dispatcher runs the strategy inline, so each test drives the gateway result through its strategy mock
+        lenient().when(gatewayDispatcher.dispatch(anyString(), any(PaymentStrategy.class), any(PaymentDTO.class), any()))
+                .thenAnswer(invocation -> {
+                    PaymentStrategy strategy = invocation.getArgument(1);
+                    return CompletableFuture.completedFuture(strategy.processPayment(invocation.getArgument(2)));
+                });
+
         // Setup test patient
         testPatient = new Patient();
         testPatient.setPatientId(1L);
@@ -103,7 +123,7 @@ class PaymentServiceImplTest {
         strategies.put("Insurance", insurancePaymentStrategy);
         strategies.put("Cash", cashPaymentStrategy);
 
-        // Use reflection to set the strategies map
+        // Mock class names don't follow the CardPayment/CashPayment naming the constructor keys on, so set the map directly
         try {
             java.lang.reflect.Field field = PaymentServiceImpl.class.getDeclaredField("paymentStrategies");
             field.setAccessible(true);
@@ -297,10 +317,8 @@ class PaymentServiceImplTest {
     @DisplayName("getPendingPayments - returns pending payments successfully")
     void getPendingPayments_success() {
         // Given
-        List<Payment> pendingPayments = Arrays.asList(testPayment);
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenReturn(pendingPayments);
+        when(paymentRepository.findPaymentRows(1L, PaymentStatus.Pending))
+                .thenReturn(List.of(pendingRow(100L, "Jane", "Smith", "City Hospital")));
 
         // When
         List<PaymentDTO> result = paymentService.getPendingPayments(1L);
@@ -313,16 +331,16 @@ class PaymentServiceImplTest {
         assertThat(result.get(0).getAmount()).isEqualTo(1500.00);
         assertThat(result.get(0).getStatus()).isEqualTo("Pending");
 
-        verify(patientRepository).findById(1L);
-        verify(paymentRepository).findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending);
+        verify(paymentRepository).findPaymentRows(1L, PaymentStatus.Pending);
+        verifyNoMoreInteractions(paymentRepository);
+        verifyNoInteractions(patientRepository);
     }
 
     @Test
-    @DisplayName("getPendingPayments - returns empty list when no pending payments")
+    @DisplayName("getPendingPayments - returns empty list without scanning all payments")
     void getPendingPayments_emptyList() {
         // Given
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
+        when(paymentRepository.findPaymentRows(1L, PaymentStatus.Pending))
                 .thenReturn(Collections.emptyList());
 
         // When
@@ -332,85 +350,16 @@ class PaymentServiceImplTest {
         assertThat(result).isNotNull();
         assertThat(result).isEmpty();
 
-        verify(patientRepository).findById(1L);
-        verify(paymentRepository).findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending);
-    }
-
-    @Test
-    @DisplayName("getPendingPayments - returns empty list when patient not found")
-    void getPendingPayments_patientNotFound() {
-        // Given
-        when(patientRepository.findById(1L)).thenReturn(Optional.empty());
-        when(patientRepository.findByPatientId(1L)).thenReturn(Optional.empty());
-
-        // When
-        List<PaymentDTO> result = paymentService.getPendingPayments(1L);
-
-        // Then
-        assertThat(result).isNotNull();
-        assertThat(result).isEmpty();
-
-        verify(patientRepository).findById(1L);
-        verify(patientRepository).findByPatientId(1L);
-        verify(paymentRepository, never()).findByPatient_PatientIdAndStatus(any(), any());
-    }
-
-    @Test
-    @DisplayName("getPendingPayments - handles primary method failure and uses alternative")
-    void getPendingPayments_primaryMethodFailure_usesAlternative() {
-        // Given
-        List<Payment> pendingPayments = Arrays.asList(testPayment);
-        when(patientRepository.findById(1L)).thenThrow(new RuntimeException("Database error"));
-        when(patientRepository.findByPatientId(1L)).thenReturn(Optional.of(testPatient));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenReturn(pendingPayments);
-
-        // When
-        List<PaymentDTO> result = paymentService.getPendingPayments(1L);
-
-        // Then
-        assertThat(result).isNotNull();
-        assertThat(result).hasSize(1);
-
-        verify(patientRepository).findById(1L);
-        verify(patientRepository).findByPatientId(1L);
-        verify(paymentRepository).findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending);
+        verify(paymentRepository).findPaymentRows(1L, PaymentStatus.Pending);
+        verify(paymentRepository, never()).findAll();
     }
 
     @Test
-    @DisplayName("getPendingPayments - handles alternative method failure and uses general query")
-    void getPendingPayments_alternativeMethodFailure_usesGeneralQuery() {
+    @DisplayName("getPendingPayments - handles query failure and returns empty list")
+    void getPendingPayments_queryFailure_returnsEmptyList() {
         // Given
-        List<Payment> allPayments = Arrays.asList(testPayment);
-        when(patientRepository.findById(1L)).thenThrow(new RuntimeException("Database error"));
-        when(patientRepository.findByPatientId(1L)).thenThrow(new RuntimeException("Database error"));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
+        when(paymentRepository.findPaymentRows(1L, PaymentStatus.Pending))
                 .thenThrow(new RuntimeException("Query error"));
-        when(paymentRepository.findByPatientPatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenThrow(new RuntimeException("Alternative query error"));
-        when(paymentRepository.findAll()).thenReturn(allPayments);
-
-        // When
-        List<PaymentDTO> result = paymentService.getPendingPayments(1L);
-
-        // Then
-        assertThat(result).isNotNull();
-        assertThat(result).hasSize(1);
-
-        verify(paymentRepository).findAll();
-    }
-
-    @Test
-    @DisplayName("getPendingPayments - handles all query methods failure and returns empty list")
-    void getPendingPayments_allMethodsFailure_returnsEmptyList() {
-        // Given
-        when(patientRepository.findById(1L)).thenThrow(new RuntimeException("Database error"));
-        when(patientRepository.findByPatientId(1L)).thenThrow(new RuntimeException("Database error"));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenThrow(new RuntimeException("Query error"));
-        when(paymentRepository.findByPatientPatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenThrow(new RuntimeException("Alternative query error"));
-        when(paymentRepository.findAll()).thenThrow(new RuntimeException("General query error"));
 
         // When
         List<PaymentDTO> result = paymentService.getPendingPayments(1L);
@@ -424,24 +373,8 @@ class PaymentServiceImplTest {
     @DisplayName("getPendingPayments - includes appointment details in DTO")
     void getPendingPayments_includesAppointmentDetails() {
         // Given
-        // Setup appointment with doctor details
-        User doctorUser = new User();
-        doctorUser.setFirstName("Jane");
-        doctorUser.setLastName("Smith");
-
-        com.lankamed.health.backend.model.StaffDetails doctor = new com.lankamed.health.backend.model.StaffDetails();
-        doctor.setUser(doctorUser);
-        testAppointment.setDoctor(doctor);
-
-        // Setup hospital
-        com.lankamed.health.backend.model.Hospital hospital = new com.lankamed.health.backend.model.Hospital();
-        hospital.setName("City Hospital");
-        testAppointment.setHospital(hospital);
-
-        List<Payment> pendingPayments = Arrays.asList(testPayment);
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenReturn(pendingPayments);
+        when(paymentRepository.findPaymentRows(1L, PaymentStatus.Pending))
+                .thenReturn(List.of(pendingRow(100L, "Jane", "Smith", "City Hospital")));
 
         // When
         List<PaymentDTO> result = paymentService.getPendingPayments(1L);
@@ -462,20 +395,9 @@ class PaymentServiceImplTest {
     @DisplayName("getPendingPayments - handles payment without appointment")
     void getPendingPayments_paymentWithoutAppointment() {
         // Given
-        Payment paymentWithoutAppointment = new Payment();
-        paymentWithoutAppointment.setPaymentId(2L);
-        paymentWithoutAppointment.setPatient(testPatient);
-        paymentWithoutAppointment.setAppointment(null);
-        paymentWithoutAppointment.setAmount(500.00);
-        paymentWithoutAppointment.setPaymentType(PaymentType.Cash);
-        paymentWithoutAppointment.setStatus(PaymentStatus.Pending);
-        paymentWithoutAppointment.setTransactionId("TXN-CASH-001");
-        paymentWithoutAppointment.setPaymentTimestamp(LocalDateTime.now());
-
-        List<Payment> pendingPayments = Arrays.asList(paymentWithoutAppointment);
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenReturn(pendingPayments);
+        PendingPaymentRow row = new PendingPaymentRow(2L, 1L, null, 500.00, PaymentType.Cash, PaymentStatus.Pending,
+                "TXN-CASH-001", null, null, null, null, null, null);
+        when(paymentRepository.findPaymentRows(1L, PaymentStatus.Pending)).thenReturn(List.of(row));
 
         // When
         List<PaymentDTO> result = paymentService.getPendingPayments(1L);
@@ -486,6 +408,7 @@ class PaymentServiceImplTest {
         
         PaymentDTO paymentDTO = result.get(0);
         assertThat(paymentDTO.getAppointmentId()).isNull();
+        assertThat(paymentDTO.getAmount()).isEqualTo(500.00);
         assertThat(paymentDTO.getDoctorName()).isNull();
         assertThat(paymentDTO.getServiceName()).isNull();
         assertThat(paymentDTO.getHospitalName()).isNull();
@@ -493,30 +416,20 @@ class PaymentServiceImplTest {
     }
 
     @Test
-    @DisplayName("getPendingPayments - handles individual payment processing error gracefully")
-    void getPendingPayments_individualPaymentError_continuesProcessing() {
+    @DisplayName("getPendingPayments - appointment without doctor keeps partial details")
+    void getPendingPayments_appointmentWithoutDoctor() {
         // Given
-        Payment validPayment = testPayment;
-        Payment invalidPayment = new Payment();
-        invalidPayment.setPaymentId(2L);
-        invalidPayment.setPatient(null); // This will cause an error
-        invalidPayment.setAmount(500.00);
-        invalidPayment.setPaymentType(PaymentType.Cash);
-        invalidPayment.setStatus(PaymentStatus.Pending);
-        invalidPayment.setTransactionId("TXN-INVALID-001");
-        invalidPayment.setPaymentTimestamp(LocalDateTime.now());
-
-        List<Payment> pendingPayments = Arrays.asList(validPayment, invalidPayment);
-        when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
-        when(paymentRepository.findByPatient_PatientIdAndStatus(1L, PaymentStatus.Pending))
-                .thenReturn(pendingPayments);
+        when(paymentRepository.findPaymentRows(1L, PaymentStatus.Pending))
+                .thenReturn(List.of(pendingRow(100L, null, null, null)));
 
         // When
         List<PaymentDTO> result = paymentService.getPendingPayments(1L);
 
         // Then
-        assertThat(result).isNotNull();
-        assertThat(result).hasSize(2); // Both payments should be processed, even with errors
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getServiceName()).isEqualTo("General Consultation");
+        assertThat(result.get(0).getDoctorName()).isNull();
+        assertThat(result.get(0).getAppointmentDescription()).isNull();
     }
 
     @Test
@@ -537,13 +450,14 @@ class PaymentServiceImplTest {
                 .thenReturn(savedPayment2);
 
         // When
-        PaymentDTO result1 = paymentService.makePayment(validPaymentDTO);
-        PaymentDTO result2 = paymentService.makePayment(validPaymentDTO);
+        // makePayment fills in and returns the DTO it was given, so read each id before the next call
+        String transactionId1 = paymentService.makePayment(validPaymentDTO).getTransactionId();
+        String transactionId2 = paymentService.makePayment(validPaymentDTO).getTransactionId();
 
         // Then
-        assertThat(result1.getTransactionId()).isNotEqualTo(result2.getTransactionId());
-        assertThat(result1.getTransactionId()).isEqualTo("TXN-UNIQUE-1");
-        assertThat(result2.getTransactionId()).isEqualTo("TXN-UNIQUE-2");
+        assertThat(transactionId1).isNotEqualTo(transactionId2);
+        assertThat(transactionId1).isEqualTo("TXN-UNIQUE-1");
+        assertThat(transactionId2).isEqualTo("TXN-UNIQUE-2");
     }
 
     @Test
@@ -615,10 +529,6 @@ class PaymentServiceImplTest {
     @Test
     @DisplayName("getPendingPayments - handles negative patient ID gracefully")
     void getPendingPayments_negativePatientId_returnsEmptyList() {
-        // Given
-        when(patientRepository.findById(-1L)).thenReturn(Optional.empty());
-        when(patientRepository.findByPatientId(-1L)).thenReturn(Optional.empty());
-
         // When
         List<PaymentDTO> result = paymentService.getPendingPayments(-1L);
 
@@ -678,4 +588,10 @@ class PaymentServiceImplTest {
 
         verify(cardPaymentStrategy).processPayment(largeAmountPayment);
     }
+
+    private PendingPaymentRow pendingRow(Long appointmentId, String doctorFirstName, String doctorLastName, String hospitalName) {
+        return new PendingPaymentRow(1L, 1L, appointmentId, 1200.00, PaymentType.Card, PaymentStatus.Pending, "TXN-123456789",
+                testAppointment.getAppointmentDateTime(), testAppointment.getPaymentAmount(),
+                doctorFirstName, doctorLastName, "General Consultation", hospitalName);
+    }
 }
@@ -0,0 +1,132 @@
+package com.lankamed.health.backend.service;
+
+import com.lankamed.health.backend.model.Hospital;
+import com.lankamed.health.backend.model.Role;
+import com.lankamed.health.backend.model.ServiceCategory;
+import com.lankamed.health.backend.model.StaffDetails;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.listener.ReferenceDataChangedEvent;
+import com.lankamed.health.backend.repository.HospitalRepository;
+import com.lankamed.health.backend.repository.ServiceCategoryRepository;
+import com.lankamed.health.backend.repository.StaffDetailsRepository;
+import com.lankamed.health.backend.service.ReferenceDataCache.CategoryRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.DoctorRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.HospitalRef;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataCacheTest {
+
+    private final HospitalRepository hospitalRepository = mock(HospitalRepository.class);
+    private final ServiceCategoryRepository serviceCategoryRepository = mock(ServiceCategoryRepository.class);
+    private final StaffDetailsRepository staffDetailsRepository = mock(StaffDetailsRepository.class);
+    private final List<Runnable> rebuilds = new ArrayList<>();
+    private final ReferenceDataCache cache = new ReferenceDataCache(hospitalRepository, serviceCategoryRepository,
+            staffDetailsRepository, mock(PlatformTransactionManager.class), rebuilds::add);
+
+    private final Hospital general = Hospital.builder().hospitalId(1L).name("City General").build();
+    private final Hospital clinic = Hospital.builder().hospitalId(2L).name("Hill Clinic").build();
+    private final ServiceCategory cardiology = ServiceCategory.builder().categoryId(10L).name("Cardiology").build();
+    private final ServiceCategory dermatology = ServiceCategory.builder().categoryId(11L).name("Dermatology").build();
+    private final StaffDetails cardiologist = StaffDetails.builder().staffId(100L).hospital(general)
+            .serviceCategory(cardiology).consultationFee(2500.0)
+            .user(User.builder().firstName("Ann").lastName("Heart").role(Role.DOCTOR).build()).build();
+    private final StaffDetails clinicGp = StaffDetails.builder().staffId(101L).hospital(clinic)
+            .user(User.builder().firstName("Gus").lastName("Penn").role(Role.DOCTOR).build()).build();
+
+    @BeforeEach
+    void setUp() {
+        when(hospitalRepository.findAll(any(Sort.class))).thenReturn(List.of(general, clinic));
+        when(serviceCategoryRepository.findAll(any(Sort.class))).thenReturn(List.of(cardiology, dermatology));
+        when(staffDetailsRepository.findAllWithUserByRole(Role.DOCTOR)).thenReturn(List.of(cardiologist, clinicGp));
+    }
+
+    @Test
+    void lookups_servedFromOneLoadAsRecords() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(new HospitalRef(2L, "Hill Clinic"), cache.hospitalOrDefault(2L).orElseThrow());
+            assertEquals(new CategoryRef(11L, "Dermatology"), cache.categoryOrDefault(11L).orElseThrow());
+            assertEquals(new DoctorRef(100L, "Ann", "Heart", null, 2500.0, 1L, 10L), cache.doctor(100L).orElseThrow());
+            cache.fallbackDoctor(11L, 2L);
+        }
+
+        verify(hospitalRepository, times(1)).findAll(any(Sort.class));
+        verify(serviceCategoryRepository, times(1)).findAll(any(Sort.class));
+        verify(staffDetailsRepository, times(1)).findAllWithUserByRole(Role.DOCTOR);
+        verifyNoMoreInteractions(hospitalRepository, serviceCategoryRepository, staffDetailsRepository);
+    }
+
+    @Test
+    void unknownOrNullIds_fallBackToFirstRow() {
+        assertEquals(1L, cache.hospitalOrDefault(99L).orElseThrow().hospitalId());
+        assertEquals(1L, cache.hospitalOrDefault(null).orElseThrow().hospitalId());
+        assertEquals(10L, cache.categoryOrDefault(null).orElseThrow().categoryId());
+        assertTrue(cache.doctor(null).isEmpty());
+        assertTrue(cache.doctor(99L).isEmpty());
+        assertEquals(100L, cache.firstDoctor().orElseThrow().staffId());
+    }
+
+    @Test
+    void fallbackDoctor_categoryThenHospitalThenAny() {
+        assertEquals(100L, cache.fallbackDoctor(10L, 2L).orElseThrow().staffId());
+        assertEquals(101L, cache.fallbackDoctor(11L, 2L).orElseThrow().staffId());
+        assertEquals(100L, cache.fallbackDoctor(11L, 99L).orElseThrow().staffId());
+    }
+
+    @Test
+    void noReferenceData_empty() {
+        when(hospitalRepository.findAll(any(Sort.class))).thenReturn(List.of());
+        when(staffDetailsRepository.findAllWithUserByRole(Role.DOCTOR)).thenReturn(List.of());
+
+        assertTrue(cache.hospitalOrDefault(1L).isEmpty());
+        assertTrue(cache.fallbackDoctor(10L, 1L).isEmpty());
+    }
+
+    @Test
+    void changeInsideTransaction_rebuildsOffThreadAfterCommitAndServesOldSnapshotMeanwhile() {
+        cache.doctor(100L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.onReferenceDataChanged(new ReferenceDataChangedEvent());
+            assertTrue(rebuilds.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        when(staffDetailsRepository.findAllWithUserByRole(Role.DOCTOR)).thenReturn(List.of(clinicGp));
+        // A second change while the first rebuild is still queued does not queue another
+        cache.onReferenceDataChanged(new ReferenceDataChangedEvent());
+        assertEquals(1, rebuilds.size());
+        assertTrue(cache.doctor(100L).isPresent());
+        verify(staffDetailsRepository, times(1)).findAllWithUserByRole(Role.DOCTOR);
+
+        rebuilds.get(0).run();
+
+        assertTrue(cache.doctor(100L).isEmpty());
+        assertEquals(101L, cache.fallbackDoctor(10L, 1L).orElseThrow().staffId());
+        verify(staffDetailsRepository, times(2)).findAllWithUserByRole(Role.DOCTOR);
+    }
+
+    @Test
+    void failedRebuild_keepsPreviousSnapshotAndRetriesOnNextRead() {
+        cache.doctor(100L);
+        when(staffDetailsRepository.findAllWithUserByRole(Role.DOCTOR)).thenThrow(new IllegalStateException("down"));
+        cache.onReferenceDataChanged(new ReferenceDataChangedEvent());
+        rebuilds.remove(0).run();
+
+        assertTrue(cache.doctor(100L).isPresent());
+        assertEquals(1, rebuilds.size());
+    }
+}
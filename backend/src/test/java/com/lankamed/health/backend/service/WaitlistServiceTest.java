@@ -6,6 +6,10 @@ import com.lankamed.health.backend.model.*;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.repository.*;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import com.lankamed.health.backend.service.ReferenceDataCache.CategoryRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.DoctorRef;
+import com.lankamed.health.backend.service.ReferenceDataCache.HospitalRef;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,6 +27,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +41,8 @@ class WaitlistServiceTest {
     @Mock private StaffDetailsRepository staffDetailsRepository;
     @Mock private AppointmentRepository appointmentRepository;
     @Mock private UserRepository userRepository;
+    @Mock private DoctorSlotService doctorSlotService;
+    @Mock private ReferenceDataCache referenceDataCache;
     @Mock private Authentication authentication;
     @Mock private SecurityContext securityContext;
 
@@ -49,6 +57,7 @@ class WaitlistServiceTest {
     void setUp() {
         // Set up mocks for security context
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(doctorSlotService.reserveSlot(any(), any())).thenReturn(true);
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("john.doe@example.com");
 
@@ -65,14 +74,11 @@ class WaitlistServiceTest {
 
         // Default mocks for common lookups - use lenient to avoid unnecessary stubbing errors
         lenient().when(patientRepository.findByUserEmail("john.doe@example.com")).thenReturn(Optional.of(patient));
-        lenient().when(hospitalRepository.findById(1L)).thenReturn(Optional.of(hospital));
-        lenient().when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.of(category));
-        lenient().when(staffDetailsRepository.findById(3L)).thenReturn(Optional.of(doctor));
-        
-        // Mock findAll methods for fallback scenarios
-        lenient().when(hospitalRepository.findAll()).thenReturn(List.of(hospital));
-        lenient().when(serviceCategoryRepository.findAll()).thenReturn(List.of(category));
-        lenient().when(staffDetailsRepository.findAll()).thenReturn(List.of(doctor));
+        DoctorRef doctorRef = new DoctorRef(3L, "Dr. Jane", "Smith", "Cardiology", null, 1L, 2L);
+        lenient().when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.of(new HospitalRef(1L, "City General")));
+        lenient().when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.of(new CategoryRef(2L, "Cardiology")));
+        lenient().when(referenceDataCache.doctor(3L)).thenReturn(Optional.of(doctorRef));
+        lenient().when(referenceDataCache.firstDoctor()).thenReturn(Optional.of(doctorRef));
     }
 
     // Constructor injection to override waitlistEnabled flag for specific tests
@@ -80,7 +86,8 @@ class WaitlistServiceTest {
         return new WaitlistServiceImpl(
                 waitlistRepository, patientRepository, hospitalRepository,
                 serviceCategoryRepository, staffDetailsRepository,
-                appointmentRepository, userRepository, enabled);
+                appointmentRepository, userRepository, doctorSlotService, referenceDataCache,
+                new RequestIdentity(patientRepository), enabled);
     }
 
     @Test
@@ -125,8 +132,7 @@ class WaitlistServiceTest {
     @DisplayName("addToWaitlist - missing hospital throws exception")
     void addToWaitlist_missingHospital_throws() {
         WaitlistServiceImpl service = getServiceWithFlag(true);
-        when(hospitalRepository.findById(1L)).thenReturn(Optional.empty());
-        when(hospitalRepository.findAll()).thenReturn(List.of()); // No fallback hospitals
+        when(referenceDataCache.hospitalOrDefault(1L)).thenReturn(Optional.empty()); // No fallback hospitals
 
         CreateWaitlistDto dto = new CreateWaitlistDto();
         dto.setDoctorId(3L);
@@ -142,8 +148,7 @@ class WaitlistServiceTest {
     @DisplayName("addToWaitlist - missing service category throws exception")
     void addToWaitlist_missingCategory_throws() {
         WaitlistServiceImpl service = getServiceWithFlag(true);
-        when(serviceCategoryRepository.findById(2L)).thenReturn(Optional.empty());
-        when(serviceCategoryRepository.findAll()).thenReturn(List.of()); // No fallback categories
+        when(referenceDataCache.categoryOrDefault(2L)).thenReturn(Optional.empty()); // No fallback categories
 
         CreateWaitlistDto dto = new CreateWaitlistDto();
         dto.setDoctorId(3L);
@@ -155,12 +160,34 @@ class WaitlistServiceTest {
         assertTrue(ex.getMessage().contains("No service categories configured"));
     }
 
+    @Test
+    @DisplayName("addToWaitlist - requested doctor missing from the snapshot is loaded, not swapped for another")
+    void addToWaitlist_doctorNotInSnapshot_loadsRequestedDoctor() {
+        WaitlistServiceImpl service = getServiceWithFlag(true);
+        StaffDetails newDoctor = StaffDetails.builder().staffId(7L)
+                .user(User.builder().firstName("New").lastName("Doctor").build()).specialization("Cardiology").build();
+        when(referenceDataCache.doctor(7L)).thenReturn(Optional.empty());
+        when(staffDetailsRepository.findById(7L)).thenReturn(Optional.of(newDoctor));
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        CreateWaitlistDto dto = new CreateWaitlistDto();
+        dto.setDoctorId(7L);
+        dto.setHospitalId(1L);
+        dto.setServiceCategoryId(2L);
+        dto.setDesiredDateTime(LocalDateTime.now().plusDays(1));
+
+        WaitlistEntryDto result = service.addToWaitlist(dto);
+        assertEquals(7L, result.getDoctorId());
+        assertEquals("New Doctor", result.getDoctorName());
+        verify(referenceDataCache, never()).firstDoctor();
+    }
+
     @Test
     @DisplayName("addToWaitlist - missing doctor throws exception")
     void addToWaitlist_missingDoctor_throws() {
         WaitlistServiceImpl service = getServiceWithFlag(true);
-        when(staffDetailsRepository.findById(3L)).thenReturn(Optional.empty());
-        when(staffDetailsRepository.findAll()).thenReturn(List.of()); // No fallback doctors
+        when(referenceDataCache.doctor(3L)).thenReturn(Optional.empty());
+        when(referenceDataCache.firstDoctor()).thenReturn(Optional.empty()); // No fallback doctors
 
         CreateWaitlistDto dto = new CreateWaitlistDto();
         dto.setDoctorId(3L);
@@ -185,7 +212,7 @@ class WaitlistServiceTest {
                 .desiredDateTime(LocalDateTime.now().plusDays(2))
                 .status(WaitlistEntry.Status.QUEUED)
                 .build();
-        when(waitlistRepository.findByPatientUserEmailAndStatusNotOrderByCreatedAtDesc("john.doe@example.com", WaitlistEntry.Status.PROMOTED))
+        when(waitlistRepository.findByPatientPatientIdAndStatusNotOrderByCreatedAtDesc(10L, WaitlistEntry.Status.PROMOTED))
                 .thenReturn(List.of(entry));
 
         List<WaitlistEntryDto> result = service.getMyWaitlist();
@@ -225,7 +252,7 @@ class WaitlistServiceTest {
                 .priority(true)
                 .build();
         when(waitlistRepository.findById(5L)).thenReturn(Optional.of(entry));
-        when(appointmentRepository.findByDoctorStaffIdOrderByAppointmentDateTimeDesc(3L)).thenReturn(List.of());
+        when(appointmentRepository.existsByDoctorStaffIdAndAppointmentDateTimeBetween(eq(3L), any(), any())).thenReturn(false);
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(inv -> {
             Appointment a = inv.getArgument(0);
             a.setAppointmentId(200L);
@@ -235,6 +262,8 @@ class WaitlistServiceTest {
 
         WaitlistEntryDto result = service.promoteToAppointment(5L);
         assertEquals(WaitlistEntry.Status.PROMOTED, result.getStatus());
+        // Conflict check must stay bounded to the +/-15 minute window, never the doctor's full history
+        verify(appointmentRepository, never()).findByDoctorStaffIdOrderByAppointmentDateTimeDesc(anyLong());
     }
 
     @Test
@@ -285,16 +314,9 @@ class WaitlistServiceTest {
                 .desiredDateTime(LocalDateTime.now().plusDays(1))
                 .status(WaitlistEntry.Status.QUEUED)
                 .build();
-        Appointment conflict = Appointment.builder()
-                .appointmentId(99L)
-                .patient(patient)
-                .doctor(doctor)
-                .hospital(hospital)
-                .serviceCategory(category)
-                .appointmentDateTime(entry.getDesiredDateTime())
-                .build();
         when(waitlistRepository.findById(7L)).thenReturn(Optional.of(entry));
-        when(appointmentRepository.findByDoctorStaffIdOrderByAppointmentDateTimeDesc(3L)).thenReturn(List.of(conflict));
+        when(appointmentRepository.existsByDoctorStaffIdAndAppointmentDateTimeBetween(
+                3L, entry.getDesiredDateTime().minusMinutes(15), entry.getDesiredDateTime().plusMinutes(15))).thenReturn(true);
 
         IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.promoteToAppointment(7L));
         assertTrue(ex.getMessage().contains("No slot available"));
@@ -314,7 +336,7 @@ class WaitlistServiceTest {
                 .status(WaitlistEntry.Status.QUEUED)
                 .build();
         when(waitlistRepository.findById(8L)).thenReturn(Optional.of(entry));
-        when(appointmentRepository.findByDoctorStaffIdOrderByAppointmentDateTimeDesc(3L)).thenReturn(List.of());
+        when(appointmentRepository.existsByDoctorStaffIdAndAppointmentDateTimeBetween(eq(3L), any(), any())).thenReturn(false);
         when(appointmentRepository.save(any(Appointment.class))).thenThrow(new RuntimeException("DB error"));
 
         RuntimeException ex = assertThrows(RuntimeException.class, () -> service.promoteToAppointment(8L));
@@ -6,6 +6,7 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.User;
 import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,13 +16,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +40,9 @@ class BloodPressureRecordServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private LatestVitalsCache latestVitals;
+
     @Mock
     private Authentication authentication;
 
@@ -54,6 +62,11 @@ class BloodPressureRecordServiceTest {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("p@example.com");
+
+        // The caller resolves to testPatient unless a test stubs the lookup differently
+        lenient().when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
+        lenient().when(patientRepository.getReferenceById(1L)).thenReturn(testPatient);
+        ReflectionTestUtils.setField(bpService, "requestIdentity", new RequestIdentity(patientRepository));
     }
 
     @Test
@@ -64,12 +77,13 @@ class BloodPressureRecordServiceTest {
             .timestamp(LocalDateTime.now()) // changed: use LocalDateTime
             .build();
         when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
-        when(bpRepository.save(any(BloodPressureRecord.class))).thenAnswer(i -> i.getArgument(0));
+        when(bpRepository.saveAndFlush(any(BloodPressureRecord.class))).thenAnswer(i -> i.getArgument(0));
 
         BloodPressureRecordDto res = bpService.addRecord(dto);
         assertNotNull(res);
         assertEquals(120, res.getSystolic());
-        verify(bpRepository).save(any(BloodPressureRecord.class));
+        verify(latestVitals).recordBloodPressure(1L, res);
+        verify(bpRepository).saveAndFlush(any(BloodPressureRecord.class));
     }
 
     @Test
@@ -94,8 +108,8 @@ class BloodPressureRecordServiceTest {
                 .timestamp(earlier)
                 .build();
 
-        when(bpRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record1, record2));
+        when(bpRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record1, record2)));
 
         // When
         List<BloodPressureRecordDto> result = bpService.getAllRecordsForCurrentPatient();
@@ -115,8 +129,8 @@ class BloodPressureRecordServiceTest {
     @Test
     void getAllRecordsForCurrentPatient_EmptyList() {
         // Given
-        when(bpRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Collections.emptyList());
+        when(bpRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Collections.emptyList()));
 
         // When
         List<BloodPressureRecordDto> result = bpService.getAllRecordsForCurrentPatient();
@@ -138,8 +152,8 @@ class BloodPressureRecordServiceTest {
                 .timestamp(now)
                 .build();
 
-        when(bpRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record));
+        when(bpRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record)));
 
         // When
         List<BloodPressureRecordDto> result = bpService.getAllRecordsForCurrentPatient();
@@ -170,7 +184,7 @@ class BloodPressureRecordServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(bpRepository, never()).save(any(BloodPressureRecord.class));
+        verify(bpRepository, never()).saveAndFlush(any(BloodPressureRecord.class));
     }
 
     @Test
@@ -185,7 +199,7 @@ class BloodPressureRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(bpRepository.save(any(BloodPressureRecord.class)))
+        when(bpRepository.saveAndFlush(any(BloodPressureRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -196,7 +210,7 @@ class BloodPressureRecordServiceTest {
         assertEquals(118, result.getSystolic());
         assertEquals(78, result.getDiastolic());
         assertEquals(timestamp, result.getTimestamp());
-        verify(bpRepository).save(any(BloodPressureRecord.class));
+        verify(bpRepository).saveAndFlush(any(BloodPressureRecord.class));
     }
 
     @Test
@@ -229,8 +243,8 @@ class BloodPressureRecordServiceTest {
                 .build();
 
         // Return in random order to test sorting
-        when(bpRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record1, record2, record3));
+        when(bpRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record1, record2, record3)));
 
         // When
         List<BloodPressureRecordDto> result = bpService.getAllRecordsForCurrentPatient();
@@ -261,7 +275,7 @@ class BloodPressureRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(bpRepository.save(any(BloodPressureRecord.class)))
+        when(bpRepository.saveAndFlush(any(BloodPressureRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -271,7 +285,7 @@ class BloodPressureRecordServiceTest {
         assertNotNull(result);
         assertEquals(90, result.getSystolic());
         assertEquals(60, result.getDiastolic());
-        verify(bpRepository).save(any(BloodPressureRecord.class));
+        verify(bpRepository).saveAndFlush(any(BloodPressureRecord.class));
     }
 
     @Test
@@ -285,7 +299,7 @@ class BloodPressureRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(bpRepository.save(any(BloodPressureRecord.class)))
+        when(bpRepository.saveAndFlush(any(BloodPressureRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -295,7 +309,7 @@ class BloodPressureRecordServiceTest {
         assertNotNull(result);
         assertEquals(180, result.getSystolic());
         assertEquals(120, result.getDiastolic());
-        verify(bpRepository).save(any(BloodPressureRecord.class));
+        verify(bpRepository).saveAndFlush(any(BloodPressureRecord.class));
     }
 
     @Test
@@ -309,7 +323,7 @@ class BloodPressureRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(bpRepository.save(any(BloodPressureRecord.class)))
+        when(bpRepository.saveAndFlush(any(BloodPressureRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -319,7 +333,7 @@ class BloodPressureRecordServiceTest {
         assertNotNull(result);
         assertEquals(110, result.getSystolic());
         assertEquals(70, result.getDiastolic());
-        verify(bpRepository).save(any(BloodPressureRecord.class));
+        verify(bpRepository).saveAndFlush(any(BloodPressureRecord.class));
     }
 
     @Test
@@ -343,8 +357,8 @@ class BloodPressureRecordServiceTest {
                 .timestamp(sameTime) // Same timestamp
                 .build();
 
-        when(bpRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record1, record2));
+        when(bpRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record1, record2)));
 
         // When
         List<BloodPressureRecordDto> result = bpService.getAllRecordsForCurrentPatient();
@@ -356,4 +370,39 @@ class BloodPressureRecordServiceTest {
         assertEquals(sameTime, result.get(0).getTimestamp());
         assertEquals(sameTime, result.get(1).getTimestamp());
     }
+
+    @Test
+    void getRecordsForCurrentPatient_RangeAndDownsampling() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(30);
+        List<BloodPressureRecordDto> readings = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            readings.add(new BloodPressureRecordDto(120, 80, from.plusHours(i)));
+        }
+        readings.set(37, new BloodPressureRecordDto(190, 80, from.plusHours(37)));
+        readings.set(62, new BloodPressureRecordDto(120, 45, from.plusHours(62)));
+        when(bpRepository.findTrend(1L, from, to)).thenReturn(readings);
+
+        List<BloodPressureRecordDto> result = bpService.getRecordsForCurrentPatient(from, to, 20);
+
+        assertTrue(result.size() <= 20);
+        assertTrue(result.stream().anyMatch(r -> r.getSystolic() == 190));
+        assertTrue(result.stream().anyMatch(r -> r.getDiastolic() == 45));
+    }
+
+    @Test
+    void getRecordsForCurrentPatient_InvalidRequest() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(IllegalArgumentException.class, () -> bpService.getRecordsForCurrentPatient(now, now.minusDays(1), null));
+        assertThrows(IllegalArgumentException.class, () -> bpService.getRecordsForCurrentPatient(null, null, 3));
+        verify(bpRepository, never()).findTrend(any(), any(), any());
+    }
+
+    // findTrend projects to DTOs ordered by timestamp
+    private static List<BloodPressureRecordDto> asQueried(List<BloodPressureRecord> records) {
+        return records.stream()
+                .sorted(Comparator.comparing(BloodPressureRecord::getTimestamp))
+                .map(r -> new BloodPressureRecordDto(r.getSystolic(), r.getDiastolic(), r.getTimestamp()))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,113 @@
+package com.lankamed.health.backend.service.patient;
+
+import com.lankamed.health.backend.dto.patient.CriticalInfoDto;
+import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.model.patient.Allergy;
+import com.lankamed.health.backend.model.patient.Patient;
+import com.lankamed.health.backend.model.patient.Prescription;
+import com.lankamed.health.backend.repository.patient.AllergyRepository;
+import com.lankamed.health.backend.repository.patient.EmergencyContactRepository;
+import com.lankamed.health.backend.repository.patient.MedicalConditionRepository;
+import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.repository.patient.PrescriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CriticalInfoCacheTest {
+
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final MedicalConditionRepository medicalConditionRepository = mock(MedicalConditionRepository.class);
+    private final AllergyRepository allergyRepository = mock(AllergyRepository.class);
+    private final PrescriptionRepository prescriptionRepository = mock(PrescriptionRepository.class);
+    private final EmergencyContactRepository emergencyContactRepository = mock(EmergencyContactRepository.class);
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final CriticalInfoCache cache = new CriticalInfoCache(patientRepository, medicalConditionRepository,
+            allergyRepository, prescriptionRepository, emergencyContactRepository,
+            mock(PlatformTransactionManager.class), refreshes::add, 100, 60);
+
+    @BeforeEach
+    void setUp() {
+        Patient patient = Patient.builder().patientId(1L).dateOfBirth(LocalDate.of(1980, 2, 3))
+                .user(User.builder().firstName("Pat").lastName("Ient").build()).build();
+        when(patientRepository.findWithUserById(1L)).thenReturn(Optional.of(patient));
+    }
+
+    @Test
+    void snapshot_severeAllergiesFirstAndEndedPrescriptionsDropped() {
+        when(allergyRepository.findByPatientPatientId(1L)).thenReturn(List.of(
+                Allergy.builder().allergyName("Dust").severity(Allergy.Severity.MILD).build(),
+                Allergy.builder().allergyName("Penicillin").severity(Allergy.Severity.SEVERE).build(),
+                Allergy.builder().allergyName("Latex").severity(Allergy.Severity.MODERATE).build()));
+        when(prescriptionRepository.findWithDoctorByPatientId(1L)).thenReturn(List.of(
+                Prescription.builder().medicationName("Old").startDate(LocalDate.now().minusYears(1))
+                        .endDate(LocalDate.now().minusDays(1)).build(),
+                Prescription.builder().medicationName("Ongoing").startDate(LocalDate.now().minusDays(10)).build(),
+                Prescription.builder().medicationName("Ends today").startDate(LocalDate.now().minusDays(10))
+                        .endDate(LocalDate.now()).build()));
+
+        CriticalInfoDto info = cache.get(1L);
+
+        assertEquals("Pat Ient", info.getFullName());
+        assertEquals(List.of("Penicillin", "Latex", "Dust"),
+                info.getAllergies().stream().map(a -> a.getAllergyName()).toList());
+        assertEquals(List.of("Ongoing", "Ends today"),
+                info.getPrescriptions().stream().map(p -> p.getMedicationName()).toList());
+    }
+
+    @Test
+    void hit_servedWithoutQueries() {
+        cache.get(1L);
+        cache.get(1L);
+
+        verify(patientRepository, times(1)).findWithUserById(1L);
+        verify(allergyRepository, times(1)).findByPatientPatientId(1L);
+    }
+
+    @Test
+    void unknownPatient_nullAndNotCached() {
+        assertNull(cache.get(2L));
+        assertNull(cache.get(2L));
+
+        verify(patientRepository, times(2)).findWithUserById(2L);
+        verifyNoInteractions(allergyRepository);
+    }
+
+    @Test
+    void changeInsideTransaction_evictsAndRebuildsAfterCommit() {
+        cache.get(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.changed(1L);
+            cache.get(1L);
+            verify(patientRepository, times(1)).findWithUserById(1L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1, refreshes.size());
+        refreshes.get(0).run();
+        cache.get(1L);
+
+        verify(patientRepository, times(2)).findWithUserById(1L);
+    }
+
+    @Test
+    void changeForUncachedPatient_noRebuild() {
+        cache.changed(1L);
+
+        assertTrue(refreshes.isEmpty());
+        verifyNoInteractions(patientRepository);
+    }
+}
@@ -7,10 +7,10 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.User;
 import com.lankamed.health.backend.repository.patient.EmergencyContactRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
@@ -34,13 +34,15 @@ class EmergencyContactServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private CriticalInfoCache criticalInfoCache;
+
     @Mock
     private Authentication authentication;
 
     @Mock
     private SecurityContext securityContext;
 
-    @InjectMocks
     private EmergencyContactService emergencyContactService;
 
     private Patient testPatient;
@@ -54,12 +56,17 @@ class EmergencyContactServiceTest {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("p@example.com");
+
+        // The caller resolves to testPatient unless a test stubs the lookup differently
+        lenient().when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
+        lenient().when(patientRepository.getReferenceById(1L)).thenReturn(testPatient);
+        emergencyContactService = new EmergencyContactService(emergencyContactRepository, patientRepository, new RequestIdentity(patientRepository), criticalInfoCache);
     }
 
     @Test
     void getEmergencyContacts_ReturnsList() {
         EmergencyContact ec = EmergencyContact.builder().emergencyContactId(1L).fullName("Alice").patient(testPatient).build();
-        when(emergencyContactRepository.findByPatientUserEmail("p@example.com")).thenReturn(Arrays.asList(ec));
+        when(emergencyContactRepository.findByPatientPatientId(1L)).thenReturn(Arrays.asList(ec));
 
         var res = emergencyContactService.getEmergencyContacts();
         assertNotNull(res);
@@ -114,27 +121,19 @@ class EmergencyContactServiceTest {
         dto.setEmail("updated@example.com");
         dto.setAddress("456 Oak St");
 
-        EmergencyContact existingContact = EmergencyContact.builder()
-                .emergencyContactId(emergencyContactId)
-                .fullName("Bob")
-                .phone("123")
-                .relationship("Brother")
-                .email("bob@example.com")
-                .address("123 Main St")
-                .patient(testPatient)
-                .build();
-
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.of(existingContact));
-        when(emergencyContactRepository.save(any(EmergencyContact.class))).thenAnswer(i -> i.getArgument(0));
+        when(emergencyContactRepository.updateByIdAndPatientPatientId(emergencyContactId, 1L,
+                "Updated Bob", "Father", "456", "updated@example.com", "456 Oak St")).thenReturn(1);
 
         EmergencyContactDto res = emergencyContactService.updateEmergencyContact(emergencyContactId, dto);
         assertNotNull(res);
+        assertEquals(emergencyContactId, res.getEmergencyContactId());
         assertEquals("Updated Bob", res.getFullName());
         assertEquals("456", res.getPhone());
         assertEquals("Father", res.getRelationship());
         assertEquals("updated@example.com", res.getEmail());
         assertEquals("456 Oak St", res.getAddress());
-        verify(emergencyContactRepository).save(existingContact);
+        verify(emergencyContactRepository, never()).findById(any());
+        verify(criticalInfoCache).changed(1L);
     }
 
     @Test
@@ -143,13 +142,14 @@ class EmergencyContactServiceTest {
         CreateEmergencyContactDto dto = new CreateEmergencyContactDto();
         dto.setFullName("Updated Bob");
 
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.empty());
+        when(emergencyContactRepository.updateByIdAndPatientPatientId(eq(emergencyContactId), eq(1L), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+        when(emergencyContactRepository.existsById(emergencyContactId)).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             emergencyContactService.updateEmergencyContact(emergencyContactId, dto);
         });
         assertEquals("Emergency contact not found", exception.getMessage());
-        verify(emergencyContactRepository, never()).save(any(EmergencyContact.class));
     }
 
     @Test
@@ -158,81 +158,61 @@ class EmergencyContactServiceTest {
         CreateEmergencyContactDto dto = new CreateEmergencyContactDto();
         dto.setFullName("Updated Bob");
 
-        // Create a different patient
-        User differentUser = User.builder().userId(2L).email("different@example.com").build();
-        Patient differentPatient = Patient.builder().patientId(2L).user(differentUser).build();
-
-        EmergencyContact existingContact = EmergencyContact.builder()
-                .emergencyContactId(emergencyContactId)
-                .fullName("Bob")
-                .patient(differentPatient)
-                .build();
-
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.of(existingContact));
+        // The contact exists but belongs to another patient, so the ownership-checked update matches nothing
+        when(emergencyContactRepository.updateByIdAndPatientPatientId(eq(emergencyContactId), eq(1L), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+        when(emergencyContactRepository.existsById(emergencyContactId)).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             emergencyContactService.updateEmergencyContact(emergencyContactId, dto);
         });
         assertEquals("Unauthorized access to emergency contact", exception.getMessage());
-        verify(emergencyContactRepository, never()).save(any(EmergencyContact.class));
+        verifyNoInteractions(criticalInfoCache);
     }
 
     @Test
     void deleteEmergencyContact_Success() {
         Long emergencyContactId = 1L;
-        EmergencyContact existingContact = EmergencyContact.builder()
-                .emergencyContactId(emergencyContactId)
-                .fullName("Bob")
-                .patient(testPatient)
-                .build();
 
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.of(existingContact));
+        when(emergencyContactRepository.deleteByIdAndPatientPatientId(emergencyContactId, 1L)).thenReturn(1);
 
         assertDoesNotThrow(() -> {
             emergencyContactService.deleteEmergencyContact(emergencyContactId);
         });
-        verify(emergencyContactRepository).delete(existingContact);
+        verify(emergencyContactRepository, never()).existsById(any());
+        verify(criticalInfoCache).changed(1L);
     }
 
     @Test
     void deleteEmergencyContact_NotFound() {
         Long emergencyContactId = 999L;
 
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.empty());
+        when(emergencyContactRepository.deleteByIdAndPatientPatientId(emergencyContactId, 1L)).thenReturn(0);
+        when(emergencyContactRepository.existsById(emergencyContactId)).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             emergencyContactService.deleteEmergencyContact(emergencyContactId);
         });
         assertEquals("Emergency contact not found", exception.getMessage());
-        verify(emergencyContactRepository, never()).delete(any(EmergencyContact.class));
     }
 
     @Test
     void deleteEmergencyContact_UnauthorizedAccess() {
         Long emergencyContactId = 1L;
 
-        // Create a different patient
-        User differentUser = User.builder().userId(2L).email("different@example.com").build();
-        Patient differentPatient = Patient.builder().patientId(2L).user(differentUser).build();
-
-        EmergencyContact existingContact = EmergencyContact.builder()
-                .emergencyContactId(emergencyContactId)
-                .fullName("Bob")
-                .patient(differentPatient)
-                .build();
-
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.of(existingContact));
+        when(emergencyContactRepository.deleteByIdAndPatientPatientId(emergencyContactId, 1L)).thenReturn(0);
+        when(emergencyContactRepository.existsById(emergencyContactId)).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             emergencyContactService.deleteEmergencyContact(emergencyContactId);
         });
         assertEquals("Unauthorized access to emergency contact", exception.getMessage());
-        verify(emergencyContactRepository, never()).delete(any(EmergencyContact.class));
+        verifyNoInteractions(criticalInfoCache);
     }
 
     @Test
     void getEmergencyContacts_EmptyList() {
-        when(emergencyContactRepository.findByPatientUserEmail("p@example.com")).thenReturn(Collections.emptyList());
+        when(emergencyContactRepository.findByPatientPatientId(1L)).thenReturn(Collections.emptyList());
 
         List<EmergencyContactDto> res = emergencyContactService.getEmergencyContacts();
         assertNotNull(res);
@@ -256,7 +236,7 @@ class EmergencyContactServiceTest {
                 .patient(testPatient)
                 .build();
 
-        when(emergencyContactRepository.findByPatientUserEmail("p@example.com"))
+        when(emergencyContactRepository.findByPatientPatientId(1L))
                 .thenReturn(Arrays.asList(ec1, ec2));
 
         List<EmergencyContactDto> res = emergencyContactService.getEmergencyContacts();
@@ -297,18 +277,8 @@ class EmergencyContactServiceTest {
         dto.setEmail("jane@example.com");
         dto.setAddress("456 Oak Avenue, Town, State");
 
-        EmergencyContact existingContact = EmergencyContact.builder()
-                .emergencyContactId(emergencyContactId)
-                .fullName("Old Name")
-                .phone("111-1111")
-                .relationship("Old Relationship")
-                .email("old@example.com")
-                .address("Old Address")
-                .patient(testPatient)
-                .build();
-
-        when(emergencyContactRepository.findById(emergencyContactId)).thenReturn(Optional.of(existingContact));
-        when(emergencyContactRepository.save(any(EmergencyContact.class))).thenAnswer(i -> i.getArgument(0));
+        when(emergencyContactRepository.updateByIdAndPatientPatientId(emergencyContactId, 1L,
+                "Jane Doe", "Sister", "555-5678", "jane@example.com", "456 Oak Avenue, Town, State")).thenReturn(1);
 
         EmergencyContactDto res = emergencyContactService.updateEmergencyContact(emergencyContactId, dto);
         assertNotNull(res);
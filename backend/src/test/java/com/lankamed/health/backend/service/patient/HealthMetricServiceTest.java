@@ -1,11 +1,16 @@
 package com.lankamed.health.backend.service.patient;
 
 import com.lankamed.health.backend.dto.patient.HealthMetricDto;
+import com.lankamed.health.backend.dto.patient.LatestVitalsDto;
+import com.lankamed.health.backend.model.patient.BloodPressureRecord;
 import com.lankamed.health.backend.model.patient.HealthMetric;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.User;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
 import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +20,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -36,6 +42,12 @@ class HealthMetricServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private BloodPressureRecordRepository bpRepository;
+
+    @Mock
+    private WeightRecordRepository weightRepository;
+
     @Mock
     private Authentication authentication;
 
@@ -55,6 +67,13 @@ class HealthMetricServiceTest {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("p@example.com");
+
+        // The caller resolves to testPatient unless a test stubs the lookup differently
+        lenient().when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
+        lenient().when(patientRepository.getReferenceById(1L)).thenReturn(testPatient);
+        ReflectionTestUtils.setField(healthMetricService, "requestIdentity", new RequestIdentity(patientRepository));
+        ReflectionTestUtils.setField(healthMetricService, "latestVitals",
+                new LatestVitalsCache(healthMetricRepository, bpRepository, weightRepository, 100, 60));
     }
 
     @Test
@@ -69,7 +88,7 @@ class HealthMetricServiceTest {
             .diastolic(85)
             .timestamp(LocalDateTime.ofInstant(Instant.parse("2024-01-01T00:00:00Z"), ZoneId.systemDefault()))
             .build();
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com")).thenReturn(Arrays.asList(a, b));
+        when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L)).thenReturn(Optional.of(b));
 
         Optional<HealthMetricDto> opt = healthMetricService.getLatestMetric();
         assertTrue(opt.isPresent());
@@ -84,7 +103,7 @@ class HealthMetricServiceTest {
             .timestamp(LocalDateTime.now()) // use LocalDateTime here
             .build();
         when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
-        when(healthMetricRepository.save(any(HealthMetric.class))).thenAnswer(i -> i.getArgument(0));
+        when(healthMetricRepository.saveAndFlush(any(HealthMetric.class))).thenAnswer(i -> i.getArgument(0));
 
         HealthMetricDto res = healthMetricService.addMetric(dto);
         assertNotNull(res);
@@ -116,7 +135,7 @@ class HealthMetricServiceTest {
                 .timestamp(earlier)
                 .build();
 
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
+        when(healthMetricRepository.findByPatientPatientId(1L))
                 .thenReturn(Arrays.asList(metric1, metric2));
 
         // When
@@ -135,7 +154,7 @@ class HealthMetricServiceTest {
     @Test
     void getMetricsForCurrentPatient_EmptyList() {
         // Given
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
+        when(healthMetricRepository.findByPatientPatientId(1L))
                 .thenReturn(Collections.emptyList());
 
         // When
@@ -160,7 +179,7 @@ class HealthMetricServiceTest {
                 .timestamp(now)
                 .build();
 
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
+        when(healthMetricRepository.findByPatientPatientId(1L))
                 .thenReturn(Arrays.asList(metric));
 
         // When
@@ -179,8 +198,8 @@ class HealthMetricServiceTest {
     @Test
     void getLatestMetric_EmptyList() {
         // Given
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Collections.emptyList());
+        when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.empty());
 
         // When
         Optional<HealthMetricDto> result = healthMetricService.getLatestMetric();
@@ -204,8 +223,8 @@ class HealthMetricServiceTest {
                 .timestamp(now)
                 .build();
 
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(metric));
+        when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(metric));
 
         // When
         Optional<HealthMetricDto> result = healthMetricService.getLatestMetric();
@@ -255,8 +274,9 @@ class HealthMetricServiceTest {
                 .timestamp(baseTime.plusHours(1)) // Middle
                 .build();
 
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(metric1, metric2, metric3));
+        // The top-1 query orders by timestamp in the database
+        when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(metric2));
 
         // When
         Optional<HealthMetricDto> result = healthMetricService.getLatestMetric();
@@ -292,7 +312,7 @@ class HealthMetricServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(healthMetricRepository, never()).save(any(HealthMetric.class));
+        verify(healthMetricRepository, never()).saveAndFlush(any(HealthMetric.class));
     }
 
     @Test
@@ -309,7 +329,7 @@ class HealthMetricServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(healthMetricRepository.save(any(HealthMetric.class)))
+        when(healthMetricRepository.saveAndFlush(any(HealthMetric.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -322,7 +342,7 @@ class HealthMetricServiceTest {
         assertEquals(68, result.getHeartRate());
         assertEquals(97, result.getSpo2());
         assertEquals(timestamp, result.getTimestamp());
-        verify(healthMetricRepository).save(any(HealthMetric.class));
+        verify(healthMetricRepository).saveAndFlush(any(HealthMetric.class));
     }
 
     @Test
@@ -338,7 +358,7 @@ class HealthMetricServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(healthMetricRepository.save(any(HealthMetric.class)))
+        when(healthMetricRepository.saveAndFlush(any(HealthMetric.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -350,7 +370,7 @@ class HealthMetricServiceTest {
         assertEquals(60, result.getDiastolic());
         assertEquals(50, result.getHeartRate());
         assertEquals(90, result.getSpo2());
-        verify(healthMetricRepository).save(any(HealthMetric.class));
+        verify(healthMetricRepository).saveAndFlush(any(HealthMetric.class));
     }
 
     @Test
@@ -366,7 +386,7 @@ class HealthMetricServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(healthMetricRepository.save(any(HealthMetric.class)))
+        when(healthMetricRepository.saveAndFlush(any(HealthMetric.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -378,7 +398,7 @@ class HealthMetricServiceTest {
         assertEquals(120, result.getDiastolic());
         assertEquals(120, result.getHeartRate());
         assertEquals(100, result.getSpo2());
-        verify(healthMetricRepository).save(any(HealthMetric.class));
+        verify(healthMetricRepository).saveAndFlush(any(HealthMetric.class));
     }
 
     @Test
@@ -416,7 +436,7 @@ class HealthMetricServiceTest {
                 .timestamp(baseTime.plusHours(2))
                 .build();
 
-        when(healthMetricRepository.findByPatientUserEmail("p@example.com"))
+        when(healthMetricRepository.findByPatientPatientId(1L))
                 .thenReturn(Arrays.asList(metric1, metric2, metric3));
 
         // When
@@ -430,4 +450,29 @@ class HealthMetricServiceTest {
         assertEquals(125, result.get(1).getSystolic());
         assertEquals(118, result.get(2).getSystolic());
     }
+
+    @Test
+    void getLatestVitals_OneLookupPerKindThenServedFromCache() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 9, 0);
+        when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(HealthMetric.builder().systolic(118).diastolic(76).heartRate(64).spo2(98).timestamp(now).build()));
+        when(bpRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(BloodPressureRecord.builder().systolic(121).diastolic(79).timestamp(now).build()));
+        when(weightRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L)).thenReturn(Optional.empty());
+
+        LatestVitalsDto vitals = healthMetricService.getLatestVitals();
+        assertEquals(118, vitals.getMetric().getSystolic());
+        assertEquals(121, vitals.getBloodPressure().getSystolic());
+        assertNull(vitals.getWeight());
+
+        // A new reading is folded into the cached snapshot, so the next read runs no queries
+        when(healthMetricRepository.saveAndFlush(any(HealthMetric.class))).thenAnswer(i -> i.getArgument(0));
+        healthMetricService.addMetric(HealthMetricDto.builder().systolic(140).diastolic(90).timestamp(now.plusHours(1)).build());
+
+        assertEquals(140, healthMetricService.getLatestVitals().getMetric().getSystolic());
+        assertEquals(140, healthMetricService.getLatestMetric().orElseThrow().getSystolic());
+        verify(healthMetricRepository, times(1)).findFirstByPatientPatientIdOrderByTimestampDesc(1L);
+        verify(bpRepository, times(1)).findFirstByPatientPatientIdOrderByTimestampDesc(1L);
+        verify(weightRepository, times(1)).findFirstByPatientPatientIdOrderByTimestampDesc(1L);
+    }
 }
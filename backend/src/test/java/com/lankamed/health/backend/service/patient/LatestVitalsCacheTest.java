@@ -0,0 +1,99 @@
+package com.lankamed.health.backend.service.patient;
+
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
+import com.lankamed.health.backend.dto.patient.WeightRecordDto;
+import com.lankamed.health.backend.model.patient.WeightRecord;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
+import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LatestVitalsCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    private final HealthMetricRepository healthMetricRepository = mock(HealthMetricRepository.class);
+    private final BloodPressureRecordRepository bpRepository = mock(BloodPressureRecordRepository.class);
+    private final WeightRecordRepository weightRepository = mock(WeightRecordRepository.class);
+    private final LatestVitalsCache cache = new LatestVitalsCache(healthMetricRepository, bpRepository, weightRepository, 100, 60);
+
+    @Test
+    void olderReadingDoesNotReplaceLatest() {
+        when(weightRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(WeightRecord.builder().weightKg(70).timestamp(NOW).build()));
+        cache.get(1L);
+
+        cache.recordWeight(1L, new WeightRecordDto(75, NOW.minusDays(3)));
+        assertEquals(70, cache.get(1L).getWeight().getWeightKg());
+
+        cache.recordWeight(1L, new WeightRecordDto(69, NOW.plusDays(1)));
+        assertEquals(69, cache.get(1L).getWeight().getWeightKg());
+        verify(weightRepository, times(1)).findFirstByPatientPatientIdOrderByTimestampDesc(1L);
+    }
+
+    @Test
+    void uncachedPatient_writeDoesNotCreateEntry() {
+        cache.recordBloodPressure(2L, new BloodPressureRecordDto(130, 85, NOW));
+
+        assertNull(cache.get(2L).getBloodPressure());
+        verify(bpRepository).findFirstByPatientPatientIdOrderByTimestampDesc(2L);
+    }
+
+    @Test
+    void writeInsideTransaction_appliedOnlyAfterCommit() {
+        cache.get(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.recordBloodPressure(1L, new BloodPressureRecordDto(150, 95, NOW));
+            assertNull(cache.get(1L).getBloodPressure());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(150, cache.get(1L).getBloodPressure().getSystolic());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadOverlappingWrite_notCached() {
+        when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L)).thenAnswer(invocation -> {
+            // Another request records a reading while this load is between its queries
+            cache.recordWeight(1L, new WeightRecordDto(80, NOW));
+            return Optional.empty();
+        });
+
+        cache.get(1L);
+        cache.get(1L);
+
+        verify(healthMetricRepository, times(2)).findFirstByPatientPatientIdOrderByTimestampDesc(1L);
+    }
+
+    @Test
+    void loadOverlappingCommit_notCached() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.recordWeight(1L, new WeightRecordDto(80, NOW));
+            when(healthMetricRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L)).thenAnswer(invocation -> {
+                // The writer commits while this load, which began after the write was recorded, is still reading
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                return Optional.empty();
+            }).thenReturn(Optional.empty());
+
+            assertNull(cache.get(1L).getWeight());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        when(weightRepository.findFirstByPatientPatientIdOrderByTimestampDesc(1L))
+                .thenReturn(Optional.of(WeightRecord.builder().weightKg(80).timestamp(NOW).build()));
+
+        assertEquals(80, cache.get(1L).getWeight().getWeightKg());
+    }
+}
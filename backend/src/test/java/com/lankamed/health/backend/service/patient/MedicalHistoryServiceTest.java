@@ -4,23 +4,26 @@ import com.lankamed.health.backend.dto.patient.MedicalConditionDto;
 import com.lankamed.health.backend.dto.patient.CreateMedicalConditionDto;
 import com.lankamed.health.backend.dto.patient.AllergyDto;
 import com.lankamed.health.backend.dto.patient.CreateAllergyDto;
+import com.lankamed.health.backend.dto.patient.MedicalSummaryDto;
 import com.lankamed.health.backend.dto.patient.PrescriptionDto;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import com.lankamed.health.backend.repository.patient.MedicalConditionRepository;
 import com.lankamed.health.backend.repository.patient.AllergyRepository;
 import com.lankamed.health.backend.repository.patient.PrescriptionRepository;
+import com.lankamed.health.backend.repository.patient.EmergencyContactRepository;
 
 import com.lankamed.health.backend.model.User;
 import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.patient.MedicalCondition;
 import com.lankamed.health.backend.model.patient.Allergy;
 import com.lankamed.health.backend.model.patient.Prescription;
+import com.lankamed.health.backend.model.patient.EmergencyContact;
 import com.lankamed.health.backend.model.StaffDetails;
 import com.lankamed.health.backend.model.Role;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
@@ -53,13 +56,18 @@ class MedicalHistoryServiceTest {
     @Mock
     private PrescriptionRepository prescriptionRepository;
 
+    @Mock
+    private EmergencyContactRepository emergencyContactRepository;
+
+    @Mock
+    private CriticalInfoCache criticalInfoCache;
+
     @Mock
     private Authentication authentication;
 
     @Mock
     private SecurityContext securityContext;
 
-    @InjectMocks
     private MedicalHistoryService medicalHistoryService;
 
     private User testUser;
@@ -124,13 +132,18 @@ class MedicalHistoryServiceTest {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("john.doe@realuser.com");
+
+        // The caller resolves to testPatient unless a test stubs the lookup differently
+        lenient().when(patientRepository.findByUserEmail("john.doe@realuser.com")).thenReturn(Optional.of(testPatient));
+        lenient().when(patientRepository.getReferenceById(1L)).thenReturn(testPatient);
+        medicalHistoryService = new MedicalHistoryService(patientRepository, medicalConditionRepository, allergyRepository, prescriptionRepository, emergencyContactRepository, new RequestIdentity(patientRepository), criticalInfoCache);
     }
 
     // Medical Conditions Tests
     @Test
     void getMedicalConditions_Success() {
         // Given
-        when(medicalConditionRepository.findByPatientUserEmail("john.doe@realuser.com"))
+        when(medicalConditionRepository.findByPatientPatientId(1L))
                 .thenReturn(Arrays.asList(testCondition));
 
         // When
@@ -172,34 +185,29 @@ class MedicalHistoryServiceTest {
         updateDto.setConditionName("Updated Diabetes");
         updateDto.setNotes("Updated notes");
 
-        when(medicalConditionRepository.findById(1L))
-                .thenReturn(Optional.of(testCondition));
-        when(medicalConditionRepository.save(any(MedicalCondition.class)))
-                .thenReturn(testCondition);
+        when(medicalConditionRepository.updateByIdAndPatientPatientId(1L, 1L, "Updated Diabetes", null, "Updated notes"))
+                .thenReturn(1);
 
         // When
         MedicalConditionDto result = medicalHistoryService.updateMedicalCondition(1L, updateDto);
 
         // Then
-        assertNotNull(result);
-        verify(medicalConditionRepository).save(any(MedicalCondition.class));
+        assertEquals(1L, result.getConditionId());
+        assertEquals("Updated Diabetes", result.getConditionName());
+        verify(medicalConditionRepository, never()).findById(any());
+        verify(criticalInfoCache).changed(1L);
     }
 
     @Test
     void updateMedicalCondition_UnauthorizedAccess() {
         // Given
-        User otherUser = User.builder().email("other@example.com").build();
-        Patient otherPatient = Patient.builder().user(otherUser).build();
-        MedicalCondition otherCondition = MedicalCondition.builder()
-                .conditionId(2L)
-                .patient(otherPatient)
-                .build();
-
         CreateMedicalConditionDto updateDto = new CreateMedicalConditionDto();
         updateDto.setConditionName("Updated");
 
-        when(medicalConditionRepository.findById(2L))
-                .thenReturn(Optional.of(otherCondition));
+        // Condition 2 exists but belongs to another patient, so the ownership-checked update matches nothing
+        when(medicalConditionRepository.updateByIdAndPatientPatientId(eq(2L), eq(1L), any(), any(), any()))
+                .thenReturn(0);
+        when(medicalConditionRepository.existsById(2L)).thenReturn(true);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -207,27 +215,28 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Unauthorized access to medical condition", exception.getMessage());
-        verify(medicalConditionRepository, never()).save(any(MedicalCondition.class));
+        verifyNoInteractions(criticalInfoCache);
     }
 
     @Test
     void deleteMedicalCondition_Success() {
         // Given
-        when(medicalConditionRepository.findById(1L))
-                .thenReturn(Optional.of(testCondition));
+        when(medicalConditionRepository.deleteByIdAndPatientPatientId(1L, 1L))
+                .thenReturn(1);
 
         // When
         medicalHistoryService.deleteMedicalCondition(1L);
 
         // Then
-        verify(medicalConditionRepository).delete(testCondition);
+        verify(medicalConditionRepository, never()).existsById(any());
+        verify(criticalInfoCache).changed(1L);
     }
 
     // Allergies Tests
     @Test
     void getAllergies_Success() {
         // Given
-        when(allergyRepository.findByPatientUserEmail("john.doe@realuser.com"))
+        when(allergyRepository.findByPatientPatientId(1L))
                 .thenReturn(Arrays.asList(testAllergy));
 
         // When
@@ -288,7 +297,7 @@ class MedicalHistoryServiceTest {
     @Test
     void getMedicalConditions_EmptyList() {
         // Given
-        when(medicalConditionRepository.findByPatientUserEmail("john.doe@realuser.com"))
+        when(medicalConditionRepository.findByPatientPatientId(1L))
                 .thenReturn(Collections.emptyList());
 
         // When
@@ -323,8 +332,9 @@ class MedicalHistoryServiceTest {
         CreateMedicalConditionDto updateDto = new CreateMedicalConditionDto();
         updateDto.setConditionName("Updated");
 
-        when(medicalConditionRepository.findById(999L))
-                .thenReturn(Optional.empty());
+        when(medicalConditionRepository.updateByIdAndPatientPatientId(eq(999L), eq(1L), any(), any(), any()))
+                .thenReturn(0);
+        when(medicalConditionRepository.existsById(999L)).thenReturn(false);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -332,14 +342,14 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Medical condition not found", exception.getMessage());
-        verify(medicalConditionRepository, never()).save(any(MedicalCondition.class));
     }
 
     @Test
     void deleteMedicalCondition_NotFound() {
         // Given
-        when(medicalConditionRepository.findById(999L))
-                .thenReturn(Optional.empty());
+        when(medicalConditionRepository.deleteByIdAndPatientPatientId(999L, 1L))
+                .thenReturn(0);
+        when(medicalConditionRepository.existsById(999L)).thenReturn(false);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -347,21 +357,14 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Medical condition not found", exception.getMessage());
-        verify(medicalConditionRepository, never()).delete(any(MedicalCondition.class));
     }
 
     @Test
     void deleteMedicalCondition_UnauthorizedAccess() {
         // Given
-        User otherUser = User.builder().email("other@example.com").build();
-        Patient otherPatient = Patient.builder().user(otherUser).build();
-        MedicalCondition otherCondition = MedicalCondition.builder()
-                .conditionId(2L)
-                .patient(otherPatient)
-                .build();
-
-        when(medicalConditionRepository.findById(2L))
-                .thenReturn(Optional.of(otherCondition));
+        when(medicalConditionRepository.deleteByIdAndPatientPatientId(2L, 1L))
+                .thenReturn(0);
+        when(medicalConditionRepository.existsById(2L)).thenReturn(true);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -369,14 +372,14 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Unauthorized access to medical condition", exception.getMessage());
-        verify(medicalConditionRepository, never()).delete(any(MedicalCondition.class));
+        verifyNoInteractions(criticalInfoCache);
     }
 
     // Additional Allergy Tests
     @Test
     void getAllergies_EmptyList() {
         // Given
-        when(allergyRepository.findByPatientUserEmail("john.doe@realuser.com"))
+        when(allergyRepository.findByPatientPatientId(1L))
                 .thenReturn(Collections.emptyList());
 
         // When
@@ -414,17 +417,17 @@ class MedicalHistoryServiceTest {
         updateDto.setSeverity(Allergy.Severity.MILD);
         updateDto.setNotes("Updated notes");
 
-        when(allergyRepository.findById(1L))
-                .thenReturn(Optional.of(testAllergy));
-        when(allergyRepository.save(any(Allergy.class)))
-                .thenReturn(testAllergy);
+        when(allergyRepository.updateByIdAndPatientPatientId(1L, 1L, "Updated Penicillin", Allergy.Severity.MILD, "Updated notes"))
+                .thenReturn(1);
 
         // When
         AllergyDto result = medicalHistoryService.updateAllergy(1L, updateDto);
 
         // Then
-        assertNotNull(result);
-        verify(allergyRepository).save(any(Allergy.class));
+        assertEquals(1L, result.getAllergyId());
+        assertEquals(Allergy.Severity.MILD, result.getSeverity());
+        verify(allergyRepository, never()).findById(any());
+        verify(criticalInfoCache).changed(1L);
     }
 
     @Test
@@ -433,8 +436,9 @@ class MedicalHistoryServiceTest {
         CreateAllergyDto updateDto = new CreateAllergyDto();
         updateDto.setAllergyName("Updated");
 
-        when(allergyRepository.findById(999L))
-                .thenReturn(Optional.empty());
+        when(allergyRepository.updateByIdAndPatientPatientId(eq(999L), eq(1L), any(), any(), any()))
+                .thenReturn(0);
+        when(allergyRepository.existsById(999L)).thenReturn(false);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -442,24 +446,17 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Allergy not found", exception.getMessage());
-        verify(allergyRepository, never()).save(any(Allergy.class));
     }
 
     @Test
     void updateAllergy_UnauthorizedAccess() {
         // Given
-        User otherUser = User.builder().email("other@example.com").build();
-        Patient otherPatient = Patient.builder().user(otherUser).build();
-        Allergy otherAllergy = Allergy.builder()
-                .allergyId(2L)
-                .patient(otherPatient)
-                .build();
-
         CreateAllergyDto updateDto = new CreateAllergyDto();
         updateDto.setAllergyName("Updated");
 
-        when(allergyRepository.findById(2L))
-                .thenReturn(Optional.of(otherAllergy));
+        when(allergyRepository.updateByIdAndPatientPatientId(eq(2L), eq(1L), any(), any(), any()))
+                .thenReturn(0);
+        when(allergyRepository.existsById(2L)).thenReturn(true);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -467,27 +464,29 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Unauthorized access to allergy", exception.getMessage());
-        verify(allergyRepository, never()).save(any(Allergy.class));
+        verifyNoInteractions(criticalInfoCache);
     }
 
     @Test
     void deleteAllergy_Success() {
         // Given
-        when(allergyRepository.findById(1L))
-                .thenReturn(Optional.of(testAllergy));
+        when(allergyRepository.deleteByIdAndPatientPatientId(1L, 1L))
+                .thenReturn(1);
 
         // When
         medicalHistoryService.deleteAllergy(1L);
 
         // Then
-        verify(allergyRepository).delete(testAllergy);
+        verify(allergyRepository, never()).existsById(any());
+        verify(criticalInfoCache).changed(1L);
     }
 
     @Test
     void deleteAllergy_NotFound() {
         // Given
-        when(allergyRepository.findById(999L))
-                .thenReturn(Optional.empty());
+        when(allergyRepository.deleteByIdAndPatientPatientId(999L, 1L))
+                .thenReturn(0);
+        when(allergyRepository.existsById(999L)).thenReturn(false);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -495,21 +494,14 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Allergy not found", exception.getMessage());
-        verify(allergyRepository, never()).delete(any(Allergy.class));
     }
 
     @Test
     void deleteAllergy_UnauthorizedAccess() {
         // Given
-        User otherUser = User.builder().email("other@example.com").build();
-        Patient otherPatient = Patient.builder().user(otherUser).build();
-        Allergy otherAllergy = Allergy.builder()
-                .allergyId(2L)
-                .patient(otherPatient)
-                .build();
-
-        when(allergyRepository.findById(2L))
-                .thenReturn(Optional.of(otherAllergy));
+        when(allergyRepository.deleteByIdAndPatientPatientId(2L, 1L))
+                .thenReturn(0);
+        when(allergyRepository.existsById(2L)).thenReturn(true);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -517,7 +509,7 @@ class MedicalHistoryServiceTest {
         });
 
         assertEquals("Unauthorized access to allergy", exception.getMessage());
-        verify(allergyRepository, never()).delete(any(Allergy.class));
+        verifyNoInteractions(criticalInfoCache);
     }
 
     // Additional Prescription Tests
@@ -759,17 +751,17 @@ class MedicalHistoryServiceTest {
         updateDto.setDiagnosedDate(LocalDate.of(2022, 1, 1));
         updateDto.setNotes("Updated high blood pressure condition");
 
-        when(medicalConditionRepository.findById(1L))
-                .thenReturn(Optional.of(testCondition));
-        when(medicalConditionRepository.save(any(MedicalCondition.class)))
-                .thenAnswer(i -> i.getArgument(0));
+        when(medicalConditionRepository.updateByIdAndPatientPatientId(1L, 1L, "Updated Hypertension",
+                LocalDate.of(2022, 1, 1), "Updated high blood pressure condition"))
+                .thenReturn(1);
 
         // When
         MedicalConditionDto result = medicalHistoryService.updateMedicalCondition(1L, updateDto);
 
         // Then
-        assertNotNull(result);
-        verify(medicalConditionRepository).save(any(MedicalCondition.class));
+        assertEquals("Updated Hypertension", result.getConditionName());
+        assertEquals(LocalDate.of(2022, 1, 1), result.getDiagnosedDate());
+        assertEquals("Updated high blood pressure condition", result.getNotes());
     }
 
     @Test
@@ -780,16 +772,79 @@ class MedicalHistoryServiceTest {
         updateDto.setSeverity(Allergy.Severity.MODERATE);
         updateDto.setNotes("Updated allergy notes");
 
-        when(allergyRepository.findById(1L))
-                .thenReturn(Optional.of(testAllergy));
-        when(allergyRepository.save(any(Allergy.class)))
-                .thenAnswer(i -> i.getArgument(0));
+        when(allergyRepository.updateByIdAndPatientPatientId(1L, 1L, "Updated Shellfish",
+                Allergy.Severity.MODERATE, "Updated allergy notes"))
+                .thenReturn(1);
 
         // When
         AllergyDto result = medicalHistoryService.updateAllergy(1L, updateDto);
 
         // Then
-        assertNotNull(result);
-        verify(allergyRepository).save(any(Allergy.class));
+        assertEquals("Updated Shellfish", result.getAllergyName());
+        assertEquals(Allergy.Severity.MODERATE, result.getSeverity());
+        assertEquals("Updated allergy notes", result.getNotes());
+    }
+
+    // Medical Summary Tests
+    @Test
+    void getMedicalSummary_ResolvesPatientOnceAndLoadsEachListOnce() {
+        // Given
+        EmergencyContact contact = EmergencyContact.builder()
+                .emergencyContactId(1L)
+                .patient(testPatient)
+                .fullName("Jane Doe")
+                .relationship("Spouse")
+                .phone("0771234567")
+                .build();
+        when(medicalConditionRepository.findByPatientPatientId(1L)).thenReturn(List.of(testCondition));
+        when(allergyRepository.findByPatientPatientId(1L)).thenReturn(List.of(testAllergy));
+        when(prescriptionRepository.findWithDoctorByPatientId(1L)).thenReturn(List.of(testPrescription));
+        when(emergencyContactRepository.findByPatientPatientId(1L)).thenReturn(List.of(contact));
+
+        // When
+        MedicalSummaryDto result = medicalHistoryService.getMedicalSummary();
+
+        // Then
+        assertEquals("Diabetes", result.getConditions().get(0).getConditionName());
+        assertEquals("Penicillin", result.getAllergies().get(0).getAllergyName());
+        assertEquals("Dr. Jane Smith", result.getPrescriptions().get(0).getDoctorName());
+        assertEquals("Jane Doe", result.getEmergencyContacts().get(0).getFullName());
+        assertEquals(32, result.getVersion().length());
+        verify(patientRepository, times(1)).findByUserEmail("john.doe@realuser.com");
+        verify(prescriptionRepository, never()).findByPatientPatientId(any());
+    }
+
+    @Test
+    void getMedicalSummary_VersionChangesOnlyWithContent() {
+        // Given
+        when(medicalConditionRepository.findByPatientPatientId(1L)).thenReturn(List.of(testCondition));
+        when(allergyRepository.findByPatientPatientId(1L)).thenReturn(List.of(testAllergy));
+        when(prescriptionRepository.findWithDoctorByPatientId(1L)).thenReturn(List.of(testPrescription));
+        when(emergencyContactRepository.findByPatientPatientId(1L)).thenReturn(List.of());
+
+        // When
+        String first = medicalHistoryService.getMedicalSummary().getVersion();
+        String unchanged = medicalHistoryService.getMedicalSummary().getVersion();
+        testAllergy.setSeverity(Allergy.Severity.MILD);
+        String changed = medicalHistoryService.getMedicalSummary().getVersion();
+
+        // Then
+        assertEquals(first, unchanged);
+        assertNotEquals(first, changed);
+    }
+
+    @Test
+    void getMedicalSummary_NoPatient_EmptyLists() {
+        // Given
+        when(patientRepository.findByUserEmail("john.doe@realuser.com")).thenReturn(Optional.empty());
+
+        // When
+        MedicalSummaryDto result = medicalHistoryService.getMedicalSummary();
+
+        // Then
+        assertTrue(result.getConditions().isEmpty());
+        assertTrue(result.getEmergencyContacts().isEmpty());
+        assertNotNull(result.getVersion());
+        verifyNoInteractions(medicalConditionRepository, allergyRepository, prescriptionRepository, emergencyContactRepository);
     }
 }
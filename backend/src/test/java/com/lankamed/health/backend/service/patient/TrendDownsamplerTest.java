@@ -0,0 +1,57 @@
+package com.lankamed.health.backend.service.patient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendDownsamplerTest {
+
+    @Test
+    void shortSeriesOrNoLimit_returnedUnchanged() {
+        List<Integer> points = List.of(1, 2, 3);
+        assertSame(points, TrendDownsampler.downsample(points, 10, Integer::doubleValue));
+        assertSame(points, TrendDownsampler.downsample(points, null, Integer::doubleValue));
+    }
+
+    @Test
+    void keepsEveryBucketsExtremes_inOrder_withinLimit() {
+        List<Integer> points = new ArrayList<>(IntStream.range(0, 1000).map(i -> 50).boxed().toList());
+        points.set(123, 400);
+        points.set(777, -300);
+
+        List<Integer> result = TrendDownsampler.downsample(points, 50, Integer::doubleValue);
+
+        assertTrue(result.size() <= 50);
+        assertTrue(result.contains(400));
+        assertTrue(result.contains(-300));
+        assertTrue(result.indexOf(400) < result.indexOf(-300));
+    }
+
+    @Test
+    void twoSeries_keepPeaksOfBoth() {
+        List<int[]> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(new int[]{120, 80});
+        }
+        points.set(10, new int[]{200, 80});
+        points.set(11, new int[]{120, 40});
+
+        List<int[]> result = TrendDownsampler.downsample(points, 8, p -> p[0], p -> p[1]);
+
+        assertTrue(result.size() <= 8);
+        assertTrue(result.contains(points.get(10)));
+        assertTrue(result.contains(points.get(11)));
+    }
+
+    @Test
+    void limitBelowMinimum_rejected() {
+        List<Integer> points = List.of(1, 2, 3, 4, 5);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> TrendDownsampler.downsample(points, 3, Integer::doubleValue, Integer::doubleValue));
+        assertEquals("maxPoints must be at least 4", ex.getMessage());
+    }
+}
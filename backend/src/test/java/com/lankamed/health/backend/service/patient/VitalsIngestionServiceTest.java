@@ -0,0 +1,161 @@
+package com.lankamed.health.backend.service.patient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lankamed.health.backend.dto.patient.BloodPressureRecordDto;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto;
+import com.lankamed.health.backend.dto.patient.BulkVitalsResultDto.Status;
+import com.lankamed.health.backend.dto.patient.VitalReadingDto;
+import com.lankamed.health.backend.dto.patient.VitalReadingDto.Type;
+import com.lankamed.health.backend.repository.patient.BloodPressureRecordRepository;
+import com.lankamed.health.backend.repository.patient.HealthMetricRepository;
+import com.lankamed.health.backend.repository.patient.VitalsBulkRepository;
+import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VitalsIngestionServiceTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2024, 6, 1, 7, 30);
+
+    @Mock private RequestIdentity requestIdentity;
+    @Mock private VitalsBulkRepository bulkRepository;
+    @Mock private HealthMetricRepository healthMetricRepository;
+    @Mock private BloodPressureRecordRepository bpRepository;
+    @Mock private WeightRecordRepository weightRepository;
+    @Mock private LatestVitalsCache latestVitals;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private VitalsIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(requestIdentity.requirePatientId()).thenReturn(1L);
+        service = new VitalsIngestionService(requestIdentity, bulkRepository, healthMetricRepository, bpRepository,
+                weightRepository, latestVitals, new ObjectMapper().findAndRegisterModules(), transactionManager, 5);
+    }
+
+    @Test
+    void jsonArray_perItemResults() throws Exception {
+        when(bpRepository.findTimestamps(1L, T, T.plusHours(2))).thenReturn(List.of(T.plusHours(2)));
+        String body = """
+                [
+                  {"type": "BLOOD_PRESSURE", "timestamp": "2024-06-01T07:30:00", "systolic": 128, "diastolic": 84},
+                  {"type": "BLOOD_PRESSURE", "timestamp": "2024-06-01T07:30:00", "systolic": 131, "diastolic": 85},
+                  {"type": "BLOOD_PRESSURE", "timestamp": "2024-06-01T09:30:00", "systolic": 140, "diastolic": 90},
+                  {"type": "BLOOD_PRESSURE", "timestamp": "2024-06-01T08:30:00", "systolic": 80, "diastolic": 95},
+                  {"type": "PULSE", "timestamp": "2024-06-01T08:30:00"}
+                ]
+                """;
+
+        BulkVitalsResultDto result = service.ingestJsonArray(stream(body));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(1, result.getAccepted());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(Status.ACCEPTED, Status.DUPLICATE, Status.DUPLICATE, Status.REJECTED, Status.REJECTED),
+                result.getItems().stream().map(BulkVitalsResultDto.ItemResult::getStatus).toList());
+        assertEquals("Same type and timestamp as reading 0", result.getItems().get(1).getMessage());
+        assertEquals("Already recorded", result.getItems().get(2).getMessage());
+        assertEquals("diastolic must be below systolic", result.getItems().get(3).getMessage());
+        assertEquals("Unreadable reading", result.getItems().get(4).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<VitalReadingDto>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkRepository).insertBloodPressure(eq(1L), inserted.capture());
+        assertEquals(List.of(128), inserted.getValue().stream().map(VitalReadingDto::getSystolic).toList());
+        verify(latestVitals).recordBloodPressure(1L, new BloodPressureRecordDto(128, 84, T));
+        verifyNoInteractions(healthMetricRepository, weightRepository);
+    }
+
+    @Test
+    void ndjson_badLineRejectedOthersStored() throws Exception {
+        String body = """
+                {"type": "WEIGHT", "timestamp": "2024-06-01T07:30:00", "weightKg": 71.2}
+
+                {"type": "WEIGHT", "timestamp": "2024-06-02T07:30:00", "weightKg": 71.0
+                {"type": "HEALTH_METRIC", "timestamp": "2024-06-01T07:30:00", "systolic": 120, "diastolic": 80, "heartRate": 64, "spo2": 98}
+                {"type": "WEIGHT", "timestamp": "2024-06-03T07:30:00"}
+                """;
+
+        BulkVitalsResultDto result = service.ingestNdjson(stream(body));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(2, result.getAccepted());
+        assertEquals("Not valid JSON", result.getItems().get(1).getMessage());
+        assertEquals("weightKg is required", result.getItems().get(3).getMessage());
+        verify(bulkRepository).insertWeights(eq(1L), argThat(list -> list.size() == 1));
+        verify(bulkRepository).insertHealthMetrics(eq(1L), argThat(list -> list.size() == 1));
+    }
+
+    @Test
+    void concurrentlyStoredReading_retriedAndReportedAsDuplicate() {
+        VitalReadingDto weight = VitalReadingDto.builder().type(Type.WEIGHT).timestamp(T).weightKg(70.5).build();
+        when(weightRepository.findTimestamps(1L, T, T)).thenReturn(List.of(), List.of(T));
+        doThrow(new DataIntegrityViolationException("uk_weight_records_patient_timestamp"))
+                .when(bulkRepository).insertWeights(eq(1L), anyList());
+
+        BulkVitalsResultDto result = service.ingest(List.of(weight));
+
+        assertEquals(0, result.getAccepted());
+        assertEquals(1, result.getDuplicates());
+        assertEquals("Already recorded", result.getItems().get(0).getMessage());
+        verify(bulkRepository, times(1)).insertWeights(eq(1L), anyList());
+        verifyNoInteractions(latestVitals);
+    }
+
+    @Test
+    void persistentConstraintViolation_givesUpAfterRetries() {
+        VitalReadingDto weight = VitalReadingDto.builder().type(Type.WEIGHT).timestamp(T).weightKg(70.5).build();
+        when(weightRepository.findTimestamps(1L, T, T)).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("uk_weight_records_patient_timestamp"))
+                .when(bulkRepository).insertWeights(eq(1L), anyList());
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.ingest(List.of(weight)));
+        verify(bulkRepository, times(3)).insertWeights(eq(1L), anyList());
+    }
+
+    @Test
+    void validate_rejectsImplausibleValues() {
+        assertEquals("timestamp is required", VitalsIngestionService.validate(VitalReadingDto.builder().type(Type.WEIGHT).weightKg(70.0).build()));
+        assertEquals("timestamp is in the future", VitalsIngestionService.validate(VitalReadingDto.builder()
+                .type(Type.WEIGHT).weightKg(70.0).timestamp(LocalDateTime.now().plusHours(1)).build()));
+        assertEquals("spo2 must be between 50 and 100", VitalsIngestionService.validate(VitalReadingDto.builder()
+                .type(Type.HEALTH_METRIC).timestamp(T).systolic(120).diastolic(80).heartRate(60).spo2(101).build()));
+        assertNull(VitalsIngestionService.validate(VitalReadingDto.builder().type(Type.WEIGHT).weightKg(70.0).timestamp(T).build()));
+    }
+
+    @Test
+    void tooManyOrNotAnArray_refusedBeforeWriting() {
+        String six = "[" + String.join(",", Collections.nCopies(6, "{}")) + "]";
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.ingestJsonArray(stream(six)));
+        assertEquals("At most 5 readings per upload", ex.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> service.ingestJsonArray(stream("{\"type\": \"WEIGHT\"}")));
+
+        verifyNoInteractions(bulkRepository, transactionManager);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
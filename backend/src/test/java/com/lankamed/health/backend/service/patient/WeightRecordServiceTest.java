@@ -6,6 +6,7 @@ import com.lankamed.health.backend.model.patient.Patient;
 import com.lankamed.health.backend.model.User;
 import com.lankamed.health.backend.repository.patient.WeightRecordRepository;
 import com.lankamed.health.backend.repository.patient.PatientRepository;
+import com.lankamed.health.backend.security.RequestIdentity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,13 +16,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +40,9 @@ class WeightRecordServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private LatestVitalsCache latestVitals;
+
     @Mock
     private Authentication authentication;
 
@@ -54,6 +62,11 @@ class WeightRecordServiceTest {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
         lenient().when(authentication.getName()).thenReturn("p@example.com");
+
+        // The caller resolves to testPatient unless a test stubs the lookup differently
+        lenient().when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
+        lenient().when(patientRepository.getReferenceById(1L)).thenReturn(testPatient);
+        ReflectionTestUtils.setField(weightRecordService, "requestIdentity", new RequestIdentity(patientRepository));
     }
 
     @Test
@@ -63,12 +76,13 @@ class WeightRecordServiceTest {
             .timestamp(LocalDateTime.now()) // changed: use LocalDateTime
             .build();
         when(patientRepository.findByUserEmail("p@example.com")).thenReturn(Optional.of(testPatient));
-        when(weightRepository.save(any(WeightRecord.class))).thenAnswer(i -> i.getArgument(0));
+        when(weightRepository.saveAndFlush(any(WeightRecord.class))).thenAnswer(i -> i.getArgument(0));
 
         WeightRecordDto res = weightRecordService.addRecord(dto);
         assertNotNull(res);
+        verify(latestVitals).recordWeight(1L, res);
         assertEquals(70.5, res.getWeightKg());
-        verify(weightRepository).save(any(WeightRecord.class));
+        verify(weightRepository).saveAndFlush(any(WeightRecord.class));
     }
 
     @Test
@@ -91,8 +105,8 @@ class WeightRecordServiceTest {
                 .timestamp(earlier)
                 .build();
 
-        when(weightRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record1, record2));
+        when(weightRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record1, record2)));
 
         // When
         List<WeightRecordDto> result = weightRecordService.getAllRecordsForCurrentPatient();
@@ -110,8 +124,8 @@ class WeightRecordServiceTest {
     @Test
     void getAllRecordsForCurrentPatient_EmptyList() {
         // Given
-        when(weightRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Collections.emptyList());
+        when(weightRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Collections.emptyList()));
 
         // When
         List<WeightRecordDto> result = weightRecordService.getAllRecordsForCurrentPatient();
@@ -132,8 +146,8 @@ class WeightRecordServiceTest {
                 .timestamp(now)
                 .build();
 
-        when(weightRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record));
+        when(weightRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record)));
 
         // When
         List<WeightRecordDto> result = weightRecordService.getAllRecordsForCurrentPatient();
@@ -162,7 +176,7 @@ class WeightRecordServiceTest {
         });
 
         assertEquals("Patient not found", exception.getMessage());
-        verify(weightRepository, never()).save(any(WeightRecord.class));
+        verify(weightRepository, never()).saveAndFlush(any(WeightRecord.class));
     }
 
     @Test
@@ -176,7 +190,7 @@ class WeightRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(weightRepository.save(any(WeightRecord.class)))
+        when(weightRepository.saveAndFlush(any(WeightRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -186,7 +200,7 @@ class WeightRecordServiceTest {
         assertNotNull(result);
         assertEquals(68.3, result.getWeightKg());
         assertEquals(timestamp, result.getTimestamp());
-        verify(weightRepository).save(any(WeightRecord.class));
+        verify(weightRepository).saveAndFlush(any(WeightRecord.class));
     }
 
     @Test
@@ -216,8 +230,8 @@ class WeightRecordServiceTest {
                 .build();
 
         // Return in random order to test sorting
-        when(weightRepository.findByPatientUserEmail("p@example.com"))
-                .thenReturn(Arrays.asList(record1, record2, record3));
+        when(weightRepository.findTrend(1L, null, null))
+                .thenReturn(asQueried(Arrays.asList(record1, record2, record3)));
 
         // When
         List<WeightRecordDto> result = weightRecordService.getAllRecordsForCurrentPatient();
@@ -244,7 +258,7 @@ class WeightRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(weightRepository.save(any(WeightRecord.class)))
+        when(weightRepository.saveAndFlush(any(WeightRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -253,7 +267,7 @@ class WeightRecordServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(0.0, result.getWeightKg());
-        verify(weightRepository).save(any(WeightRecord.class));
+        verify(weightRepository).saveAndFlush(any(WeightRecord.class));
     }
 
     @Test
@@ -266,7 +280,7 @@ class WeightRecordServiceTest {
 
         when(patientRepository.findByUserEmail("p@example.com"))
                 .thenReturn(Optional.of(testPatient));
-        when(weightRepository.save(any(WeightRecord.class)))
+        when(weightRepository.saveAndFlush(any(WeightRecord.class)))
                 .thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -275,6 +289,38 @@ class WeightRecordServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(200.5, result.getWeightKg());
-        verify(weightRepository).save(any(WeightRecord.class));
+        verify(weightRepository).saveAndFlush(any(WeightRecord.class));
+    }
+
+    @Test
+    void getRecordsForCurrentPatient_RangeAndDownsampling() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<WeightRecordDto> readings = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            readings.add(new WeightRecordDto(i == 17 ? 95.0 : 70.0, from.plusHours(i)));
+        }
+        when(weightRepository.findTrend(1L, from, null)).thenReturn(readings);
+
+        List<WeightRecordDto> result = weightRecordService.getRecordsForCurrentPatient(from, null, 10);
+
+        assertTrue(result.size() <= 10);
+        assertTrue(result.stream().anyMatch(r -> r.getWeightKg() == 95.0));
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).getTimestamp().isBefore(result.get(i).getTimestamp()));
+        }
+    }
+
+    @Test
+    void getRecordsForCurrentPatient_InvalidMaxPoints() {
+        assertThrows(IllegalArgumentException.class, () -> weightRecordService.getRecordsForCurrentPatient(null, null, 1));
+        verify(weightRepository, never()).findTrend(any(), any(), any());
+    }
+
+    // findTrend projects to DTOs ordered by timestamp
+    private static List<WeightRecordDto> asQueried(List<WeightRecord> records) {
+        return records.stream()
+                .sorted(Comparator.comparing(WeightRecord::getTimestamp))
+                .map(r -> new WeightRecordDto(r.getWeightKg(), r.getTimestamp()))
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,64 @@
+package com.lankamed.health.backend.strategy;
+
+import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.model.PaymentStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for a remote payment gateway with configurable latency and outcome.
+ * Not a Spring bean; tests create one per scenario.
+ */
+public class LatencyGatewayPayment implements PaymentStrategy {
+
+    private volatile long latencyMillis;
+    private volatile PaymentStatus result = PaymentStatus.Paid;
+    private volatile boolean failing;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public LatencyGatewayPayment(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public PaymentStatus processPayment(PaymentDTO paymentDTO) {
+        calls.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (failing) {
+                throw new IllegalStateException("Gateway error");
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Gateway call interrupted", e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setResult(PaymentStatus result) {
+        this.result = result;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+}
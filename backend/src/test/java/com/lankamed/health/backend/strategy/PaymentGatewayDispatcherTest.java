@@ -0,0 +1,204 @@
+package com.lankamed.health.backend.strategy;
+
+import com.lankamed.health.backend.dto.PaymentDTO;
+import com.lankamed.health.backend.model.PaymentStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentGatewayDispatcherTest {
+
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("payments.gateway.timeout-ms", "200")
+            .withProperty("payments.gateway.failure-threshold", "3")
+            .withProperty("payments.gateway.open-ms", "60000");
+    private PaymentGatewayDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void dispatch_fastGateway_completesWithStatus() {
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment gateway = new LatencyGatewayPayment(10);
+        gateway.setResult(PaymentStatus.Failed);
+
+        assertEquals(PaymentStatus.Failed, dispatcher.dispatch("Card", gateway, payment(), null).join());
+        // A declined payment is a valid answer, not a gateway fault
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, dispatcher.getCircuitStates().get("Card"));
+    }
+
+    @Test
+    void dispatch_slowGateway_timesOutAndReportsLateResult() throws Exception {
+        environment.setProperty("payments.gateway.card.failure-threshold", "1");
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment gateway = new LatencyGatewayPayment(600);
+        CompletableFuture<PaymentStatus> late = new CompletableFuture<>();
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> dispatcher.dispatch("Card", gateway, payment(), late::complete).join());
+
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        // With a threshold of one, the timeout counted as a failure opens the circuit
+        awaitCircuit("Card", PaymentCircuitBreaker.State.OPEN);
+        assertEquals(PaymentStatus.Paid, late.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dispatch_perTypeTimeoutOverridesDefault() {
+        environment.setProperty("payments.gateway.insurance.timeout-ms", "1000");
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment gateway = new LatencyGatewayPayment(400);
+
+        assertEquals(PaymentStatus.Paid, dispatcher.dispatch("Insurance", gateway, payment(), null).join());
+        assertThrows(CompletionException.class, () -> dispatcher.dispatch("Card", gateway, payment(), null).join());
+    }
+
+    @Test
+    void dispatch_repeatedFailures_openCircuitAndFailFast() {
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment gateway = new LatencyGatewayPayment(0);
+        gateway.setFailing(true);
+
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<PaymentStatus> call = dispatcher.dispatch("Card", gateway, payment(), null);
+            assertThrows(CompletionException.class, call::join);
+        }
+        assertEquals(PaymentCircuitBreaker.State.OPEN, dispatcher.getCircuitStates().get("Card"));
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> dispatcher.dispatch("Card", gateway, payment(), null).join());
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(3, gateway.getCalls());
+    }
+
+    @Test
+    void dispatch_fullBulkhead_rejectsWithoutStarvingOtherTypes() {
+        environment.setProperty("payments.gateway.card.threads", "2");
+        environment.setProperty("payments.gateway.card.queue-capacity", "2");
+        environment.setProperty("payments.gateway.card.timeout-ms", "5000");
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment slowCard = new LatencyGatewayPayment(500);
+        LatencyGatewayPayment cash = new LatencyGatewayPayment(0);
+
+        List<CompletableFuture<PaymentStatus>> cardCalls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            cardCalls.add(dispatcher.dispatch("Card", slowCard, payment(), null));
+        }
+        // Cash has its own pool, so it answers while every card thread is blocked
+        assertEquals(PaymentStatus.Paid, dispatcher.dispatch("Cash", cash, payment(), null).orTimeout(200, TimeUnit.MILLISECONDS).join());
+
+        long rejected = cardCalls.stream().filter(call -> {
+            try {
+                call.join();
+                return false;
+            } catch (CompletionException e) {
+                return e.getCause() instanceof IllegalStateException;
+            }
+        }).count();
+        assertEquals(2, rejected);
+        assertEquals(2, slowCard.getMaxInFlight());
+    }
+
+    @Test
+    void dispatch_fullBulkhead_doesNotOpenCircuit() {
+        environment.setProperty("payments.gateway.card.threads", "1");
+        environment.setProperty("payments.gateway.card.queue-capacity", "1");
+        environment.setProperty("payments.gateway.card.timeout-ms", "5000");
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment slowCard = new LatencyGatewayPayment(300);
+
+        List<CompletableFuture<PaymentStatus>> cardCalls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            cardCalls.add(dispatcher.dispatch("Card", slowCard, payment(), null));
+        }
+
+        // Four rejections exceed the failure threshold of three, but only gateway errors and timeouts count
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, dispatcher.getCircuitStates().get("Card"));
+        assertEquals(PaymentStatus.Paid, cardCalls.get(0).join());
+        assertEquals(PaymentStatus.Paid, cardCalls.get(1).join());
+    }
+
+    @Test
+    void circuitBreaker_releasedTrialLetsNextCallThrough() {
+        AtomicLong now = new AtomicLong();
+        PaymentCircuitBreaker breaker = new PaymentCircuitBreaker(1, 1_000, now::get);
+        breaker.recordFailure();
+        now.addAndGet(1_000);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+
+        assertEquals(PaymentCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void circuitBreaker_halfOpenTrialClosesOrReopens() {
+        AtomicLong now = new AtomicLong();
+        PaymentCircuitBreaker breaker = new PaymentCircuitBreaker(2, 1_000, now::get);
+
+        breaker.recordFailure();
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(1_000);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only one trial call while half-open");
+        breaker.recordFailure();
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(1_000);
+        assertTrue(breaker.tryAcquire());
+        breaker.recordSuccess();
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void dispatch_concurrentLoad_boundedByPoolSize() {
+        environment.setProperty("payments.gateway.card.threads", "3");
+        environment.setProperty("payments.gateway.card.queue-capacity", "50");
+        environment.setProperty("payments.gateway.card.timeout-ms", "5000");
+        dispatcher = new PaymentGatewayDispatcher(environment);
+        LatencyGatewayPayment gateway = new LatencyGatewayPayment(20);
+        List<CompletableFuture<PaymentStatus>> calls = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            calls.add(dispatcher.dispatch("Card", gateway, payment(), null));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(30, gateway.getCalls());
+        assertTrue(gateway.getMaxInFlight() <= 3);
+    }
+
+    private static PaymentDTO payment() {
+        return new PaymentDTO(1L, 100L, 1500.0, "Card", null, null);
+    }
+
+    // The breaker is updated by a completion action that may run just after join() returns
+    private void awaitCircuit(String paymentType, PaymentCircuitBreaker.State expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (dispatcher.getCircuitStates().get(paymentType) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, dispatcher.getCircuitStates().get(paymentType));
+    }
+}
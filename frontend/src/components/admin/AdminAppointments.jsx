@@ -2,6 +2,8 @@ import React, { useState, useEffect } from 'react';
 import { appointmentAPI } from '../../services/api';
 import api from '../../services/api';
 
+const PAGE_SIZE = 50;
+
 const AdminAppointments = () => {
   const [appointments, setAppointments] = useState([]);
   const [filteredAppointments, setFilteredAppointments] = useState([]);
@@ -12,21 +14,31 @@ const AdminAppointments = () => {
   const [successMessage, setSuccessMessage] = useState('');
   const [errorMessage, setErrorMessage] = useState('');
   const [loading, setLoading] = useState(false);
+  // The endpoint is keyset-paginated: cursors[i] opens page i, so Previous can go back without offsets
+  const [cursors, setCursors] = useState([null]);
+  const [pageIndex, setPageIndex] = useState(0);
+  const [nextCursor, setNextCursor] = useState(null);
+
   useEffect(() => {
-    loadAppointments();
-  }, []);
+    loadFirstPage();
+  }, [filter]);
 
 
   useEffect(() => {
     filterAndSortAppointments();
   }, [appointments, filter, searchTerm, sortBy, sortOrder]);
 
-  const loadAppointments = async () => {
+  const loadAppointments = async (index, cursor) => {
     setLoading(true);
     try {
-      const response = await appointmentAPI.getAllAppointments();
+      const params = { size: PAGE_SIZE };
+      if (cursor) params.cursor = cursor;
+      if (filter !== 'all') params.status = filter;
+      const response = await appointmentAPI.getAllAppointments(params);
       if (response.data.success) {
         setAppointments(response.data.appointments);
+        setNextCursor(response.data.nextCursor || null);
+        setPageIndex(index);
       } else {
         console.error('Error loading appointments:', response.data.error);
         setErrorMessage('Failed to load appointments');
@@ -41,6 +53,22 @@ const AdminAppointments = () => {
     }
   };
 
+  const loadFirstPage = () => {
+    setCursors([null]);
+    loadAppointments(0, null);
+  };
+
+  const loadNextPage = () => {
+    if (!nextCursor) return;
+    setCursors(prev => [...prev.slice(0, pageIndex + 1), nextCursor]);
+    loadAppointments(pageIndex + 1, nextCursor);
+  };
+
+  const loadPreviousPage = () => {
+    if (pageIndex === 0) return;
+    loadAppointments(pageIndex - 1, cursors[pageIndex - 1]);
+  };
+
   const filterAndSortAppointments = () => {
     if (!Array.isArray(appointments)) {
       setFilteredAppointments([]);
@@ -294,9 +322,12 @@ const AdminAppointments = () => {
 
             <button
               onClick={() => {
-                loadAppointments();
                 setSearchTerm('');
-                setFilter('all');
+                if (filter === 'all') {
+                  loadFirstPage();
+                } else {
+                  setFilter('all');
+                }
               }}
               className="px-4 py-2 bg-purple-600 text-white rounded-lg hover:bg-purple-700 transition-colors duration-200"
             >
@@ -455,6 +486,25 @@ const AdminAppointments = () => {
         )}
       </div>
 
+      {/* Pagination */}
+      <div className="flex items-center justify-between">
+        <button
+          onClick={loadPreviousPage}
+          disabled={loading || pageIndex === 0}
+          className="px-4 py-2 bg-white border border-gray-300 rounded-lg text-gray-700 hover:bg-gray-50 disabled:opacity-50 disabled:cursor-not-allowed transition-colors duration-200"
+        >
+          Previous
+        </button>
+        <span className="text-sm text-gray-600">Page {pageIndex + 1}</span>
+        <button
+          onClick={loadNextPage}
+          disabled={loading || !nextCursor}
+          className="px-4 py-2 bg-white border border-gray-300 rounded-lg text-gray-700 hover:bg-gray-50 disabled:opacity-50 disabled:cursor-not-allowed transition-colors duration-200"
+        >
+          Next
+        </button>
+      </div>
+
       {/* Appointment Details Modal (if needed) */}
       {filteredAppointments.length > 0 && (
         <div className="bg-white rounded-2xl shadow-lg p-6">
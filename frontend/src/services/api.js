@@ -41,7 +41,7 @@ export const appointmentAPI = {
   getPatientAppointments: () => api.get("/api/patients/me/appointments"),
   createAppointment: (appointmentData) =>
     api.post("/api/patients/me/appointments", appointmentData),
-  getAllAppointments: () => api.get("/api/user-data/appointments"),
+  getAllAppointments: (params) => api.get("/api/user-data/appointments", { params }),
   updateAppointmentStatus: (appointmentId, status) =>
     api.put(`/api/user-data/appointments/${appointmentId}/status`, { status }),
   updateAppointment: (appointmentId, data) =>